@@ -0,0 +1,15 @@
+package com.csye6225.webapp.accesslog;
+
+/**
+ * One completed request, handed from the request thread to the access log writer.
+ *
+ * @param route the matched handler pattern, or {@link AccessLogFilter#UNMATCHED_ROUTE}
+ */
+public record AccessLogEntry(long timestampMillis,
+                             String method,
+                             String uri,
+                             String route,
+                             int status,
+                             long bytes,
+                             long latencyNanos) {
+}
@@ -0,0 +1,79 @@
+package com.csye6225.webapp.accesslog;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Outermost filter: measures every request, including the ones rejected by Spring Security or
+ * timed out by the deadline filter, and hands the result to {@link AccessLogWriter}.
+ *
+ * Histograms are keyed by the matched route template so path variables do not multiply keys.
+ * Requests that never reach a handler (e.g. a 401) reuse the route if their path equals a
+ * template seen before, and are grouped under {@link #UNMATCHED_ROUTE} otherwise.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "webapp.access-log.enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    public static final String UNMATCHED_ROUTE = "UNMATCHED";
+
+    private final AccessLogWriter writer;
+    private final int maxRoutes;
+
+    // Templates without path variables, which are also literal request paths
+    private final Set<String> literalRoutes = ConcurrentHashMap.newKeySet();
+
+    public AccessLogFilter(AccessLogWriter writer,
+                           @Value("${webapp.access-log.max-routes:64}") int maxRoutes) {
+        this.writer = writer;
+        this.maxRoutes = maxRoutes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        ByteCountingResponseWrapper countingResponse = new ByteCountingResponseWrapper(response);
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, countingResponse);
+            failed = false;
+        } finally {
+            long latency = System.nanoTime() - start;
+            // An exception escaping the chain is turned into a 500 by the container
+            int status = failed && !response.isCommitted()
+                    ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR
+                    : countingResponse.getStatus();
+            writer.submit(new AccessLogEntry(System.currentTimeMillis(), request.getMethod(),
+                    request.getRequestURI(), route(request), status,
+                    countingResponse.getBytesWritten(), latency));
+        }
+    }
+
+    private String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            String route = pattern.toString();
+            if (route.indexOf('{') < 0 && route.indexOf('*') < 0 && literalRoutes.size() < maxRoutes) {
+                literalRoutes.add(route);
+            }
+            return route;
+        }
+        String uri = request.getRequestURI();
+        return literalRoutes.contains(uri) ? uri : UNMATCHED_ROUTE;
+    }
+}
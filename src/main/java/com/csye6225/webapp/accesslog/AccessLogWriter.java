@@ -0,0 +1,275 @@
+package com.csye6225.webapp.accesslog;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background writer behind {@link AccessLogFilter}.
+ *
+ * Request threads only {@link #submit(AccessLogEntry)} into a lock-free ring buffer; when it is
+ * full the entry is dropped and counted rather than waiting. A single daemon thread drains the
+ * ring, appends one line per request to a size-rotated file and feeds the per-route latency
+ * histograms, which it also rotates every webapp.access-log.histogram-interval.
+ */
+@Component
+@ConditionalOnProperty(name = "webapp.access-log.enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogWriter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogWriter.class);
+
+    private static final int DRAIN_BATCH = 512;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long REOPEN_BACKOFF_MILLIS = 10_000;
+
+    private final AccessLogRingBuffer<AccessLogEntry> ring;
+    private final RouteLatencyHistograms histograms;
+    private final Path file;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final long intervalMillis;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    // Writer thread state
+    private final StringBuilder line = new StringBuilder(160);
+    private Writer out;
+    private long fileBytes;
+    private boolean unflushed;
+    private long nextReopenMillis;
+
+    @Autowired
+    public AccessLogWriter(@Value("${webapp.access-log.file:logs/access.log}") String filePath,
+                           @Value("${webapp.access-log.max-file-size:10MB}") DataSize maxFileSize,
+                           @Value("${webapp.access-log.max-files:5}") int maxFiles,
+                           @Value("${webapp.access-log.buffer-capacity:8192}") int bufferCapacity,
+                           @Value("${webapp.access-log.histogram-interval:60s}") Duration histogramInterval,
+                           @Value("${webapp.access-log.max-routes:64}") int maxRoutes,
+                           MeterRegistry meterRegistry) {
+        this(Paths.get(filePath), maxFileSize.toBytes(), maxFiles, bufferCapacity, histogramInterval, maxRoutes);
+
+        FunctionCounter.builder("webapp.accesslog.dropped", ring, AccessLogRingBuffer::dropped)
+                .description("Access log entries dropped because the buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("webapp.accesslog.queued", ring, AccessLogRingBuffer::size)
+                .description("Access log entries waiting to be written")
+                .register(meterRegistry);
+    }
+
+    AccessLogWriter(Path file, long maxFileBytes, int maxFiles, int bufferCapacity,
+                    Duration histogramInterval, int maxRoutes) {
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.intervalMillis = histogramInterval.toMillis();
+        this.ring = new AccessLogRingBuffer<>(bufferCapacity);
+        this.histograms = new RouteLatencyHistograms(maxRoutes, System.currentTimeMillis());
+    }
+
+    /**
+     * Queue an entry without blocking; returns false if it was dropped
+     */
+    public boolean submit(AccessLogEntry entry) {
+        return ring.offer(entry);
+    }
+
+    public RouteLatencyHistograms.Snapshot lastInterval() {
+        return histograms.lastInterval();
+    }
+
+    public long dropped() {
+        return ring.dropped();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "access-log-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread writerThread;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            writerThread = thread;
+        }
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before and stop after the embedded web server, so no request is left behind
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void run() {
+        long nextRotation = System.currentTimeMillis() + intervalMillis;
+        try {
+            while (true) {
+                boolean stopping = !running;
+                int drained = ring.drain(this::write, DRAIN_BATCH);
+
+                long now = System.currentTimeMillis();
+                if (now >= nextRotation) {
+                    histograms.rotate(now);
+                    nextRotation = now + intervalMillis;
+                }
+
+                if (drained == 0) {
+                    flush();
+                    if (stopping) {
+                        break;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Access log writer stopped unexpectedly", e);
+        } finally {
+            close();
+        }
+    }
+
+    private void write(AccessLogEntry entry) {
+        histograms.record(entry.method() + " " + entry.route(), entry.latencyNanos());
+
+        line.setLength(0);
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(entry.timestampMillis()), line);
+        line.append(' ').append(entry.method())
+                .append(' ').append(entry.uri())
+                .append(' ').append(entry.route())
+                .append(' ').append(entry.status())
+                .append(' ').append(entry.bytes())
+                .append(' ').append(TimeUnit.NANOSECONDS.toMicros(entry.latencyNanos())).append("us")
+                .append('\n');
+
+        try {
+            if (out == null && !open()) {
+                return;
+            }
+            if (fileBytes > 0 && fileBytes + line.length() > maxFileBytes) {
+                rotateFiles();
+            }
+            out.append(line);
+            // Lines are ASCII apart from the (percent-encoded) URI, so chars ~ bytes
+            fileBytes += line.length();
+            unflushed = true;
+        } catch (IOException e) {
+            logger.warn("Failed to write access log {}: {}", file, e.getMessage());
+            close();
+        }
+    }
+
+    private boolean open() throws IOException {
+        long now = System.currentTimeMillis();
+        if (now < nextReopenMillis) {
+            return false;
+        }
+        nextReopenMillis = now + REOPEN_BACKOFF_MILLIS;
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8), 64 * 1024);
+        fileBytes = Files.size(file);
+        nextReopenMillis = 0;
+        return true;
+    }
+
+    /**
+     * access.log -> access.log.1 -> ... -> access.log.{maxFiles}; the oldest file is discarded
+     */
+    private void rotateFiles() throws IOException {
+        out.close();
+        out = null;
+        Files.deleteIfExists(rotated(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path source = rotated(i);
+            if (Files.exists(source)) {
+                Files.move(source, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 0) {
+            Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+        open();
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void flush() {
+        if (out == null || !unflushed) {
+            return;
+        }
+        try {
+            out.flush();
+            unflushed = false;
+        } catch (IOException e) {
+            logger.warn("Failed to flush access log {}: {}", file, e.getMessage());
+            close();
+        }
+    }
+
+    private void close() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close access log {}", file, e);
+        }
+        out = null;
+        unflushed = false;
+    }
+}
@@ -0,0 +1,37 @@
+package com.csye6225.webapp.accesslog;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/latency: per-route latency percentiles of the last completed histogram interval.
+ */
+@Component
+@Endpoint(id = "latency")
+@ConditionalOnProperty(name = "webapp.access-log.enabled", havingValue = "true", matchIfMissing = true)
+public class LatencyEndpoint {
+
+    private final AccessLogWriter writer;
+
+    public LatencyEndpoint(AccessLogWriter writer) {
+        this.writer = writer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> latency() {
+        RouteLatencyHistograms.Snapshot snapshot = writer.lastInterval();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("interval_start", Instant.ofEpochMilli(snapshot.startMillis()).toString());
+        body.put("interval_end", Instant.ofEpochMilli(snapshot.endMillis()).toString());
+        body.put("dropped_entries", writer.dropped());
+        body.put("routes", snapshot.summary());
+        return body;
+    }
+}
@@ -0,0 +1,103 @@
+package com.csye6225.webapp.accesslog;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-route latency histograms, reset at the end of every interval.
+ *
+ * Recording and {@link #rotate(long)} happen on the access log writer thread only, so the live
+ * histograms need no synchronization. Each rotation publishes an immutable copy of the interval
+ * that just ended; readers only ever see those copies.
+ */
+public class RouteLatencyHistograms {
+
+    // 1 microsecond resolution up to one minute, 2 significant digits (~20 KB per route)
+    static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final int maxRoutes;
+    private final Map<String, Histogram> live = new HashMap<>();
+    private long intervalStartMillis;
+
+    private volatile Snapshot lastInterval;
+
+    public RouteLatencyHistograms(int maxRoutes, long nowMillis) {
+        this.maxRoutes = maxRoutes;
+        this.intervalStartMillis = nowMillis;
+        this.lastInterval = new Snapshot(nowMillis, nowMillis, Collections.emptyMap());
+    }
+
+    /**
+     * Record one request. Routes beyond the maxRoutes bound share a single overflow histogram.
+     */
+    public void record(String route, long latencyNanos) {
+        Histogram histogram = live.get(route);
+        if (histogram == null) {
+            if (live.size() >= maxRoutes) {
+                route = AccessLogFilter.UNMATCHED_ROUTE;
+                histogram = live.get(route);
+            }
+            if (histogram == null) {
+                histogram = new Histogram(1, MAX_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+                live.put(route, histogram);
+            }
+        }
+        long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        histogram.recordValue(Math.min(micros, MAX_TRACKABLE_MICROS));
+    }
+
+    /**
+     * Publish the current interval and start a new, empty one
+     */
+    public void rotate(long nowMillis) {
+        Map<String, Histogram> copies = new TreeMap<>();
+        for (Map.Entry<String, Histogram> entry : live.entrySet()) {
+            if (entry.getValue().getTotalCount() > 0) {
+                copies.put(entry.getKey(), entry.getValue().copy());
+            }
+            entry.getValue().reset();
+        }
+        lastInterval = new Snapshot(intervalStartMillis, nowMillis, Collections.unmodifiableMap(copies));
+        intervalStartMillis = nowMillis;
+    }
+
+    /**
+     * Histograms of the last completed interval; safe to call from any thread
+     */
+    public Snapshot lastInterval() {
+        return lastInterval;
+    }
+
+    public record Snapshot(long startMillis, long endMillis, Map<String, Histogram> routes) {
+
+        /**
+         * Summary per route with latencies in milliseconds
+         */
+        public Map<String, Map<String, Object>> summary() {
+            Map<String, Map<String, Object>> summary = new LinkedHashMap<>();
+            routes.forEach((route, histogram) -> {
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("count", histogram.getTotalCount());
+                stats.put("mean_ms", millis(histogram.getMean()));
+                stats.put("p50_ms", millis(histogram.getValueAtPercentile(50)));
+                stats.put("p90_ms", millis(histogram.getValueAtPercentile(90)));
+                stats.put("p99_ms", millis(histogram.getValueAtPercentile(99)));
+                stats.put("p999_ms", millis(histogram.getValueAtPercentile(99.9)));
+                stats.put("max_ms", millis(histogram.getMaxValue()));
+                summary.put(route, stats);
+            });
+            return summary;
+        }
+
+        private static double millis(double micros) {
+            return Math.round(micros) / 1000.0;
+        }
+    }
+}
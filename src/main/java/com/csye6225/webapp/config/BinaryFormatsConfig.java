@@ -0,0 +1,57 @@
+package com.csye6225.webapp.config;
+
+import com.csye6225.webapp.json.BinaryJsonFormats;
+import com.csye6225.webapp.profiling.ProfiledJacksonConverters;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Lets controllers and GlobalExceptionHandler read and write Smile and CBOR besides JSON.
+ *
+ * Spring MVC registers its own Smile and CBOR converters (with default mappers) when the
+ * dataformats are on the classpath. They are replaced in place by ones using the application's
+ * mappers, so they keep their position after Boot's JSON converter and JSON still wins whenever
+ * the client accepts it (including no Accept header or *&#47;*).
+ */
+@Configuration
+public class BinaryFormatsConfig implements WebMvcConfigurer {
+
+    private final BinaryJsonFormats binaryJsonFormats;
+
+    public BinaryFormatsConfig(BinaryJsonFormats binaryJsonFormats) {
+        this.binaryJsonFormats = binaryJsonFormats;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        replace(converters, MappingJackson2SmileHttpMessageConverter.class,
+                ProfiledJacksonConverters.smile(binaryJsonFormats.smile()));
+        replace(converters, MappingJackson2CborHttpMessageConverter.class,
+                ProfiledJacksonConverters.cbor(binaryJsonFormats.cbor()));
+    }
+
+    // Swap the first converter of the given type, or append if there is none
+    private static void replace(List<HttpMessageConverter<?>> converters, Class<?> type,
+                                HttpMessageConverter<?> replacement) {
+        int index = indexOf(converters, type);
+        if (index < 0) {
+            converters.add(replacement);
+        } else {
+            converters.set(index, replacement);
+        }
+    }
+
+    private static int indexOf(List<HttpMessageConverter<?>> converters, Class<?> type) {
+        for (int i = 0; i < converters.size(); i++) {
+            if (type.isInstance(converters.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
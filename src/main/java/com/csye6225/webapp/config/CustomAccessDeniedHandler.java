@@ -1,7 +1,7 @@
 package com.csye6225.webapp.config;
 
 import com.csye6225.webapp.dto.ErrorResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.csye6225.webapp.json.BinaryJsonFormats;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -14,17 +14,16 @@ import java.io.IOException;
 @Component
 public class CustomAccessDeniedHandler implements AccessDeniedHandler {
 
-    private final ObjectMapper objectMapper;
+    private final BinaryJsonFormats binaryJsonFormats;
 
-    public CustomAccessDeniedHandler(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public CustomAccessDeniedHandler(BinaryJsonFormats binaryJsonFormats) {
+        this.binaryJsonFormats = binaryJsonFormats;
     }
 
     @Override
     public void handle(HttpServletRequest request, HttpServletResponse response,
                        AccessDeniedException accessDeniedException) throws IOException, ServletException {
         
-        response.setContentType("application/json;charset=UTF-8");
         response.setStatus(HttpServletResponse.SC_FORBIDDEN);
 
         String requestUri = (String) request.getAttribute("jakarta.servlet.error.request_uri");
@@ -32,12 +31,13 @@ public class CustomAccessDeniedHandler implements AccessDeniedHandler {
             requestUri = request.getRequestURI();
         }
 
-        ErrorResponse error = new ErrorResponse(
-            "Forbidden",
-            "Account has not been verified. Please check your email.",
-            requestUri
-        );
+        // Authenticated but not an administrator
+        String message = requestUri.startsWith("/v1/admin/")
+            ? "Administrator access required"
+            : "Account has not been verified. Please check your email.";
 
-        response.getWriter().write(objectMapper.writeValueAsString(error));
+        ErrorResponse error = new ErrorResponse("Forbidden", message, requestUri);
+
+        binaryJsonFormats.writeError(request, response, error);
     }
 }
\ No newline at end of file
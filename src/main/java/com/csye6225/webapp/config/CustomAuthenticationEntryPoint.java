@@ -1,7 +1,10 @@
 package com.csye6225.webapp.config;
 
 import com.csye6225.webapp.dto.ErrorResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.csye6225.webapp.exception.DatabaseUnavailableException;
+import com.csye6225.webapp.exception.RequestDeadlineExceededException;
+import com.csye6225.webapp.json.BinaryJsonFormats;
+import com.csye6225.webapp.resilience.AdaptiveConcurrencyLimitFilter;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -16,18 +19,16 @@ import java.io.IOException;
 @Component
 public class CustomAuthenticationEntryPoint implements AuthenticationEntryPoint {
 
-    private final ObjectMapper objectMapper;
+    private final BinaryJsonFormats binaryJsonFormats;
 
-    public CustomAuthenticationEntryPoint(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public CustomAuthenticationEntryPoint(BinaryJsonFormats binaryJsonFormats) {
+        this.binaryJsonFormats = binaryJsonFormats;
     }
 
     @Override
     public void commence(HttpServletRequest request, HttpServletResponse response,
                          AuthenticationException authException) throws IOException, ServletException {
         
-        response.setContentType("application/json;charset=UTF-8");
-
         String requestUri = (String) request.getAttribute("jakarta.servlet.error.request_uri");
         if (requestUri == null) {
             requestUri = request.getRequestURI();
@@ -36,7 +37,17 @@ public class CustomAuthenticationEntryPoint implements AuthenticationEntryPoint
         ErrorResponse errorResponse;
 
         // Recursively check the cause chain to unwrap the exception
-        if (isCausedBy(authException, UsernameNotFoundException.class)) {
+        if (isCausedBy(authException, RequestDeadlineExceededException.class)) {
+            // Case 504: Request deadline ran out while loading the user
+            response.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+            errorResponse = new ErrorResponse("Gateway Timeout", "Request could not be completed within its deadline", requestUri);
+        } else if (isCausedBy(authException, DatabaseUnavailableException.class)) {
+            // Case 503: Database circuit breaker open or auth bulkhead full
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            AdaptiveConcurrencyLimitFilter.markOverloaded(request);
+            errorResponse = new ErrorResponse("Service Unavailable", "Service is temporarily unavailable. Please retry later.", requestUri);
+        } else if (isCausedBy(authException, UsernameNotFoundException.class)) {
             // Case 404: User not found
             response.setStatus(HttpServletResponse.SC_NOT_FOUND);
             errorResponse = new ErrorResponse("Not Found", "User account not found", requestUri);
@@ -51,7 +62,7 @@ public class CustomAuthenticationEntryPoint implements AuthenticationEntryPoint
             errorResponse = new ErrorResponse("Unauthorized", "Authentication credentials are missing or invalid", requestUri);
         }
 
-        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+        binaryJsonFormats.writeError(request, response, errorResponse);
     }
 
     // Helper method: Check if the exception chain contains a specific type of exception
@@ -0,0 +1,86 @@
+package com.csye6225.webapp.config;
+
+import com.csye6225.webapp.datasource.ReplicaHealthMonitor;
+import com.csye6225.webapp.datasource.ReplicaNode;
+import com.csye6225.webapp.datasource.ReplicaRoutingDataSource;
+import com.csye6225.webapp.datasource.ReplicaRoutingProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-replica routing, enabled with webapp.datasource.routing.enabled=true.
+ *
+ * Writes and non read-only transactions use the primary pool built from spring.datasource.*.
+ * {@code @Transactional(readOnly = true)} work is sent to the replica pools: the lazy proxy only
+ * fetches a physical connection at the first statement, once the transaction's read-only flag is
+ * known, and then takes it from {@link ReplicaRoutingDataSource}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "webapp.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+public class DataSourceRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties dataSourceProperties,
+                                                             ReplicaRoutingProperties routingProperties) {
+        List<ReplicaNode> nodes = new ArrayList<>();
+        List<ReplicaRoutingProperties.Replica> replicas = routingProperties.getReplicas();
+        for (int i = 0; i < replicas.size(); i++) {
+            ReplicaRoutingProperties.Replica replica = replicas.get(i);
+
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + i);
+            config.setJdbcUrl(replica.getUrl());
+            config.setUsername(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.determineUsername());
+            config.setPassword(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.determinePassword());
+            config.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            config.setMaximumPoolSize(replica.getMaximumPoolSize());
+            config.setReadOnly(true);
+            // Fail over to the primary quickly instead of queueing on a dead replica
+            config.setConnectionTimeout(2000);
+            // Do not block startup on a replica that is down; the health monitor keeps it out of rotation
+            config.setInitializationFailTimeout(-1);
+
+            nodes.add(new ReplicaNode(config.getPoolName(), new HikariDataSource(config),
+                    routingProperties.getMaxLag().toMillis()));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, nodes);
+    }
+
+    @Bean
+    public ReplicaHealthMonitor replicaHealthMonitor(ReplicaRoutingDataSource replicaRoutingDataSource,
+                                                     ReplicaRoutingProperties routingProperties) {
+        return new ReplicaHealthMonitor(replicaRoutingDataSource, routingProperties.getLagQuery());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+        proxy.setReadOnlyDataSource(replicaRoutingDataSource);
+        return proxy;
+    }
+}
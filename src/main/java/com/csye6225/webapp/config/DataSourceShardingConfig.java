@@ -0,0 +1,89 @@
+package com.csye6225.webapp.config;
+
+import com.csye6225.webapp.datasource.ShardRebalancer;
+import com.csye6225.webapp.datasource.ShardRoutingDataSource;
+import com.csye6225.webapp.datasource.ShardSchemaIntegrator;
+import com.csye6225.webapp.datasource.ShardingProperties;
+import com.csye6225.webapp.datasource.UserShardKeys;
+import com.csye6225.webapp.purge.JobLeases;
+import com.csye6225.webapp.service.UnknownUsernameCache;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hash-sharded user storage, enabled with webapp.datasource.sharding.enabled=true.
+ *
+ * Each entry of webapp.datasource.sharding.shards gets its own pool. The lazy proxy only fetches
+ * a physical connection at the first statement, by which time {@code UserShards} has selected the
+ * shard of the user being worked on. Not combinable with read-replica routing.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "webapp.datasource.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class DataSourceShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                         ShardingProperties shardingProperties,
+                                                         @Value("${webapp.datasource.routing.enabled:false}") boolean replicaRouting) {
+        if (replicaRouting) {
+            throw new IllegalStateException("webapp.datasource.sharding and webapp.datasource.routing cannot both be enabled");
+        }
+        List<ShardingProperties.Shard> configured = shardingProperties.getShards();
+        if (configured.isEmpty() || configured.size() > UserShardKeys.MAX_SHARDS) {
+            throw new IllegalStateException("webapp.datasource.sharding.shards must list 1 to "
+                    + UserShardKeys.MAX_SHARDS + " databases");
+        }
+
+        List<DataSource> shards = new ArrayList<>();
+        for (int i = 0; i < configured.size(); i++) {
+            ShardingProperties.Shard shard = configured.get(i);
+
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("shard-" + i);
+            config.setJdbcUrl(shard.getUrl());
+            config.setUsername(shard.getUsername() != null ? shard.getUsername() : dataSourceProperties.determineUsername());
+            config.setPassword(shard.getPassword() != null ? shard.getPassword() : dataSourceProperties.determinePassword());
+            config.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            config.setMaximumPoolSize(shard.getMaximumPoolSize());
+            shards.add(new HikariDataSource(config));
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(ShardRoutingDataSource shardRoutingDataSource) {
+        ShardSchemaIntegrator integrator = new ShardSchemaIntegrator(shardRoutingDataSource.getShardCount());
+        return properties -> properties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(integrator));
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardRoutingDataSource shardRoutingDataSource,
+                                           ShardingProperties shardingProperties,
+                                           JobLeases jobLeases,
+                                           UnknownUsernameCache unknownUsernameCache) {
+        return new ShardRebalancer(shardRoutingDataSource, jobLeases, shardingProperties.getRebalanceBatchSize(),
+                shardingProperties.getRebalanceBatchPause(), shardingProperties.getRebalanceLeaseDuration(),
+                unknownUsernameCache::invalidate);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+}
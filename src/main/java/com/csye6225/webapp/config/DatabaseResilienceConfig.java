@@ -0,0 +1,48 @@
+package com.csye6225.webapp.config;
+
+import com.csye6225.webapp.resilience.DatabaseCall;
+import com.csye6225.webapp.resilience.DatabaseGuard;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Applies {@link DatabaseCall} methods through the {@link DatabaseGuard}.
+ *
+ * The advisor is ordered ahead of the transaction advisor so the guard wraps the whole
+ * transaction, including connection acquisition from Hikari. Only the tracing advisor is
+ * outside it, so time spent waiting for a bulkhead shows up in the trace.
+ */
+@Configuration
+public class DatabaseResilienceConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor databaseCallAdvisor(ObjectProvider<DatabaseGuard> databaseGuard) {
+        MethodInterceptor interceptor = invocation -> {
+            Class<?> targetClass = invocation.getThis() != null ? AopUtils.getTargetClass(invocation.getThis()) : null;
+            Method method = AopUtils.getMostSpecificMethod(invocation.getMethod(), targetClass);
+            DatabaseCall databaseCall = AnnotatedElementUtils.findMergedAnnotation(method, DatabaseCall.class);
+            if (databaseCall == null) {
+                return invocation.proceed();
+            }
+            return databaseGuard.getObject().execute(databaseCall.value(), invocation::proceed);
+        };
+
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(DatabaseCall.class), interceptor);
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return advisor;
+    }
+}
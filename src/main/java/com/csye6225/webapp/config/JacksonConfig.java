@@ -0,0 +1,39 @@
+package com.csye6225.webapp.config;
+
+import com.csye6225.webapp.dto.UserResponse;
+import com.csye6225.webapp.json.UserResponseSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Extra modules for the application's ObjectMapper; Spring Boot registers every Module bean.
+ *
+ * Blackbird replaces reflective getter/setter calls in bean (de)serializers with generated
+ * lambdas. The hand-written UserResponse serializer is opt-in with
+ * webapp.json.user-response-serializer=tuned.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "webapp.json.blackbird.enabled", havingValue = "true", matchIfMissing = true)
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "webapp.json.user-response-serializer", havingValue = "tuned")
+    public Module userResponseSerializerModule() {
+        return userResponseModule();
+    }
+
+    public static SimpleModule userResponseModule() {
+        SimpleModule module = new SimpleModule("UserResponseSerializerModule");
+        module.addSerializer(UserResponse.class, new UserResponseSerializer());
+        return module;
+    }
+}
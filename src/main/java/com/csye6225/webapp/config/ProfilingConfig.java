@@ -0,0 +1,45 @@
+package com.csye6225.webapp.config;
+
+import com.csye6225.webapp.profiling.ProfiledJacksonConverters;
+import com.csye6225.webapp.profiling.RepositoryCallInterceptor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.data.repository.Repository;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Flight Recorder instrumentation that stays on permanently.
+ *
+ * JFR events cost a few nanoseconds when no recording is running; while one is, the application's
+ * events are written without stack traces. Password hashing is instrumented in SecurityConfig,
+ * Smile/CBOR bodies in BinaryFormatsConfig.
+ */
+@Configuration
+public class ProfilingConfig {
+
+    /**
+     * Times every Spring Data repository call (UserRepository, HealthCheckRepository, ...)
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor repositoryCallAdvisor() {
+        // Wraps the repository proxy, so an event also covers the repository's own transaction handling
+        return new DefaultPointcutAdvisor(
+                new ComposablePointcut(new RootClassFilter(Repository.class)), new RepositoryCallInterceptor());
+    }
+
+    /**
+     * Boot's JSON converter, replaced by one that records body (de)serialization
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return ProfiledJacksonConverters.json(objectMapper);
+    }
+}
@@ -0,0 +1,31 @@
+package com.csye6225.webapp.config;
+
+import com.csye6225.webapp.deadline.DeadlineEnforcingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Applies the request deadline to JDBC by wrapping the application's main "dataSource" bean.
+ * Only that bean is wrapped so pools injected by concrete type (e.g. the primary Hikari pool
+ * used for replica routing) keep their type and statements get a single timeout.
+ */
+@Configuration
+public class RequestDeadlineConfig {
+
+    @Bean
+    public static BeanPostProcessor deadlineEnforcingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof DeadlineEnforcingDataSource)) {
+                    return new DeadlineEnforcingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
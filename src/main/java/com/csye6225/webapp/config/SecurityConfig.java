@@ -1,10 +1,14 @@
 package com.csye6225.webapp.config;
 
+import com.csye6225.webapp.deadline.DeadlineAwarePasswordEncoder;
+import com.csye6225.webapp.profiling.ProfiledPasswordEncoder;
 import com.csye6225.webapp.service.CustomUserDetailsService;
+import com.csye6225.webapp.tracing.TracingPasswordEncoder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -29,9 +33,17 @@ public class SecurityConfig {
     @Autowired
     private CustomAccessDeniedHandler accessDeniedHandler;
 
+    // Boot's DefaultAuthenticationEventPublisher; successes feed LoginTracker
+    @Autowired
+    private AuthenticationEventPublisher authenticationEventPublisher;
+
+    /**
+     * BCrypt encoder that refuses to hash once the request deadline has passed (traced and profiled)
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new DeadlineAwarePasswordEncoder(
+                new TracingPasswordEncoder(new ProfiledPasswordEncoder(new BCryptPasswordEncoder())));
     }
 
     /**
@@ -51,10 +63,13 @@ public class SecurityConfig {
      * 2. Manually build AuthenticationManager
      * We do not use AuthenticationConfiguration, but create a ProviderManager directly.
      * This ensures 100% that our authenticationProvider is included.
+     * It publishes authentication events, which a hand-built ProviderManager does not by default.
      */
     @Bean
     public AuthenticationManager authenticationManager() {
-        return new ProviderManager(Collections.singletonList(authenticationProvider()));
+        ProviderManager manager = new ProviderManager(Collections.singletonList(authenticationProvider()));
+        manager.setAuthenticationEventPublisher(authenticationEventPublisher);
+        return manager;
     }
 
     @Bean
@@ -66,8 +81,12 @@ public class SecurityConfig {
             )
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/healthz").permitAll()
+                .requestMatchers("/actuator/health/liveness", "/actuator/health/readiness").permitAll()
+                // Metrics, latency and health details are for operations staff, not every signed-up user
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.POST, "/v1/user").permitAll()
                 .requestMatchers("/v1/user/self").authenticated()
+                .requestMatchers("/v1/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
             // 3. Explicitly bind our manually built manager to httpBasic
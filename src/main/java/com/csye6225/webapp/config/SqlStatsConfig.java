@@ -0,0 +1,25 @@
+package com.csye6225.webapp.config;
+
+import com.csye6225.webapp.sqlstats.EntityLoadCountingInterceptor;
+import com.csye6225.webapp.sqlstats.SqlStatsSessionEventListener;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hooks the per-request SQL statistics into Hibernate.
+ * Hibernate's global Statistics are shared by all sessions, so per-request numbers come
+ * from session events instead.
+ */
+@Configuration
+public class SqlStatsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatsHibernateCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SqlStatsSessionEventListener.class.getName());
+            properties.put(AvailableSettings.INTERCEPTOR, new EntityLoadCountingInterceptor());
+        };
+    }
+}
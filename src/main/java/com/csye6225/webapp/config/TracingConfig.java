@@ -0,0 +1,65 @@
+package com.csye6225.webapp.config;
+
+import com.csye6225.webapp.tracing.TracingDataSource;
+import com.csye6225.webapp.tracing.TracingFilterChainDecorator;
+import com.csye6225.webapp.tracing.TracingMethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.support.ClassFilters;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.aop.support.annotation.AnnotationClassFilter;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.Repository;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+
+/**
+ * Adds tracing spans below the request's server span: Spring Security's filters, every
+ * controller, service and repository call, and each JDBC statement. BCrypt spans come from the
+ * password encoder in SecurityConfig.
+ */
+@Configuration
+@ConditionalOnProperty(name = "webapp.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor tracingAdvisor() {
+        ClassFilter layers = ClassFilters.union(new ClassFilter[] {
+                new AnnotationClassFilter(RestController.class, true),
+                new AnnotationClassFilter(Service.class, true),
+                new RootClassFilter(Repository.class)});
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new ComposablePointcut(layers), new TracingMethodInterceptor());
+        // Outermost, so a service span includes the database guard and the transaction
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    @Bean
+    public static BeanPostProcessor tracingInfrastructurePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof FilterChainProxy filterChainProxy) {
+                    filterChainProxy.setFilterChainDecorator(new TracingFilterChainDecorator());
+                }
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof TracingDataSource)) {
+                    return new TracingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
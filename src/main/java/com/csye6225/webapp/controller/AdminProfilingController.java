@@ -0,0 +1,84 @@
+package com.csye6225.webapp.controller;
+
+import com.csye6225.webapp.dto.ErrorResponse;
+import com.csye6225.webapp.profiling.FlightRecordingService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Admin-only on-demand profiling (ROLE_ADMIN): JDK Flight Recorder recordings of this instance.
+ */
+@RestController
+@RequestMapping("/v1/admin/profiling")
+public class AdminProfilingController {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Autowired
+    private FlightRecordingService flightRecordingService;
+
+    @Value("${webapp.profiling.default-duration:30s}")
+    private Duration defaultDuration;
+
+    // Record for `duration` (blocking), then return the .jfr file
+    @PostMapping("/recordings")
+    public ResponseEntity<?> record(
+            @RequestParam(value = "duration", required = false) String duration,
+            @RequestParam(value = "settings", required = false, defaultValue = "default") String settings,
+            HttpServletRequest httpRequest) throws IOException {
+
+        // 1. Validate query parameters
+        Duration length;
+        try {
+            length = duration == null ? defaultDuration : DurationStyle.detectAndParse(duration);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, "Validation Error", "duration must look like 30s or 2m", httpRequest);
+        }
+        Duration max = flightRecordingService.getMaxDuration();
+        if (length.isNegative() || length.isZero() || length.compareTo(max) > 0) {
+            return error(HttpStatus.BAD_REQUEST, "Validation Error", "duration must be positive and at most " + max, httpRequest);
+        }
+        if (!FlightRecordingService.SETTINGS.contains(settings)) {
+            return error(HttpStatus.BAD_REQUEST, "Validation Error", "settings must be default or profile", httpRequest);
+        }
+        if (!flightRecordingService.isAvailable()) {
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", "Flight Recorder is not available in this JVM", httpRequest);
+        }
+
+        // 2. Record; only one recording runs at a time
+        byte[] recording;
+        try {
+            recording = flightRecordingService.record(length, settings);
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, "Conflict", e.getMessage(), httpRequest);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", "Recording was interrupted", httpRequest);
+        }
+
+        // 3. Return it as a download
+        String filename = "webapp-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr";
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(recording);
+    }
+
+    private static ResponseEntity<ErrorResponse> error(HttpStatus status, String error, String message,
+                                                       HttpServletRequest httpRequest) {
+        return ResponseEntity.status(status).body(new ErrorResponse(error, message, httpRequest.getRequestURI()));
+    }
+}
@@ -0,0 +1,53 @@
+package com.csye6225.webapp.controller;
+
+import com.csye6225.webapp.dto.ErrorResponse;
+import com.csye6225.webapp.dto.UnverifiedPurgeStatus;
+import com.csye6225.webapp.purge.UnverifiedAccountPurger;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+/**
+ * Admin-only data maintenance (ROLE_ADMIN): on-demand runs of the unverified account purge,
+ * started in the background and followed with GET.
+ */
+@RestController
+@RequestMapping("/v1/admin/purge")
+public class AdminPurgeController {
+
+    @Autowired
+    private UnverifiedAccountPurger unverifiedAccountPurger;
+
+    // Start deleting stale unverified accounts now (same limits as the scheduled run); dry_run defaults to true
+    @PostMapping("/unverified")
+    public ResponseEntity<?> purgeUnverified(
+            @RequestParam(value = "dry_run", required = false, defaultValue = "true") String dryRun,
+            HttpServletRequest httpRequest) {
+
+        // 1. Validate query parameters
+        if (!"true".equalsIgnoreCase(dryRun) && !"false".equalsIgnoreCase(dryRun)) {
+            ErrorResponse error = new ErrorResponse("Validation Error", "dry_run must be true or false", httpRequest.getRequestURI());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+
+        // 2. Start it in the background; only one purge runs in the cluster at a time
+        try {
+            return ResponseEntity.accepted()
+                    .location(URI.create(httpRequest.getRequestURI()))
+                    .body(unverifiedAccountPurger.start(Boolean.parseBoolean(dryRun)));
+        } catch (IllegalStateException e) {
+            ErrorResponse error = new ErrorResponse("Conflict", e.getMessage(), httpRequest.getRequestURI());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+    }
+
+    // Progress on this node, and the report of its latest finished run
+    @GetMapping("/unverified")
+    public ResponseEntity<UnverifiedPurgeStatus> purgeStatus() {
+        return ResponseEntity.ok(unverifiedAccountPurger.status());
+    }
+}
@@ -0,0 +1,56 @@
+package com.csye6225.webapp.controller;
+
+import com.csye6225.webapp.datasource.ShardRebalancer;
+import com.csye6225.webapp.dto.ErrorResponse;
+import com.csye6225.webapp.dto.ShardRebalanceStatus;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+/**
+ * Admin-only shard maintenance (ROLE_ADMIN), present when user storage is sharded. Rebalance
+ * runs are started in the background and followed with GET.
+ */
+@RestController
+@RequestMapping("/v1/admin/shards")
+@ConditionalOnProperty(prefix = "webapp.datasource.sharding", name = "enabled", havingValue = "true")
+public class AdminShardController {
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    // Move users to the shard owning them, e.g. after shards were added; dry_run=true only counts them
+    @PostMapping("/rebalance")
+    public ResponseEntity<?> rebalance(
+            @RequestParam(value = "dry_run", required = false) String dryRun,
+            HttpServletRequest httpRequest) {
+
+        // 1. Validate query parameters
+        if (dryRun != null && !"true".equalsIgnoreCase(dryRun) && !"false".equalsIgnoreCase(dryRun)) {
+            ErrorResponse error = new ErrorResponse("Validation Error", "dry_run must be true or false", httpRequest.getRequestURI());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        boolean onlyCount = Boolean.parseBoolean(dryRun);
+
+        // 2. Start scanning every shard in the background; only one rebalance runs in the cluster at a time
+        try {
+            return ResponseEntity.accepted()
+                    .location(URI.create(httpRequest.getRequestURI()))
+                    .body(shardRebalancer.start(onlyCount));
+        } catch (IllegalStateException e) {
+            ErrorResponse error = new ErrorResponse("Conflict", e.getMessage(), httpRequest.getRequestURI());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+    }
+
+    // Progress on this node: the shards done so far, or the reports of its latest run
+    @GetMapping("/rebalance")
+    public ResponseEntity<ShardRebalanceStatus> rebalanceStatus() {
+        return ResponseEntity.ok(shardRebalancer.status());
+    }
+}
@@ -0,0 +1,172 @@
+package com.csye6225.webapp.controller;
+
+import com.csye6225.webapp.dto.AdminUserPage;
+import com.csye6225.webapp.dto.ErrorResponse;
+import com.csye6225.webapp.dto.UserCursor;
+import com.csye6225.webapp.dto.UserLookupRequest;
+import com.csye6225.webapp.dto.UserLookupResult;
+import com.csye6225.webapp.search.UserSearchHit;
+import com.csye6225.webapp.search.UserSearchIndex;
+import com.csye6225.webapp.service.UserBatchLookup;
+import com.csye6225.webapp.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin-only user listing, search and batch lookup (ROLE_ADMIN, granted by the users.admin column).
+ */
+@RestController
+@RequestMapping("/v1/admin/users")
+public class AdminUserController {
+
+    @Autowired
+    private UserService userService;
+
+    @Value("${webapp.admin.listing.default-limit:50}")
+    private int defaultLimit;
+
+    @Value("${webapp.admin.listing.max-limit:200}")
+    private int maxLimit;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Value("${webapp.search.default-limit:10}")
+    private int defaultSearchLimit;
+
+    @Value("${webapp.search.max-limit:50}")
+    private int maxSearchLimit;
+
+    @Autowired
+    private UserBatchLookup userBatchLookup;
+
+    @Value("${webapp.admin.lookup.max-keys:500}")
+    private int maxLookupKeys;
+
+    private static final int MAX_QUERY_LENGTH = 100;
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    // List users, newest first, one keyset page at a time
+    @GetMapping
+    public ResponseEntity<?> listUsers(
+            @RequestParam(value = "limit", required = false) String limit,
+            @RequestParam(value = "verified", required = false) String verified,
+            @RequestParam(value = "created_after", required = false) String createdAfter,
+            @RequestParam(value = "created_before", required = false) String createdBefore,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            HttpServletRequest httpRequest) {
+
+        // 1. Validate query parameters
+        int pageSize;
+        Boolean verifiedFilter;
+        LocalDateTime createdFrom;
+        LocalDateTime createdTo;
+        UserCursor after;
+        try {
+            pageSize = limit == null ? defaultLimit : Integer.parseInt(limit);
+            if (pageSize < 1 || pageSize > maxLimit) {
+                return badRequest("limit must be between 1 and " + maxLimit, httpRequest);
+            }
+            verifiedFilter = parseBoolean(verified);
+            createdFrom = parseTimestamp(createdAfter);
+            createdTo = parseTimestamp(createdBefore);
+            after = cursor == null || cursor.isEmpty() ? null : UserCursor.decode(cursor);
+        } catch (NumberFormatException e) {
+            return badRequest("limit must be a number", httpRequest);
+        } catch (DateTimeParseException e) {
+            return badRequest("created_after and created_before must be ISO-8601 timestamps", httpRequest);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage(), httpRequest);
+        }
+
+        // 2. Fetch the page (served by a replica when routing is enabled)
+        AdminUserPage page = userService.listUsers(verifiedFilter, createdFrom, createdTo, after, pageSize);
+        return ResponseEntity.ok(page);
+    }
+
+    // Type-ahead search by email, first name or last name prefix, served from memory
+    @GetMapping("/search")
+    public ResponseEntity<?> searchUsers(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "limit", required = false) String limit,
+            HttpServletRequest httpRequest) {
+
+        // 1. Validate query parameters
+        if (query == null || query.isBlank() || query.length() > MAX_QUERY_LENGTH) {
+            return badRequest("q must contain 1 to " + MAX_QUERY_LENGTH + " characters", httpRequest);
+        }
+        int resultLimit;
+        try {
+            resultLimit = limit == null ? defaultSearchLimit : Integer.parseInt(limit);
+        } catch (NumberFormatException e) {
+            return badRequest("limit must be a number", httpRequest);
+        }
+        if (resultLimit < 1 || resultLimit > maxSearchLimit) {
+            return badRequest("limit must be between 1 and " + maxSearchLimit, httpRequest);
+        }
+
+        // 2. The index is loaded asynchronously at startup
+        if (!userSearchIndex.isReady()) {
+            ErrorResponse error = new ErrorResponse("Service Unavailable", "Search index is still loading", httpRequest.getRequestURI());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5").body(error);
+        }
+
+        List<UserSearchHit> results = userSearchIndex.search(query, resultLimit);
+        return ResponseEntity.ok(Map.of("results", results));
+    }
+
+    // Resolve many ids and/or usernames in one call; results follow the request order
+    @PostMapping("/lookup")
+    public ResponseEntity<?> lookupUsers(
+            @RequestBody UserLookupRequest request,
+            HttpServletRequest httpRequest) {
+
+        // 1. Validate the keys
+        List<String> keys = request.getKeys();
+        if (keys == null || keys.isEmpty() || keys.size() > maxLookupKeys) {
+            return badRequest("keys must contain 1 to " + maxLookupKeys + " entries", httpRequest);
+        }
+        for (String key : keys) {
+            if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+                return badRequest("Each key must be a user id or username of 1 to " + MAX_KEY_LENGTH + " characters", httpRequest);
+            }
+        }
+
+        // 2. Resolve with chunked IN queries, sharing keys other requests are already fetching
+        List<UserLookupResult> results = userBatchLookup.lookup(keys);
+        return ResponseEntity.ok(Map.of("results", results));
+    }
+
+    private static Boolean parseBoolean(String value) {
+        if (value == null) {
+            return null;
+        }
+        if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+            return Boolean.valueOf(value);
+        }
+        throw new IllegalArgumentException("verified must be true or false");
+    }
+
+    // Accept timestamps as returned in account_created, i.e. with the literal 'Z' suffix
+    private static LocalDateTime parseTimestamp(String value) {
+        if (value == null) {
+            return null;
+        }
+        return LocalDateTime.parse(value.endsWith("Z") ? value.substring(0, value.length() - 1) : value);
+    }
+
+    private static ResponseEntity<ErrorResponse> badRequest(String message, HttpServletRequest httpRequest) {
+        ErrorResponse error = new ErrorResponse("Validation Error", message, httpRequest.getRequestURI());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+}
@@ -2,8 +2,12 @@ package com.csye6225.webapp.controller;
 
 import com.csye6225.webapp.entity.HealthCheck;
 import com.csye6225.webapp.repository.HealthCheckRepository;
+import com.csye6225.webapp.resilience.DatabaseCompartment;
+import com.csye6225.webapp.resilience.DatabaseGuard;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +18,12 @@ public class HealthCheckController {
     
     @Autowired
     private HealthCheckRepository healthCheckRepository;
+
+    @Autowired
+    private DatabaseGuard databaseGuard;
+
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
     
     @GetMapping("/healthz")
     public ResponseEntity<Void> healthCheck(
@@ -38,10 +48,19 @@ public class HealthCheckController {
                     .build();
         }
         
+        // Not ready while the startup warm-up is still running (or during shutdown)
+        if (applicationAvailability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate")
+                    .header("Pragma", "no-cache")
+                    .header("X-Content-Type-Options", "nosniff")
+                    .build();
+        }
+        
         try {
-            // Insert health check record
+            // Insert health check record (fails fast while the database circuit breaker is open)
             HealthCheck healthCheck = new HealthCheck();
-            healthCheckRepository.save(healthCheck);
+            databaseGuard.call(DatabaseCompartment.HEALTH, () -> healthCheckRepository.save(healthCheck));
             
             // Return 200 OK
             return ResponseEntity.ok()
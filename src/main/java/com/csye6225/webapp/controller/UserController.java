@@ -4,7 +4,11 @@ import com.csye6225.webapp.dto.ErrorResponse;
 import com.csye6225.webapp.dto.UserCreateRequest;
 import com.csye6225.webapp.dto.UserResponse;
 import com.csye6225.webapp.dto.UserUpdateRequest;
-import com.csye6225.webapp.entity.User;
+import com.csye6225.webapp.exception.DatabaseUnavailableException;
+import com.csye6225.webapp.exception.RequestDeadlineExceededException;
+import com.csye6225.webapp.idempotency.IdempotencyStore;
+import com.csye6225.webapp.json.BinaryJsonFormats;
+import com.csye6225.webapp.profiling.JsonSerializationEvent;
 import com.csye6225.webapp.service.UserService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -28,17 +32,40 @@ public class UserController {
     @Autowired
     private UserService userService;
     
+    private static final String SUPPORTED_CONTENT_TYPES =
+        "Content-Type must be application/json, application/x-jackson-smile or application/cbor";
+    
+    @Autowired
+    private BinaryJsonFormats binaryJsonFormats;
+    
     @Autowired
-    private ObjectMapper objectMapper;
+    private IdempotencyStore idempotencyStore;
     
-    // Create User (POST) - Keep existing logic
+    // Create User (POST) - Keep existing logic; retries with the same Idempotency-Key get the original response
     @PostMapping
     public ResponseEntity<?> createUser(
             @Valid @RequestBody UserCreateRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             HttpServletRequest httpRequest) {
+        if (idempotencyKey == null) {
+            return doCreateUser(request, httpRequest);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 255) {
+            ErrorResponse error = new ErrorResponse("Validation Error", "Idempotency-Key must be 1 to 255 characters", httpRequest.getRequestURI());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        byte[] fingerprint = idempotencyStore.fingerprint(
+            request.getUsername(), request.getPassword(), request.getFirstName(), request.getLastName());
+        return idempotencyStore.execute(idempotencyKey, fingerprint, () -> doCreateUser(request, httpRequest));
+    }
+    
+    private ResponseEntity<?> doCreateUser(UserCreateRequest request, HttpServletRequest httpRequest) {
         try {
             UserResponse response = userService.createUser(request);
             return ResponseEntity.status(HttpStatus.CREATED).header("Location", "/v1/user/self").body(response);
+        } catch (DatabaseUnavailableException | RequestDeadlineExceededException e) {
+            // Answered with 503/504 by GlobalExceptionHandler
+            throw e;
         } catch (IllegalArgumentException e) {
             ErrorResponse error = new ErrorResponse("Conflict", e.getMessage(), httpRequest.getRequestURI());
             return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
@@ -54,8 +81,11 @@ public class UserController {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String username = authentication.getName();
-            User user = userService.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
-            return ResponseEntity.ok(userService.mapToResponse(user));
+            UserResponse response = userService.findResponseByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
+            return ResponseEntity.ok(response);
+        } catch (DatabaseUnavailableException | RequestDeadlineExceededException e) {
+            // Answered with 503/504 by GlobalExceptionHandler
+            throw e;
         } catch (Exception e) {
             ErrorResponse error = new ErrorResponse("Validation Error", "User account not found", httpRequest.getRequestURI());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
@@ -65,18 +95,20 @@ public class UserController {
     // Update User (PUT) - Logic Corrected Here
     @PutMapping("/self")
     public ResponseEntity<?> updateCurrentUser(
-            @RequestBody String requestBody,
+            @RequestBody byte[] requestBody,
             @RequestHeader(value = "Content-Type", required = false) String contentType,
             HttpServletRequest httpRequest) {
         
-        // 1. Check Content-Type
-        if (contentType == null || !contentType.contains("application/json")) {
-            ErrorResponse error = new ErrorResponse("Unsupported Media Type", "Content-Type must be application/json", httpRequest.getRequestURI());
+        // 1. Check Content-Type (JSON, or Smile/CBOR from internal clients)
+        ObjectMapper bodyMapper = binaryJsonFormats.forContentType(contentType);
+        if (bodyMapper == null) {
+            ErrorResponse error = new ErrorResponse("Unsupported Media Type", SUPPORTED_CONTENT_TYPES, httpRequest.getRequestURI());
             return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).body(error);
         }
         
         try {
-            JsonNode jsonNode = objectMapper.readTree(requestBody);
+            JsonNode jsonNode = JsonSerializationEvent.read(binaryJsonFormats.formatName(bodyMapper), JsonNode.class,
+                    () -> bodyMapper.readTree(requestBody));
             
             // 2. Check for empty body or empty JSON {}
             // This matches the "Bad Request" requirement for empty body
@@ -114,19 +146,21 @@ public class UserController {
             
             // 5. Perform Update
             // If we reached here, it means the JSON is not empty AND all fields are valid allowed fields.
-            UserUpdateRequest updateRequest = objectMapper.treeToValue(jsonNode, UserUpdateRequest.class);
+            UserUpdateRequest updateRequest = bodyMapper.treeToValue(jsonNode, UserUpdateRequest.class);
             
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String username = authentication.getName();
             
-            User user = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-            
-            userService.updateUser(user, updateRequest);
+            if (!userService.updateUser(username, updateRequest)) {
+                throw new RuntimeException("User not found");
+            }
             
             // Return 204 No Content
             return ResponseEntity.noContent().build();
             
+        } catch (DatabaseUnavailableException | RequestDeadlineExceededException e) {
+            // Answered with 503/504 by GlobalExceptionHandler
+            throw e;
         } catch (Exception e) {
             ErrorResponse error = new ErrorResponse("Bad Request", "Invalid JSON format", httpRequest.getRequestURI());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
@@ -0,0 +1,80 @@
+package com.csye6225.webapp.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a user's reads on the primary for a short window after one of their writes commits,
+ * so a GET right after PUT /v1/user/self does not see replica lag on this node.
+ * The window is tracked per node, in memory: behind a load balancer without session affinity the
+ * follow-up GET can land on another node, which has no record of the write and may read a stale
+ * replica. Keep max-lag small or route a user's requests to one node if that matters.
+ * It is a no-op when replica routing is disabled.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    // Above this size expired entries are swept on the next write
+    private static final int SWEEP_THRESHOLD = 10_000;
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final Map<String, Long> lastWrite = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(
+            @Value("${webapp.datasource.routing.enabled:false}") boolean enabled,
+            @Value("${webapp.datasource.routing.read-your-writes-window:10s}") Duration window) {
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * Record that the user's row was just written on the primary
+     */
+    public void recordWrite(String username) {
+        if (!enabled || username == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (lastWrite.size() >= SWEEP_THRESHOLD) {
+            lastWrite.values().removeIf(writtenAt -> now - writtenAt > windowNanos);
+        }
+        lastWrite.put(key(username), now);
+    }
+
+    /**
+     * Run a read for the user, on the primary if they wrote recently
+     */
+    public <T> T read(String username, Supplier<T> query) {
+        if (isPinned(username)) {
+            return ReplicaRoutingContext.onPrimary(query);
+        }
+        return query.get();
+    }
+
+    boolean isPinned(String username) {
+        if (!enabled || username == null) {
+            return false;
+        }
+        String key = key(username);
+        Long writtenAt = lastWrite.get(key);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt > windowNanos) {
+            lastWrite.remove(key, writtenAt);
+            return false;
+        }
+        return true;
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
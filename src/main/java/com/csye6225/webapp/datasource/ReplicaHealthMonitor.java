@@ -0,0 +1,95 @@
+package com.csye6225.webapp.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Periodically probes every replica and records whether it is reachable and how far it lags.
+ *
+ * The lag query defaults to SHOW REPLICA STATUS. An empty result means the instance is not
+ * configured as a replica (e.g. a second local database used for testing) and counts as no lag;
+ * a NULL lag means replication is broken and takes the replica out of rotation.
+ */
+public class ReplicaHealthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaHealthMonitor.class);
+
+    private static final int PROBE_TIMEOUT_SECONDS = 2;
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final String lagQuery;
+
+    public ReplicaHealthMonitor(ReplicaRoutingDataSource routingDataSource, String lagQuery) {
+        this.routingDataSource = routingDataSource;
+        this.lagQuery = lagQuery;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${webapp.datasource.routing.health-check-interval:5s}")
+    public void checkReplicas() {
+        for (ReplicaNode node : routingDataSource.getReplicas()) {
+            check(node);
+        }
+    }
+
+    void check(ReplicaNode node) {
+        boolean wasAvailable = node.isAvailable();
+        try (Connection connection = node.getDataSource().getConnection()) {
+            Long lagMillis = readLagMillis(connection);
+            if (lagMillis == null) {
+                node.markUnhealthy();
+            } else {
+                node.markHealthy(lagMillis);
+            }
+        } catch (SQLException e) {
+            node.markUnhealthy();
+            if (wasAvailable) {
+                logger.warn("Replica {} failed its health check: {}", node.getName(), e.getMessage());
+            }
+        }
+
+        if (wasAvailable != node.isAvailable()) {
+            logger.info("Replica {} is now {} (healthy={}, lag={}ms)", node.getName(),
+                    node.isAvailable() ? "in rotation" : "out of rotation", node.isHealthy(), node.getLagMillis());
+        }
+    }
+
+    // Returns null when replication is reported as broken
+    private Long readLagMillis(Connection connection) throws SQLException {
+        if (lagQuery == null || lagQuery.isBlank()) {
+            return connection.isValid(PROBE_TIMEOUT_SECONDS) ? 0L : null;
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(PROBE_TIMEOUT_SECONDS);
+            try (ResultSet rs = statement.executeQuery(lagQuery)) {
+                if (!rs.next()) {
+                    return 0L;
+                }
+                String column = lagColumn(rs.getMetaData());
+                if (column == null) {
+                    return 0L;
+                }
+                long seconds = rs.getLong(column);
+                return rs.wasNull() ? null : seconds * 1000;
+            }
+        }
+    }
+
+    // MySQL 8.0.22 renamed Seconds_Behind_Master to Seconds_Behind_Source
+    private String lagColumn(ResultSetMetaData metaData) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String label = metaData.getColumnLabel(i);
+            if ("Seconds_Behind_Source".equalsIgnoreCase(label) || "Seconds_Behind_Master".equalsIgnoreCase(label)) {
+                return label;
+            }
+        }
+        return metaData.getColumnCount() == 1 ? metaData.getColumnLabel(1) : null;
+    }
+}
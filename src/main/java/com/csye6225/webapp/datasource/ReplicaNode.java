@@ -0,0 +1,55 @@
+package com.csye6225.webapp.datasource;
+
+import javax.sql.DataSource;
+
+/**
+ * One replica pool plus the health state last observed by {@link ReplicaHealthMonitor}.
+ */
+public class ReplicaNode {
+
+    private final String name;
+    private final DataSource dataSource;
+    private final long maxLagMillis;
+
+    // Replicas start out of rotation until the first health check passes
+    private volatile boolean healthy = false;
+    private volatile long lagMillis = 0;
+
+    public ReplicaNode(String name, DataSource dataSource, long maxLagMillis) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    /**
+     * Eligible for reads: reachable and not lagging past the configured bound
+     */
+    public boolean isAvailable() {
+        return healthy && lagMillis <= maxLagMillis;
+    }
+
+    public void markHealthy(long lagMillis) {
+        this.lagMillis = lagMillis;
+        this.healthy = true;
+    }
+
+    public void markUnhealthy() {
+        this.healthy = false;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+}
@@ -0,0 +1,223 @@
+package com.csye6225.webapp.datasource;
+
+import com.csye6225.webapp.dto.ShardRebalanceReport;
+import com.csye6225.webapp.dto.ShardRebalanceStatus;
+import com.csye6225.webapp.purge.JobLeases;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Moves users to the shard that owns them after shards were added.
+ *
+ * Every shard is scanned in username order, a batch at a time. A user owned by another shard is
+ * copied there with the same id and timestamps and then deleted from the source. The two steps
+ * are separate transactions on separate databases: if a run stops in between, the user exists on
+ * both shards and the next run only deletes the stale copy. Lookups already go to the new owner,
+ * so run this right after the new shards are configured, before traffic comes back.
+ *
+ * A run happens on a thread of its own, like the unverified account purge: the request starting
+ * it returns at once and is followed with {@link #status()}. The run pauses between batches,
+ * bounds every statement with a query timeout, and renews a cluster-wide lease as it goes, so
+ * only one node rebalances at a time.
+ */
+public class ShardRebalancer implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    static final String LEASE = "shard-rebalance";
+    // Per statement; a scan batch or a single-row move that takes longer means a shard is in trouble
+    private static final int QUERY_TIMEOUT_SECONDS = 30;
+
+    private final ShardRoutingDataSource shards;
+    private final JobLeases jobLeases;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final Duration leaseDuration;
+    // Told about every moved username, e.g. to forget a cached "not found" seen while it was misplaced
+    private final Consumer<String> movedListener;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "shard-rebalance");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile ShardRebalanceStatus status = ShardRebalanceStatus.idle();
+
+    public ShardRebalancer(ShardRoutingDataSource shards, JobLeases jobLeases, int batchSize,
+                           Duration batchPause, Duration leaseDuration, Consumer<String> movedListener) {
+        this.shards = shards;
+        this.jobLeases = jobLeases;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchPause = batchPause;
+        this.leaseDuration = leaseDuration;
+        this.movedListener = movedListener;
+    }
+
+    /**
+     * Start scanning every shard on the rebalance thread, once this node holds the lease; with
+     * dryRun only count the users that would move. Follow it with {@link #status()}.
+     *
+     * @throws IllegalStateException if a rebalance is already running on this or another node
+     */
+    public ShardRebalanceStatus start(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A rebalance is already running on this node");
+        }
+        try {
+            if (!jobLeases.tryAcquire(LEASE, leaseDuration)) {
+                throw new IllegalStateException("A rebalance is already running on another node");
+            }
+            LocalDateTime startedAt = LocalDateTime.now();
+            ShardRebalanceStatus started = new ShardRebalanceStatus(true, dryRun, startedAt, List.of(), null);
+            status = started;
+            executor.execute(() -> runAndRelease(dryRun, startedAt));
+            return started;
+        } catch (RuntimeException e) {
+            if (status.isRunning()) {
+                // Accepted the lease but could not hand the run over (shutting down)
+                status = new ShardRebalanceStatus(false, dryRun, status.getStartedAt(), List.of(), e.getMessage());
+                jobLeases.release(LEASE);
+            }
+            running.set(false);
+            throw e;
+        }
+    }
+
+    public ShardRebalanceStatus status() {
+        return status;
+    }
+
+    // Interrupts a running rebalance at its next pause; the lease is released on the way out
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void runAndRelease(boolean dryRun, LocalDateTime startedAt) {
+        List<ShardRebalanceReport> reports = new ArrayList<>();
+        String error = null;
+        try {
+            if (!rebalance(dryRun, startedAt, reports)) {
+                error = "Stopped before every shard was scanned; run it again";
+            }
+        } catch (RuntimeException e) {
+            // Safe to run again: a user caught between copy and delete is finished by the next run
+            error = e.getMessage();
+            logger.warn("Shard rebalance failed: {}", e.getMessage());
+        } finally {
+            try {
+                jobLeases.release(LEASE);
+            } catch (RuntimeException e) {
+                logger.warn("Could not release the rebalance lease, it expires in {}: {}", leaseDuration, e.getMessage());
+            }
+            status = new ShardRebalanceStatus(false, dryRun, startedAt, List.copyOf(reports), error);
+            running.set(false);
+        }
+    }
+
+    /**
+     * Scan every shard, adding a report to reports (and to the status) as each one is done
+     *
+     * @return false if interrupted or the lease was lost before the last shard
+     */
+    private boolean rebalance(boolean dryRun, LocalDateTime startedAt, List<ShardRebalanceReport> reports) {
+        int shardCount = shards.getShardCount();
+        for (int source = 0; source < shardCount; source++) {
+            JdbcTemplate jdbc = jdbc(source);
+            long scanned = 0;
+            long moved = 0;
+            String after = "";
+            while (true) {
+                // 1. Next batch in username order after the last one seen
+                List<String> usernames = jdbc.queryForList(
+                        "select username from users where username > ? order by username limit ?",
+                        String.class, after, batchSize);
+                if (usernames.isEmpty()) {
+                    break;
+                }
+                after = usernames.get(usernames.size() - 1);
+                scanned += usernames.size();
+
+                // 2. Move the ones another shard owns (or count them for a dry run)
+                for (String username : usernames) {
+                    int owner = UserShardKeys.shardFor(username, shardCount);
+                    if (owner == source) {
+                        continue;
+                    }
+                    if (dryRun) {
+                        moved++;
+                    } else if (move(username, jdbc, jdbc(owner))) {
+                        movedListener.accept(username);
+                        moved++;
+                    }
+                }
+
+                // 3. Let replication and live traffic catch up, and keep the lease while there is more to do
+                if (usernames.size() < batchSize) {
+                    break;
+                }
+                if (!pause() || !jobLeases.tryAcquire(LEASE, leaseDuration)) {
+                    logger.warn("Shard rebalance stopped in shard {} after scanning {} users", source, scanned);
+                    return false;
+                }
+            }
+            logger.info("Shard {}: scanned {} users, {} {}", source, scanned, moved, dryRun ? "to move" : "moved");
+            reports.add(new ShardRebalanceReport(source, scanned, moved));
+            status = new ShardRebalanceStatus(true, dryRun, startedAt, List.copyOf(reports), null);
+        }
+        return true;
+    }
+
+    private JdbcTemplate jdbc(int shard) {
+        JdbcTemplate jdbc = new JdbcTemplate(shards.getShard(shard));
+        jdbc.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+        return jdbc;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean move(String username, JdbcTemplate source, JdbcTemplate target) {
+        // 1. Read the whole row as the driver returns it, so it is written back unchanged
+        Map<String, Object> row;
+        try {
+            row = source.queryForMap("select * from users where username = ?", username);
+        } catch (EmptyResultDataAccessException e) {
+            // Deleted since the scan
+            return false;
+        }
+
+        // 2. Copy it unless an interrupted run already did
+        Integer existing = target.queryForObject("select count(*) from users where username = ?", Integer.class, username);
+        if (existing == null || existing == 0) {
+            String columns = String.join(", ", row.keySet());
+            String placeholders = String.join(", ", row.keySet().stream().map(column -> "?").toList());
+            target.update("insert into users (" + columns + ") values (" + placeholders + ")", row.values().toArray());
+        }
+
+        // 3. Remove the source copy
+        source.update("delete from users where username = ?", username);
+        return true;
+    }
+}
@@ -0,0 +1,40 @@
+package com.csye6225.webapp.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound shard selection for {@link ShardRoutingDataSource}.
+ * The connection is obtained lazily, so the shard only has to be set before the first statement runs;
+ * every later statement of the same transaction stays on that connection.
+ */
+public final class ShardRoutingContext {
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private ShardRoutingContext() {
+    }
+
+    /**
+     * Shard selected for this thread, or null (work that is not about one user goes to shard 0)
+     */
+    public static Integer current() {
+        return SHARD.get();
+    }
+
+    /**
+     * Run the work with every new connection taken from the given shard
+     */
+    public static <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = SHARD.get();
+        SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(previous);
+            }
+        }
+    }
+}
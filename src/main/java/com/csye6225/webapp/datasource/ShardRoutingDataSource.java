@@ -0,0 +1,56 @@
+package com.csye6225.webapp.datasource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * DataSource over the shard pools. Hands out connections from the shard selected with
+ * {@link ShardRoutingContext}, or from shard 0, which also holds the tables that are not
+ * partitioned (health checks), when none is selected.
+ */
+public class ShardRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Integer shard = ShardRoutingContext.current();
+        return shards.get(shard == null ? 0 : shard).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Shard routing uses the configured pool credentials");
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * The shard's own pool, for tools that work on several shards at once
+     */
+    public DataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource shard : shards) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.csye6225.webapp.datasource;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.DelayedDropAction;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies spring.jpa.hibernate.ddl-auto to every shard, not just the one Hibernate's own schema
+ * tooling connects to (shard 0). Runs while the session factory is built, so the tables exist
+ * before anything queries them; drops registered by create-drop run when it closes.
+ */
+public class ShardSchemaIntegrator implements Integrator {
+
+    private final int shardCount;
+    private final List<Runnable> dropActions = new ArrayList<>();
+
+    public ShardSchemaIntegrator(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        for (int i = 1; i < shardCount; i++) {
+            int shard = i;
+            ShardRoutingContext.onShard(shard, () -> {
+                SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(),
+                        sessionFactory.getProperties(),
+                        action -> dropActions.add(() -> drop(shard, action, sessionFactory)));
+                return null;
+            });
+        }
+    }
+
+    private static void drop(int shard, DelayedDropAction action, SessionFactoryImplementor sessionFactory) {
+        ShardRoutingContext.onShard(shard, () -> {
+            action.perform(sessionFactory.getServiceRegistry());
+            return null;
+        });
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        dropActions.forEach(Runnable::run);
+        dropActions.clear();
+    }
+}
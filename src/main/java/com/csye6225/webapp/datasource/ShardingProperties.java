@@ -0,0 +1,111 @@
+package com.csye6225.webapp.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for partitioning users across several databases by a hash of their username.
+ * Shards default to the spring.datasource.* credentials and driver. The order of the list is
+ * part of the data layout: only append shards, then run the rebalancer.
+ */
+@ConfigurationProperties(prefix = "webapp.datasource.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    // Users read and moved per step by the rebalancer
+    private int rebalanceBatchSize = 500;
+
+    // Wait between rebalancer batches, so shard replicas and live traffic keep up
+    private Duration rebalanceBatchPause = Duration.ofMillis(100);
+
+    // Cluster-wide lease held by a running rebalance, renewed after every batch
+    private Duration rebalanceLeaseDuration = Duration.ofMinutes(5);
+
+    public static class Shard {
+
+        private String url;
+        private String username;
+        private String password;
+        // Any shard may see every bulkhead slot at once, plus the background jobs
+        private int maximumPoolSize = 22;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+    }
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public void setShards(List<Shard> shards) {
+        this.shards = shards;
+    }
+
+    public int getRebalanceBatchSize() {
+        return rebalanceBatchSize;
+    }
+
+    public void setRebalanceBatchSize(int rebalanceBatchSize) {
+        this.rebalanceBatchSize = rebalanceBatchSize;
+    }
+
+    public Duration getRebalanceBatchPause() {
+        return rebalanceBatchPause;
+    }
+
+    public void setRebalanceBatchPause(Duration rebalanceBatchPause) {
+        this.rebalanceBatchPause = rebalanceBatchPause;
+    }
+
+    public Duration getRebalanceLeaseDuration() {
+        return rebalanceLeaseDuration;
+    }
+
+    public void setRebalanceLeaseDuration(Duration rebalanceLeaseDuration) {
+        this.rebalanceLeaseDuration = rebalanceLeaseDuration;
+    }
+}
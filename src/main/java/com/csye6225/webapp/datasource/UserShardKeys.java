@@ -0,0 +1,82 @@
+package com.csye6225.webapp.datasource;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Placement of users on shards, and user ids that remember where they were created.
+ *
+ * A username is hashed (FNV-1a, 64 bit, lower-cased so case variants share a shard) and mapped
+ * with jump consistent hashing: going from N to N+1 shards moves only the ~1/(N+1) of users that
+ * now belong to the new shard, and never moves a user between two existing shards.
+ *
+ * Ids created on a shard are RFC 9562 version 8 (custom layout) UUIDs carrying the shard number
+ * in their first 16 bits; the other 106 bits are random. Any other id (e.g. created before
+ * sharding was turned on) has no known shard.
+ */
+public final class UserShardKeys {
+
+    public static final int MAX_SHARDS = 1 << 16;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private UserShardKeys() {
+    }
+
+    /**
+     * Shard owning the username when there are {@code shardCount} shards
+     */
+    public static int shardFor(String username, int shardCount) {
+        return jumpHash(fnv1a(username.toLowerCase(Locale.ROOT)), shardCount);
+    }
+
+    /**
+     * New random id tagged with the shard it is created on
+     */
+    public static UUID newId(int shard) {
+        if (shard < 0 || shard >= MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard out of range: " + shard);
+        }
+        long msb = RANDOM.nextLong();
+        long lsb = RANDOM.nextLong();
+        msb = ((long) shard << 48) | (msb & 0x0000_ffff_ffff_0fffL) | 0x8000L;  // version 8
+        lsb = (lsb & 0x3fff_ffff_ffff_ffffL) | 0x8000_0000_0000_0000L;         // IETF variant
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Shard the id was created on, or -1 if it is not a shard-tagged id
+     */
+    public static int shardOf(UUID id) {
+        if (id.version() != 8 || id.variant() != 2) {
+            return -1;
+        }
+        return (int) (id.getMostSignificantBits() >>> 48);
+    }
+
+    static long fnv1a(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    // Lamping & Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm"
+    static int jumpHash(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+}
@@ -0,0 +1,105 @@
+package com.csye6225.webapp.datasource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Routes user data access to the owning shard when webapp.datasource.sharding.enabled=true.
+ * Without sharding there is a single shard and every method simply runs the work.
+ *
+ * Work for one user runs inside {@link #onOwningShard}; the selection can be made inside a
+ * transaction as long as no statement has run yet. Lookups by id try the shard encoded in the id
+ * first and then the others, because a rebalance may have moved the user since the id was issued.
+ */
+@Component
+public class UserShards {
+
+    private final boolean sharded;
+    private final int shardCount;
+    private final TransactionOperations readOnly;
+
+    @Autowired
+    public UserShards(ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource,
+                      PlatformTransactionManager transactionManager) {
+        this(shardRoutingDataSource.getIfAvailable(), readOnly(transactionManager));
+    }
+
+    /**
+     * @param shardRoutingDataSource the shard pools, or null when sharding is disabled
+     */
+    public UserShards(ShardRoutingDataSource shardRoutingDataSource, TransactionOperations readOnly) {
+        this.sharded = shardRoutingDataSource != null;
+        this.shardCount = sharded ? shardRoutingDataSource.getShardCount() : 1;
+        this.readOnly = readOnly;
+    }
+
+    private static TransactionTemplate readOnly(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardFor(String username) {
+        return UserShardKeys.shardFor(username, shardCount);
+    }
+
+    /**
+     * Run the work against the shard that owns the username
+     */
+    public <T> T onOwningShard(String username, Supplier<T> work) {
+        return onShard(shardFor(username), work);
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (!sharded) {
+            return work.get();
+        }
+        return ShardRoutingContext.onShard(shard, work);
+    }
+
+    /**
+     * Shards to search for an id, most likely first
+     */
+    public List<Integer> probeOrder(UUID id) {
+        int first = UserShardKeys.shardOf(id);
+        if (first < 0 || first >= shardCount) {
+            first = 0;
+        }
+        List<Integer> order = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            order.add((first + i) % shardCount);
+        }
+        return order;
+    }
+
+    /**
+     * Run the work in a read-only transaction on the given shard
+     */
+    public <T> T readOnShard(int shard, Supplier<T> work) {
+        return onShard(shard, () -> readOnly.execute(status -> work.get()));
+    }
+
+    /**
+     * Run the work once per shard, each time in its own read-only transaction; results in shard order
+     */
+    public <T> List<T> readEachShard(Supplier<T> work) {
+        List<T> results = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            results.add(readOnShard(shard, work));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,32 @@
+package com.csye6225.webapp.deadline;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Skips BCrypt work for requests whose deadline has already passed.
+ */
+public class DeadlineAwarePasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    public DeadlineAwarePasswordEncoder(PasswordEncoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        RequestDeadline.checkNotExpired("password hashing");
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        RequestDeadline.checkNotExpired("password verification");
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,64 @@
+package com.csye6225.webapp.deadline;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+/**
+ * Wraps the application DataSource so every JDBC statement created during a request gets a
+ * query timeout equal to the request's remaining budget. Statements are refused outright once
+ * the deadline has passed.
+ */
+public class DeadlineEnforcingDataSource extends DelegatingDataSource {
+
+    public DeadlineEnforcingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection target) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                    if (result instanceof Statement statement) {
+                        applyDeadline(statement);
+                    }
+                    return result;
+                });
+    }
+
+    static void applyDeadline(Statement statement) throws SQLException {
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline == null) {
+            return;
+        }
+        int seconds = deadline.remainingQueryTimeoutSeconds();
+        if (seconds <= 0) {
+            statement.close();
+            throw new SQLTimeoutException("Request deadline exceeded before the statement was executed");
+        }
+        statement.setQueryTimeout(seconds);
+    }
+}
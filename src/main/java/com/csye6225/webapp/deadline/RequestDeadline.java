@@ -0,0 +1,75 @@
+package com.csye6225.webapp.deadline;
+
+import com.csye6225.webapp.exception.RequestDeadlineExceededException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Absolute time budget of the current request, bound to the handling thread by
+ * {@link RequestDeadlineFilter}. Code running without a deadline (startup, background jobs)
+ * sees no limit.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+
+    private RequestDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static RequestDeadline after(Duration budget) {
+        return new RequestDeadline(System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * Deadline of the request being handled on this thread, or null
+     */
+    public static RequestDeadline current() {
+        return CURRENT.get();
+    }
+
+    static void bind(RequestDeadline deadline) {
+        CURRENT.set(deadline);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Fail fast before expensive work (DB calls, hashing) once the budget is spent
+     */
+    public static void checkNotExpired(String stage) {
+        RequestDeadline deadline = CURRENT.get();
+        if (deadline != null && deadline.isExpired()) {
+            throw new RequestDeadlineExceededException("Request deadline exceeded before " + stage);
+        }
+    }
+
+    public static boolean isCurrentExpired() {
+        RequestDeadline deadline = CURRENT.get();
+        return deadline != null && deadline.isExpired();
+    }
+
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * Remaining budget as a JDBC query timeout; JDBC only takes whole seconds, so round up
+     */
+    public int remainingQueryTimeoutSeconds() {
+        long remaining = remainingNanos();
+        if (remaining <= 0) {
+            return 0;
+        }
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, (remaining + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+    }
+}
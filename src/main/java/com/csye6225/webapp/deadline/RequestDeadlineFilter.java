@@ -0,0 +1,99 @@
+package com.csye6225.webapp.deadline;
+
+import com.csye6225.webapp.dto.ErrorResponse;
+import com.csye6225.webapp.exception.RequestDeadlineExceededException;
+import com.csye6225.webapp.json.BinaryJsonFormats;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Starts the request's deadline before Spring Security runs.
+ *
+ * The budget defaults to webapp.request.deadline.default and can be shortened (never extended
+ * past webapp.request.deadline.max) by the client with a timeout header in milliseconds.
+ * A deadline failure escaping the filter chain, e.g. from BCrypt in the authentication
+ * provider, is answered with 504 here, in the error format the client accepts.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    private final Duration defaultBudget;
+    private final Duration maxBudget;
+    private final String headerName;
+    private final BinaryJsonFormats binaryJsonFormats;
+
+    public RequestDeadlineFilter(@Value("${webapp.request.deadline.default:5s}") Duration defaultBudget,
+                                 @Value("${webapp.request.deadline.max:30s}") Duration maxBudget,
+                                 @Value("${webapp.request.deadline.header:X-Request-Timeout}") String headerName,
+                                 BinaryJsonFormats binaryJsonFormats) {
+        this.defaultBudget = defaultBudget;
+        this.maxBudget = maxBudget;
+        this.headerName = headerName;
+        this.binaryJsonFormats = binaryJsonFormats;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestDeadline.bind(RequestDeadline.after(budget(request)));
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            if (!isDeadlineFailure(e) || response.isCommitted()) {
+                throw e;
+            }
+            writeTimeout(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    Duration budget(HttpServletRequest request) {
+        String header = request.getHeader(headerName);
+        if (header == null || header.isBlank()) {
+            return defaultBudget;
+        }
+        try {
+            long millis = Long.parseLong(header.trim());
+            if (millis <= 0) {
+                return defaultBudget;
+            }
+            Duration requested = Duration.ofMillis(millis);
+            return requested.compareTo(maxBudget) > 0 ? maxBudget : requested;
+        } catch (NumberFormatException e) {
+            return defaultBudget;
+        }
+    }
+
+    private void writeTimeout(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.resetBuffer();
+        response.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+        ErrorResponse error = new ErrorResponse(
+            "Gateway Timeout",
+            "Request could not be completed within its deadline",
+            request.getRequestURI()
+        );
+        binaryJsonFormats.writeError(request, response, error);
+    }
+
+    private static boolean isDeadlineFailure(Throwable throwable) {
+        while (throwable != null) {
+            if (throwable instanceof RequestDeadlineExceededException) {
+                return true;
+            }
+            throwable = throwable.getCause();
+        }
+        return false;
+    }
+}
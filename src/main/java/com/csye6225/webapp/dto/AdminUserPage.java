@@ -0,0 +1,25 @@
+package com.csye6225.webapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * One page of the admin user listing; next_cursor is null on the last page.
+ */
+public class AdminUserPage {
+
+    @JsonProperty("users")
+    private List<AdminUserSummary> users;
+
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
+    public AdminUserPage(List<AdminUserSummary> users, String nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<AdminUserSummary> getUsers() { return users; }
+    public String getNextCursor() { return nextCursor; }
+}
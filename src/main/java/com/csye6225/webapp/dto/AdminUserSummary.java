@@ -0,0 +1,81 @@
+package com.csye6225.webapp.dto;
+
+import com.csye6225.webapp.json.UtcTimestampSerializer;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Row of the admin user listing. Built directly by a JPQL constructor expression,
+ * so the password hash is never selected.
+ */
+public class AdminUserSummary {
+
+    @JsonProperty("id")
+    private UUID id;
+
+    @JsonProperty("username")
+    private String username;
+
+    @JsonProperty("first_name")
+    private String firstName;
+
+    @JsonProperty("last_name")
+    private String lastName;
+
+    @JsonProperty("verified")
+    private boolean verified;
+
+    // Same wire format as UserResponse; the exact value is kept for the page cursor
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    @JsonSerialize(using = UtcTimestampSerializer.class)
+    @JsonProperty("account_created")
+    private LocalDateTime accountCreated;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    @JsonSerialize(using = UtcTimestampSerializer.class)
+    @JsonProperty("account_updated")
+    private LocalDateTime accountUpdated;
+
+    // Null until the first login has been flushed; both lag behind by up to webapp.logins.flush-interval
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    @JsonSerialize(using = UtcTimestampSerializer.class)
+    @JsonProperty("last_login")
+    private LocalDateTime lastLogin;
+
+    @JsonProperty("login_count")
+    private long loginCount;
+
+    public AdminUserSummary(UUID id, String username, String firstName, String lastName,
+                            boolean verified, LocalDateTime accountCreated, LocalDateTime accountUpdated,
+                            LocalDateTime lastLogin, long loginCount) {
+        this.id = id;
+        this.username = username;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.verified = verified;
+        this.accountCreated = accountCreated;
+        this.accountUpdated = accountUpdated;
+        this.lastLogin = lastLogin;
+        this.loginCount = loginCount;
+    }
+
+    public UUID getId() { return id; }
+    public String getUsername() { return username; }
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+    public boolean isVerified() { return verified; }
+    public LocalDateTime getAccountCreated() { return accountCreated; }
+    public LocalDateTime getAccountUpdated() { return accountUpdated; }
+    public LocalDateTime getLastLogin() { return lastLogin; }
+    public long getLoginCount() { return loginCount; }
+
+    @JsonIgnore
+    public UserCursor toCursor() {
+        return new UserCursor(accountCreated, id);
+    }
+}
@@ -1,15 +1,19 @@
 package com.csye6225.webapp.dto;
 
+import com.csye6225.webapp.json.UtcTimestampSerializer;
+import com.csye6225.webapp.tracing.Tracer;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder; // Import this
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import java.time.LocalDateTime;
 
 /**
  * DTO for API Error Responses.
- * Uses @JsonPropertyOrder to ensure fields appear in the exact order: error, message, timestamp, path.
+ * Uses @JsonPropertyOrder to ensure fields appear in the exact order: error, message, timestamp, path, trace_id.
  */
-@JsonPropertyOrder({ "error", "message", "timestamp", "path" })
+@JsonPropertyOrder({ "error", "message", "timestamp", "path", "trace_id" })
 public class ErrorResponse {
     
     @JsonProperty("error")
@@ -20,17 +24,24 @@ public class ErrorResponse {
     
     // Format matches ISO 8601 with milliseconds and 'Z' timezone indicator
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    @JsonSerialize(using = UtcTimestampSerializer.class)
     @JsonProperty("timestamp")
     private LocalDateTime timestamp;
     
     @JsonProperty("path")
     private String path;
+
+    // Trace of the failed request, for finding it among exported traces; omitted outside a traced request
+    @JsonProperty("trace_id")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String traceId;
     
     public ErrorResponse(String error, String message, String path) {
         this.error = error;
         this.message = message;
         this.timestamp = LocalDateTime.now();
         this.path = path;
+        this.traceId = Tracer.currentTraceId();
     }
     
     // Getters and Setters
@@ -65,4 +76,12 @@ public class ErrorResponse {
     public void setPath(String path) {
         this.path = path;
     }
-}
\ No newline at end of file
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public void setTraceId(String traceId) {
+        this.traceId = traceId;
+    }
+}
@@ -0,0 +1,28 @@
+package com.csye6225.webapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Users scanned on one shard by a rebalance, and how many of them were (or would be) moved away.
+ */
+public class ShardRebalanceReport {
+
+    @JsonProperty("shard")
+    private int shard;
+
+    @JsonProperty("scanned")
+    private long scanned;
+
+    @JsonProperty("moved")
+    private long moved;
+
+    public ShardRebalanceReport(int shard, long scanned, long moved) {
+        this.shard = shard;
+        this.scanned = scanned;
+        this.moved = moved;
+    }
+
+    public int getShard() { return shard; }
+    public long getScanned() { return scanned; }
+    public long getMoved() { return moved; }
+}
@@ -0,0 +1,50 @@
+package com.csye6225.webapp.dto;
+
+import com.csye6225.webapp.json.UtcTimestampSerializer;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * State of the shard rebalance on this node: whether a run is in progress, when the latest one
+ * started, the shards it has finished so far, and its error if it failed.
+ */
+public class ShardRebalanceStatus {
+
+    @JsonProperty("running")
+    private boolean running;
+
+    @JsonProperty("dry_run")
+    private Boolean dryRun;
+
+    @JsonSerialize(using = UtcTimestampSerializer.class)
+    @JsonProperty("started_at")
+    private LocalDateTime startedAt;
+
+    @JsonProperty("shards")
+    private List<ShardRebalanceReport> shards;
+
+    @JsonProperty("last_error")
+    private String lastError;
+
+    public ShardRebalanceStatus(boolean running, Boolean dryRun, LocalDateTime startedAt,
+                                List<ShardRebalanceReport> shards, String lastError) {
+        this.running = running;
+        this.dryRun = dryRun;
+        this.startedAt = startedAt;
+        this.shards = shards;
+        this.lastError = lastError;
+    }
+
+    public static ShardRebalanceStatus idle() {
+        return new ShardRebalanceStatus(false, null, null, List.of(), null);
+    }
+
+    public boolean isRunning() { return running; }
+    public Boolean getDryRun() { return dryRun; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public List<ShardRebalanceReport> getShards() { return shards; }
+    public String getLastError() { return lastError; }
+}
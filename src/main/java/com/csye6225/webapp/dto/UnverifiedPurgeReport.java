@@ -0,0 +1,44 @@
+package com.csye6225.webapp.dto;
+
+import com.csye6225.webapp.json.UtcTimestampSerializer;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one purge of stale unverified accounts: how many were deleted (or, for a dry run,
+ * would be), and whether the run got through every candidate or stopped at its per-run cap.
+ */
+public class UnverifiedPurgeReport {
+
+    @JsonProperty("dry_run")
+    private boolean dryRun;
+
+    @JsonSerialize(using = UtcTimestampSerializer.class)
+    @JsonProperty("created_before")
+    private LocalDateTime createdBefore;
+
+    @JsonProperty("accounts")
+    private long accounts;
+
+    @JsonProperty("chunks")
+    private long chunks;
+
+    @JsonProperty("completed")
+    private boolean completed;
+
+    public UnverifiedPurgeReport(boolean dryRun, LocalDateTime createdBefore, long accounts, long chunks, boolean completed) {
+        this.dryRun = dryRun;
+        this.createdBefore = createdBefore;
+        this.accounts = accounts;
+        this.chunks = chunks;
+        this.completed = completed;
+    }
+
+    public boolean isDryRun() { return dryRun; }
+    public LocalDateTime getCreatedBefore() { return createdBefore; }
+    public long getAccounts() { return accounts; }
+    public long getChunks() { return chunks; }
+    public boolean isCompleted() { return completed; }
+}
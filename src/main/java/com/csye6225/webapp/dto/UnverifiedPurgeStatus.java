@@ -0,0 +1,43 @@
+package com.csye6225.webapp.dto;
+
+import com.csye6225.webapp.json.UtcTimestampSerializer;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of the unverified account purge on this node: whether a run is in progress, when the
+ * latest one started, and the report (or error) of the latest run that finished.
+ */
+public class UnverifiedPurgeStatus {
+
+    @JsonProperty("running")
+    private boolean running;
+
+    @JsonSerialize(using = UtcTimestampSerializer.class)
+    @JsonProperty("started_at")
+    private LocalDateTime startedAt;
+
+    @JsonProperty("last_run")
+    private UnverifiedPurgeReport lastRun;
+
+    @JsonProperty("last_error")
+    private String lastError;
+
+    public UnverifiedPurgeStatus(boolean running, LocalDateTime startedAt, UnverifiedPurgeReport lastRun, String lastError) {
+        this.running = running;
+        this.startedAt = startedAt;
+        this.lastRun = lastRun;
+        this.lastError = lastError;
+    }
+
+    public static UnverifiedPurgeStatus idle() {
+        return new UnverifiedPurgeStatus(false, null, null, null);
+    }
+
+    public boolean isRunning() { return running; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public UnverifiedPurgeReport getLastRun() { return lastRun; }
+    public String getLastError() { return lastError; }
+}
@@ -0,0 +1,17 @@
+package com.csye6225.webapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Body of the admin batch lookup: user ids (UUIDs) and/or usernames, in any mix.
+ */
+public class UserLookupRequest {
+
+    @JsonProperty("keys")
+    private List<String> keys;
+
+    public List<String> getKeys() { return keys; }
+    public void setKeys(List<String> keys) { this.keys = keys; }
+}
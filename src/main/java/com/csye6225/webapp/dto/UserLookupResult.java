@@ -0,0 +1,30 @@
+package com.csye6225.webapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Outcome for one requested key; {@code user} is omitted when {@code found} is false.
+ */
+public class UserLookupResult {
+
+    @JsonProperty("key")
+    private String key;
+
+    @JsonProperty("found")
+    private boolean found;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("user")
+    private AdminUserSummary user;
+
+    public UserLookupResult(String key, AdminUserSummary user) {
+        this.key = key;
+        this.found = user != null;
+        this.user = user;
+    }
+
+    public String getKey() { return key; }
+    public boolean isFound() { return found; }
+    public AdminUserSummary getUser() { return user; }
+}
@@ -1,7 +1,9 @@
 package com.csye6225.webapp.dto;
 
+import com.csye6225.webapp.json.UtcTimestampSerializer;
 import com.fasterxml.jackson.annotation.JsonFormat; // Import this
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -21,11 +23,13 @@ public class UserResponse {
     
     // Fix: Match format 2024-01-15T10:30:00.000Z
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    @JsonSerialize(using = UtcTimestampSerializer.class)
     @JsonProperty("account_created")
     private LocalDateTime accountCreated;
     
     // Fix: Match format 2024-01-15T10:30:00.000Z
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    @JsonSerialize(using = UtcTimestampSerializer.class)
     @JsonProperty("account_updated")
     private LocalDateTime accountUpdated;
     
@@ -0,0 +1,38 @@
+package com.csye6225.webapp.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Last login journal segment whose logins are in this shard's users table, per journal.
+ * Written in the same transaction as the logins themselves, see
+ * {@link com.csye6225.webapp.logins.LoginStatsWriter}, so a replayed journal skips what a
+ * flush already wrote.
+ */
+@Entity
+@Table(name = "login_journal_watermarks")
+public class LoginJournalWatermark {
+
+    @Id
+    @Column(name = "journal_id", length = 36)
+    private String journalId;
+
+    @Column(name = "flushed_through", nullable = false)
+    private long flushedThrough;
+
+    // Getters and Setters
+    public String getJournalId() {
+        return journalId;
+    }
+
+    public void setJournalId(String journalId) {
+        this.journalId = journalId;
+    }
+
+    public long getFlushedThrough() {
+        return flushedThrough;
+    }
+
+    public void setFlushedThrough(long flushedThrough) {
+        this.flushedThrough = flushedThrough;
+    }
+}
@@ -0,0 +1,18 @@
+package com.csye6225.webapp.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generated UUID id that records the shard the row is inserted into (see {@code UserShardKeys}).
+ * Without sharding it is a plain random UUID.
+ */
+@IdGeneratorType(ShardAwareUuidGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface ShardAwareUuid {
+}
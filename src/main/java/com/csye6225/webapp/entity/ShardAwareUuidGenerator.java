@@ -0,0 +1,30 @@
+package com.csye6225.webapp.entity;
+
+import com.csye6225.webapp.datasource.ShardRoutingContext;
+import com.csye6225.webapp.datasource.UserShardKeys;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+import java.util.UUID;
+
+/**
+ * Generator behind {@link ShardAwareUuid}. The shard is the one selected for the current thread,
+ * which is where the insert's connection comes from.
+ */
+public class ShardAwareUuidGenerator implements BeforeExecutionGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        Integer shard = ShardRoutingContext.current();
+        return shard == null ? UUID.randomUUID() : UserShardKeys.newId(shard);
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -3,16 +3,22 @@ package com.csye6225.webapp.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.ColumnDefault;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    // Keyset pagination for the admin listing: filter and order are served by the index,
+    // so a page costs the same at any depth
+    @Index(name = "idx_users_created_id", columnList = "account_created, id"),
+    @Index(name = "idx_users_verified_created_id", columnList = "verified, account_created, id")
+})
 public class User {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @ShardAwareUuid
     @Column(name = "id", updatable = false, nullable = false)
     @JsonProperty("id")
     private UUID id;
@@ -51,6 +57,19 @@ public class User {
     @JsonProperty("account_updated")
     private LocalDateTime accountUpdated;
     
+    // Written behind by LoginTracker, never through the entity
+    @Column(name = "last_login", insertable = false, updatable = false)
+    private LocalDateTime lastLogin;
+
+    @ColumnDefault("0")
+    @Column(name = "login_count", nullable = false, insertable = false, updatable = false)
+    private long loginCount;
+
+    // Grants ROLE_ADMIN; set by operators in the database, never through the API or the entity
+    @ColumnDefault("false")
+    @Column(name = "admin", nullable = false, insertable = false, updatable = false)
+    private boolean admin;
+    
     @PrePersist
     protected void onCreate() {
         accountCreated = LocalDateTime.now();
@@ -131,4 +150,16 @@ public class User {
     public void setAccountUpdated(LocalDateTime accountUpdated) {
         this.accountUpdated = accountUpdated;
     }
-}
\ No newline at end of file
+
+    public LocalDateTime getLastLogin() {
+        return lastLogin;
+    }
+
+    public long getLoginCount() {
+        return loginCount;
+    }
+
+    public boolean isAdmin() {
+        return admin;
+    }
+}
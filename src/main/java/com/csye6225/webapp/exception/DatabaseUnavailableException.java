@@ -0,0 +1,12 @@
+package com.csye6225.webapp.exception;
+
+/**
+ * Thrown instead of touching the database when the circuit breaker is open
+ * or the caller's bulkhead is full. Mapped to 503 Service Unavailable.
+ */
+public class DatabaseUnavailableException extends RuntimeException {
+
+    public DatabaseUnavailableException(String message) {
+        super(message);
+    }
+}
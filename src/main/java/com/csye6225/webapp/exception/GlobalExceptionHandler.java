@@ -1,9 +1,11 @@
 package com.csye6225.webapp.exception;
 
 import com.csye6225.webapp.dto.ErrorResponse;
+import com.csye6225.webapp.resilience.AdaptiveConcurrencyLimitFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -47,7 +49,7 @@ public class GlobalExceptionHandler {
         
         ErrorResponse error = new ErrorResponse(
             "Validation Error",  // Changed to match Swagger
-            "Content-Type must be application/json",
+            "Content-Type must be application/json, application/x-jackson-smile or application/cbor",
             request.getRequestURI()
         );
         
@@ -70,4 +72,96 @@ public class GlobalExceptionHandler {
         
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
+    
+    /**
+     * Handle fast-fail when the database circuit breaker is open or a bulkhead is full
+     */
+    @ExceptionHandler(DatabaseUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleDatabaseUnavailable(
+            DatabaseUnavailableException ex,
+            HttpServletRequest request) {
+        
+        AdaptiveConcurrencyLimitFilter.markOverloaded(request);
+        ErrorResponse error = new ErrorResponse(
+            "Service Unavailable",
+            "Service is temporarily unavailable. Please retry later.",
+            request.getRequestURI()
+        );
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(error);
+    }
+    
+    /**
+     * Handle requests that ran out of their time budget
+     */
+    @ExceptionHandler(RequestDeadlineExceededException.class)
+    public ResponseEntity<ErrorResponse> handleDeadlineExceeded(
+            RequestDeadlineExceededException ex,
+            HttpServletRequest request) {
+        
+        ErrorResponse error = new ErrorResponse(
+            "Gateway Timeout",
+            "Request could not be completed within its deadline",
+            request.getRequestURI()
+        );
+        
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(error);
+    }
+
+    /**
+     * Handle an Idempotency-Key sent again with a different request body
+     */
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyReused(
+            IdempotencyKeyReusedException ex,
+            HttpServletRequest request) {
+
+        ErrorResponse error = new ErrorResponse(
+            "Unprocessable Entity",
+            ex.getMessage(),
+            request.getRequestURI()
+        );
+
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(error);
+    }
+
+    /**
+     * Handle a retry that gave up waiting for the original request with the same Idempotency-Key
+     */
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyInProgress(
+            IdempotencyKeyInProgressException ex,
+            HttpServletRequest request) {
+
+        ErrorResponse error = new ErrorResponse(
+            "Conflict",
+            ex.getMessage(),
+            request.getRequestURI()
+        );
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(error);
+    }
+
+    /**
+     * Handle a new Idempotency-Key while the store is full of requests still in progress
+     */
+    @ExceptionHandler(IdempotencyStoreFullException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyStoreFull(
+            IdempotencyStoreFullException ex,
+            HttpServletRequest request) {
+
+        ErrorResponse error = new ErrorResponse(
+            "Service Unavailable",
+            ex.getMessage(),
+            request.getRequestURI()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(error);
+    }
 }
\ No newline at end of file
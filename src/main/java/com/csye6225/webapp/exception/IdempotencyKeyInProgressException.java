@@ -0,0 +1,12 @@
+package com.csye6225.webapp.exception;
+
+/**
+ * Thrown when the original request for an Idempotency-Key is still running and did not finish
+ * while a retry was waiting for it. Mapped to 409 Conflict with Retry-After.
+ */
+public class IdempotencyKeyInProgressException extends RuntimeException {
+
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.csye6225.webapp.exception;
+
+/**
+ * Thrown when an Idempotency-Key is sent again with a different request than the one it was
+ * first used with. Mapped to 422 Unprocessable Entity.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
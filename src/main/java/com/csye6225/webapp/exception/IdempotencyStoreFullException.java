@@ -0,0 +1,12 @@
+package com.csye6225.webapp.exception;
+
+/**
+ * Thrown for a new Idempotency-Key when every slot of the store holds a request that is still
+ * running, so the key could not be remembered. Mapped to 503 Service Unavailable with Retry-After.
+ */
+public class IdempotencyStoreFullException extends RuntimeException {
+
+    public IdempotencyStoreFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.csye6225.webapp.exception;
+
+/**
+ * Thrown when the request's time budget has run out before or during its work.
+ * Mapped to 504 Gateway Timeout.
+ */
+public class RequestDeadlineExceededException extends RuntimeException {
+
+    public RequestDeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public RequestDeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
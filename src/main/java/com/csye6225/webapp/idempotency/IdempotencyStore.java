@@ -0,0 +1,280 @@
+package com.csye6225.webapp.idempotency;
+
+import com.csye6225.webapp.deadline.RequestDeadline;
+import com.csye6225.webapp.exception.IdempotencyKeyInProgressException;
+import com.csye6225.webapp.exception.IdempotencyKeyReusedException;
+import com.csye6225.webapp.exception.IdempotencyStoreFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded store of recent Idempotency-Key values and the responses they produced.
+ *
+ * The first request with a key runs the action; requests with the same key arriving while it
+ * runs wait for its result, and later ones get the stored response back without running the
+ * action again. Only 2xx and 4xx responses are stored: a 5xx or an exception forgets the key, so
+ * a retry (or a waiting request) runs the action itself.
+ *
+ * A key is bound to a fingerprint of the request it first came with; reusing it for a different
+ * request is rejected. Fingerprints are HMACs under a per-process secret, so the store never
+ * holds anything from which a password could be recovered.
+ *
+ * Entries are kept in insertion order and expire webapp.idempotency.ttl after they complete.
+ * When the store is full, the eldest completed entry is evicted; in-flight entries never are, so
+ * a new key arriving while every entry is in flight is rejected rather than run unprotected.
+ *
+ * The store lives in the memory of one instance. Behind a load balancer without key affinity, a
+ * retry that lands on another instance finds no entry and runs the create again (it then fails
+ * as a duplicate username rather than creating a second user).
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final long IN_FLIGHT = Long.MAX_VALUE;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long waitTimeoutNanos;
+    private final LongSupplier nanoClock;
+    private final SecretKeySpec fingerprintKey;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter rejected;
+
+    @Autowired
+    public IdempotencyStore(
+            MeterRegistry meterRegistry,
+            @Value("${webapp.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${webapp.idempotency.ttl:24h}") Duration ttl,
+            @Value("${webapp.idempotency.wait-timeout:10s}") Duration waitTimeout) {
+        this(meterRegistry, maxEntries, ttl, waitTimeout, System::nanoTime);
+
+        Gauge.builder("webapp.idempotency.entries", this, IdempotencyStore::size)
+                .description("Idempotency keys currently remembered")
+                .register(meterRegistry);
+    }
+
+    IdempotencyStore(int maxEntries, Duration ttl, Duration waitTimeout, LongSupplier nanoClock) {
+        this(new SimpleMeterRegistry(), maxEntries, ttl, waitTimeout, nanoClock);
+    }
+
+    private IdempotencyStore(MeterRegistry meterRegistry, int maxEntries, Duration ttl, Duration waitTimeout,
+                             LongSupplier nanoClock) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+        this.nanoClock = nanoClock;
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.fingerprintKey = new SecretKeySpec(secret, "HmacSHA256");
+
+        this.executed = outcome(meterRegistry, "executed");
+        this.replayed = outcome(meterRegistry, "replayed");
+        this.rejected = outcome(meterRegistry, "rejected");
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("webapp.idempotency.requests")
+                .description("Requests carrying an Idempotency-Key, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fingerprint of the request fields a key is bound to; null fields are distinct from empty ones
+     */
+    public byte[] fingerprint(String... parts) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(fingerprintKey);
+            for (String part : parts) {
+                if (part == null) {
+                    mac.update((byte) 0);
+                    continue;
+                }
+                byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                mac.update((byte) 1);
+                mac.update(new byte[] {
+                        (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                        (byte) (bytes.length >>> 8), (byte) bytes.length});
+                mac.update(bytes);
+            }
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Run {@code action} once per key, or return the response it produced for an earlier request.
+     * Replayed responses carry the {@value #REPLAYED_HEADER} header.
+     *
+     * @throws IdempotencyKeyReusedException     if the key was first used with a different request
+     * @throws IdempotencyKeyInProgressException if the original request is still running when
+     *                                           this one runs out of time to wait for it
+     * @throws IdempotencyStoreFullException     if the key is new and every entry is in flight
+     */
+    public ResponseEntity<?> execute(String key, byte[] fingerprint, Supplier<ResponseEntity<?>> action) {
+        if (maxEntries <= 0) {
+            return action.get();
+        }
+        while (true) {
+            Entry entry;
+            boolean owner = false;
+            synchronized (entries) {
+                long now = nanoClock.getAsLong();
+                expire(now);
+                entry = entries.get(key);
+                if (entry == null || entry.isExpired(now)) {
+                    entries.remove(key);
+                    evictForNewEntry();
+                    if (entries.size() >= maxEntries) {
+                        rejected.increment();
+                        throw new IdempotencyStoreFullException("Too many requests with an Idempotency-Key are in progress");
+                    }
+                    entry = new Entry(fingerprint);
+                    entries.put(key, entry);
+                    owner = true;
+                }
+            }
+            if (!MessageDigest.isEqual(entry.fingerprint, fingerprint)) {
+                rejected.increment();
+                throw new IdempotencyKeyReusedException("Idempotency-Key was already used with a different request");
+            }
+            if (owner) {
+                executed.increment();
+                return run(key, entry, action);
+            }
+
+            // Someone else owns the key: wait for the original result; null means it failed
+            // without a storable response, so go round again and take over
+            ResponseEntity<?> original = await(entry);
+            if (original != null) {
+                replayed.increment();
+                return replay(original);
+            }
+        }
+    }
+
+    private ResponseEntity<?> run(String key, Entry entry, Supplier<ResponseEntity<?>> action) {
+        ResponseEntity<?> response = null;
+        try {
+            response = action.get();
+            return response;
+        } finally {
+            boolean storable = response != null && !response.getStatusCode().is5xxServerError();
+            synchronized (entries) {
+                if (storable) {
+                    entry.expiresAt = nanoClock.getAsLong() + ttlNanos;
+                } else if (entries.get(key) == entry) {
+                    entries.remove(key);
+                }
+            }
+            entry.result.complete(storable ? response : null);
+        }
+    }
+
+    private ResponseEntity<?> await(Entry entry) {
+        long timeout = waitTimeoutNanos;
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline != null) {
+            timeout = Math.min(timeout, deadline.remainingNanos());
+        }
+        try {
+            return entry.result.get(Math.max(0, timeout), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            rejected.increment();
+            throw new IdempotencyKeyInProgressException("A request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.increment();
+            throw new IdempotencyKeyInProgressException("A request with this Idempotency-Key is still in progress");
+        } catch (ExecutionException e) {
+            // The future is only ever completed normally
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static ResponseEntity<?> replay(ResponseEntity<?> original) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(original.getHeaders());
+        headers.set(REPLAYED_HEADER, "true");
+        return new ResponseEntity<>(original.getBody(), headers, original.getStatusCode());
+    }
+
+    /**
+     * Drop expired entries from the head; an in-flight entry or a live one stops the sweep
+     */
+    private void expire(long now) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (!it.next().isExpired(now)) {
+                return;
+            }
+            it.remove();
+        }
+    }
+
+    /**
+     * Make room for one more entry by evicting the eldest completed ones
+     */
+    private void evictForNewEntry() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() >= maxEntries && it.hasNext()) {
+            if (it.next().getValue().expiresAt != IN_FLIGHT) {
+                it.remove();
+            }
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+        final byte[] fingerprint;
+        final CompletableFuture<ResponseEntity<?>> result = new CompletableFuture<>();
+        // Guarded by the entries lock
+        long expiresAt = IN_FLIGHT;
+
+        Entry(byte[] fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != IN_FLIGHT && expiresAt - now <= 0;
+        }
+    }
+}
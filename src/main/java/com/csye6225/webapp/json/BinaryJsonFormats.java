@@ -0,0 +1,133 @@
+package com.csye6225.webapp.json;
+
+import com.csye6225.webapp.dto.ErrorResponse;
+import com.csye6225.webapp.profiling.JsonSerializationEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The application's ObjectMapper plus Smile and CBOR copies of it, for internal clients that
+ * would rather not pay for text JSON. The copies share every module and setting of the JSON
+ * mapper, so they produce the same documents in binary form.
+ *
+ * JSON stays the default: a binary format is only used when the client explicitly asks for it,
+ * either as the request Content-Type or in Accept.
+ */
+@Component
+public class BinaryJsonFormats {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+    public static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+
+    private final ObjectMapper json;
+    private final ObjectMapper smile;
+    private final ObjectMapper cbor;
+
+    public BinaryJsonFormats(ObjectMapper objectMapper) {
+        this.json = objectMapper;
+        this.smile = objectMapper.copyWith(new SmileFactory());
+        this.cbor = objectMapper.copyWith(new CBORFactory());
+    }
+
+    public ObjectMapper smile() {
+        return smile;
+    }
+
+    public ObjectMapper cbor() {
+        return cbor;
+    }
+
+    /**
+     * Mapper for a request body of the given Content-Type, or null if it is none of JSON, Smile or
+     * CBOR. Type and subtype must match exactly; parameters such as charset are ignored.
+     */
+    public ObjectMapper forContentType(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return null;
+        }
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        if (mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_JSON)) {
+            return json;
+        }
+        if (mediaType.equalsTypeAndSubtype(SMILE)) {
+            return smile;
+        }
+        if (mediaType.equalsTypeAndSubtype(CBOR)) {
+            return cbor;
+        }
+        return null;
+    }
+
+    /**
+     * Short name (json, smile or cbor) of one of these mappers, for metrics and profiling events
+     */
+    public String formatName(ObjectMapper mapper) {
+        return mapper == smile ? "smile" : mapper == cbor ? "cbor" : "json";
+    }
+
+    /**
+     * Response format for a body written outside Spring MVC (filters, security handlers), from
+     * the Accept header; anything that also accepts JSON gets JSON
+     */
+    public MediaType negotiate(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        try {
+            List<MediaType> acceptable = MediaType.parseMediaTypes(accept);
+            acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+            for (MediaType type : acceptable) {
+                if (type.includes(MediaType.APPLICATION_JSON)) {
+                    return MediaType.APPLICATION_JSON;
+                }
+                if (type.includes(SMILE)) {
+                    return SMILE;
+                }
+                if (type.includes(CBOR)) {
+                    return CBOR;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // Fall back to JSON
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Write an error body in the format the client asked for; status and headers are the caller's
+     */
+    public void writeError(HttpServletRequest request, HttpServletResponse response, ErrorResponse error)
+            throws IOException {
+        MediaType format = negotiate(request);
+        byte[] body;
+        if (SMILE.equals(format)) {
+            response.setContentType(SMILE_VALUE);
+            body = JsonSerializationEvent.write("smile", ErrorResponse.class, () -> smile.writeValueAsBytes(error));
+        } else if (CBOR.equals(format)) {
+            response.setContentType(MediaType.APPLICATION_CBOR_VALUE);
+            body = JsonSerializationEvent.write("cbor", ErrorResponse.class, () -> cbor.writeValueAsBytes(error));
+        } else {
+            response.setContentType("application/json;charset=UTF-8");
+            body = JsonSerializationEvent.write("json", ErrorResponse.class, () -> json.writeValueAsBytes(error));
+        }
+        response.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,61 @@
+package com.csye6225.webapp.json;
+
+import com.csye6225.webapp.dto.UserResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Hand-written serializer for {@link UserResponse}, enabled with
+ * webapp.json.user-response-serializer=tuned.
+ *
+ * Writes the same bytes as the annotated bean (property order, null handling and timestamp
+ * format); UserResponseJsonGoldenTest guards that. Field names are pre-encoded once.
+ */
+public class UserResponseSerializer extends StdSerializer<UserResponse> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString FIRST_NAME = new SerializedString("first_name");
+    private static final SerializedString LAST_NAME = new SerializedString("last_name");
+    private static final SerializedString ACCOUNT_CREATED = new SerializedString("account_created");
+    private static final SerializedString ACCOUNT_UPDATED = new SerializedString("account_updated");
+
+    public UserResponseSerializer() {
+        super(UserResponse.class);
+    }
+
+    @Override
+    public void serialize(UserResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(value);
+        gen.writeFieldName(ID);
+        if (value.getId() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value.getId().toString());
+        }
+        gen.writeFieldName(USERNAME);
+        gen.writeString(value.getUsername());
+        gen.writeFieldName(FIRST_NAME);
+        gen.writeString(value.getFirstName());
+        gen.writeFieldName(LAST_NAME);
+        gen.writeString(value.getLastName());
+        gen.writeFieldName(ACCOUNT_CREATED);
+        writeTimestamp(value.getAccountCreated(), gen);
+        gen.writeFieldName(ACCOUNT_UPDATED);
+        writeTimestamp(value.getAccountUpdated(), gen);
+        gen.writeEndObject();
+    }
+
+    private static void writeTimestamp(LocalDateTime value, JsonGenerator gen) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            UtcTimestampSerializer.write(value, gen);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.csye6225.webapp.json;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Allocation-light formatter for the API timestamp format {@code yyyy-MM-dd'T'HH:mm:ss.SSS'Z'}.
+ *
+ * Produces exactly what the {@code @JsonFormat} pattern on the DTOs produces, but writes the
+ * digits from a precomputed two-digit table into a caller-supplied buffer instead of walking a
+ * {@link DateTimeFormatter} pattern for every field.
+ */
+public final class UtcTimestampFormat {
+
+    public static final String PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+
+    /** Length of a formatted timestamp, e.g. 2024-01-15T10:30:00.000Z */
+    public static final int LENGTH = 24;
+
+    private static final DateTimeFormatter FALLBACK = DateTimeFormatter.ofPattern(PATTERN);
+
+    // "00".."99"
+    private static final char[] TENS = new char[100];
+    private static final char[] ONES = new char[100];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            TENS[i] = (char) ('0' + i / 10);
+            ONES[i] = (char) ('0' + i % 10);
+        }
+    }
+
+    private UtcTimestampFormat() {
+    }
+
+    /**
+     * Write the timestamp into {@code buffer} (at least {@link #LENGTH} chars) and return the
+     * number of chars written. Years outside 0000-9999 are delegated to {@link DateTimeFormatter}.
+     */
+    public static int format(LocalDateTime value, char[] buffer) {
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            String text = FALLBACK.format(value);
+            text.getChars(0, text.length(), buffer, 0);
+            return text.length();
+        }
+        put2(buffer, 0, year / 100);
+        put2(buffer, 2, year % 100);
+        buffer[4] = '-';
+        put2(buffer, 5, value.getMonthValue());
+        buffer[7] = '-';
+        put2(buffer, 8, value.getDayOfMonth());
+        buffer[10] = 'T';
+        put2(buffer, 11, value.getHour());
+        buffer[13] = ':';
+        put2(buffer, 14, value.getMinute());
+        buffer[16] = ':';
+        put2(buffer, 17, value.getSecond());
+        buffer[19] = '.';
+        int millis = value.getNano() / 1_000_000;
+        buffer[20] = (char) ('0' + millis / 100);
+        put2(buffer, 21, millis % 100);
+        buffer[23] = 'Z';
+        return LENGTH;
+    }
+
+    public static String format(LocalDateTime value) {
+        char[] buffer = new char[32];
+        return new String(buffer, 0, format(value, buffer));
+    }
+
+    private static void put2(char[] buffer, int offset, int value) {
+        buffer[offset] = TENS[value];
+        buffer[offset + 1] = ONES[value];
+    }
+}
@@ -0,0 +1,33 @@
+package com.csye6225.webapp.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Serializes {@link LocalDateTime} fields in the API timestamp format via {@link UtcTimestampFormat}.
+ * Used with {@code @JsonSerialize(using = ...)} next to the {@code @JsonFormat} that still drives
+ * deserialization.
+ */
+public class UtcTimestampSerializer extends StdSerializer<LocalDateTime> {
+
+    // One scratch buffer per thread; the generator copies the chars before returning
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[32]);
+
+    public UtcTimestampSerializer() {
+        super(LocalDateTime.class);
+    }
+
+    @Override
+    public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        write(value, gen);
+    }
+
+    static void write(LocalDateTime value, JsonGenerator gen) throws IOException {
+        char[] buffer = BUFFER.get();
+        gen.writeString(buffer, 0, UtcTimestampFormat.format(value, buffer));
+    }
+}
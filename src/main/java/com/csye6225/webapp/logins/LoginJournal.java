@@ -0,0 +1,334 @@
+package com.csye6225.webapp.logins;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of successful logins in memory-mapped, fixed-size segment files.
+ *
+ * Each record is [short name length][long epoch millis][int CRC32C][UTF-8 username]. Segments are
+ * zero-filled when created, so a zero length ends a segment; a record cut short by a crash fails
+ * its checksum and ends it too. Appends only write into the mapping, so a process crash loses
+ * nothing; segments are forced to disk when sealed, so a machine crash loses at most the current
+ * ones. Segments are deleted once the logins in them are in the database.
+ *
+ * Logins are appended through {@link Appender}s, each writing its own segments, so appenders
+ * guarded by different locks never contend. Segment sequence numbers are shared and increase
+ * across appenders and restarts; together with the journal id they are what flushes record as
+ * their watermark. A directory with nothing left to replay starts over with a new id.
+ */
+public class LoginJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginJournal.class);
+
+    private static final Pattern SEGMENT = Pattern.compile("logins-(\\d{20})\\.journal");
+    private static final int HEADER_BYTES = Short.BYTES + Long.BYTES + Integer.BYTES;
+    // Usernames are email addresses, so this is never reached by a real account
+    static final int MAX_USERNAME_BYTES = 1024;
+
+    @FunctionalInterface
+    public interface Replay {
+        void login(long segment, String username, long epochMillis);
+    }
+
+    /**
+     * Segments sealed by {@link #roll()}, and the highest sequence number handed out before it
+     */
+    public record Roll(List<Path> segments, long through) {
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private String id;
+    private String retiredId;
+
+    // Guarded by this: shared by every appender
+    private long nextSequence;
+    // Full or rolled segments whose logins are not in the database yet
+    private final List<Path> sealed = new ArrayList<>();
+    private final List<Appender> appenders = new ArrayList<>();
+
+    public LoginJournal(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = Math.max(HEADER_BYTES + MAX_USERNAME_BYTES, segmentBytes);
+    }
+
+    /**
+     * Lock the directory and pick up the segments left by the previous run; see {@link #replay}
+     *
+     * @throws IOException if the directory is unusable or another process (or context) owns it
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve("journal.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            lockChannel = null;
+            throw new IOException("Login journal " + directory + " is in use by another process");
+        }
+
+        // 1. Segments in the order they were written; they stay until their logins have been flushed
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> SEGMENT.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .forEach(sealed::add);
+        }
+        for (Path segment : sealed) {
+            nextSequence = Math.max(nextSequence, sequenceOf(segment) + 1);
+        }
+
+        // 2. Keep the id the segments were written under; otherwise sequences start over under a new one
+        Path idFile = directory.resolve("journal.id");
+        String previous = Files.exists(idFile) ? Files.readString(idFile).trim() : null;
+        if (previous != null && !sealed.isEmpty()) {
+            id = previous;
+            return;
+        }
+        if (!sealed.isEmpty()) {
+            logger.warn("Login journal {} has segments but no id; login_count may count their logins twice", directory);
+        }
+        id = UUID.randomUUID().toString();
+        retiredId = previous;
+        Files.writeString(idFile, id, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+    }
+
+    /**
+     * @return id under which flushes record their watermark, or null while not open
+     */
+    public synchronized String getId() {
+        return id;
+    }
+
+    /**
+     * @return id replaced by {@link #open()} because nothing was left to replay under it, or null
+     */
+    public synchronized String getRetiredId() {
+        return retiredId;
+    }
+
+    /**
+     * @return whether any sealed segment is waiting to be deleted
+     */
+    public synchronized boolean hasSegments() {
+        return !sealed.isEmpty();
+    }
+
+    /**
+     * Replay the segments left by the previous run
+     *
+     * @return number of logins read
+     */
+    public synchronized long replay(Replay replay) throws IOException {
+        long replayed = 0;
+        for (Path segment : List.copyOf(sealed)) {
+            replayed += replay(segment, replay);
+        }
+        return replayed;
+    }
+
+    /**
+     * A new appender writing its own segments; callers serialize their use of each appender
+     */
+    public synchronized Appender appender() {
+        Appender appender = new Appender();
+        appenders.add(appender);
+        return appender;
+    }
+
+    /**
+     * Seal every appender's current segment so later appends go to new ones. The caller must hold
+     * off all appends meanwhile, so every login before the roll is in a segment numbered at most
+     * {@link Roll#through()} and every login after it in a higher one.
+     *
+     * @return every sealed segment not deleted yet, i.e. all logins journaled so far
+     */
+    public synchronized Roll roll() {
+        for (Appender appender : appenders) {
+            appender.seal();
+        }
+        return new Roll(List.copyOf(sealed), nextSequence - 1);
+    }
+
+    /**
+     * Delete segments whose logins are now in the database
+     */
+    public synchronized void delete(List<Path> segments) {
+        for (Path segment : segments) {
+            try {
+                Files.deleteIfExists(segment);
+                sealed.remove(segment);
+            } catch (IOException e) {
+                // Replayed again after a restart and skipped there by the flush watermark
+                logger.warn("Failed to delete login journal segment {}: {}", segment, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Appender appender : appenders) {
+            appender.close();
+        }
+        appenders.clear();
+        if (lockChannel != null) {
+            // Closing the channel releases the lock
+            lockChannel.close();
+            lockChannel = null;
+            lock = null;
+        }
+    }
+
+    private synchronized Path nextSegment() {
+        return directory.resolve(String.format("logins-%020d.journal", nextSequence++));
+    }
+
+    private synchronized void sealed(Path segment) {
+        sealed.add(segment);
+    }
+
+    private static long sequenceOf(Path segment) {
+        Matcher matcher = SEGMENT.matcher(segment.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    private long replay(Path segment, Replay replay) throws IOException {
+        long sequence = sequenceOf(segment);
+        CRC32C crc = new CRC32C();
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        long records = 0;
+        try {
+            while (data.remaining() >= HEADER_BYTES) {
+                int length = data.getShort();
+                if (length <= 0) {
+                    break;
+                }
+                long epochMillis = data.getLong();
+                int expected = data.getInt();
+                byte[] name = new byte[length];
+                data.get(name);
+                if (checksum(crc, name, epochMillis) != expected) {
+                    logger.warn("Login journal segment {} ends with a torn record after {} logins", segment, records);
+                    break;
+                }
+                replay.login(sequence, new String(name, StandardCharsets.UTF_8), epochMillis);
+                records++;
+            }
+        } catch (BufferUnderflowException e) {
+            logger.warn("Login journal segment {} ends with a truncated record after {} logins", segment, records);
+        }
+        return records;
+    }
+
+    private static int checksum(CRC32C crc, byte[] name, long epochMillis) {
+        crc.reset();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (epochMillis >>> shift));
+        }
+        crc.update(name);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Writes logins into its own current segment. Not thread-safe: the owner serializes appends,
+     * and holds them off during {@link #roll()} and {@link #close()}.
+     */
+    public final class Appender {
+
+        private final CRC32C crc = new CRC32C();
+        private Path current;
+        private MappedByteBuffer buffer;
+
+        private Appender() {
+        }
+
+        /**
+         * Append one login, starting a new segment when the current one is full
+         *
+         * @return false if the username is too long to journal
+         */
+        public boolean append(String username, long epochMillis) throws IOException {
+            byte[] name = username.getBytes(StandardCharsets.UTF_8);
+            if (name.length == 0 || name.length > MAX_USERNAME_BYTES) {
+                return false;
+            }
+            if (buffer == null || buffer.remaining() < HEADER_BYTES + name.length) {
+                seal();
+                start();
+            }
+            buffer.putShort((short) name.length)
+                    .putLong(epochMillis)
+                    .putInt(checksum(crc, name, epochMillis))
+                    .put(name);
+            return true;
+        }
+
+        private void start() throws IOException {
+            Path segment = nextSegment();
+            try (FileChannel channel = FileChannel.open(segment,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping stays valid after the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            }
+            current = segment;
+        }
+
+        private void seal() {
+            if (buffer == null) {
+                return;
+            }
+            if (buffer.position() > 0) {
+                buffer.force();
+                sealed(current);
+            } else {
+                // Nothing was written to it
+                try {
+                    Files.deleteIfExists(current);
+                } catch (IOException e) {
+                    logger.debug("Failed to delete empty login journal segment {}", current, e);
+                }
+            }
+            buffer = null;
+            current = null;
+        }
+
+        private void close() {
+            if (buffer != null) {
+                buffer.force();
+                buffer = null;
+                current = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.csye6225.webapp.logins;
+
+/**
+ * Logins of one user since the last flush: how many, and the most recent one.
+ */
+public final class LoginStats {
+
+    private long count;
+    private long lastLoginMillis;
+
+    void record(long epochMillis) {
+        count++;
+        lastLoginMillis = Math.max(lastLoginMillis, epochMillis);
+    }
+
+    void merge(LoginStats other) {
+        count += other.count;
+        lastLoginMillis = Math.max(lastLoginMillis, other.lastLoginMillis);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getLastLoginMillis() {
+        return lastLoginMillis;
+    }
+}
@@ -0,0 +1,116 @@
+package com.csye6225.webapp.logins;
+
+import com.csye6225.webapp.datasource.UserShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Writes aggregated logins to users.last_login and users.login_count with batched UPDATEs,
+ * grouped by owning shard, one transaction per shard.
+ *
+ * Each shard's transaction also moves the journal's row in login_journal_watermarks to the last
+ * segment the flush covers, so the logins and the watermark commit together: after a crash the
+ * replay skips the segments a committed flush wrote and login_count counts nothing twice.
+ * The UPDATE bypasses the entity on purpose: account_updated tracks profile changes, not logins.
+ */
+@Component
+public class LoginStatsWriter implements LoginTracker.Sink {
+
+    private static final String UPDATE = "update users set "
+            + "last_login = case when last_login is null or last_login < ? then ? else last_login end, "
+            + "login_count = login_count + ? "
+            + "where username = ?";
+    private static final String SELECT_WATERMARK = "select flushed_through from login_journal_watermarks where journal_id = ?";
+    private static final String UPDATE_WATERMARK = "update login_journal_watermarks set flushed_through = ? where journal_id = ?";
+    private static final String INSERT_WATERMARK = "insert into login_journal_watermarks (journal_id, flushed_through) values (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserShards userShards;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public LoginStatsWriter(DataSource dataSource,
+                            UserShards userShards,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${webapp.logins.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.userShards = userShards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public ToLongFunction<String> watermarks(String journalId) {
+        long[] byShard = new long[userShards.getShardCount()];
+        for (int shard = 0; shard < byShard.length; shard++) {
+            // Outside a read-only transaction: a lagging replica would make the replay count logins twice
+            byShard[shard] = userShards.onShard(shard, () -> jdbcTemplate.query(SELECT_WATERMARK,
+                    rs -> rs.next() ? rs.getLong(1) : -1L, journalId));
+        }
+        return username -> byShard[userShards.shardFor(username)];
+    }
+
+    /**
+     * Write the logins journaled up to segment flushedThrough, and that watermark with them unless
+     * journalId is null; entries are removed from the map as their shard commits, so after a
+     * failure it holds exactly what is still to be written
+     */
+    @Override
+    public void write(String journalId, long flushedThrough, Map<String, LoginStats> logins) {
+        // 1. Group by owning shard
+        List<List<Object[]>> byShard = new ArrayList<>();
+        for (int i = 0; i < userShards.getShardCount(); i++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (Map.Entry<String, LoginStats> entry : logins.entrySet()) {
+            // Same clock and zone as account_created
+            LocalDateTime lastLogin = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(entry.getValue().getLastLoginMillis()), ZoneId.systemDefault());
+            byShard.get(userShards.shardFor(entry.getKey()))
+                    .add(new Object[] {lastLogin, lastLogin, entry.getValue().getCount(), entry.getKey()});
+        }
+
+        // 2. One transaction per shard, even without logins for it, so every shard's watermark keeps up
+        for (int shard = 0; shard < byShard.size(); shard++) {
+            List<Object[]> rows = byShard.get(shard);
+            userShards.onShard(shard, () -> transactionTemplate.execute(status -> {
+                for (int from = 0; from < rows.size(); from += batchSize) {
+                    jdbcTemplate.batchUpdate(UPDATE, rows.subList(from, Math.min(rows.size(), from + batchSize)));
+                }
+                if (journalId != null) {
+                    saveWatermark(journalId, flushedThrough);
+                }
+                return null;
+            }));
+            for (Object[] row : rows) {
+                logins.remove((String) row[3]);
+            }
+        }
+    }
+
+    @Override
+    public void forget(String journalId) {
+        for (int shard = 0; shard < userShards.getShardCount(); shard++) {
+            userShards.onShard(shard, () -> jdbcTemplate.update(
+                    "delete from login_journal_watermarks where journal_id = ?", journalId));
+        }
+    }
+
+    private void saveWatermark(String journalId, long flushedThrough) {
+        if (jdbcTemplate.update(UPDATE_WATERMARK, flushedThrough, journalId) == 0) {
+            jdbcTemplate.update(INSERT_WATERMARK, journalId, flushedThrough);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.csye6225.webapp.logins;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * Write-behind tracking of users.last_login and users.login_count.
+ *
+ * Every request authenticates, so writing the users row each time would turn every read into a
+ * write. Instead each successful authentication is appended to the {@link LoginJournal} and
+ * added to an in-memory per-user aggregate, both split into webapp.logins.stripes stripes picked
+ * by thread so concurrent logins rarely share a lock. Every webapp.logins.flush-interval the
+ * aggregates are swapped out and written as batched UPDATEs together with a watermark, the last
+ * journal segment they cover, after which those segments are deleted. If the write fails, the
+ * aggregate is merged back and retried with the next flush. At startup the segments left by a
+ * crash are replayed, skipping what the watermark says is written, so no login is lost or
+ * counted twice.
+ */
+@Component
+@ConditionalOnProperty(name = "webapp.logins.enabled", havingValue = "true", matchIfMissing = true)
+public class LoginTracker implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginTracker.class);
+
+    /**
+     * Where flushed logins go: {@link LoginStatsWriter} in the application
+     */
+    interface Sink {
+
+        /**
+         * @return per username, the last segment of the journal whose logins are in the database, or -1
+         */
+        ToLongFunction<String> watermarks(String journalId);
+
+        /**
+         * Write logins journaled in segments up to flushedThrough, recording that watermark unless
+         * journalId is null; entries are removed from the map as they commit
+         */
+        void write(String journalId, long flushedThrough, Map<String, LoginStats> logins);
+
+        /**
+         * Drop the watermarks of a journal that will never be replayed again
+         */
+        void forget(String journalId);
+    }
+
+    // Guarded by its lock: the appender and the aggregate always cover the same logins
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private LoginJournal.Appender appender;
+        private Map<String, LoginStats> pending = new HashMap<>();
+    }
+
+    private final LoginJournal journal;
+    private final Sink sink;
+    private final Stripe[] stripes;
+    // One flush at a time, so segments are only deleted once everything before them is written
+    private final Object flushLock = new Object();
+
+    private volatile boolean journaling;
+    private volatile boolean running;
+
+    private final AtomicLong flushed = new AtomicLong();
+
+    @Autowired
+    public LoginTracker(LoginStatsWriter loginStatsWriter,
+                        @Value("${webapp.logins.journal.directory:data/login-journal}") String directory,
+                        @Value("${webapp.logins.journal.segment-size:1MB}") DataSize segmentSize,
+                        @Value("${webapp.logins.stripes:0}") int stripes,
+                        MeterRegistry meterRegistry) {
+        this(new LoginJournal(Paths.get(directory), (int) Math.min(Integer.MAX_VALUE, segmentSize.toBytes())),
+                stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors(),
+                loginStatsWriter);
+
+        Gauge.builder("webapp.logins.pending", this, LoginTracker::pendingUsers)
+                .description("Users with logins not yet written to the database")
+                .register(meterRegistry);
+        FunctionCounter.builder("webapp.logins.flushed", flushed, AtomicLong::get)
+                .description("Logins written to the database")
+                .register(meterRegistry);
+    }
+
+    LoginTracker(LoginJournal journal, int stripes, Sink sink) {
+        this.journal = journal;
+        this.sink = sink;
+        this.stripes = new Stripe[Math.max(1, stripes)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    @EventListener
+    public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+        record(event.getAuthentication().getName(), event.getTimestamp());
+    }
+
+    public void record(String username, long epochMillis) {
+        Stripe stripe = stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+        stripe.lock.lock();
+        try {
+            if (journaling && stripe.appender != null) {
+                try {
+                    stripe.appender.append(username, epochMillis);
+                } catch (IOException e) {
+                    // Keep counting in memory; only a crash before the next flush would lose logins
+                    logger.error("Login journal failed, tracking logins in memory only: {}", e.getMessage());
+                    journaling = false;
+                }
+            }
+            stripe.pending.computeIfAbsent(username, key -> new LoginStats()).record(epochMillis);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public int pendingUsers() {
+        Set<String> usernames = new HashSet<>();
+        lockAll();
+        try {
+            for (Stripe stripe : stripes) {
+                usernames.addAll(stripe.pending.keySet());
+            }
+        } finally {
+            unlockAll();
+        }
+        return usernames.size();
+    }
+
+    /**
+     * Write the logins recorded so far to the database
+     */
+    @Scheduled(fixedDelayString = "${webapp.logins.flush-interval:10s}")
+    public void flush() {
+        synchronized (flushLock) {
+            flushPending();
+        }
+    }
+
+    private void flushPending() {
+        // 1. Swap the aggregates and seal the journal segments they came from, with every stripe held
+        Map<String, LoginStats> batch = new HashMap<>();
+        LoginJournal.Roll roll;
+        lockAll();
+        try {
+            for (Stripe stripe : stripes) {
+                merge(batch, stripe.pending);
+                stripe.pending = new HashMap<>();
+            }
+            roll = journal.roll();
+        } finally {
+            unlockAll();
+        }
+        if (batch.isEmpty()) {
+            // Whatever the sealed segments hold was written before, e.g. logins skipped by the replay
+            journal.delete(roll.segments());
+            return;
+        }
+
+        // 2. Write outside the locks, so logins keep being recorded meanwhile
+        long logins = batch.values().stream().mapToLong(LoginStats::getCount).sum();
+        try {
+            sink.write(journal.getId(), roll.through(), batch);
+        } catch (RuntimeException e) {
+            // The writer dropped what it managed to commit; the rest goes out with the next flush
+            long unwritten = batch.values().stream().mapToLong(LoginStats::getCount).sum();
+            flushed.addAndGet(logins - unwritten);
+            Stripe stripe = stripes[0];
+            stripe.lock.lock();
+            try {
+                merge(stripe.pending, batch);
+            } finally {
+                stripe.lock.unlock();
+            }
+            logger.warn("Failed to write logins of {} users, retrying with the next flush: {}", batch.size(), e.getMessage());
+            return;
+        }
+        flushed.addAndGet(logins);
+
+        // 3. Everything in the sealed segments is in the database now
+        journal.delete(roll.segments());
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        try {
+            journal.open();
+            replay();
+            for (Stripe stripe : stripes) {
+                stripe.lock.lock();
+                try {
+                    stripe.appender = journal.appender();
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            journaling = true;
+        } catch (IOException e) {
+            logger.error("Login journal unavailable, tracking logins in memory only: {}", e.getMessage());
+        }
+        running = true;
+    }
+
+    // Logins of segments a flush committed before the crash are skipped: they are in the database already
+    private void replay() throws IOException {
+        String retiredId = journal.getRetiredId();
+        if (retiredId != null) {
+            try {
+                sink.forget(retiredId);
+            } catch (RuntimeException e) {
+                logger.debug("Failed to drop watermarks of retired login journal {}", retiredId, e);
+            }
+        }
+        if (!journal.hasSegments()) {
+            return;
+        }
+
+        ToLongFunction<String> watermarks = watermarks();
+        long[] skipped = {0};
+        Stripe stripe = stripes[0];
+        stripe.lock.lock();
+        try {
+            long replayed = journal.replay((segment, username, epochMillis) -> {
+                if (segment > watermarks.applyAsLong(username)) {
+                    stripe.pending.computeIfAbsent(username, key -> new LoginStats()).record(epochMillis);
+                } else {
+                    skipped[0]++;
+                }
+            });
+            logger.info("Replayed {} logins of {} users from the login journal, skipped {} already written",
+                    replayed - skipped[0], stripe.pending.size(), skipped[0]);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private ToLongFunction<String> watermarks() {
+        try {
+            return sink.watermarks(journal.getId());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read login journal watermarks, replaying every segment; "
+                    + "login_count may count some logins twice: {}", e.getMessage());
+            return username -> -1;
+        }
+    }
+
+    @Override
+    public void stop() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        // Whatever cannot be written now stays in the journal for the next start
+        flush();
+        synchronized (this) {
+            lockAll();
+            try {
+                journaling = false;
+                for (Stripe stripe : stripes) {
+                    stripe.appender = null;
+                }
+                journal.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close login journal: {}", e.getMessage());
+            } finally {
+                unlockAll();
+            }
+        }
+    }
+
+    private void lockAll() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].lock.unlock();
+        }
+    }
+
+    private static void merge(Map<String, LoginStats> into, Map<String, LoginStats> logins) {
+        logins.forEach((username, stats) -> into.merge(username, stats, (a, b) -> {
+            a.merge(b);
+            return a;
+        }));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before and stop after the embedded web server, so no request is left behind
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
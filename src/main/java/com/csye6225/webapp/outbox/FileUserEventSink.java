@@ -0,0 +1,48 @@
+package com.csye6225.webapp.outbox;
+
+import com.csye6225.webapp.entity.OutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends each event as one JSON line to a local file, for offline inspection.
+ */
+@Component
+@ConditionalOnProperty(name = "webapp.outbox.sink.type", havingValue = "file")
+public class FileUserEventSink implements UserEventSink {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileUserEventSink(@Value("${webapp.outbox.sink.file-path:logs/user-events.jsonl}") String filePath,
+                             ObjectMapper objectMapper) {
+        this.file = Paths.get(filePath);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void deliver(OutboxEvent event) throws IOException {
+        ObjectNode line = objectMapper.createObjectNode();
+        line.put("event_id", event.getId());
+        line.put("event_type", event.getEventType());
+        line.put("aggregate_id", event.getAggregateId().toString());
+        line.set("payload", objectMapper.readTree(event.getPayload()));
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(file, objectMapper.writeValueAsString(line) + System.lineSeparator(),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,39 @@
+package com.csye6225.webapp.outbox;
+
+import com.csye6225.webapp.entity.OutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent delivered events in memory, for local runs and tests. Anything older than
+ * the last 1000 events is gone once the relay has deleted it, so it has to be selected explicitly.
+ */
+@Component
+@ConditionalOnProperty(name = "webapp.outbox.sink.type", havingValue = "memory")
+public class InMemoryUserEventSink implements UserEventSink {
+
+    private static final int CAPACITY = 1000;
+
+    private final Deque<OutboxEvent> events = new ArrayDeque<>();
+
+    @Override
+    public synchronized void deliver(OutboxEvent event) {
+        if (events.size() == CAPACITY) {
+            events.removeFirst();
+        }
+        events.addLast(event);
+    }
+
+    public synchronized List<OutboxEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    public synchronized void clear() {
+        events.clear();
+    }
+}
@@ -0,0 +1,154 @@
+package com.csye6225.webapp.outbox;
+
+import com.csye6225.webapp.datasource.UserShards;
+import com.csye6225.webapp.entity.OutboxEvent;
+import com.csye6225.webapp.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Background relay that drains the outbox to the configured {@link UserEventSink}.
+ *
+ * Off unless webapp.outbox.relay.enabled=true; until then events simply accumulate in the table.
+ *
+ * Each batch is claimed in a short transaction that locks the due rows and moves their next attempt
+ * past claim-timeout, so no other relay picks them up; the locks are released before delivery, so a
+ * slow sink never holds them. A second short transaction then deletes the delivered events and
+ * schedules a retry for the failed ones with exponential backoff (initial-backoff doubling up to
+ * max-backoff). If the node dies in between, its claimed events become due again after claim-timeout.
+ * With sharding, events are written to the shard of the user they describe and every shard is drained.
+ */
+@Component
+@ConditionalOnProperty(name = "webapp.outbox.relay.enabled", havingValue = "true")
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final int MAX_ERROR_LENGTH = 512;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final UserEventSink sink;
+    private final UserShards userShards;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       UserEventSink sink,
+                       UserShards userShards,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${webapp.outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${webapp.outbox.relay.max-batches-per-run:10}") int maxBatchesPerRun,
+                       @Value("${webapp.outbox.relay.initial-backoff:1s}") Duration initialBackoff,
+                       @Value("${webapp.outbox.relay.max-backoff:5m}") Duration maxBackoff,
+                       @Value("${webapp.outbox.relay.claim-timeout:1m}") Duration claimTimeout) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sink = sink;
+        this.userShards = userShards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.claimTimeout = claimTimeout;
+    }
+
+    @Scheduled(fixedDelayString = "${webapp.outbox.relay.poll-interval:1s}")
+    public void drain() {
+        for (int shard = 0; shard < userShards.getShardCount(); shard++) {
+            try {
+                userShards.onShard(shard, () -> {
+                    drainShard();
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                // Database trouble: try again on the next tick
+                logger.warn("Outbox relay run failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void drainShard() {
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            if (relayBatch() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deliver one batch of due events; returns how many were claimed
+     */
+    int relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> claim(now));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        // 1. Deliver outside any transaction, so the sink's latency holds no row locks
+        List<Long> delivered = new ArrayList<>();
+        List<OutboxEvent> failed = new ArrayList<>();
+        for (OutboxEvent event : batch) {
+            try {
+                sink.deliver(event);
+                delivered.add(event.getId());
+            } catch (Exception e) {
+                int attempts = event.getAttempts() + 1;
+                event.setAttempts(attempts);
+                event.setNextAttemptAt(now.plus(backoff(attempts)));
+                event.setLastError(truncate(e.toString()));
+                failed.add(event);
+                logger.warn("Delivery of outbox event {} ({}) failed, attempt {}: {}",
+                        event.getId(), event.getEventType(), attempts, e.getMessage());
+            }
+        }
+
+        // 2. Record the outcome; the claim keeps other relays away until then
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                outboxEventRepository.deleteAllByIdInBatch(delivered);
+            }
+            for (OutboxEvent event : failed) {
+                outboxEventRepository.reschedule(event.getId(), event.getAttempts(), event.getNextAttemptAt(), event.getLastError());
+            }
+        });
+        return batch.size();
+    }
+
+    // Lock the due rows and push them out of reach of other relays until the claim times out
+    private List<OutboxEvent> claim(LocalDateTime now) {
+        List<OutboxEvent> batch = outboxEventRepository.claimDue(now, PageRequest.of(0, batchSize));
+        LocalDateTime claimedUntil = now.plus(claimTimeout);
+        for (OutboxEvent event : batch) {
+            event.setNextAttemptAt(claimedUntil);
+        }
+        return batch;
+    }
+
+    Duration backoff(int attempts) {
+        // initial * 2^(attempts - 1), capped; the shift is bounded to avoid overflow
+        long factor = 1L << Math.min(attempts - 1, 30);
+        Duration delay = initialBackoff.multipliedBy(factor);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,59 @@
+package com.csye6225.webapp.outbox;
+
+import com.csye6225.webapp.entity.OutboxEvent;
+import com.csye6225.webapp.entity.User;
+import com.csye6225.webapp.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes user lifecycle events to the outbox table.
+ * Must join the caller's transaction so the event commits or rolls back with the user row.
+ */
+@Component
+public class UserEventOutbox {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public UserEventOutbox(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(UserEventType type, User user) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(type.name());
+        event.setAggregateId(user.getId());
+        event.setPayload(toPayload(type, user));
+        outboxEventRepository.save(event);
+    }
+
+    // Never include the password hash in the payload
+    private String toPayload(UserEventType type, User user) {
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("event_type", type.name());
+        payload.put("user_id", user.getId().toString());
+        payload.put("username", user.getUsername());
+        payload.put("first_name", user.getFirstName());
+        payload.put("last_name", user.getLastName());
+        payload.put("verified", user.isVerified());
+        payload.put("occurred_at", LocalDateTime.now(ZoneOffset.UTC).format(TIMESTAMP_FORMAT));
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize user event", e);
+        }
+    }
+}
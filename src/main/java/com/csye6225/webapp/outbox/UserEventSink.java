@@ -0,0 +1,17 @@
+package com.csye6225.webapp.outbox;
+
+import com.csye6225.webapp.entity.OutboxEvent;
+
+/**
+ * Destination for user lifecycle events drained from the outbox.
+ *
+ * Delivery is at-least-once: an event can be handed over again if the relay fails after
+ * delivering it, so consumers should de-duplicate on {@link OutboxEvent#getId()}.
+ */
+public interface UserEventSink {
+
+    /**
+     * Deliver one event; throwing schedules a retry with backoff
+     */
+    void deliver(OutboxEvent event) throws Exception;
+}
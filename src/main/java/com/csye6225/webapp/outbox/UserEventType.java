@@ -0,0 +1,7 @@
+package com.csye6225.webapp.outbox;
+
+public enum UserEventType {
+    USER_CREATED,
+    USER_UPDATED,
+    USER_DELETED
+}
@@ -0,0 +1,78 @@
+package com.csye6225.webapp.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Takes time-boxed JDK Flight Recorder recordings on demand, one at a time.
+ *
+ * The recording uses one of the JDK's settings files ("default", about 1% overhead, or "profile",
+ * which samples more). The application's own events (password hashing, repository calls, body
+ * serialization, user lookups) are enabled in both.
+ */
+@Component
+public class FlightRecordingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecordingService.class);
+
+    public static final Set<String> SETTINGS = Set.of("default", "profile");
+
+    private final Duration maxDuration;
+    private final AtomicBoolean recording = new AtomicBoolean();
+
+    public FlightRecordingService(@Value("${webapp.profiling.max-duration:2m}") Duration maxDuration) {
+        this.maxDuration = maxDuration;
+    }
+
+    public Duration getMaxDuration() {
+        return maxDuration;
+    }
+
+    public boolean isAvailable() {
+        return FlightRecorder.isAvailable();
+    }
+
+    /**
+     * Record for the given time and return the .jfr file's content.
+     *
+     * @throws IllegalStateException if another recording is still running
+     */
+    public byte[] record(Duration duration, String settings) throws IOException, InterruptedException {
+        if (!recording.compareAndSet(false, true)) {
+            throw new IllegalStateException("A recording is already in progress");
+        }
+        Path file = Files.createTempFile("webapp-", ".jfr");
+        try (Recording jfr = new Recording(Configuration.getConfiguration(settings))) {
+            jfr.setName("webapp-on-demand");
+            jfr.setToDisk(true);
+            jfr.start();
+            logger.info("Flight recording started ({} settings, {})", settings, duration);
+            try {
+                Thread.sleep(duration.toMillis());
+            } finally {
+                // Also keep what was captured so far if the wait is interrupted
+                jfr.stop();
+                jfr.dump(file);
+            }
+            return Files.readAllBytes(file);
+        } catch (ParseException e) {
+            throw new IOException("Unreadable JFR settings " + settings, e);
+        } finally {
+            Files.deleteIfExists(file);
+            recording.set(false);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.csye6225.webapp.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.io.IOException;
+
+/**
+ * One request or response body read or written with Jackson (JSON, Smile or CBOR).
+ */
+@Name("com.csye6225.webapp.JsonSerialization")
+@Label("JSON Serialization")
+@Category({"Webapp", "Serialization"})
+@Description("Jackson read or write of a request/response body")
+@StackTrace(false)
+public class JsonSerializationEvent extends Event {
+
+    @Label("Direction")
+    String direction;
+
+    @Label("Format")
+    String format;
+
+    @Label("Type")
+    String type;
+
+    /**
+     * Body work that may fail with an IOException
+     */
+    @FunctionalInterface
+    public interface BodyWork<T> {
+        T run() throws IOException;
+    }
+
+    public static <T> T write(String format, Class<?> type, BodyWork<T> work) throws IOException {
+        return time("write", format, type, work);
+    }
+
+    public static <T> T read(String format, Class<?> type, BodyWork<T> work) throws IOException {
+        return time("read", format, type, work);
+    }
+
+    private static <T> T time(String direction, String format, Class<?> type, BodyWork<T> work) throws IOException {
+        JsonSerializationEvent event = new JsonSerializationEvent();
+        if (!event.isEnabled()) {
+            return work.run();
+        }
+        event.begin();
+        try {
+            return work.run();
+        } finally {
+            if (event.shouldCommit()) {
+                event.direction = direction;
+                event.format = format;
+                event.type = type == null ? null : type.getSimpleName();
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.csye6225.webapp.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One BCrypt hash computed to create/update a password or to check one at login.
+ */
+@Name("com.csye6225.webapp.PasswordHash")
+@Label("Password Hash")
+@Category({"Webapp", "Security"})
+@Description("BCrypt encode or match")
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Matched")
+    boolean matched;
+}
@@ -0,0 +1,84 @@
+package com.csye6225.webapp.profiling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Spring MVC's Jackson converters, emitting a {@link JsonSerializationEvent} for every body they
+ * read or write. Covers controllers and GlobalExceptionHandler.
+ */
+public final class ProfiledJacksonConverters {
+
+    private ProfiledJacksonConverters() {
+    }
+
+    public static MappingJackson2HttpMessageConverter json(ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+                    throws IOException, HttpMessageNotReadableException {
+                return JsonSerializationEvent.read("json", rawClass(type), () -> super.read(type, contextClass, inputMessage));
+            }
+
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException, HttpMessageNotWritableException {
+                JsonSerializationEvent.write("json", object.getClass(), () -> {
+                    super.writeInternal(object, type, outputMessage);
+                    return null;
+                });
+            }
+        };
+    }
+
+    public static MappingJackson2SmileHttpMessageConverter smile(ObjectMapper objectMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(objectMapper) {
+            @Override
+            public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+                    throws IOException, HttpMessageNotReadableException {
+                return JsonSerializationEvent.read("smile", rawClass(type), () -> super.read(type, contextClass, inputMessage));
+            }
+
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException, HttpMessageNotWritableException {
+                JsonSerializationEvent.write("smile", object.getClass(), () -> {
+                    super.writeInternal(object, type, outputMessage);
+                    return null;
+                });
+            }
+        };
+    }
+
+    public static MappingJackson2CborHttpMessageConverter cbor(ObjectMapper objectMapper) {
+        return new MappingJackson2CborHttpMessageConverter(objectMapper) {
+            @Override
+            public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+                    throws IOException, HttpMessageNotReadableException {
+                return JsonSerializationEvent.read("cbor", rawClass(type), () -> super.read(type, contextClass, inputMessage));
+            }
+
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException, HttpMessageNotWritableException {
+                JsonSerializationEvent.write("cbor", object.getClass(), () -> {
+                    super.writeInternal(object, type, outputMessage);
+                    return null;
+                });
+            }
+        };
+    }
+
+    private static Class<?> rawClass(Type type) {
+        return type instanceof Class<?> clazz ? clazz : null;
+    }
+}
@@ -0,0 +1,28 @@
+package com.csye6225.webapp.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One call to a Spring Data repository, including connection acquisition and row mapping.
+ */
+@Name("com.csye6225.webapp.RepositoryCall")
+@Label("Repository Call")
+@Category({"Webapp", "Database"})
+@Description("Spring Data repository method call")
+@StackTrace(false)
+public class RepositoryCallEvent extends Event {
+
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,47 @@
+package com.csye6225.webapp.profiling;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Emits a {@link RepositoryCallEvent} around each call to a Spring Data repository.
+ */
+public class RepositoryCallInterceptor implements MethodInterceptor {
+
+    // Repository interface name, resolved once per proxy class
+    private static final ClassValue<String> REPOSITORY_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> proxyClass) {
+            for (Class<?> type : proxyClass.getInterfaces()) {
+                if (Repository.class.isAssignableFrom(type) && !type.getName().startsWith("org.springframework.")) {
+                    return type.getSimpleName();
+                }
+            }
+            return proxyClass.getSimpleName();
+        }
+    };
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        event.begin();
+        boolean failed = true;
+        try {
+            Object result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            if (event.shouldCommit()) {
+                Object target = invocation.getThis();
+                event.repository = target != null ? REPOSITORY_NAMES.get(target.getClass()) : null;
+                event.method = invocation.getMethod().getName();
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.csye6225.webapp.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One CustomUserDetailsService.loadUserByUsername call made during authentication.
+ */
+@Name("com.csye6225.webapp.UserDetailsLookup")
+@Label("User Details Lookup")
+@Category({"Webapp", "Security"})
+@Description("Account lookup for authentication")
+@StackTrace(false)
+public class UserDetailsLookupEvent extends Event {
+
+    public static final String FOUND = "found";
+    public static final String NOT_FOUND = "not_found";
+    public static final String CACHED_MISS = "cached_miss";
+    public static final String FAILED = "failed";
+
+    @Label("Outcome")
+    private String outcome = FAILED;
+
+    public void setOutcome(String outcome) {
+        this.outcome = outcome;
+    }
+}
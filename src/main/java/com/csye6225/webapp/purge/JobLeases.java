@@ -0,0 +1,68 @@
+package com.csye6225.webapp.purge;
+
+import com.csye6225.webapp.datasource.UserShards;
+import com.csye6225.webapp.repository.JobLeaseRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Leases that keep a background job to one node of the cluster at a time.
+ *
+ * A lease is a row in job_leases (on the first shard when storage is sharded). Whoever updates
+ * it while it is free or already theirs holds it until it expires, so a node that dies mid-run
+ * only blocks the job for one lease duration. Holders renew it as they make progress.
+ */
+@Component
+public class JobLeases {
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final UserShards userShards;
+    private final TransactionTemplate transactionTemplate;
+    // This JVM: pid@host from the runtime name plus a random suffix, as restarts may reuse the pid
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+
+    public JobLeases(JobLeaseRepository jobLeaseRepository, UserShards userShards,
+                     PlatformTransactionManager transactionManager) {
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.userShards = userShards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Acquire or renew the named lease for {@code duration}; false if another node holds it
+     */
+    public boolean tryAcquire(String name, Duration duration) {
+        try {
+            return Boolean.TRUE.equals(userShards.onShard(0, () -> transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                LocalDateTime expiresAt = now.plus(duration);
+                if (jobLeaseRepository.claim(name, owner, expiresAt, now) == 1) {
+                    return true;
+                }
+                if (jobLeaseRepository.existsById(name)) {
+                    return false;
+                }
+                return jobLeaseRepository.create(name, owner, expiresAt) == 1;
+            })));
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the lease at the same moment
+            return false;
+        }
+    }
+
+    public void release(String name) {
+        userShards.onShard(0, () -> transactionTemplate.execute(
+                status -> jobLeaseRepository.release(name, owner, LocalDateTime.now())));
+    }
+}
@@ -0,0 +1,266 @@
+package com.csye6225.webapp.purge;
+
+import com.csye6225.webapp.datasource.UserShards;
+import com.csye6225.webapp.dto.UnverifiedPurgeReport;
+import com.csye6225.webapp.dto.UnverifiedPurgeStatus;
+import com.csye6225.webapp.dto.UserCursor;
+import com.csye6225.webapp.entity.User;
+import com.csye6225.webapp.outbox.UserEventOutbox;
+import com.csye6225.webapp.outbox.UserEventType;
+import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.search.UserSearchIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deletes unverified accounts older than webapp.purge.unverified.max-age.
+ *
+ * Candidates are found with a keyset scan over (account_created, id) on the verified index, a
+ * chunk at a time. Each chunk is deleted in its own short transaction that re-reads and locks
+ * only those rows by primary key, so a user who verifies meanwhile is kept and InnoDB never
+ * holds locks for longer than one chunk. The job pauses between chunks so replicas keep up,
+ * stops after max-per-run accounts, and renews a cluster-wide lease as it goes, so only one node
+ * purges at a time. Every deletion is published as a USER_DELETED outbox event.
+ *
+ * Runs, scheduled or on demand, happen on a thread of their own: the pauses never hold up the
+ * other scheduled jobs, and an admin request only starts a run, so the run is not bound by (or
+ * cut off at) that request's deadline.
+ */
+@Component
+public class UnverifiedAccountPurger implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnverifiedAccountPurger.class);
+
+    static final String LEASE = "purge-unverified-accounts";
+
+    private final UserRepository userRepository;
+    private final UserEventOutbox userEventOutbox;
+    private final UserSearchIndex userSearchIndex;
+    private final UserShards userShards;
+    private final JobLeases jobLeases;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean scheduled;
+    private final boolean scheduledDryRun;
+    private final Duration maxAge;
+    private final int chunkSize;
+    private final Duration chunkPause;
+    private final long maxPerRun;
+    private final Duration leaseDuration;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "unverified-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile UnverifiedPurgeStatus status = UnverifiedPurgeStatus.idle();
+    private final Counter deleted;
+    private final Counter wouldDelete;
+    private final Counter chunks;
+
+    public UnverifiedAccountPurger(UserRepository userRepository,
+                                   UserEventOutbox userEventOutbox,
+                                   UserSearchIndex userSearchIndex,
+                                   UserShards userShards,
+                                   JobLeases jobLeases,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${webapp.purge.unverified.enabled:false}") boolean scheduled,
+                                   @Value("${webapp.purge.unverified.dry-run:false}") boolean scheduledDryRun,
+                                   @Value("${webapp.purge.unverified.max-age:7d}") Duration maxAge,
+                                   @Value("${webapp.purge.unverified.chunk-size:100}") int chunkSize,
+                                   @Value("${webapp.purge.unverified.chunk-pause:200ms}") Duration chunkPause,
+                                   @Value("${webapp.purge.unverified.max-per-run:10000}") long maxPerRun,
+                                   @Value("${webapp.purge.unverified.lease-duration:5m}") Duration leaseDuration) {
+        this.userRepository = userRepository;
+        this.userEventOutbox = userEventOutbox;
+        this.userSearchIndex = userSearchIndex;
+        this.userShards = userShards;
+        this.jobLeases = jobLeases;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.scheduled = scheduled;
+        this.scheduledDryRun = scheduledDryRun;
+        this.maxAge = maxAge;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.chunkPause = chunkPause;
+        this.maxPerRun = maxPerRun;
+        this.leaseDuration = leaseDuration;
+
+        this.deleted = Counter.builder("webapp.purge.unverified.accounts")
+                .description("Stale unverified accounts deleted, or found by dry runs")
+                .tag("mode", "delete")
+                .register(meterRegistry);
+        this.wouldDelete = Counter.builder("webapp.purge.unverified.accounts")
+                .description("Stale unverified accounts deleted, or found by dry runs")
+                .tag("mode", "dry_run")
+                .register(meterRegistry);
+        this.chunks = Counter.builder("webapp.purge.unverified.chunks")
+                .description("Chunks processed by the unverified account purge")
+                .register(meterRegistry);
+        Gauge.builder("webapp.purge.unverified.running", running, r -> r.get() ? 1 : 0)
+                .description("1 while this node is purging unverified accounts")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${webapp.purge.unverified.initial-delay:10m}",
+            fixedDelayString = "${webapp.purge.unverified.interval:1h}")
+    public void scheduledPurge() {
+        if (!scheduled) {
+            return;
+        }
+        try {
+            start(scheduledDryRun);
+        } catch (IllegalStateException e) {
+            logger.debug("Unverified account purge skipped: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            // Database trouble: try again on the next run
+            logger.warn("Unverified account purge failed to start: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Start a purge (or with dryRun only a count) of unverified accounts older than the configured
+     * age on the purge thread, once this node holds the lease. Follow it with {@link #status()}.
+     *
+     * @throws IllegalStateException if a purge is already running on this or another node
+     */
+    public UnverifiedPurgeStatus start(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A purge is already running on this node");
+        }
+        try {
+            if (!jobLeases.tryAcquire(LEASE, leaseDuration)) {
+                throw new IllegalStateException("A purge is already running on another node");
+            }
+            LocalDateTime startedAt = LocalDateTime.now();
+            UnverifiedPurgeStatus started = new UnverifiedPurgeStatus(true, startedAt, status.getLastRun(), null);
+            status = started;
+            executor.execute(() -> runAndRelease(dryRun, startedAt));
+            return started;
+        } catch (RuntimeException e) {
+            if (status.isRunning()) {
+                // Accepted the lease but could not hand the run over (shutting down)
+                status = new UnverifiedPurgeStatus(false, status.getStartedAt(), status.getLastRun(), e.getMessage());
+                jobLeases.release(LEASE);
+            }
+            running.set(false);
+            throw e;
+        }
+    }
+
+    public UnverifiedPurgeStatus status() {
+        return status;
+    }
+
+    private void runAndRelease(boolean dryRun, LocalDateTime startedAt) {
+        UnverifiedPurgeReport report = status.getLastRun();
+        String error = null;
+        try {
+            report = run(dryRun, startedAt.minus(maxAge));
+            logger.info("Unverified account purge: {} accounts {} in {} chunks{}", report.getAccounts(),
+                    report.isDryRun() ? "to delete" : "deleted", report.getChunks(),
+                    report.isCompleted() ? "" : " (stopped early, continues next run)");
+        } catch (RuntimeException e) {
+            // Database trouble: the scheduled run tries again later
+            error = e.getMessage();
+            logger.warn("Unverified account purge failed: {}", e.getMessage());
+        } finally {
+            try {
+                jobLeases.release(LEASE);
+            } catch (RuntimeException e) {
+                logger.warn("Could not release the purge lease, it expires in {}: {}", leaseDuration, e.getMessage());
+            }
+            status = new UnverifiedPurgeStatus(false, startedAt, report, error);
+            running.set(false);
+        }
+    }
+
+    // Interrupts a running purge at its next pause; the lease is released on the way out
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private UnverifiedPurgeReport run(boolean dryRun, LocalDateTime cutoff) {
+        long accounts = 0;
+        long chunkCount = 0;
+        Pageable chunk = PageRequest.of(0, chunkSize);
+        for (int shard = 0; shard < userShards.getShardCount(); shard++) {
+            UserCursor after = null;
+            while (accounts < maxPerRun) {
+                // 1. Next chunk of candidates, in index order after the last one seen
+                UserCursor position = after;
+                List<UserCursor> keys = userShards.readOnShard(shard, () -> position == null
+                        ? userRepository.findUnverifiedKeys(cutoff, chunk)
+                        : userRepository.findUnverifiedKeysAfter(cutoff, position.accountCreated(), position.id(), chunk));
+                if (keys.isEmpty()) {
+                    break;
+                }
+                after = keys.get(keys.size() - 1);
+                if (keys.size() > maxPerRun - accounts) {
+                    keys = keys.subList(0, (int) (maxPerRun - accounts));
+                }
+
+                // 2. Delete them (or count them for a dry run)
+                int processed = dryRun ? keys.size() : deleteChunk(shard, keys, cutoff);
+                accounts += processed;
+                chunkCount++;
+                chunks.increment();
+                (dryRun ? wouldDelete : deleted).increment(processed);
+
+                // 3. Let replication catch up, and keep the lease while there is more to do
+                if (keys.size() < chunkSize) {
+                    break;
+                }
+                if (!pause() || !jobLeases.tryAcquire(LEASE, leaseDuration)) {
+                    return new UnverifiedPurgeReport(dryRun, cutoff, accounts, chunkCount, false);
+                }
+            }
+        }
+        return new UnverifiedPurgeReport(dryRun, cutoff, accounts, chunkCount, accounts < maxPerRun);
+    }
+
+    private int deleteChunk(int shard, List<UserCursor> keys, LocalDateTime cutoff) {
+        List<UUID> ids = keys.stream().map(UserCursor::id).toList();
+        List<UUID> removed = userShards.onShard(shard, () -> transactionTemplate.execute(status -> {
+            List<User> users = userRepository.lockUnverifiedByIdIn(ids, cutoff);
+            for (User user : users) {
+                userEventOutbox.record(UserEventType.USER_DELETED, user);
+            }
+            userRepository.deleteAllInBatch(users);
+            return users.stream().map(User::getId).toList();
+        }));
+        // After commit, like the other writers of the index
+        removed.forEach(userSearchIndex::remove);
+        return removed.size();
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(chunkPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
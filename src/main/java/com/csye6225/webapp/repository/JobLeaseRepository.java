@@ -0,0 +1,37 @@
+package com.csye6225.webapp.repository;
+
+import com.csye6225.webapp.entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * Take over or renew the lease if it is ours or has expired; 1 if it now belongs to {@code owner}
+     */
+    @Modifying
+    @Query("update JobLease l set l.owner = :owner, l.expiresAt = :expiresAt "
+            + "where l.name = :name and (l.owner = :owner or l.expiresAt < :now)")
+    int claim(@Param("name") String name, @Param("owner") String owner,
+              @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    /**
+     * First claim of a lease; fails with a duplicate key if another node inserted it first
+     */
+    @Modifying
+    @Query(value = "insert into job_leases (name, owner, expires_at) values (:name, :owner, :expiresAt)", nativeQuery = true)
+    int create(@Param("name") String name, @Param("owner") String owner, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Let the lease lapse now, if it is still ours
+     */
+    @Modifying
+    @Query("update JobLease l set l.expiresAt = :now where l.name = :name and l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,15 @@
+package com.csye6225.webapp.repository;
+
+/**
+ * Columns authentication needs, read as an interface projection instead of a managed {@link com.csye6225.webapp.entity.User}
+ */
+public interface UserCredentials {
+
+    String getUsername();
+
+    String getPassword();
+
+    boolean isVerified();
+
+    boolean isAdmin();
+}
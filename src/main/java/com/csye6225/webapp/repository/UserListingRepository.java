@@ -0,0 +1,22 @@
+package com.csye6225.webapp.repository;
+
+import com.csye6225.webapp.dto.AdminUserSummary;
+import com.csye6225.webapp.dto.UserCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keyset-paginated user listing, newest first by (account_created, id).
+ */
+public interface UserListingRepository {
+
+    /**
+     * @param verified     only users with this verification status, or null for all
+     * @param createdFrom  inclusive lower bound on account_created, or null
+     * @param createdTo    exclusive upper bound on account_created, or null
+     * @param after        cursor of the last row of the previous page, or null for the first page
+     */
+    List<AdminUserSummary> findPage(Boolean verified, LocalDateTime createdFrom, LocalDateTime createdTo,
+                                    UserCursor after, int limit);
+}
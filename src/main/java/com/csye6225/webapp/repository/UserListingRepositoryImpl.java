@@ -0,0 +1,61 @@
+package com.csye6225.webapp.repository;
+
+import com.csye6225.webapp.dto.AdminUserSummary;
+import com.csye6225.webapp.dto.UserCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Builds only the predicates that are actually used, so MySQL can do a plain range scan on
+ * idx_users_created_id (or idx_users_verified_created_id when filtering on verified) starting
+ * at the cursor and stop after {@code limit} rows. An "(:param is null or ...)" style query
+ * would defeat the index.
+ */
+class UserListingRepositoryImpl implements UserListingRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AdminUserSummary> findPage(Boolean verified, LocalDateTime createdFrom, LocalDateTime createdTo,
+                                           UserCursor after, int limit) {
+        StringBuilder jpql = new StringBuilder(
+                "select new com.csye6225.webapp.dto.AdminUserSummary("
+                        + "u.id, u.username, u.firstName, u.lastName, u.verified, u.accountCreated, u.accountUpdated, u.lastLogin, u.loginCount) "
+                        + "from User u where 1 = 1");
+        if (verified != null) {
+            jpql.append(" and u.verified = :verified");
+        }
+        if (createdFrom != null) {
+            jpql.append(" and u.accountCreated >= :createdFrom");
+        }
+        if (createdTo != null) {
+            jpql.append(" and u.accountCreated < :createdTo");
+        }
+        if (after != null) {
+            jpql.append(" and (u.accountCreated < :afterCreated"
+                    + " or (u.accountCreated = :afterCreated and u.id < :afterId))");
+        }
+        jpql.append(" order by u.accountCreated desc, u.id desc");
+
+        TypedQuery<AdminUserSummary> query = entityManager.createQuery(jpql.toString(), AdminUserSummary.class);
+        if (verified != null) {
+            query.setParameter("verified", verified);
+        }
+        if (createdFrom != null) {
+            query.setParameter("createdFrom", createdFrom);
+        }
+        if (createdTo != null) {
+            query.setParameter("createdTo", createdTo);
+        }
+        if (after != null) {
+            query.setParameter("afterCreated", after.accountCreated());
+            query.setParameter("afterId", after.id());
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
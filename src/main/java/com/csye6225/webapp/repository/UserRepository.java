@@ -1,14 +1,86 @@
 package com.csye6225.webapp.repository;
 
+import com.csye6225.webapp.dto.AdminUserSummary;
+import com.csye6225.webapp.dto.UserCursor;
+import com.csye6225.webapp.dto.UserResponse;
 import com.csye6225.webapp.entity.User;
+import com.csye6225.webapp.search.UserSearchHit;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, UUID> {
+public interface UserRepository extends JpaRepository<User, UUID>, UserListingRepository {
+    // Managed entity, for the write paths
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
-}
\ No newline at end of file
+
+    // Read paths below are projections: no entity instance, no dirty-checking snapshot, no password hash unless needed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Optional<UserCredentials> findCredentialsByUsername(String username);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select new com.csye6225.webapp.dto.UserResponse(u.id, u.username, u.firstName, u.lastName, u.accountCreated, u.accountUpdated) "
+            + "from User u where u.username = :username")
+    Optional<UserResponse> findResponseByUsername(String username);
+
+    // Batch lookups for internal services; callers keep the IN lists to a bounded chunk size
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select new com.csye6225.webapp.dto.AdminUserSummary("
+            + "u.id, u.username, u.firstName, u.lastName, u.verified, u.accountCreated, u.accountUpdated, u.lastLogin, u.loginCount) "
+            + "from User u where u.id in :ids")
+    List<AdminUserSummary> findSummariesByIdIn(Collection<UUID> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select new com.csye6225.webapp.dto.AdminUserSummary("
+            + "u.id, u.username, u.firstName, u.lastName, u.verified, u.accountCreated, u.accountUpdated, u.lastLogin, u.loginCount) "
+            + "from User u where u.username in :usernames")
+    List<AdminUserSummary> findSummariesByUsernameIn(Collection<String> usernames);
+
+    // Everything the in-memory search index needs, without the password hash: keyset pages in id (primary key) order
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select new com.csye6225.webapp.search.UserSearchHit(u.id, u.username, u.firstName, u.lastName) from User u "
+            + "order by u.id")
+    List<UserSearchHit> findSearchHits(Pageable page);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select new com.csye6225.webapp.search.UserSearchHit(u.id, u.username, u.firstName, u.lastName) from User u "
+            + "where u.id > :afterId order by u.id")
+    List<UserSearchHit> findSearchHitsAfter(@Param("afterId") UUID afterId, Pageable page);
+
+    // Purge of stale unverified accounts: keyset scan in (account_created, id) order on idx_users_verified_created_id
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select new com.csye6225.webapp.dto.UserCursor(u.accountCreated, u.id) from User u "
+            + "where u.verified = false and u.accountCreated < :cutoff "
+            + "order by u.accountCreated, u.id")
+    List<UserCursor> findUnverifiedKeys(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select new com.csye6225.webapp.dto.UserCursor(u.accountCreated, u.id) from User u "
+            + "where u.verified = false and u.accountCreated < :cutoff "
+            + "and (u.accountCreated > :afterCreated or (u.accountCreated = :afterCreated and u.id > :afterId)) "
+            + "order by u.accountCreated, u.id")
+    List<UserCursor> findUnverifiedKeysAfter(@Param("cutoff") LocalDateTime cutoff,
+                                             @Param("afterCreated") LocalDateTime afterCreated,
+                                             @Param("afterId") UUID afterId,
+                                             Pageable page);
+
+    // Re-checked and locked by primary key just before deleting, in case a user verified meanwhile
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from User u where u.id in :ids and u.verified = false and u.accountCreated < :cutoff")
+    List<User> lockUnverifiedByIdIn(@Param("ids") Collection<UUID> ids, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,204 @@
+package com.csye6225.webapp.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limit for request handling that follows the database's actual capacity, estimated
+ * from measured latency (gradient algorithm).
+ *
+ * Completed requests are averaged in windows of webapp.concurrency.window-size samples. For each
+ * window the limit moves towards {@code limit * gradient + sqrt(limit)}, where the gradient is
+ * {@code tolerance * noLoadRtt / windowRtt} clamped to [0.5, 1]: while latency stays within
+ * tolerance of the no-load latency the limit grows by a small queue allowance, and once requests
+ * start queueing in the database it shrinks in proportion. A window containing failed requests
+ * (503/504) backs the limit off multiplicatively instead. The limit only grows when the window
+ * actually used at least half of it.
+ *
+ * The no-load latency is the smallest window average seen. It is measured with the first window
+ * and re-measured every webapp.concurrency.probe-interval by briefly dropping the limit to
+ * sqrt(limit), so a limit that started above capacity, or a database that got permanently slower
+ * or faster, is still tracked. The baseline only means something for requests of similar cost,
+ * so one limiter covers one class of requests.
+ */
+@Component
+@ConditionalOnProperty(name = "webapp.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+public class AdaptiveConcurrencyLimit {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final int windowSize;
+    private final long probeIntervalNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    private final Counter accepted;
+    private final Counter rejected;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private long noLoadRttNanos;
+    private long nextProbeAt;
+    private int windowSamples;
+    private long windowRttSum;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    @Autowired
+    public AdaptiveConcurrencyLimit(
+            MeterRegistry meterRegistry,
+            @Value("${webapp.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${webapp.concurrency.min-limit:4}") int minLimit,
+            @Value("${webapp.concurrency.max-limit:200}") int maxLimit,
+            @Value("${webapp.concurrency.tolerance:1.5}") double tolerance,
+            @Value("${webapp.concurrency.window-size:10}") int windowSize,
+            @Value("${webapp.concurrency.probe-interval:60s}") Duration probeInterval) {
+        this(meterRegistry, initialLimit, minLimit, maxLimit, tolerance, windowSize, probeInterval, System::nanoTime);
+
+        Gauge.builder("webapp.concurrency.limit", this, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("webapp.concurrency.in.flight", this, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Requests currently admitted by the concurrency limiter")
+                .register(meterRegistry);
+    }
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, int windowSize,
+                             Duration probeInterval, LongSupplier nanoClock) {
+        this(new SimpleMeterRegistry(), initialLimit, minLimit, maxLimit, tolerance, windowSize, probeInterval, nanoClock);
+    }
+
+    private AdaptiveConcurrencyLimit(MeterRegistry meterRegistry, int initialLimit, int minLimit, int maxLimit,
+                                     double tolerance, int windowSize, Duration probeInterval, LongSupplier nanoClock) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.tolerance = tolerance;
+        this.windowSize = Math.max(1, windowSize);
+        this.probeIntervalNanos = probeInterval.toNanos();
+        this.nanoClock = nanoClock;
+        this.estimatedLimit = clamp(initialLimit);
+        this.limit = (int) estimatedLimit;
+        // The first window measures the no-load latency at the initial limit; probing starts later
+        this.nextProbeAt = nanoClock.getAsLong() + probeIntervalNanos;
+
+        this.accepted = Counter.builder("webapp.concurrency.requests")
+                .description("Requests seen by the concurrency limiter, by outcome")
+                .tag("outcome", "accepted")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("webapp.concurrency.requests")
+                .description("Requests seen by the concurrency limiter, by outcome")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admit a request if the limit allows it.
+     *
+     * @return the number of requests in flight including this one (pass it to {@link #release}),
+     *         or -1 if the request must be rejected
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Record an admitted request's latency and free its slot.
+     *
+     * @param inFlightAtStart value returned by {@link #tryAcquire()}
+     * @param dropped         the request failed because the system was overloaded (503/504)
+     */
+    public void release(long rttNanos, int inFlightAtStart, boolean dropped) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            windowSamples++;
+            windowRttSum += rttNanos;
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+            windowDropped |= dropped;
+            if (windowSamples < windowSize) {
+                return;
+            }
+            long rtt = Math.max(1, windowRttSum / windowSamples);
+            int maxInFlight = windowMaxInFlight;
+            boolean anyDropped = windowDropped;
+            windowSamples = 0;
+            windowRttSum = 0;
+            windowMaxInFlight = 0;
+            windowDropped = false;
+            update(rtt, maxInFlight, anyDropped);
+        }
+    }
+
+    private void update(long rtt, int maxInFlight, boolean dropped) {
+        long now = nanoClock.getAsLong();
+        if (now - nextProbeAt >= 0) {
+            // Re-measure the no-load latency at reduced concurrency
+            nextProbeAt = now + probeIntervalNanos;
+            noLoadRttNanos = 0;
+            publish(Math.sqrt(estimatedLimit));
+            return;
+        }
+        if (noLoadRttNanos == 0 || rtt < noLoadRttNanos) {
+            noLoadRttNanos = rtt;
+        }
+
+        if (dropped) {
+            publish(estimatedLimit * BACKOFF_RATIO);
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * noLoadRttNanos / rtt));
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        if (maxInFlight < estimatedLimit / 2) {
+            // Too little traffic to tell whether a higher limit would be safe
+            target = Math.min(target, estimatedLimit);
+        }
+        publish(estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    private void publish(double newLimit) {
+        estimatedLimit = clamp(newLimit);
+        limit = (int) estimatedLimit;
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    synchronized long getNoLoadRttNanos() {
+        return noLoadRttNanos;
+    }
+}
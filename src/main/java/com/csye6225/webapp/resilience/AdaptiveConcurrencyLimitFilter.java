@@ -0,0 +1,86 @@
+package com.csye6225.webapp.resilience;
+
+import com.csye6225.webapp.deadline.RequestDeadline;
+import com.csye6225.webapp.dto.ErrorResponse;
+import com.csye6225.webapp.json.BinaryJsonFormats;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Puts the {@link AdaptiveConcurrencyLimit} in front of the user endpoints.
+ *
+ * Requests over the limit are answered 503 with Retry-After straight away, before
+ * authentication spends any BCrypt time on them. Admitted requests report their latency. Only
+ * overload counts as a drop: a request that ran past its deadline, or one answered 503 because
+ * the database guard turned it away (see {@link #markOverloaded}); other 503s, such as a full
+ * idempotency store, do not. /healthz is not limited: it costs a fraction of a BCrypt request,
+ * so its latency would set a no-load baseline no user request can meet.
+ */
+@Component
+@ConditionalOnProperty(name = "webapp.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+@Order(Ordered.HIGHEST_PRECEDENCE + 4)
+public class AdaptiveConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String OVERLOADED = AdaptiveConcurrencyLimitFilter.class.getName() + ".overloaded";
+
+    private final AdaptiveConcurrencyLimit limit;
+    private final BinaryJsonFormats binaryJsonFormats;
+
+    public AdaptiveConcurrencyLimitFilter(AdaptiveConcurrencyLimit limit, BinaryJsonFormats binaryJsonFormats) {
+        this.limit = limit;
+        this.binaryJsonFormats = binaryJsonFormats;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !(path.equals("/v1/user") || path.startsWith("/v1/user/"));
+    }
+
+    /**
+     * Record that the request is being failed because the database is saturated
+     */
+    public static void markOverloaded(HttpServletRequest request) {
+        request.setAttribute(OVERLOADED, Boolean.TRUE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        int inFlight = limit.tryAcquire();
+        if (inFlight < 0) {
+            reject(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // The deadline filter runs outside this one, so its deadline is still bound here
+            boolean dropped = request.getAttribute(OVERLOADED) != null || RequestDeadline.isCurrentExpired();
+            limit.release(System.nanoTime() - start, inFlight, dropped);
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        ErrorResponse error = new ErrorResponse(
+            "Service Unavailable",
+            "Service is temporarily unavailable. Please retry later.",
+            request.getRequestURI()
+        );
+        binaryJsonFormats.writeError(request, response, error);
+    }
+}
@@ -0,0 +1,49 @@
+package com.csye6225.webapp.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrency limit for one compartment; callers wait at most maxWait for a slot.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrent;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+
+    public Bulkhead(int maxConcurrent, Duration maxWait) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(maxWaitNanos);
+    }
+
+    /**
+     * Wait no longer than the given bound (e.g. the request's remaining deadline) or maxWait
+     */
+    public boolean tryAcquire(long waitBoundNanos) {
+        try {
+            return permits.tryAcquire(Math.max(0, Math.min(maxWaitNanos, waitBoundNanos)), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getAvailable() {
+        return permits.availablePermits();
+    }
+}
@@ -0,0 +1,180 @@
+package com.csye6225.webapp.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker.
+ *
+ * CLOSED: calls pass and outcomes are recorded in a sliding window of the last windowSize calls.
+ * Once minimumCalls are recorded and the failure or slow-call rate reaches its threshold the
+ * breaker OPENs and rejects calls. After openDuration it goes HALF_OPEN and lets halfOpenProbes
+ * calls through: if they all succeed quickly it CLOSEs again, otherwise it re-OPENs.
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final float failureRateThreshold;
+    private final float slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+
+    // Sliding window, guarded by this
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesIssued;
+    private int probesSucceeded;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, float failureRateThreshold,
+                          float slowCallRateThreshold, Duration slowCallThreshold, Duration openDuration,
+                          int halfOpenProbes) {
+        this(name, windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold,
+                slowCallThreshold, openDuration, halfOpenProbes, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int windowSize, int minimumCalls, float failureRateThreshold,
+                   float slowCallRateThreshold, Duration slowCallThreshold, Duration openDuration,
+                   int halfOpenProbes, LongSupplier nanoClock) {
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.nanoClock = nanoClock;
+        this.failed = new boolean[windowSize];
+        this.slow = new boolean[windowSize];
+    }
+
+    /**
+     * Ask to make a call; every granted call must be followed by {@link #onResult(long, boolean)}
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < openNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesIssued >= halfOpenProbes) {
+                return false;
+            }
+            probesIssued++;
+        }
+        return true;
+    }
+
+    public synchronized void onResult(long durationNanos, boolean failure) {
+        boolean isSlow = durationNanos >= slowCallNanos;
+
+        if (state == State.HALF_OPEN) {
+            if (failure || isSlow) {
+                transitionTo(State.OPEN);
+            } else if (++probesSucceeded >= halfOpenProbes) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // Call was admitted before the breaker tripped
+            return;
+        }
+
+        record(failure, isSlow);
+        if (recorded >= minimumCalls
+                && (getFailureRate() >= failureRateThreshold || getSlowCallRate() >= slowCallRateThreshold)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void record(boolean failure, boolean isSlow) {
+        if (recorded == windowSize) {
+            if (failed[next]) {
+                failures--;
+            }
+            if (slow[next]) {
+                slowCalls--;
+            }
+        } else {
+            recorded++;
+        }
+        failed[next] = failure;
+        slow[next] = isSlow;
+        if (failure) {
+            failures++;
+        }
+        if (isSlow) {
+            slowCalls++;
+        }
+        next = (next + 1) % windowSize;
+    }
+
+    private void transitionTo(State newState) {
+        logger.warn("Circuit breaker '{}' {} -> {} (failure rate {}%, slow call rate {}%)",
+                name, state, newState, getFailureRate(), getSlowCallRate());
+        state = newState;
+        probesIssued = 0;
+        probesSucceeded = 0;
+        if (newState == State.OPEN) {
+            openedAt = nanoClock.getAsLong();
+        }
+        if (newState == State.CLOSED) {
+            Arrays.fill(failed, false);
+            Arrays.fill(slow, false);
+            next = 0;
+            recorded = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+
+    public synchronized State getState() {
+        // Report HALF_OPEN as soon as the open period has elapsed, even before the next call
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized float getFailureRate() {
+        return recorded == 0 ? 0f : failures * 100f / recorded;
+    }
+
+    public synchronized float getSlowCallRate() {
+        return recorded == 0 ? 0f : slowCalls * 100f / recorded;
+    }
+
+    public synchronized int getRecordedCalls() {
+        return recorded;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
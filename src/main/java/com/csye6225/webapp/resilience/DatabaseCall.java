@@ -0,0 +1,20 @@
+package com.csye6225.webapp.resilience;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service method whose database work goes through the circuit breaker and the
+ * compartment's bulkhead. Applied outside {@code @Transactional}, so waiting for a pooled
+ * connection is covered as well.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface DatabaseCall {
+
+    DatabaseCompartment value();
+}
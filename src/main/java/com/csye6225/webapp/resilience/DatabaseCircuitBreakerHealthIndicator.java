@@ -0,0 +1,41 @@
+package com.csye6225.webapp.resilience;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports the database circuit breaker and bulkheads under the actuator health details.
+ * An open breaker reports OUT_OF_SERVICE; half-open still counts as UP while probes run.
+ */
+@Component("databaseCircuitBreaker")
+public class DatabaseCircuitBreakerHealthIndicator implements HealthIndicator {
+
+    private final DatabaseGuard databaseGuard;
+
+    public DatabaseCircuitBreakerHealthIndicator(DatabaseGuard databaseGuard) {
+        this.databaseGuard = databaseGuard;
+    }
+
+    @Override
+    public Health health() {
+        CircuitBreaker breaker = databaseGuard.getCircuitBreaker();
+        CircuitBreaker.State state = breaker.getState();
+
+        Map<String, String> bulkheads = new LinkedHashMap<>();
+        databaseGuard.getBulkheads().forEach((compartment, bulkhead) ->
+                bulkheads.put(compartment.name().toLowerCase(), bulkhead.getAvailable() + "/" + bulkhead.getMaxConcurrent()));
+
+        Health.Builder builder = state == CircuitBreaker.State.OPEN ? Health.outOfService() : Health.up();
+        return builder
+                .withDetail("state", state)
+                .withDetail("failureRate", breaker.getFailureRate())
+                .withDetail("slowCallRate", breaker.getSlowCallRate())
+                .withDetail("bufferedCalls", breaker.getRecordedCalls())
+                .withDetail("bulkheadsAvailable", bulkheads)
+                .build();
+    }
+}
@@ -0,0 +1,12 @@
+package com.csye6225.webapp.resilience;
+
+/**
+ * Kinds of database traffic, each limited by its own bulkhead so a flood of one
+ * kind cannot take every thread and connection from the others.
+ */
+public enum DatabaseCompartment {
+    AUTH,
+    USER_READ,
+    USER_WRITE,
+    HEALTH
+}
@@ -0,0 +1,188 @@
+package com.csye6225.webapp.resilience;
+
+import com.csye6225.webapp.deadline.RequestDeadline;
+import com.csye6225.webapp.exception.DatabaseUnavailableException;
+import com.csye6225.webapp.exception.RequestDeadlineExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.QueryTimeoutException;
+import org.hibernate.exception.JDBCConnectionException;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Single entry point for database access: a shared circuit breaker plus one bulkhead per
+ * {@link DatabaseCompartment}. Rejected calls fail fast with {@link DatabaseUnavailableException}.
+ *
+ * Only infrastructure failures (connection, timeout, transient errors) count against the breaker;
+ * business outcomes such as duplicate usernames do not.
+ *
+ * The request deadline is enforced here too: no database work starts once it has passed, the
+ * bulkhead wait is bounded by the remaining budget, and failures after expiry surface as
+ * {@link RequestDeadlineExceededException}.
+ */
+@Component
+@EnableConfigurationProperties(DatabaseResilienceProperties.class)
+public class DatabaseGuard {
+
+    private final boolean enabled;
+    private final CircuitBreaker circuitBreaker;
+    private final Map<DatabaseCompartment, Bulkhead> bulkheads = new EnumMap<>(DatabaseCompartment.class);
+    private final Map<DatabaseCompartment, Counter> openRejections = new EnumMap<>(DatabaseCompartment.class);
+    private final Map<DatabaseCompartment, Counter> bulkheadRejections = new EnumMap<>(DatabaseCompartment.class);
+
+    public DatabaseGuard(DatabaseResilienceProperties properties, MeterRegistry meterRegistry) {
+        DatabaseResilienceProperties.CircuitBreakerSettings breaker = properties.getCircuitBreaker();
+        this.enabled = properties.isEnabled();
+        this.circuitBreaker = new CircuitBreaker("database",
+                breaker.getWindowSize(),
+                breaker.getMinimumCalls(),
+                breaker.getFailureRateThreshold(),
+                breaker.getSlowCallRateThreshold(),
+                breaker.getSlowCallThreshold(),
+                breaker.getOpenDuration(),
+                breaker.getHalfOpenProbes());
+
+        Gauge.builder("webapp.db.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("Database circuit breaker state (0=closed, 1=half-open, 2=open)")
+                .register(meterRegistry);
+        Gauge.builder("webapp.db.circuit.failure.rate", circuitBreaker, CircuitBreaker::getFailureRate)
+                .baseUnit("percent")
+                .register(meterRegistry);
+        Gauge.builder("webapp.db.circuit.slow.call.rate", circuitBreaker, CircuitBreaker::getSlowCallRate)
+                .baseUnit("percent")
+                .register(meterRegistry);
+
+        for (DatabaseCompartment compartment : DatabaseCompartment.values()) {
+            DatabaseResilienceProperties.BulkheadSettings settings = properties.bulkhead(compartment);
+            Bulkhead bulkhead = new Bulkhead(settings.getMaxConcurrent(), settings.getMaxWait());
+            String tag = tag(compartment);
+            bulkheads.put(compartment, bulkhead);
+
+            Gauge.builder("webapp.db.bulkhead.available", bulkhead, Bulkhead::getAvailable)
+                    .tag("compartment", tag)
+                    .register(meterRegistry);
+            openRejections.put(compartment, Counter.builder("webapp.db.calls.rejected")
+                    .tag("compartment", tag).tag("reason", "circuit_open")
+                    .register(meterRegistry));
+            bulkheadRejections.put(compartment, Counter.builder("webapp.db.calls.rejected")
+                    .tag("compartment", tag).tag("reason", "bulkhead_full")
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Work that may throw anything, so the AOP interceptor can pass invocations straight through
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws Throwable;
+    }
+
+    public <T> T execute(DatabaseCompartment compartment, Work<T> work) throws Throwable {
+        RequestDeadline.checkNotExpired("database access");
+        if (!enabled) {
+            return runWithinDeadline(work);
+        }
+
+        // Bulkhead first: a half-open probe slot must never be taken by a call that then can't run
+        Bulkhead bulkhead = bulkheads.get(compartment);
+        RequestDeadline deadline = RequestDeadline.current();
+        boolean acquired = deadline != null ? bulkhead.tryAcquire(deadline.remainingNanos()) : bulkhead.tryAcquire();
+        if (!acquired) {
+            bulkheadRejections.get(compartment).increment();
+            throw new DatabaseUnavailableException("Too many concurrent " + tag(compartment) + " database calls");
+        }
+        try {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                openRejections.get(compartment).increment();
+                throw new DatabaseUnavailableException("Database circuit breaker is open");
+            }
+
+            long start = System.nanoTime();
+            Throwable error = null;
+            try {
+                return runWithinDeadline(work);
+            } catch (Throwable t) {
+                error = t;
+                throw t;
+            } finally {
+                // Calls cut short by the caller's own deadline still count through their duration (slow calls)
+                boolean failure = error != null && !(error instanceof RequestDeadlineExceededException)
+                        && isDatabaseFailure(error);
+                circuitBreaker.onResult(System.nanoTime() - start, failure);
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    // Report a statement cut short by the request deadline as a deadline failure, not a DB error
+    private static <T> T runWithinDeadline(Work<T> work) throws Throwable {
+        try {
+            return work.run();
+        } catch (RuntimeException e) {
+            if (RequestDeadline.isCurrentExpired() && !(e instanceof RequestDeadlineExceededException)
+                    && isDatabaseFailure(e)) {
+                throw new RequestDeadlineExceededException("Request deadline exceeded during database access", e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Programmatic variant for callers outside the service layer (e.g. the health check)
+     */
+    public <T> T call(DatabaseCompartment compartment, Supplier<T> work) {
+        try {
+            return execute(compartment, work::get);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Map<DatabaseCompartment, Bulkhead> getBulkheads() {
+        return bulkheads;
+    }
+
+    static boolean isDatabaseFailure(Throwable error) {
+        Throwable t = error;
+        while (t != null) {
+            if (t instanceof CannotCreateTransactionException
+                    || t instanceof DataAccessResourceFailureException
+                    || t instanceof TransientDataAccessException
+                    || t instanceof RecoverableDataAccessException
+                    || t instanceof SQLTransientException
+                    || t instanceof SQLRecoverableException
+                    || t instanceof SQLNonTransientConnectionException
+                    || t instanceof JDBCConnectionException
+                    || t instanceof QueryTimeoutException) {
+                return true;
+            }
+            t = t.getCause();
+        }
+        return false;
+    }
+
+    private static String tag(DatabaseCompartment compartment) {
+        return compartment.name().toLowerCase().replace('_', '-');
+    }
+}
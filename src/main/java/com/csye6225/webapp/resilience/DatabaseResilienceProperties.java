@@ -0,0 +1,175 @@
+package com.csye6225.webapp.resilience;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker thresholds and per-compartment bulkhead sizes for database access.
+ */
+@ConfigurationProperties(prefix = "webapp.db.resilience")
+public class DatabaseResilienceProperties {
+
+    private boolean enabled = true;
+
+    private CircuitBreakerSettings circuitBreaker = new CircuitBreakerSettings();
+
+    private BulkheadSettings auth = new BulkheadSettings(8);
+    private BulkheadSettings userRead = new BulkheadSettings(4);
+    private BulkheadSettings userWrite = new BulkheadSettings(4);
+    private BulkheadSettings health = new BulkheadSettings(2);
+
+    public static class CircuitBreakerSettings {
+
+        private int windowSize = 50;
+        private int minimumCalls = 20;
+        private float failureRateThreshold = 50;
+        private float slowCallRateThreshold = 80;
+        private Duration slowCallThreshold = Duration.ofSeconds(2);
+        private Duration openDuration = Duration.ofSeconds(10);
+        private int halfOpenProbes = 3;
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public float getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(float failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public float getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(float slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public Duration getSlowCallThreshold() {
+            return slowCallThreshold;
+        }
+
+        public void setSlowCallThreshold(Duration slowCallThreshold) {
+            this.slowCallThreshold = slowCallThreshold;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public int getHalfOpenProbes() {
+            return halfOpenProbes;
+        }
+
+        public void setHalfOpenProbes(int halfOpenProbes) {
+            this.halfOpenProbes = halfOpenProbes;
+        }
+    }
+
+    public static class BulkheadSettings {
+
+        private int maxConcurrent;
+        private Duration maxWait = Duration.ofMillis(100);
+
+        public BulkheadSettings() {
+        }
+
+        public BulkheadSettings(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+    }
+
+    public BulkheadSettings bulkhead(DatabaseCompartment compartment) {
+        return switch (compartment) {
+            case AUTH -> auth;
+            case USER_READ -> userRead;
+            case USER_WRITE -> userWrite;
+            case HEALTH -> health;
+        };
+    }
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public CircuitBreakerSettings getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreakerSettings circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public BulkheadSettings getAuth() {
+        return auth;
+    }
+
+    public void setAuth(BulkheadSettings auth) {
+        this.auth = auth;
+    }
+
+    public BulkheadSettings getUserRead() {
+        return userRead;
+    }
+
+    public void setUserRead(BulkheadSettings userRead) {
+        this.userRead = userRead;
+    }
+
+    public BulkheadSettings getUserWrite() {
+        return userWrite;
+    }
+
+    public void setUserWrite(BulkheadSettings userWrite) {
+        this.userWrite = userWrite;
+    }
+
+    public BulkheadSettings getHealth() {
+        return health;
+    }
+
+    public void setHealth(BulkheadSettings health) {
+        this.health = health;
+    }
+}
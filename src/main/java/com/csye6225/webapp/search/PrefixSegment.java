@@ -0,0 +1,108 @@
+package com.csye6225.webapp.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable, compact part of the search index: two parallel arrays sorted by (term, user id).
+ *
+ * A prefix lookup is a binary search for the first term &gt;= prefix followed by a forward scan.
+ * Identical terms (common first and last names) are interned so each distinct term is stored once.
+ */
+final class PrefixSegment {
+
+    static final PrefixSegment EMPTY = new PrefixSegment(new String[0], new UserSearchHit[0], 0L);
+
+    static final Comparator<Posting> ORDER = Comparator.comparing(Posting::term).thenComparing(p -> p.hit().id());
+
+    // Approximate object sizes on a 64-bit JVM with compressed oops
+    static final int REFERENCE_BYTES = 4;
+    static final int ARRAY_HEADER_BYTES = 16;
+    static final int STRING_BYTES = 24;
+
+    final String[] terms;
+    final UserSearchHit[] hits;
+    final long distinctTermBytes;
+
+    private PrefixSegment(String[] terms, UserSearchHit[] hits, long distinctTermBytes) {
+        this.terms = terms;
+        this.hits = hits;
+        this.distinctTermBytes = distinctTermBytes;
+    }
+
+    record Posting(String term, UserSearchHit hit) {
+    }
+
+    /**
+     * Build a segment from postings that are already sorted by {@link #ORDER}
+     */
+    static PrefixSegment fromSorted(List<Posting> postings) {
+        String[] terms = new String[postings.size()];
+        UserSearchHit[] hits = new UserSearchHit[postings.size()];
+        Map<String, String> interned = new HashMap<>();
+        long termBytes = 0;
+        for (int i = 0; i < postings.size(); i++) {
+            Posting posting = postings.get(i);
+            String term = interned.putIfAbsent(posting.term(), posting.term());
+            if (term == null) {
+                term = posting.term();
+                termBytes += stringBytes(term);
+            }
+            terms[i] = term;
+            hits[i] = posting.hit();
+        }
+        return new PrefixSegment(terms, hits, termBytes);
+    }
+
+    static PrefixSegment build(List<Posting> postings) {
+        List<Posting> sorted = new ArrayList<>(postings);
+        sorted.sort(ORDER);
+        return fromSorted(sorted);
+    }
+
+    int size() {
+        return terms.length;
+    }
+
+    /**
+     * Index of the first posting whose term is &gt;= {@code prefix}
+     */
+    int lowerBound(String prefix) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static int compare(String termA, UUID idA, String termB, UUID idB) {
+        int byTerm = termA.compareTo(termB);
+        return byTerm != 0 ? byTerm : idA.compareTo(idB);
+    }
+
+    /**
+     * Arrays plus the distinct term strings; the hits themselves are accounted for by the index
+     */
+    long estimatedBytes() {
+        return 2 * align(ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * terms.length) + distinctTermBytes;
+    }
+
+    static long stringBytes(String value) {
+        // Compact strings: one byte per char for Latin-1 text
+        return value == null ? 0 : STRING_BYTES + align(ARRAY_HEADER_BYTES + value.length());
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
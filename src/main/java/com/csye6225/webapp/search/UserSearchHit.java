@@ -0,0 +1,23 @@
+package com.csye6225.webapp.search;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.UUID;
+
+/**
+ * A user as stored in (and returned by) the search index. Never carries the password hash.
+ *
+ * @param version index write sequence; postings pointing at an older version of the same user are stale
+ */
+public record UserSearchHit(@JsonProperty("id") UUID id,
+                            @JsonProperty("username") String username,
+                            @JsonProperty("first_name") String firstName,
+                            @JsonProperty("last_name") String lastName,
+                            @JsonIgnore long version) {
+
+    // JPQL constructor expression used when loading the index
+    public UserSearchHit(UUID id, String username, String firstName, String lastName) {
+        this(id, username, firstName, lastName, 0L);
+    }
+}
@@ -0,0 +1,354 @@
+package com.csye6225.webapp.search;
+
+import com.csye6225.webapp.datasource.UserShards;
+import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.resilience.DatabaseCompartment;
+import com.csye6225.webapp.resilience.DatabaseGuard;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-memory prefix index over usernames (emails) and first/last name tokens, case-insensitive.
+ *
+ * The bulk of the index is an immutable {@link PrefixSegment}. Creates and updates made through
+ * {@code UserService} go to a small sorted pending map, which is merged into a new segment once it
+ * holds webapp.search.compact-threshold postings. Every user's latest version lives in
+ * {@code current}; a posting pointing at an older version (e.g. a previous last name) is stale
+ * and skipped, and dropped at the next merge.
+ *
+ * The index is loaded from the database at startup and fully rebuilt every
+ * webapp.search.rebuild-interval, which also picks up writes made by other instances. The load
+ * reads each shard in keyset pages of webapp.search.load-page-size users, one short read-only
+ * transaction and USER_READ slot per page, so a large table never ties up a connection for the
+ * whole rebuild. A user created elsewhere behind the cursor mid-load is picked up by the next rebuild.
+ */
+@Component
+public class UserSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    // Approximate sizes (64-bit JVM, compressed oops) of a hit record, its UUID and its current-map node
+    private static final long HIT_BYTES = 40 + 32 + 40;
+    // Skip-list node, index levels and key of a pending posting
+    private static final long PENDING_POSTING_BYTES = 96;
+
+    private final Supplier<List<UserSearchHit>> loader;
+    private final int compactThreshold;
+    private final int maxScan;
+
+    private final Object writeLock = new Object();
+    private final AtomicLong versions = new AtomicLong();
+    // id -> version of removals, so a rebuild that read the table before the removal does not resurrect the user
+    private final Map<UUID, Long> removals = new ConcurrentHashMap<>();
+    private volatile State state = State.empty();
+    private volatile boolean ready;
+
+    @Autowired
+    public UserSearchIndex(UserRepository userRepository,
+                           DatabaseGuard databaseGuard,
+                           UserShards userShards,
+                           MeterRegistry meterRegistry,
+                           @Value("${webapp.search.compact-threshold:1024}") int compactThreshold,
+                           @Value("${webapp.search.max-scan:10000}") int maxScan,
+                           @Value("${webapp.search.load-page-size:1000}") int loadPageSize) {
+        this(loader(userRepository, databaseGuard, userShards, loadPageSize), compactThreshold, maxScan);
+
+        Gauge.builder("webapp.search.index.users", this, index -> index.state.current.size())
+                .description("Users in the in-memory search index")
+                .register(meterRegistry);
+        Gauge.builder("webapp.search.index.postings", this, UserSearchIndex::postings)
+                .description("Term postings in the in-memory search index")
+                .register(meterRegistry);
+        Gauge.builder("webapp.search.index.bytes", this, UserSearchIndex::estimatedBytes)
+                .description("Estimated heap used by the in-memory search index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    UserSearchIndex(Supplier<List<UserSearchHit>> loader, int compactThreshold, int maxScan) {
+        this.loader = loader;
+        this.compactThreshold = compactThreshold;
+        this.maxScan = maxScan;
+    }
+
+    // Reads every shard in id order, one guarded read-only transaction per page
+    private static Supplier<List<UserSearchHit>> loader(UserRepository userRepository, DatabaseGuard databaseGuard,
+                                                        UserShards userShards, int pageSize) {
+        Pageable page = PageRequest.ofSize(pageSize);
+        return () -> {
+            List<UserSearchHit> hits = new ArrayList<>();
+            for (int shard = 0; shard < userShards.getShardCount(); shard++) {
+                int current = shard;
+                UUID after = null;
+                List<UserSearchHit> batch;
+                do {
+                    UUID cursor = after;
+                    batch = databaseGuard.call(DatabaseCompartment.USER_READ, () -> userShards.readOnShard(current,
+                            () -> cursor == null
+                                    ? userRepository.findSearchHits(page)
+                                    : userRepository.findSearchHitsAfter(cursor, page)));
+                    hits.addAll(batch);
+                    after = batch.isEmpty() ? null : batch.get(batch.size() - 1).id();
+                } while (batch.size() == pageSize);
+            }
+            return hits;
+        };
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reload the whole index from the database. Local writes that happen while the table is
+     * being read are carried over.
+     */
+    @Scheduled(fixedDelayString = "${webapp.search.rebuild-interval:15m}")
+    public void rebuild() {
+        long started = System.nanoTime();
+        long startVersion = versions.get();
+        List<UserSearchHit> loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to load the user search index: {}", e.getMessage());
+            return;
+        }
+
+        synchronized (writeLock) {
+            ConcurrentHashMap<UUID, UserSearchHit> current = new ConcurrentHashMap<>(loaded.size() * 2);
+            for (UserSearchHit hit : loaded) {
+                Long removedAt = removals.get(hit.id());
+                if (removedAt == null || removedAt <= startVersion) {
+                    current.put(hit.id(), hit);
+                }
+            }
+            removals.values().removeIf(version -> version <= startVersion);
+            for (UserSearchHit hit : state.current.values()) {
+                if (hit.version() > startVersion) {
+                    current.put(hit.id(), hit);
+                }
+            }
+            List<PrefixSegment.Posting> postings = new ArrayList<>(current.size() * 3);
+            for (UserSearchHit hit : current.values()) {
+                for (String term : terms(hit)) {
+                    postings.add(new PrefixSegment.Posting(term, hit));
+                }
+            }
+            state = State.of(PrefixSegment.build(postings), current);
+        }
+        ready = true;
+
+        logger.info("User search index loaded: {} users, {} postings, ~{} KB in {} ms",
+                state.current.size(), postings(), estimatedBytes() / 1024,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Add or replace a user; call after the write has committed
+     */
+    public void upsert(UUID id, String username, String firstName, String lastName) {
+        synchronized (writeLock) {
+            State s = state;
+            UserSearchHit hit = new UserSearchHit(id, username, firstName, lastName, versions.incrementAndGet());
+            s.current.put(id, hit);
+            for (String term : terms(hit)) {
+                if (s.pending.put(new PendingKey(term, id), hit) == null) {
+                    s.pendingCount.incrementAndGet();
+                }
+            }
+            if (s.pendingCount.get() >= compactThreshold) {
+                compact(s);
+            }
+        }
+    }
+
+    /**
+     * Remove a user; its postings become stale and are dropped at the next merge
+     */
+    public void remove(UUID id) {
+        synchronized (writeLock) {
+            removals.put(id, versions.incrementAndGet());
+            state.current.remove(id);
+        }
+    }
+
+    /**
+     * Up to {@code limit} users with a term starting with the first word of the query and, for
+     * multi-word queries, a term starting with each further word. Ordered by matching term.
+     */
+    public List<UserSearchHit> search(String query, int limit) {
+        String[] words = normalize(query).split("\\s+");
+        String prefix = words[0];
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        State s = state;
+        PrefixSegment base = s.base;
+        int i = base.lowerBound(prefix);
+        var pending = s.pending.tailMap(new PendingKey(prefix, MIN_ID), true).entrySet().iterator();
+        Map.Entry<PendingKey, UserSearchHit> next = pending.hasNext() ? pending.next() : null;
+
+        Map<UUID, UserSearchHit> results = new LinkedHashMap<>();
+        int scanned = 0;
+        while (results.size() < limit && scanned++ < maxScan) {
+            boolean baseMatches = i < base.size() && base.terms[i].startsWith(prefix);
+            boolean pendingMatches = next != null && next.getKey().term().startsWith(prefix);
+            UserSearchHit hit;
+            if (baseMatches && (!pendingMatches || PrefixSegment.compare(base.terms[i], base.hits[i].id(),
+                    next.getKey().term(), next.getKey().id()) <= 0)) {
+                hit = base.hits[i++];
+            } else if (pendingMatches) {
+                hit = next.getValue();
+                next = pending.hasNext() ? pending.next() : null;
+            } else {
+                break;
+            }
+
+            if (s.current.get(hit.id()) == hit && !results.containsKey(hit.id()) && matchesAll(hit, words)) {
+                results.put(hit.id(), hit);
+            }
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    public int size() {
+        return state.current.size();
+    }
+
+    public long postings() {
+        State s = state;
+        return s.base.size() + s.pendingCount.get();
+    }
+
+    /**
+     * Approximate retained heap: segment arrays and terms, one record per user with its display
+     * strings and map node, and the pending postings. Refreshed at every merge.
+     */
+    public long estimatedBytes() {
+        State s = state;
+        return s.baseBytes + (long) s.pendingCount.get() * PENDING_POSTING_BYTES;
+    }
+
+    // Caller holds writeLock
+    private void compact(State s) {
+        List<PrefixSegment.Posting> merged = new ArrayList<>(s.base.size() + s.pendingCount.get());
+        PrefixSegment base = s.base;
+        var pending = s.pending.entrySet().iterator();
+        Map.Entry<PendingKey, UserSearchHit> next = pending.hasNext() ? pending.next() : null;
+        int i = 0;
+        while (i < base.size() || next != null) {
+            PrefixSegment.Posting posting;
+            if (next == null || (i < base.size() && PrefixSegment.compare(base.terms[i], base.hits[i].id(),
+                    next.getKey().term(), next.getKey().id()) < 0)) {
+                posting = new PrefixSegment.Posting(base.terms[i], base.hits[i]);
+                i++;
+            } else {
+                posting = new PrefixSegment.Posting(next.getKey().term(), next.getValue());
+                // The pending posting supersedes a base posting with the same key
+                if (i < base.size() && base.terms[i].equals(next.getKey().term()) && base.hits[i].id().equals(next.getKey().id())) {
+                    i++;
+                }
+                next = pending.hasNext() ? pending.next() : null;
+            }
+            if (s.current.get(posting.hit().id()) == posting.hit()) {
+                merged.add(posting);
+            }
+        }
+        state = State.of(PrefixSegment.fromSorted(merged), s.current);
+    }
+
+    static Set<String> terms(UserSearchHit hit) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (hit.username() != null) {
+            terms.add(normalize(hit.username()));
+        }
+        for (String name : new String[] {hit.firstName(), hit.lastName()}) {
+            if (name != null) {
+                for (String token : normalize(name).split("\\s+")) {
+                    if (!token.isEmpty()) {
+                        terms.add(token);
+                    }
+                }
+            }
+        }
+        return terms;
+    }
+
+    private static boolean matchesAll(UserSearchHit hit, String[] words) {
+        if (words.length == 1) {
+            return true;
+        }
+        Set<String> terms = terms(hit);
+        for (int w = 1; w < words.length; w++) {
+            String word = words[w];
+            if (terms.stream().noneMatch(term -> term.startsWith(word))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record PendingKey(String term, UUID id) {
+        static final Comparator<PendingKey> ORDER = Comparator.comparing(PendingKey::term).thenComparing(PendingKey::id);
+    }
+
+    private static final class State {
+        final PrefixSegment base;
+        final ConcurrentSkipListMap<PendingKey, UserSearchHit> pending = new ConcurrentSkipListMap<>(PendingKey.ORDER);
+        final AtomicInteger pendingCount = new AtomicInteger();
+        final ConcurrentHashMap<UUID, UserSearchHit> current;
+        final long baseBytes;
+
+        private State(PrefixSegment base, ConcurrentHashMap<UUID, UserSearchHit> current, long baseBytes) {
+            this.base = base;
+            this.current = current;
+            this.baseBytes = baseBytes;
+        }
+
+        static State empty() {
+            return new State(PrefixSegment.EMPTY, new ConcurrentHashMap<>(), 0L);
+        }
+
+        static State of(PrefixSegment base, ConcurrentHashMap<UUID, UserSearchHit> current) {
+            long bytes = base.estimatedBytes() + current.size() * HIT_BYTES;
+            for (UserSearchHit hit : current.values()) {
+                bytes += PrefixSegment.stringBytes(hit.username())
+                        + PrefixSegment.stringBytes(hit.firstName())
+                        + PrefixSegment.stringBytes(hit.lastName());
+            }
+            return new State(base, current, bytes);
+        }
+    }
+}
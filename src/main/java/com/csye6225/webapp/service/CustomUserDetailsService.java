@@ -1,33 +1,83 @@
 package com.csye6225.webapp.service;
 
-import com.csye6225.webapp.entity.User;
+import com.csye6225.webapp.datasource.ReadYourWritesTracker;
+import com.csye6225.webapp.datasource.UserShards;
+import com.csye6225.webapp.profiling.UserDetailsLookupEvent;
+import com.csye6225.webapp.repository.UserCredentials;
 import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.resilience.DatabaseCall;
+import com.csye6225.webapp.resilience.DatabaseCompartment;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
     
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private UnknownUsernameCache unknownUsernameCache;
+
+    @Autowired
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Autowired
+    private UserShards userShards;
     
     @Override
+    @DatabaseCall(DatabaseCompartment.AUTH)
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // 1. Fetch user from database
-        User user = userRepository.findByUsername(username)
-            .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        // Flight Recorder event with the outcome; it stays FAILED if the lookup throws anything else
+        UserDetailsLookupEvent event = new UserDetailsLookupEvent();
+        event.begin();
+        try {
+            return load(username, event);
+        } finally {
+            event.commit();
+        }
+    }
+
+    private UserDetails load(String username, UserDetailsLookupEvent event) {
+        // 0. Short-circuit usernames recently confirmed missing (credential stuffing is mostly unknown usernames)
+        if (unknownUsernameCache.isKnownMissing(username)) {
+            event.setOutcome(UserDetailsLookupEvent.CACHED_MISS);
+            throw new UsernameNotFoundException("User not found: " + username);
+        }
+
+        // 1. Fetch user from database (the shard owning the username when sharded)
+        long generation = unknownUsernameCache.generation();
+        UserCredentials user = userShards.onOwningShard(username,
+                () -> readYourWritesTracker.read(username, () -> userRepository.findCredentialsByUsername(username))).orElse(null);
+        if (user == null) {
+            unknownUsernameCache.recordMiss(username, generation);
+            event.setOutcome(UserDetailsLookupEvent.NOT_FOUND);
+            throw new UsernameNotFoundException("User not found: " + username);
+        }
         
-        // 2. Get the verification status dynamically from the database entity
+        // 2. Get the verification status dynamically from the database row
         // If user.isVerified() is true -> Login allowed (200 OK)
         // If user.isVerified() is false -> Login denied (403 Forbidden via DisabledException)
         boolean isEnabled = user.isVerified();
         
-        // 3. Return Spring Security User object
+        // 3. Operations accounts flagged in the users table get the admin role
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (user.isAdmin()) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        }
+        
+        // 4. Return Spring Security User object
+        event.setOutcome(UserDetailsLookupEvent.FOUND);
         return new org.springframework.security.core.userdetails.User(
             user.getUsername(),
             user.getPassword(),
@@ -35,7 +85,7 @@ public class CustomUserDetailsService implements UserDetailsService {
             true, // accountNonExpired
             true, // credentialsNonExpired
             true, // accountNonLocked
-            new ArrayList<>() // authorities (empty for now)
+            authorities
         );
     }
 }
\ No newline at end of file
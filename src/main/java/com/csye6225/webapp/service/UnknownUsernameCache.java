@@ -0,0 +1,135 @@
+package com.csye6225.webapp.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, short-TTL negative cache of usernames known not to exist.
+ *
+ * Entries are kept in insertion order, and every entry has the same TTL, so the
+ * eldest entry is always the next one to expire and is the one evicted when full.
+ * Keys are lower-cased because MySQL's default collation matches usernames
+ * case-insensitively.
+ */
+@Component
+public class UnknownUsernameCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    // username -> expiry (System.nanoTime based)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>();
+
+    // Bumped on every invalidation so a lookup that raced with a signup cannot cache a stale miss
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public UnknownUsernameCache(
+            @Value("${webapp.auth.negative-cache.max-entries:10000}") int maxEntries,
+            @Value("${webapp.auth.negative-cache.ttl:30s}") Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    UnknownUsernameCache(int maxEntries, Duration ttl, LongSupplier nanoClock) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Generation to pass back to {@link #recordMiss(String, long)}; read it before querying the database.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Check whether the username is cached as non-existent
+     */
+    public boolean isKnownMissing(String username) {
+        if (maxEntries <= 0 || username == null) {
+            return false;
+        }
+        String key = key(username);
+        long now = nanoClock.getAsLong();
+        synchronized (entries) {
+            Long expiresAt = entries.get(key);
+            if (expiresAt == null) {
+                return false;
+            }
+            if (expiresAt - now <= 0) {
+                entries.remove(key);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Remember that the username does not exist, unless an invalidation happened since
+     * {@code observedGeneration} was read.
+     */
+    public void recordMiss(String username, long observedGeneration) {
+        if (maxEntries <= 0 || username == null) {
+            return;
+        }
+        String key = key(username);
+        long now = nanoClock.getAsLong();
+        synchronized (entries) {
+            if (generation.get() != observedGeneration) {
+                return;
+            }
+            // Re-insert so the entry moves to the tail and keeps expiry order intact
+            entries.remove(key);
+            entries.put(key, now + ttlNanos);
+            evict(now);
+        }
+    }
+
+    /**
+     * Drop the username from the cache, e.g. right after it has been inserted
+     */
+    public void invalidate(String username) {
+        if (username == null) {
+            return;
+        }
+        String key = key(username);
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Caller must hold the lock
+    private void evict(long now) {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            if (entries.size() > maxEntries || eldest.getValue() - now <= 0) {
+                it.remove();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,216 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.datasource.UserShards;
+import com.csye6225.webapp.deadline.RequestDeadline;
+import com.csye6225.webapp.dto.AdminUserSummary;
+import com.csye6225.webapp.dto.UserLookupResult;
+import com.csye6225.webapp.exception.RequestDeadlineExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Resolves many user ids and usernames at once for internal services.
+ *
+ * Keys are split into ids and usernames and fetched with IN queries of at most
+ * webapp.admin.lookup.chunk-size values each, every chunk in its own short read-only transaction.
+ * A key that another request is already fetching is not queried again: the later request waits
+ * for the same result. Each request resolves the keys it claimed before waiting on anyone else's,
+ * so two overlapping batches cannot wait on each other.
+ *
+ * With sharding, usernames are queried on their owning shard and ids on the shard they were
+ * issued on, then on the remaining shards for the ids not found there.
+ */
+@Component
+public class UserBatchLookup {
+
+    private final UserService userService;
+    private final UserShards userShards;
+    private final int chunkSize;
+
+    // Normalized key -> pending result (null = not found) of the request fetching it
+    private final Map<String, CompletableFuture<AdminUserSummary>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter queried;
+    private final Counter shared;
+
+    public UserBatchLookup(UserService userService,
+                           UserShards userShards,
+                           MeterRegistry meterRegistry,
+                           @Value("${webapp.admin.lookup.chunk-size:100}") int chunkSize) {
+        this.userService = userService;
+        this.userShards = userShards;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.queried = Counter.builder("webapp.admin.lookup.keys")
+                .description("Keys resolved by batch lookups, by whether this request queried them")
+                .tag("source", "queried")
+                .register(meterRegistry);
+        this.shared = Counter.builder("webapp.admin.lookup.keys")
+                .description("Keys resolved by batch lookups, by whether this request queried them")
+                .tag("source", "shared")
+                .register(meterRegistry);
+    }
+
+    /**
+     * One result per requested key, in request order (duplicates included)
+     */
+    public List<UserLookupResult> lookup(List<String> keys) {
+        // 1. Claim every distinct key, or join the request already fetching it
+        Map<String, CompletableFuture<AdminUserSummary>> pending = new HashMap<>();
+        Map<String, CompletableFuture<AdminUserSummary>> claimed = new LinkedHashMap<>();
+        for (String key : keys) {
+            String normalized = normalize(key);
+            if (pending.containsKey(normalized)) {
+                continue;
+            }
+            CompletableFuture<AdminUserSummary> mine = new CompletableFuture<>();
+            CompletableFuture<AdminUserSummary> existing = inFlight.putIfAbsent(normalized, mine);
+            if (existing == null) {
+                claimed.put(normalized, mine);
+                pending.put(normalized, mine);
+            } else {
+                shared.increment();
+                pending.put(normalized, existing);
+            }
+        }
+
+        // 2. Fetch the claimed keys; waiters see the same outcome, failures included
+        Throwable failure = null;
+        try {
+            resolve(claimed);
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            // Errors included: a waiter must never be left on a future nobody will complete
+            for (CompletableFuture<AdminUserSummary> future : claimed.values()) {
+                if (!future.isDone()) {
+                    future.completeExceptionally(failure != null
+                            ? failure : new IllegalStateException("Lookup finished without a result"));
+                }
+            }
+            claimed.forEach(inFlight::remove);
+        }
+        queried.increment(claimed.size());
+
+        // 3. Assemble the response in request order
+        List<UserLookupResult> results = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            results.add(new UserLookupResult(key, await(pending.get(normalize(key)))));
+        }
+        return results;
+    }
+
+    private void resolve(Map<String, CompletableFuture<AdminUserSummary>> claimed) {
+        Map<UUID, CompletableFuture<AdminUserSummary>> byId = new LinkedHashMap<>();
+        Map<String, CompletableFuture<AdminUserSummary>> byUsername = new LinkedHashMap<>();
+        claimed.forEach((key, future) -> {
+            if (key.startsWith("id:")) {
+                byId.put(UUID.fromString(key.substring(3)), future);
+            } else {
+                byUsername.put(key.substring(9), future);
+            }
+        });
+
+        // Ids: the shard each was issued on first, then the next one for those still missing
+        Map<UUID, CompletableFuture<AdminUserSummary>> missing = byId;
+        for (int attempt = 0; attempt < userShards.getShardCount() && !missing.isEmpty(); attempt++) {
+            int probe = attempt;
+            Map<Integer, Map<UUID, CompletableFuture<AdminUserSummary>>> byShard = new LinkedHashMap<>();
+            missing.forEach((id, future) -> byShard
+                    .computeIfAbsent(userShards.probeOrder(id).get(probe), shard -> new LinkedHashMap<>())
+                    .put(id, future));
+            Map<UUID, CompletableFuture<AdminUserSummary>> stillMissing = new LinkedHashMap<>();
+            byShard.forEach((shard, futures) -> stillMissing.putAll(fetchInChunks(futures,
+                    chunk -> userShards.onShard(shard, () -> userService.findSummariesById(chunk)),
+                    AdminUserSummary::getId)));
+            missing = stillMissing;
+        }
+        missing.values().forEach(future -> future.complete(null));
+
+        // Usernames: only the owning shard can have them
+        Map<Integer, Map<String, CompletableFuture<AdminUserSummary>>> byShard = new LinkedHashMap<>();
+        byUsername.forEach((username, future) -> byShard
+                .computeIfAbsent(userShards.shardFor(username), shard -> new LinkedHashMap<>())
+                .put(username, future));
+        byShard.forEach((shard, futures) -> fetchInChunks(futures,
+                chunk -> userShards.onShard(shard, () -> userService.findSummariesByUsername(chunk)),
+                row -> row.getUsername().toLowerCase(Locale.ROOT))
+                .values().forEach(future -> future.complete(null)));
+    }
+
+    /**
+     * Complete the futures of the keys found; returns the ones that were not
+     */
+    private <K> Map<K, CompletableFuture<AdminUserSummary>> fetchInChunks(Map<K, CompletableFuture<AdminUserSummary>> futures,
+                                                                           Function<List<K>, List<AdminUserSummary>> query,
+                                                                           Function<AdminUserSummary, K> keyOf) {
+        Map<K, CompletableFuture<AdminUserSummary>> notFound = new LinkedHashMap<>();
+        List<K> keys = new ArrayList<>(futures.keySet());
+        for (int from = 0; from < keys.size(); from += chunkSize) {
+            List<K> chunk = keys.subList(from, Math.min(keys.size(), from + chunkSize));
+            Map<K, AdminUserSummary> found = new HashMap<>();
+            for (AdminUserSummary row : query.apply(chunk)) {
+                found.put(keyOf.apply(row), row);
+            }
+            for (K key : chunk) {
+                AdminUserSummary row = found.get(key);
+                if (row != null) {
+                    futures.get(key).complete(row);
+                } else {
+                    notFound.put(key, futures.get(key));
+                }
+            }
+        }
+        return notFound;
+    }
+
+    private static AdminUserSummary await(CompletableFuture<AdminUserSummary> future) {
+        try {
+            RequestDeadline deadline = RequestDeadline.current();
+            if (deadline == null) {
+                return future.get();
+            }
+            return future.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new RequestDeadlineExceededException("Request deadline exceeded waiting for a concurrent lookup");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestDeadlineExceededException("Interrupted waiting for a concurrent lookup", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * "id:&lt;uuid&gt;" for canonical UUIDs, "username:&lt;lower-cased&gt;" otherwise (usernames match case-insensitively)
+     */
+    static String normalize(String key) {
+        if (key.length() == 36) {
+            try {
+                return "id:" + UUID.fromString(key);
+            } catch (IllegalArgumentException e) {
+                // Not a UUID, treat it as a username
+            }
+        }
+        return "username:" + key.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,15 +1,35 @@
 package com.csye6225.webapp.service;
 
+import com.csye6225.webapp.datasource.ReadYourWritesTracker;
+import com.csye6225.webapp.datasource.UserShards;
+import com.csye6225.webapp.dto.AdminUserPage;
+import com.csye6225.webapp.dto.AdminUserSummary;
 import com.csye6225.webapp.dto.UserCreateRequest;
+import com.csye6225.webapp.dto.UserCursor;
 import com.csye6225.webapp.dto.UserResponse;
 import com.csye6225.webapp.dto.UserUpdateRequest;
 import com.csye6225.webapp.entity.User;
+import com.csye6225.webapp.outbox.UserEventOutbox;
+import com.csye6225.webapp.outbox.UserEventType;
 import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.resilience.DatabaseCall;
+import com.csye6225.webapp.resilience.DatabaseCompartment;
+import com.csye6225.webapp.resilience.DatabaseGuard;
+import com.csye6225.webapp.search.UserSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -18,52 +38,186 @@ public class UserService {
     
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private UnknownUsernameCache unknownUsernameCache;
+
+    @Autowired
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Autowired
+    private UserEventOutbox userEventOutbox;
     
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    // BCrypt, shared with authentication; skips hashing once the request deadline has passed
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    // Every statement about one user runs on the shard owning the username (a no-op without sharding)
+    @Autowired
+    private UserShards userShards;
+
+    // Writes are guarded programmatically, so hashing can happen outside the guarded section
+    @Autowired
+    private DatabaseGuard databaseGuard;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static final String DUPLICATE_USERNAME = "A user with this email address already exists";
+
+    // Admin listing order: newest first, then by id as the database compares it (unsigned bytes)
+    private static final Comparator<AdminUserSummary> NEWEST_FIRST = Comparator
+            .comparing(AdminUserSummary::getAccountCreated)
+            .thenComparing(AdminUserSummary::getId, (a, b) -> {
+                int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+                return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+            })
+            .reversed();
     
     /**
-     * Create a new user
+     * Create a new user. The password is hashed outside the USER_WRITE guard, so BCrypt time neither
+     * holds a bulkhead slot nor counts as a slow database call; only the statements are guarded.
      */
-    @Transactional
     public UserResponse createUser(UserCreateRequest request) {
-        // Check if user already exists
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new IllegalArgumentException("A user with this email address already exists");
+        String username = request.getUsername();
+
+        // 1. Check if user already exists, before paying for a hash
+        boolean exists = databaseGuard.call(DatabaseCompartment.USER_WRITE,
+                () -> userShards.onOwningShard(username, () -> userRepository.existsByUsername(username)));
+        if (exists) {
+            throw new IllegalArgumentException(DUPLICATE_USERNAME);
         }
-        
+
+        // 2. BCrypt encryption, outside the guard
+        String passwordHash = passwordEncoder.encode(request.getPassword());
+
+        // 3. Insert; a concurrent signup for the same username loses on the unique constraint
+        try {
+            return databaseGuard.call(DatabaseCompartment.USER_WRITE, () -> transactionTemplate.execute(
+                    status -> userShards.onOwningShard(username, () -> insertUser(request, passwordHash))));
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException(DUPLICATE_USERNAME, e);
+        }
+    }
+
+    private UserResponse insertUser(UserCreateRequest request, String passwordHash) {
         // Create new user
         User user = new User();
         user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword())); // BCrypt encryption
+        user.setPassword(passwordHash);
         user.setFirstName(request.getFirstName());
         user.setLastName(request.getLastName());
         
         // Save user
         User savedUser = userRepository.save(user);
+        userEventOutbox.record(UserEventType.USER_CREATED, savedUser);
+
+        // The username exists from now on: drop any cached "not found" entry, and again
+        // after commit in case a concurrent login re-cached it before the row was visible
+        String username = savedUser.getUsername();
+        UUID id = savedUser.getId();
+        String firstName = savedUser.getFirstName();
+        String lastName = savedUser.getLastName();
+        unknownUsernameCache.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    unknownUsernameCache.invalidate(username);
+                    readYourWritesTracker.recordWrite(username);
+                    userSearchIndex.upsert(id, username, firstName, lastName);
+                }
+            });
+        }
         
         // Return response
         return mapToResponse(savedUser);
     }
     
     /**
-     * Find user by username
+     * Response for GET /v1/user/self, projected straight from the row (served by a replica unless
+     * the user wrote recently); the transaction and its connection end as soon as the query returns
+     */
+    @DatabaseCall(DatabaseCompartment.USER_READ)
+    @Transactional(readOnly = true)
+    public Optional<UserResponse> findResponseByUsername(String username) {
+        return userShards.onOwningShard(username,
+                () -> readYourWritesTracker.read(username, () -> userRepository.findResponseByUsername(username)));
+    }
+    
+    /**
+     * One page of the admin listing; fetches one extra row to know whether another page follows.
+     * With sharding every shard returns its own next rows and the page is merged from them.
+     */
+    @DatabaseCall(DatabaseCompartment.USER_READ)
+    public AdminUserPage listUsers(Boolean verified, LocalDateTime createdFrom, LocalDateTime createdTo,
+                                   UserCursor after, int limit) {
+        List<AdminUserSummary> rows = new ArrayList<>();
+        userShards.readEachShard(() -> userRepository.findPage(verified, createdFrom, createdTo, after, limit + 1))
+                .forEach(rows::addAll);
+        if (userShards.getShardCount() > 1) {
+            rows.sort(NEWEST_FIRST);
+        }
+        if (rows.size() <= limit) {
+            return new AdminUserPage(rows, null);
+        }
+        List<AdminUserSummary> page = rows.subList(0, limit);
+        return new AdminUserPage(page, page.get(limit - 1).toCursor().encode());
+    }
+    
+    /**
+     * One chunk of a batch lookup by id; the caller bounds the size of the IN list and selects the shard
      */
-    public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+    @DatabaseCall(DatabaseCompartment.USER_READ)
+    @Transactional(readOnly = true)
+    public List<AdminUserSummary> findSummariesById(Collection<UUID> ids) {
+        return userRepository.findSummariesByIdIn(ids);
     }
     
     /**
-     * Find user by ID
+     * One chunk of a batch lookup by username; the caller bounds the size of the IN list and selects the shard
      */
+    @DatabaseCall(DatabaseCompartment.USER_READ)
+    @Transactional(readOnly = true)
+    public List<AdminUserSummary> findSummariesByUsername(Collection<String> usernames) {
+        return userRepository.findSummariesByUsernameIn(usernames);
+    }
+    
+    /**
+     * Find user by ID, trying the shard the id was issued on first
+     */
+    @DatabaseCall(DatabaseCompartment.USER_READ)
     public Optional<User> findById(UUID id) {
-        return userRepository.findById(id);
+        for (int shard : userShards.probeOrder(id)) {
+            Optional<User> user = userShards.readOnShard(shard, () -> userRepository.findById(id));
+            if (user.isPresent()) {
+                return user;
+            }
+        }
+        return Optional.empty();
     }
     
     /**
-     * Update user information
+     * Update user information; the row is loaded and written in one transaction, so there is no
+     * detached entity to merge. A new password is hashed before the guarded transaction starts.
+     * Returns false if the user does not exist.
      */
-    @Transactional
-    public void updateUser(User user, UserUpdateRequest request) {
+    public boolean updateUser(String username, UserUpdateRequest request) {
+        String passwordHash = request.getPassword() != null && !request.getPassword().isEmpty()
+                ? passwordEncoder.encode(request.getPassword()) // BCrypt encryption
+                : null;
+        return databaseGuard.call(DatabaseCompartment.USER_WRITE, () -> transactionTemplate.execute(
+                status -> userShards.onOwningShard(username, () -> {
+                    Optional<User> user = userRepository.findByUsername(username);
+                    user.ifPresent(u -> applyUpdate(u, request, passwordHash));
+                    return user.isPresent();
+                })));
+    }
+    
+    private void applyUpdate(User user, UserUpdateRequest request, String passwordHash) {
         boolean updated = false;
         
         // Only update allowed fields
@@ -77,13 +231,28 @@ public class UserService {
             updated = true;
         }
         
-        if (request.getPassword() != null && !request.getPassword().isEmpty()) {
-            user.setPassword(passwordEncoder.encode(request.getPassword())); // BCrypt encryption
+        if (passwordHash != null) {
+            user.setPassword(passwordHash);
             updated = true;
         }
         
         if (updated) {
-            userRepository.save(user);
+            User savedUser = userRepository.save(user);
+            userEventOutbox.record(UserEventType.USER_UPDATED, savedUser);
+
+            // Keep this user's next reads on the primary until the replicas have caught up,
+            // and refresh the user's names in the search index
+            String username = user.getUsername();
+            UUID id = user.getId();
+            String firstName = user.getFirstName();
+            String lastName = user.getLastName();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    readYourWritesTracker.recordWrite(username);
+                    userSearchIndex.upsert(id, username, firstName, lastName);
+                }
+            });
         }
     }
     
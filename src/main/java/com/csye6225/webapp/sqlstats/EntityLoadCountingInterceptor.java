@@ -0,0 +1,16 @@
+package com.csye6225.webapp.sqlstats;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+/**
+ * Session-factory interceptor that counts entity loads for the current request.
+ */
+public class EntityLoadCountingInterceptor implements Interceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        RequestSqlStats.recordEntityLoad();
+        return false;
+    }
+}
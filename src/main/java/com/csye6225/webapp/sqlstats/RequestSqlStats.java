@@ -0,0 +1,68 @@
+package com.csye6225.webapp.sqlstats;
+
+/**
+ * Hibernate work done on behalf of one HTTP request: SQL statements prepared, entities loaded
+ * and flushes. Collected on the handling thread by {@link SqlStatsSessionEventListener} and
+ * {@link EntityLoadCountingInterceptor} while {@link SqlStatementBudgetFilter} has it bound.
+ */
+public final class RequestSqlStats {
+
+    /**
+     * Request attribute holding the finished stats, e.g. for tests asserting statement counts
+     */
+    public static final String REQUEST_ATTRIBUTE = RequestSqlStats.class.getName();
+
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private int entityLoads;
+    private int flushes;
+
+    static RequestSqlStats begin() {
+        RequestSqlStats stats = new RequestSqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static void recordStatement() {
+        RequestSqlStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+        }
+    }
+
+    static void recordEntityLoad() {
+        RequestSqlStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.entityLoads++;
+        }
+    }
+
+    static void recordFlush() {
+        RequestSqlStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.flushes++;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getEntityLoads() {
+        return entityLoads;
+    }
+
+    public int getFlushes() {
+        return flushes;
+    }
+
+    @Override
+    public String toString() {
+        return statements + " statements, " + entityLoads + " entity loads, " + flushes + " flushes";
+    }
+}
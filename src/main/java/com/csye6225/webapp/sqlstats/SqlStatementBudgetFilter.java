@@ -0,0 +1,58 @@
+package com.csye6225.webapp.sqlstats;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Collects {@link RequestSqlStats} for every request, including the queries run by Spring
+ * Security during authentication, and logs a warning when a request prepares more SQL
+ * statements than webapp.sql.budget.max-statements.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementBudgetFilter.class);
+
+    private final int maxStatements;
+
+    public SqlStatementBudgetFilter(@Value("${webapp.sql.budget.max-statements:6}") int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestSqlStats stats = RequestSqlStats.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestSqlStats.end();
+            request.setAttribute(RequestSqlStats.REQUEST_ATTRIBUTE, stats);
+
+            if (stats.getStatements() > maxStatements) {
+                logger.warn("SQL budget exceeded: {} {} -> {} (budget {} statements)",
+                        request.getMethod(), route(request), stats, maxStatements);
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("{} {} -> {}", request.getMethod(), route(request), stats);
+            }
+        }
+    }
+
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+}
@@ -0,0 +1,20 @@
+package com.csye6225.webapp.sqlstats;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Per-session Hibernate callback (registered through hibernate.session.events.auto) that feeds
+ * statement and flush counts into the current request's {@link RequestSqlStats}.
+ */
+public class SqlStatsSessionEventListener implements SessionEventListener {
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        RequestSqlStats.recordStatement();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        RequestSqlStats.recordFlush();
+    }
+}
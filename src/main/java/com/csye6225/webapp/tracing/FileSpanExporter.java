@@ -0,0 +1,98 @@
+package com.csye6225.webapp.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends each sampled trace as one line of OTLP/JSON ({@code {"resourceSpans": [...]}}) to a
+ * local file. The OpenTelemetry Collector's otlpjsonfile receiver and most trace viewers read
+ * this format, so traces can be analysed offline.
+ */
+@Component
+@ConditionalOnProperty(name = "webapp.tracing.exporter.type", havingValue = "file")
+public class FileSpanExporter implements SpanExporter {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final String serviceName;
+
+    public FileSpanExporter(@Value("${webapp.tracing.exporter.file-path:logs/traces.jsonl}") String filePath,
+                            @Value("${spring.application.name:webapp}") String serviceName,
+                            ObjectMapper objectMapper) {
+        this.file = Paths.get(filePath);
+        this.serviceName = serviceName;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void export(List<SpanData> trace) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(file, objectMapper.writeValueAsString(toOtlp(trace)) + System.lineSeparator(),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    ObjectNode toOtlp(List<SpanData> trace) {
+        ObjectNode request = objectMapper.createObjectNode();
+        ObjectNode resourceSpans = request.putArray("resourceSpans").addObject();
+        addAttributes(resourceSpans.putObject("resource"), Map.of("service.name", serviceName));
+        ObjectNode scopeSpans = resourceSpans.putArray("scopeSpans").addObject();
+        scopeSpans.putObject("scope").put("name", "com.csye6225.webapp");
+
+        ArrayNode spans = scopeSpans.putArray("spans");
+        for (SpanData span : trace) {
+            ObjectNode node = spans.addObject();
+            node.put("traceId", span.traceId());
+            node.put("spanId", span.spanId());
+            if (span.parentSpanId() != null) {
+                node.put("parentSpanId", span.parentSpanId());
+            }
+            node.put("name", span.name());
+            node.put("kind", span.kind().getOtlpCode());
+            // 64-bit integers are strings in OTLP/JSON
+            node.put("startTimeUnixNano", Long.toString(span.startEpochNanos()));
+            node.put("endTimeUnixNano", Long.toString(span.endEpochNanos()));
+            addAttributes(node, span.attributes());
+            if (span.error()) {
+                ObjectNode status = node.putObject("status").put("code", 2);
+                if (span.statusMessage() != null) {
+                    status.put("message", span.statusMessage());
+                }
+            }
+        }
+        return request;
+    }
+
+    private static void addAttributes(ObjectNode owner, Map<String, Object> attributes) {
+        ArrayNode array = owner.putArray("attributes");
+        attributes.forEach((key, value) -> {
+            ObjectNode attribute = array.addObject();
+            attribute.put("key", key);
+            ObjectNode anyValue = attribute.putObject("value");
+            if (value instanceof Boolean b) {
+                anyValue.put("boolValue", b);
+            } else if (value instanceof Integer || value instanceof Long) {
+                anyValue.put("intValue", value.toString());
+            } else if (value instanceof Number n) {
+                anyValue.put("doubleValue", n.doubleValue());
+            } else {
+                anyValue.put("stringValue", value.toString());
+            }
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package com.csye6225.webapp.tracing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent sampled traces in memory, for local runs and tests.
+ */
+@Component
+@ConditionalOnProperty(name = "webapp.tracing.exporter.type", havingValue = "memory", matchIfMissing = true)
+public class InMemorySpanExporter implements SpanExporter {
+
+    private static final int CAPACITY = 500;
+
+    private final Deque<List<SpanData>> traces = new ArrayDeque<>();
+
+    @Override
+    public synchronized void export(List<SpanData> trace) {
+        if (traces.size() == CAPACITY) {
+            traces.removeFirst();
+        }
+        traces.addLast(trace);
+    }
+
+    /**
+     * Spans of the given trace, or an empty list if it was not sampled (yet)
+     */
+    public synchronized List<SpanData> getTrace(String traceId) {
+        for (List<SpanData> trace : traces) {
+            if (trace.get(0).traceId().equals(traceId)) {
+                return trace;
+            }
+        }
+        return List.of();
+    }
+
+    public synchronized List<List<SpanData>> getTraces() {
+        return new ArrayList<>(traces);
+    }
+
+    public synchronized void clear() {
+        traces.clear();
+    }
+}
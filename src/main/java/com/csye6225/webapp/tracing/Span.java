@@ -0,0 +1,119 @@
+package com.csye6225.webapp.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One timed operation within a trace. Started by {@link Tracer}, current on the starting thread
+ * until {@link #end()}, which makes its parent current again. Use with try-with-resources.
+ *
+ * Outside a traced request {@link Tracer#startSpan} returns a shared no-op span, so callers never
+ * check whether tracing is on.
+ */
+public class Span implements AutoCloseable {
+
+    static final Span NOOP = new Span();
+
+    private final Tracer.RecordingTrace trace;
+    private final Span parent;
+    private final String spanId;
+    private final String parentSpanId;
+    private final SpanKind kind;
+    private final long startNanoTime;
+    private String name;
+    private Map<String, Object> attributes;
+    private boolean error;
+    private String statusMessage;
+    private boolean ended;
+
+    private Span() {
+        this.trace = null;
+        this.parent = null;
+        this.spanId = null;
+        this.parentSpanId = null;
+        this.kind = SpanKind.INTERNAL;
+        this.startNanoTime = 0;
+    }
+
+    Span(Tracer.RecordingTrace trace, Span parent, String parentSpanId, String name, SpanKind kind) {
+        this.trace = trace;
+        this.parent = parent;
+        this.spanId = TraceContext.newSpanId();
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+        this.startNanoTime = System.nanoTime();
+    }
+
+    public boolean isRecording() {
+        return trace != null;
+    }
+
+    public String getTraceId() {
+        return trace != null ? trace.traceId : null;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public Span setName(String name) {
+        if (trace != null) {
+            this.name = name;
+        }
+        return this;
+    }
+
+    /**
+     * Attribute with a String, boolean, long/int or double value (OpenTelemetry semantic convention names)
+     */
+    public Span setAttribute(String key, Object value) {
+        if (trace != null && value != null) {
+            if (attributes == null) {
+                attributes = new LinkedHashMap<>();
+            }
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    public Span setError(String message) {
+        if (trace != null) {
+            this.error = true;
+            this.statusMessage = message;
+        }
+        return this;
+    }
+
+    /**
+     * Mark the span failed by the given exception
+     */
+    public Span recordException(Throwable exception) {
+        setAttribute("exception.type", exception.getClass().getName());
+        return setError(exception.getMessage());
+    }
+
+    public void end() {
+        if (trace == null || ended) {
+            return;
+        }
+        ended = true;
+        long endNanoTime = System.nanoTime();
+        trace.finished(this, new SpanData(trace.traceId, spanId, parentSpanId, name, kind,
+                trace.toEpochNanos(startNanoTime), trace.toEpochNanos(endNanoTime),
+                attributes == null ? Map.of() : attributes, error, statusMessage));
+    }
+
+    @Override
+    public void close() {
+        end();
+    }
+
+    Span getParent() {
+        return parent;
+    }
+
+    Tracer.RecordingTrace trace() {
+        return trace;
+    }
+}
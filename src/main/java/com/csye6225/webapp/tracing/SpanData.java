@@ -0,0 +1,25 @@
+package com.csye6225.webapp.tracing;
+
+import java.util.Map;
+
+/**
+ * A finished span, as handed to a {@link SpanExporter}.
+ *
+ * @param parentSpanId null for the first span of the trace on this instance when the caller sent no traceparent
+ * @param statusMessage null unless {@code error}
+ */
+public record SpanData(String traceId,
+                       String spanId,
+                       String parentSpanId,
+                       String name,
+                       SpanKind kind,
+                       long startEpochNanos,
+                       long endEpochNanos,
+                       Map<String, Object> attributes,
+                       boolean error,
+                       String statusMessage) {
+
+    public long durationNanos() {
+        return endEpochNanos - startEpochNanos;
+    }
+}
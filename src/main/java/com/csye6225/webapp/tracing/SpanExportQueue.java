@@ -0,0 +1,116 @@
+package com.csye6225.webapp.tracing;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands sampled traces to the {@link SpanExporter} on a background thread, so a slow exporter
+ * never delays a response. When the queue is full the trace is dropped and counted.
+ */
+@Component
+public class SpanExportQueue implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpanExportQueue.class);
+
+    private final SpanExporter exporter;
+    private final BlockingQueue<List<SpanData>> queue;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public SpanExportQueue(SpanExporter exporter,
+                           @Value("${webapp.tracing.export-queue-capacity:1024}") int capacity,
+                           MeterRegistry meterRegistry) {
+        this.exporter = exporter;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+
+        FunctionCounter.builder("webapp.tracing.export.dropped", dropped, AtomicLong::get)
+                .description("Sampled traces dropped because the export queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a trace without blocking; returns false if it was dropped
+     */
+    public boolean submit(List<SpanData> trace) {
+        if (queue.offer(trace)) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "span-exporter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread exporterThread;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            exporterThread = thread;
+        }
+        try {
+            exporterThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Stop after the embedded web server, so the last requests' traces are exported
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                List<SpanData> trace = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (trace != null) {
+                    export(trace);
+                } else if (!running) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void export(List<SpanData> trace) {
+        try {
+            exporter.export(trace);
+        } catch (Exception e) {
+            logger.warn("Could not export trace {}: {}", trace.get(0).traceId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.csye6225.webapp.tracing;
+
+import java.util.List;
+
+/**
+ * Destination for sampled traces. Called from {@link SpanExportQueue}'s background thread with
+ * the spans of one trace at a time; an exception loses that trace and is logged.
+ *
+ * Selected with webapp.tracing.exporter.type: "memory" (default), "file", or "custom" to use
+ * an application-provided SpanExporter bean (e.g. an OTLP client).
+ */
+public interface SpanExporter {
+
+    void export(List<SpanData> trace) throws Exception;
+}
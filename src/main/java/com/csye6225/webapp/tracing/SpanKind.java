@@ -0,0 +1,20 @@
+package com.csye6225.webapp.tracing;
+
+/**
+ * OpenTelemetry span kinds used here; the code is the OTLP enum value.
+ */
+public enum SpanKind {
+    INTERNAL(1),
+    SERVER(2),
+    CLIENT(3);
+
+    private final int otlpCode;
+
+    SpanKind(int otlpCode) {
+        this.otlpCode = otlpCode;
+    }
+
+    public int getOtlpCode() {
+        return otlpCode;
+    }
+}
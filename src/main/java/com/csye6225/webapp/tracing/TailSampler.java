@@ -0,0 +1,76 @@
+package com.csye6225.webapp.tracing;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides, once a request's trace is complete, whether to export it.
+ *
+ * Kept: every trace whose server span failed (5xx or an escaped exception), every trace at or
+ * over the latency threshold, every trace the caller marked sampled in its traceparent (so
+ * distributed traces are not cut in half), and a fixed ratio of the rest. The ratio is applied to
+ * the trace id rather than drawn at random, so all services using the same rule agree.
+ *
+ * Traces of 4xx responses are kept too, because their error bodies hand the trace id to the
+ * client, up to a number per second so a flood of bad credentials cannot fill the exporter.
+ * Past that they are sampled like any other trace.
+ */
+public class TailSampler {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long ratioBound;
+    private final long latencyThresholdNanos;
+    private final int clientErrorsPerSecond;
+    private final LongSupplier nanoClock;
+
+    // Guarded by this: 4xx traces kept in the current one-second window
+    private long windowStart;
+    private int clientErrorsInWindow;
+
+    public TailSampler(double ratio, Duration latencyThreshold, int clientErrorsPerSecond) {
+        this(ratio, latencyThreshold, clientErrorsPerSecond, System::nanoTime);
+    }
+
+    TailSampler(double ratio, Duration latencyThreshold, int clientErrorsPerSecond, LongSupplier nanoClock) {
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException("webapp.tracing.sampling.ratio must be between 0 and 1");
+        }
+        this.ratioBound = ratio >= 1 ? Long.MAX_VALUE : (long) (ratio * Long.MAX_VALUE);
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.clientErrorsPerSecond = Math.max(0, clientErrorsPerSecond);
+        this.nanoClock = nanoClock;
+        this.windowStart = nanoClock.getAsLong();
+    }
+
+    public boolean shouldKeep(SpanData root, boolean parentSampled) {
+        if (root.error() || parentSampled || root.durationNanos() >= latencyThresholdNanos) {
+            return true;
+        }
+        if (root.attributes().get("http.response.status_code") instanceof Integer status
+                && status >= 400 && admitClientError()) {
+            return true;
+        }
+        return inRatio(root.traceId());
+    }
+
+    // Same rule as OpenTelemetry's TraceIdRatioBased sampler: the low 63 bits of the trace id
+    boolean inRatio(String traceId) {
+        long randomness = Long.parseUnsignedLong(traceId.substring(16), 16) & Long.MAX_VALUE;
+        return ratioBound == Long.MAX_VALUE || randomness < ratioBound;
+    }
+
+    private synchronized boolean admitClientError() {
+        long now = nanoClock.getAsLong();
+        if (now - windowStart >= WINDOW_NANOS) {
+            windowStart = now;
+            clientErrorsInWindow = 0;
+        }
+        if (clientErrorsInWindow >= clientErrorsPerSecond) {
+            return false;
+        }
+        clientErrorsInWindow++;
+        return true;
+    }
+}
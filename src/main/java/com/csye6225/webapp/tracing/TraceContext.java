@@ -0,0 +1,77 @@
+package com.csye6225.webapp.tracing;
+
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * W3C Trace Context identifiers: a 32-hex-digit trace id, a 16-hex-digit span id and the
+ * caller's sampled flag, as carried by the {@code traceparent} header
+ * ({@code 00-<trace-id>-<parent-id>-<flags>}).
+ */
+public record TraceContext(String traceId, String spanId, boolean sampled) {
+
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    private static final String INVALID_TRACE_ID = "0".repeat(32);
+    private static final String INVALID_SPAN_ID = "0".repeat(16);
+
+    /**
+     * Parse a traceparent header; null if it is missing or malformed, so the request starts a new trace
+     */
+    public static TraceContext parse(String traceparent) {
+        if (traceparent == null) {
+            return null;
+        }
+        String value = traceparent.trim();
+        // version "ff" is invalid; later versions may append fields after the flags
+        if (value.length() < 55 || (value.length() > 55 && value.charAt(55) != '-')
+                || value.charAt(2) != '-' || value.charAt(35) != '-' || value.charAt(52) != '-'
+                || value.startsWith("ff")) {
+            return null;
+        }
+        String version = value.substring(0, 2);
+        String traceId = value.substring(3, 35);
+        String spanId = value.substring(36, 52);
+        String flags = value.substring(53, 55);
+        if (!isLowerHex(version) || !isLowerHex(traceId) || !isLowerHex(spanId) || !isLowerHex(flags)
+                || traceId.equals(INVALID_TRACE_ID) || spanId.equals(INVALID_SPAN_ID)
+                || (version.equals("00") && value.length() != 55)) {
+            return null;
+        }
+        boolean sampled = (HexFormat.fromHexDigits(flags) & 0x01) != 0;
+        return new TraceContext(traceId, spanId, sampled);
+    }
+
+    public String toTraceparent() {
+        return "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+    }
+
+    static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long high;
+        long low;
+        do {
+            high = random.nextLong();
+            low = random.nextLong();
+        } while (high == 0 && low == 0);
+        return HexFormat.of().toHexDigits(high) + HexFormat.of().toHexDigits(low);
+    }
+
+    static String newSpanId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return HexFormat.of().toHexDigits(id);
+    }
+
+    private static boolean isLowerHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,188 @@
+package com.csye6225.webapp.tracing;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Request tracing with OpenTelemetry's data model.
+ *
+ * {@link TracingFilter} starts a trace per request; everything below it (security filters,
+ * controllers, services, repositories, BCrypt, JDBC statements) adds child spans on the same
+ * thread through {@link #startSpan}. Spans are only buffered while the request runs. When its
+ * root span ends, {@link TailSampler} decides with the whole trace in hand whether it is
+ * exported, so slow and failed requests are always kept however low the sampling ratio is, and
+ * the trace id in a 4xx error body points at a kept trace.
+ */
+@Component
+public class Tracer {
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private final TailSampler sampler;
+    private final Consumer<List<SpanData>> keptTraces;
+    private final int maxSpansPerTrace;
+    private final AtomicLong kept = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    @Autowired
+    public Tracer(@Value("${webapp.tracing.sampling.ratio:0.01}") double ratio,
+                  @Value("${webapp.tracing.sampling.latency-threshold:500ms}") Duration latencyThreshold,
+                  @Value("${webapp.tracing.sampling.client-errors-per-second:100}") int clientErrorsPerSecond,
+                  @Value("${webapp.tracing.max-spans-per-trace:256}") int maxSpansPerTrace,
+                  SpanExportQueue exportQueue,
+                  MeterRegistry meterRegistry) {
+        this(new TailSampler(ratio, latencyThreshold, clientErrorsPerSecond), exportQueue::submit, maxSpansPerTrace);
+
+        FunctionCounter.builder("webapp.tracing.traces", kept, AtomicLong::get)
+                .description("Finished traces by tail sampling decision")
+                .tag("decision", "kept")
+                .register(meterRegistry);
+        FunctionCounter.builder("webapp.tracing.traces", discarded, AtomicLong::get)
+                .description("Finished traces by tail sampling decision")
+                .tag("decision", "discarded")
+                .register(meterRegistry);
+    }
+
+    Tracer(TailSampler sampler, Consumer<List<SpanData>> keptTraces, int maxSpansPerTrace) {
+        this.sampler = sampler;
+        this.keptTraces = keptTraces;
+        this.maxSpansPerTrace = Math.max(1, maxSpansPerTrace);
+    }
+
+    /**
+     * Start the server span of a request, continuing the caller's trace if it sent a valid traceparent
+     */
+    public Span startTrace(String name, TraceContext parent) {
+        RecordingTrace trace = new RecordingTrace(this,
+                parent != null ? parent.traceId() : TraceContext.newTraceId(),
+                parent != null && parent.sampled());
+        Span root = new Span(trace, CURRENT.get(), parent != null ? parent.spanId() : null, name, SpanKind.SERVER);
+        trace.root = root;
+        CURRENT.set(root);
+        return root;
+    }
+
+    /**
+     * Start a child of the current span; a no-op span outside a traced request
+     */
+    public static Span startSpan(String name, SpanKind kind) {
+        Span parent = CURRENT.get();
+        if (parent == null) {
+            return Span.NOOP;
+        }
+        RecordingTrace trace = parent.trace();
+        if (!trace.admit()) {
+            return Span.NOOP;
+        }
+        Span span = new Span(trace, parent, parent.getSpanId(), name, kind);
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * The span current on this thread, or null outside a traced request
+     */
+    public static Span current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Trace id of the request running on this thread, or null
+     */
+    public static String currentTraceId() {
+        Span span = CURRENT.get();
+        return span != null ? span.getTraceId() : null;
+    }
+
+    public long getKeptTraces() {
+        return kept.get();
+    }
+
+    public long getDiscardedTraces() {
+        return discarded.get();
+    }
+
+    private void complete(RecordingTrace trace, SpanData root) {
+        if (sampler.shouldKeep(root, trace.parentSampled)) {
+            kept.incrementAndGet();
+            keptTraces.accept(trace.spans());
+        } else {
+            discarded.incrementAndGet();
+        }
+    }
+
+    /**
+     * Spans of one request's trace on this instance, buffered until its root span ends
+     */
+    static final class RecordingTrace {
+
+        private final Tracer tracer;
+        final String traceId;
+        private final boolean parentSampled;
+        // Span timestamps are offsets from one wall-clock reading, so they stay ordered
+        private final long epochAnchorNanos;
+        private final long nanoTimeAnchor;
+        private final List<SpanData> finished = new ArrayList<>();
+        private int started = 1;
+        private Span root;
+
+        private RecordingTrace(Tracer tracer, String traceId, boolean parentSampled) {
+            this.tracer = tracer;
+            this.traceId = traceId;
+            this.parentSampled = parentSampled;
+            Instant now = Instant.now();
+            this.epochAnchorNanos = TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+            this.nanoTimeAnchor = System.nanoTime();
+        }
+
+        long toEpochNanos(long nanoTime) {
+            return epochAnchorNanos + (nanoTime - nanoTimeAnchor);
+        }
+
+        // Spans past the limit are not recorded, e.g. a loop issuing thousands of statements
+        private synchronized boolean admit() {
+            if (started >= tracer.maxSpansPerTrace) {
+                return false;
+            }
+            started++;
+            return true;
+        }
+
+        private synchronized List<SpanData> spans() {
+            return List.copyOf(finished);
+        }
+
+        void finished(Span span, SpanData data) {
+            if (span == root) {
+                restore(span.getParent());
+            } else if (CURRENT.get() == span) {
+                restore(span.getParent());
+            }
+            synchronized (this) {
+                finished.add(data);
+            }
+            if (span == root) {
+                tracer.complete(this, data);
+            }
+        }
+
+        private static void restore(Span span) {
+            if (span != null) {
+                CURRENT.set(span);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.csye6225.webapp.tracing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Wraps the application DataSource so each JDBC statement executed during a traced request
+ * gets a CLIENT span named after its operation ("SELECT", "INSERT", ...), with the SQL text.
+ * Statements prepared outside a traced request are returned unwrapped.
+ */
+public class TracingDataSource extends DelegatingDataSource {
+
+    private static final int MAX_QUERY_TEXT = 2048;
+
+    public TracingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection target) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (!(result instanceof Statement statement) || Tracer.current() == null) {
+                        return result;
+                    }
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                    Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                            : result instanceof PreparedStatement ? PreparedStatement.class
+                            : Statement.class;
+                    return traced(statement, type, sql);
+                });
+    }
+
+    private static Object traced(Statement target, Class<?> type, String preparedSql) {
+        return Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute")) {
+                        return invoke(target, method, args);
+                    }
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+                    try (Span span = Tracer.startSpan(operation(sql), SpanKind.CLIENT)) {
+                        if (sql != null) {
+                            span.setAttribute("db.query.text", sql.length() > MAX_QUERY_TEXT ? sql.substring(0, MAX_QUERY_TEXT) : sql);
+                        }
+                        try {
+                            return invoke(target, method, args);
+                        } catch (SQLException e) {
+                            span.recordException(e);
+                            throw e;
+                        }
+                    }
+                });
+    }
+
+    // First keyword of the statement, e.g. "SELECT"
+    static String operation(String sql) {
+        if (sql == null) {
+            return "SQL";
+        }
+        int start = 0;
+        while (start < sql.length() && !Character.isLetter(sql.charAt(start))) {
+            start++;
+        }
+        int end = start;
+        while (end < sql.length() && Character.isLetter(sql.charAt(end))) {
+            end++;
+        }
+        return end > start ? sql.substring(start, end).toUpperCase() : "SQL";
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
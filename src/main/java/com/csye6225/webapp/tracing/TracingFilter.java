@@ -0,0 +1,65 @@
+package com.csye6225.webapp.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Starts each request's trace with a SERVER span, inside the access log but ahead of the
+ * deadline filter, so even 503/504 bodies written by the other filters carry the trace id.
+ *
+ * A valid W3C traceparent header continues the caller's trace; otherwise a new one is started.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "webapp.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingFilter extends OncePerRequestFilter {
+
+    private final Tracer tracer;
+
+    public TracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        TraceContext parent = TraceContext.parse(request.getHeader(TraceContext.TRACEPARENT_HEADER));
+        Span span = tracer.startTrace(request.getMethod(), parent);
+        span.setAttribute("http.request.method", request.getMethod());
+        span.setAttribute("url.path", request.getRequestURI());
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } catch (IOException | ServletException | RuntimeException e) {
+            span.recordException(e);
+            throw e;
+        } finally {
+            // Named after the route template, as in OpenTelemetry's HTTP conventions
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (route != null) {
+                span.setName(request.getMethod() + " " + route);
+                span.setAttribute("http.route", route.toString());
+            }
+            // An exception escaping the chain is turned into a 500 by the container
+            int status = failed && !response.isCommitted()
+                    ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR
+                    : response.getStatus();
+            span.setAttribute("http.response.status_code", status);
+            if (status >= 500) {
+                span.setError(null);
+            }
+            span.end();
+        }
+    }
+}
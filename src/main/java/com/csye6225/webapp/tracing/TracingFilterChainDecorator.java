@@ -0,0 +1,38 @@
+package com.csye6225.webapp.tracing;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import org.springframework.security.web.FilterChainProxy;
+
+import java.util.List;
+
+/**
+ * Times Spring Security's filters as one span, "security filters", which ends when the request
+ * is handed on to the rest of the servlet chain (so it does not include the controller).
+ * Authentication work (user lookup, BCrypt) appears as its children.
+ */
+public class TracingFilterChainDecorator implements FilterChainProxy.FilterChainDecorator {
+
+    private final FilterChainProxy.FilterChainDecorator delegate = new FilterChainProxy.VirtualFilterChainDecorator();
+
+    @Override
+    public FilterChain decorate(FilterChain original, List<Filter> filters) {
+        return (request, response) -> {
+            Span span = Tracer.startSpan("security filters", SpanKind.INTERNAL);
+            span.setAttribute("webapp.security.filters", filters.size());
+            FilterChain afterSecurity = (req, res) -> {
+                span.end();
+                original.doFilter(req, res);
+            };
+            try {
+                delegate.decorate(afterSecurity, filters).doFilter(request, response);
+            } catch (Exception e) {
+                span.recordException(e);
+                throw e;
+            } finally {
+                // Still open if a filter answered the request itself (401, 403, ...)
+                span.end();
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.csye6225.webapp.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * One INTERNAL span per call to a controller, service or repository method, named
+ * {@code UserService.getUserByUsername}.
+ */
+public class TracingMethodInterceptor implements MethodInterceptor {
+
+    // Simple name of the bean's class; for JDK proxies (Spring Data repositories) the application interface
+    private static final ClassValue<String> TYPE_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            if (Proxy.isProxyClass(type)) {
+                for (Class<?> candidate : type.getInterfaces()) {
+                    if (!candidate.getName().startsWith("org.springframework.")) {
+                        return candidate.getSimpleName();
+                    }
+                }
+            }
+            return ClassUtils.getUserClass(type).getSimpleName();
+        }
+    };
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (Tracer.current() == null) {
+            return invocation.proceed();
+        }
+        Object target = invocation.getThis();
+        String type = target != null ? TYPE_NAMES.get(target.getClass()) : invocation.getMethod().getDeclaringClass().getSimpleName();
+        Span span = Tracer.startSpan(type + "." + invocation.getMethod().getName(), SpanKind.INTERNAL);
+        span.setAttribute("code.function.name", type + "." + invocation.getMethod().getName());
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            span.recordException(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
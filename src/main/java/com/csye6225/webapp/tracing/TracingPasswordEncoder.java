@@ -0,0 +1,37 @@
+package com.csye6225.webapp.tracing;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Adds a span around each hash computed by the delegate (BCrypt is usually the largest part
+ * of an authenticated request).
+ */
+public class TracingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    public TracingPasswordEncoder(PasswordEncoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        try (Span span = Tracer.startSpan("bcrypt.encode", SpanKind.INTERNAL)) {
+            return delegate.encode(rawPassword);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        try (Span span = Tracer.startSpan("bcrypt.matches", SpanKind.INTERNAL)) {
+            boolean matched = delegate.matches(rawPassword, encodedPassword);
+            span.setAttribute("webapp.password.matched", matched);
+            return matched;
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,150 @@
+package com.csye6225.webapp.warmup;
+
+import com.csye6225.webapp.dto.ErrorResponse;
+import com.csye6225.webapp.dto.UserCreateRequest;
+import com.csye6225.webapp.dto.UserResponse;
+import com.csye6225.webapp.dto.UserUpdateRequest;
+import com.csye6225.webapp.entity.User;
+import com.csye6225.webapp.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exercises the hot request paths before the instance takes traffic.
+ *
+ * Runs as an {@link ApplicationRunner}: Spring Boot only switches readiness to ACCEPTING_TRAFFIC
+ * after all runners have completed, and /healthz answers 503 until then, so a load balancer
+ * keeps the node out of rotation while the JIT compiles mapping, JSON, the read-only user query
+ * and BCrypt. Each phase stops at its iteration target, when the shared time budget runs out,
+ * or at its first failure (a database outage must not delay startup or trip the breaker).
+ */
+@Component
+@ConditionalOnProperty(name = "webapp.warmup.enabled", havingValue = "true")
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private static final String PROBE_PASSWORD = "Warmup-P@ssw0rd";
+
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int serializationIterations;
+    private final int queryIterations;
+    private final int bcryptIterations;
+    private final Duration maxDuration;
+
+    private final byte[] createRequestJson;
+    private final byte[] updateRequestJson;
+
+    // Keeps the JIT from discarding results as dead code
+    private long sink;
+
+    @Autowired
+    public WarmupRunner(UserService userService,
+                        ObjectMapper objectMapper,
+                        PasswordEncoder passwordEncoder,
+                        ApplicationEventPublisher eventPublisher,
+                        @Value("${webapp.warmup.serialization-iterations:20000}") int serializationIterations,
+                        @Value("${webapp.warmup.query-iterations:500}") int queryIterations,
+                        @Value("${webapp.warmup.bcrypt-iterations:20}") int bcryptIterations,
+                        @Value("${webapp.warmup.max-duration:30s}") Duration maxDuration) {
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.serializationIterations = serializationIterations;
+        this.queryIterations = queryIterations;
+        this.bcryptIterations = bcryptIterations;
+        this.maxDuration = maxDuration;
+
+        this.createRequestJson = ("{\"username\":\"warmup@example.com\",\"password\":\"" + PROBE_PASSWORD
+                + "\",\"first_name\":\"Warm\",\"last_name\":\"Up\"}").getBytes(StandardCharsets.UTF_8);
+        this.updateRequestJson = ("{\"first_name\":\"Warm\",\"last_name\":\"Up\",\"password\":\""
+                + PROBE_PASSWORD + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+
+        long started = System.nanoTime();
+        long deadline = started + maxDuration.toNanos();
+
+        int serialization = repeat("serialization", serializationIterations, deadline, this::exerciseSerialization);
+        int queries = repeat("user query", queryIterations, deadline, this::exerciseQuery);
+        String hash = passwordEncoder.encode(PROBE_PASSWORD);
+        int hashes = repeat("bcrypt", bcryptIterations, deadline, i -> exerciseBcrypt(hash));
+
+        logger.info("Warm-up finished in {} ms: {} serialization, {} user query and {} bcrypt iterations",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), serialization, queries, hashes);
+    }
+
+    /**
+     * Run {@code step} up to {@code iterations} times; returns how many iterations completed
+     */
+    int repeat(String phase, int iterations, long deadlineNanos, Step step) {
+        int completed = 0;
+        try {
+            while (completed < iterations && System.nanoTime() - deadlineNanos < 0) {
+                step.run(completed);
+                completed++;
+            }
+        } catch (Exception e) {
+            logger.warn("Warm-up phase '{}' stopped after {} iterations: {}", phase, completed, e.getMessage());
+        }
+        return completed;
+    }
+
+    void exerciseSerialization(int i) throws Exception {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setUsername("warmup" + i + "@example.com");
+        user.setFirstName("Warm");
+        user.setLastName("Up");
+        user.setAccountCreated(LocalDateTime.now());
+        user.setAccountUpdated(LocalDateTime.now());
+
+        UserResponse response = userService.mapToResponse(user);
+        byte[] json = objectMapper.writeValueAsBytes(response);
+        UserResponse parsed = objectMapper.readValue(json, UserResponse.class);
+        UserCreateRequest create = objectMapper.readValue(createRequestJson, UserCreateRequest.class);
+        UserUpdateRequest update = objectMapper.readValue(updateRequestJson, UserUpdateRequest.class);
+        byte[] error = objectMapper.writeValueAsBytes(new ErrorResponse("Bad Request", "warm-up", "/v1/user"));
+
+        sink += json.length + error.length + parsed.getUsername().length()
+                + create.getUsername().length() + update.getFirstName().length();
+    }
+
+    void exerciseQuery(int i) {
+        // A username that cannot exist; goes through the same read-only transaction as GET /v1/user/self
+        sink += userService.findResponseByUsername("warmup-probe-" + i + "@warmup.invalid").isPresent() ? 1 : 0;
+    }
+
+    void exerciseBcrypt(String hash) {
+        sink += passwordEncoder.matches(PROBE_PASSWORD, hash) ? 1 : 0;
+    }
+
+    @FunctionalInterface
+    interface Step {
+        void run(int iteration) throws Exception;
+    }
+}
@@ -0,0 +1,252 @@
+package com.csye6225.webapp;
+
+import com.csye6225.webapp.dto.UserCreateRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.csye6225.webapp.support.SqlStatementMatchers.sqlStatements;
+import static com.csye6225.webapp.support.TestUsers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class AdminUserListingTests {
+
+    private static final String ADMIN = username("listing.admin");
+    private static final String MEMBER = username("listing.member");
+
+    // Only users created by this class are listed, whatever else is in the database
+    private static final String START = LocalDateTime.now().minusSeconds(1).toString();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    // A database of its own: users created concurrently by other classes would show up in the listing
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> "jdbc:h2:mem:listing-" + RUN + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @Order(1)
+    @DisplayName("Setup - create an admin and five regular users")
+    void testCreateUsers() throws Exception {
+        createUser(ADMIN);
+        jdbcTemplate.update("update users set admin = true where username = ?", ADMIN);
+        // Sign-up cannot grant itself the role; the extra field is ignored
+        mockMvc.perform(post("/v1/user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + MEMBER + "\",\"password\":\"" + PASSWORD
+                        + "\",\"first_name\":\"List\",\"last_name\":\"Ing\",\"admin\":true}"))
+                .andExpect(status().isCreated());
+        for (int i = 0; i < 4; i++) {
+            createUser("listing.user" + i + username("."));
+        }
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("GET /v1/admin/users - 403 for a non-admin account, even one that asked for the role at sign-up")
+    void testNonAdminForbidden() throws Exception {
+        mockMvc.perform(get("/v1/admin/users").header("Authorization", auth(MEMBER)))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message").value("Administrator access required"));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("GET /v1/admin/users - cursor pages cover every user once, newest first")
+    void testKeysetPagination() throws Exception {
+        List<String> usernames = new ArrayList<>();
+        List<String> created = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get("/v1/admin/users")
+                    .header("Authorization", auth(ADMIN))
+                    .param("limit", "2")
+                    .param("created_after", START);
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            String body = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.users[0].password").doesNotExist())
+                    .andExpect(sqlStatements(2))
+                    .andReturn().getResponse().getContentAsString();
+
+            JsonNode page = objectMapper.readTree(body);
+            for (JsonNode user : page.get("users")) {
+                usernames.add(user.get("username").asText());
+                created.add(user.get("account_created").asText());
+            }
+            cursor = page.get("next_cursor").isNull() ? null : page.get("next_cursor").asText();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertEquals(3, pages);
+        assertEquals(6, usernames.size());
+        assertEquals(6, new HashSet<>(usernames).size());
+        assertTrue(usernames.containsAll(Set.of(ADMIN, MEMBER)));
+        for (int i = 1; i < created.size(); i++) {
+            assertTrue(created.get(i - 1).compareTo(created.get(i)) >= 0, "not newest first: " + created);
+        }
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("GET /v1/admin/users - verified filter and time range")
+    void testFilters() throws Exception {
+        mockMvc.perform(get("/v1/admin/users")
+                .header("Authorization", auth(ADMIN))
+                .param("verified", "false")
+                .param("created_after", START))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(0))
+                .andExpect(jsonPath("$.next_cursor").isEmpty());
+
+        mockMvc.perform(get("/v1/admin/users")
+                .header("Authorization", auth(ADMIN))
+                .param("verified", "true")
+                .param("created_after", START)
+                .param("created_before", LocalDateTime.now().plusMinutes(1) + "Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(6));
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("GET /v1/admin/users - 400 for an invalid cursor or limit")
+    void testInvalidParameters() throws Exception {
+        mockMvc.perform(get("/v1/admin/users")
+                .header("Authorization", auth(ADMIN))
+                .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation Error"));
+
+        mockMvc.perform(get("/v1/admin/users")
+                .header("Authorization", auth(ADMIN))
+                .param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("GET /v1/admin/users/search - prefix search served from memory")
+    void testSearch() throws Exception {
+        mockMvc.perform(get("/v1/admin/users/search")
+                .header("Authorization", auth(ADMIN))
+                .param("q", "LISTING.MEMBER" + RUN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.length()").value(1))
+                .andExpect(jsonPath("$.results[0].username").value(MEMBER))
+                .andExpect(jsonPath("$.results[0].password").doesNotExist())
+                .andExpect(sqlStatements(1));
+
+        mockMvc.perform(get("/v1/admin/users/search")
+                .header("Authorization", auth(ADMIN)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("POST /v1/admin/users/lookup - ids and usernames in request order with not-found markers")
+    void testBatchLookup() throws Exception {
+        String body = mockMvc.perform(get("/v1/admin/users/search")
+                .header("Authorization", auth(ADMIN))
+                .param("q", MEMBER))
+                .andReturn().getResponse().getContentAsString();
+        String memberId = objectMapper.readTree(body).get("results").get(0).get("id").asText();
+        String missingId = java.util.UUID.randomUUID().toString();
+
+        String keys = objectMapper.writeValueAsString(java.util.Map.of("keys",
+                List.of(ADMIN.toUpperCase(), missingId, memberId, username("nobody"), ADMIN)));
+        mockMvc.perform(post("/v1/admin/users/lookup")
+                .header("Authorization", auth(ADMIN))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(keys))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.length()").value(5))
+                .andExpect(jsonPath("$.results[0].key").value(ADMIN.toUpperCase()))
+                .andExpect(jsonPath("$.results[0].user.username").value(ADMIN))
+                .andExpect(jsonPath("$.results[1].found").value(false))
+                .andExpect(jsonPath("$.results[1].user").doesNotExist())
+                .andExpect(jsonPath("$.results[2].user.username").value(MEMBER))
+                .andExpect(jsonPath("$.results[2].user.password").doesNotExist())
+                .andExpect(jsonPath("$.results[3].found").value(false))
+                .andExpect(jsonPath("$.results[4].user.username").value(ADMIN))
+                // Authentication, one IN query for the ids, one for the usernames
+                .andExpect(sqlStatements(3));
+
+        mockMvc.perform(post("/v1/admin/users/lookup")
+                .header("Authorization", auth(ADMIN))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"keys\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/v1/admin/users/lookup")
+                .header("Authorization", auth(MEMBER))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(keys))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @Order(8)
+    @DisplayName("Actuator - metrics, latency and health for administrators only; the probes stay public")
+    void testActuatorAccess() throws Exception {
+        for (String endpoint : List.of("/actuator/metrics", "/actuator/latency", "/actuator/health")) {
+            mockMvc.perform(get(endpoint).header("Authorization", auth(MEMBER)))
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(get(endpoint).header("Authorization", auth(ADMIN)))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/actuator/health")
+                .header("Authorization", auth(ADMIN)))
+                .andExpect(jsonPath("$.components").exists());
+
+        mockMvc.perform(get("/actuator/health/liveness")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health/readiness")).andExpect(status().isOk());
+    }
+
+    private void createUser(String username) throws Exception {
+        UserCreateRequest request = new UserCreateRequest();
+        request.setUsername(username);
+        request.setPassword(PASSWORD);
+        request.setFirstName("List");
+        request.setLastName("Ing");
+
+        mockMvc.perform(post("/v1/user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+    }
+}
@@ -0,0 +1,205 @@
+package com.csye6225.webapp;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.csye6225.webapp.support.RequestAllocations.*;
+import static com.csye6225.webapp.support.TestUsers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Upper bounds on the bytes each endpoint allocates per request on the handling thread, failure
+ * paths and the security handlers included. The budgets leave some headroom over what the
+ * endpoints allocate today on the test profile; a change that adds allocations to every request
+ * has to raise them deliberately. Verifying a BCrypt password accounts for about 1.9MB of any
+ * request that gets that far, so those budgets add a fixed margin rather than a proportional one.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AllocationBudgetTests {
+
+    private static final String USER = username("alloc.user");
+    private static final String UNVERIFIED = username("alloc.unverified");
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void users() throws Exception {
+        mockMvc.perform(create(USER)).andExpect(status().isCreated());
+        mockMvc.perform(create(UNVERIFIED)).andExpect(status().isCreated());
+        jdbcTemplate.update("update users set verified = false where username = ?", UNVERIFIED);
+    }
+
+    // ==================== HealthCheckController ====================
+
+    @Test
+    @DisplayName("GET /healthz - 200")
+    void testHealthCheck() throws Exception {
+        assertAllocatedAtMost(kilobytes(140), mockMvc, () -> get("/healthz"), status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /healthz with a query string - 400")
+    void testHealthCheckWithQuery() throws Exception {
+        assertAllocatedAtMost(kilobytes(100), mockMvc, () -> get("/healthz?probe=1"), status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST /healthz - 405")
+    void testHealthCheckMethodNotAllowed() throws Exception {
+        assertAllocatedAtMost(kilobytes(88), mockMvc, () -> post("/healthz"), status().isMethodNotAllowed());
+    }
+
+    // ==================== UserController ====================
+
+    @Test
+    @DisplayName("POST /v1/user - 201")
+    void testCreateUser() throws Exception {
+        assertAllocatedAtMost(kilobytes(2160), mockMvc,
+                () -> create("alloc.new" + RUN + "." + sequence.incrementAndGet() + "@example.com"), status().isCreated());
+    }
+
+    @Test
+    @DisplayName("POST /v1/user with a repeated Idempotency-Key - replayed 201")
+    void testCreateUserReplayed() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String username = username("alloc.idem");
+        mockMvc.perform(create(username).header("Idempotency-Key", key)).andExpect(status().isCreated());
+        assertAllocatedAtMost(kilobytes(128), mockMvc, () -> create(username).header("Idempotency-Key", key),
+                status().isCreated(), header().string("Idempotent-Replayed", "true"));
+    }
+
+    @Test
+    @DisplayName("POST /v1/user - 409 for an existing username")
+    void testCreateUserConflict() throws Exception {
+        assertAllocatedAtMost(kilobytes(176), mockMvc, () -> create(USER), status().isConflict());
+    }
+
+    @Test
+    @DisplayName("POST /v1/user - 400 for a failed validation")
+    void testCreateUserInvalid() throws Exception {
+        assertAllocatedAtMost(kilobytes(148), mockMvc, () -> post("/v1/user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"not-an-email\",\"password\":\"" + PASSWORD + "\",\"first_name\":\"A\",\"last_name\":\"B\"}"),
+                status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST /v1/user - 415 for a wrong Content-Type")
+    void testCreateUserWrongContentType() throws Exception {
+        assertAllocatedAtMost(kilobytes(112), mockMvc, () -> post("/v1/user")
+                .contentType(MediaType.TEXT_PLAIN)
+                .content("{\"first_name\":\"A\"}"),
+                status().isUnsupportedMediaType());
+    }
+
+    @Test
+    @DisplayName("GET /v1/user/self - 200")
+    void testGetUser() throws Exception {
+        assertAllocatedAtMost(kilobytes(2112), mockMvc, () -> get("/v1/user/self").header("Authorization", auth(USER)),
+                status().isOk());
+    }
+
+    @Test
+    @DisplayName("PUT /v1/user/self - 204")
+    void testUpdateUser() throws Exception {
+        assertAllocatedAtMost(kilobytes(2208), mockMvc, () -> update("{\"first_name\":\"Alloc" + sequence.incrementAndGet() + "\"}"),
+                status().isNoContent());
+    }
+
+    @Test
+    @DisplayName("PUT /v1/user/self - 400 for a read-only field")
+    void testUpdateUserReadOnlyField() throws Exception {
+        assertAllocatedAtMost(kilobytes(2096), mockMvc, () -> update("{\"username\":\"other@example.com\"}"),
+                status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("PUT /v1/user/self - 400 for an empty body")
+    void testUpdateUserEmptyBody() throws Exception {
+        assertAllocatedAtMost(kilobytes(2096), mockMvc, () -> update("{}"), status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("PUT /v1/user/self - 415 for a wrong Content-Type")
+    void testUpdateUserWrongContentType() throws Exception {
+        assertAllocatedAtMost(kilobytes(2096), mockMvc, () -> put("/v1/user/self")
+                .header("Authorization", auth(USER))
+                .contentType(MediaType.TEXT_PLAIN)
+                .content("{\"first_name\":\"A\"}"),
+                status().isUnsupportedMediaType());
+    }
+
+    // ==================== Security handlers ====================
+
+    @Test
+    @DisplayName("Entry point - 401 without credentials")
+    void testNoCredentials() throws Exception {
+        assertAllocatedAtMost(kilobytes(96), mockMvc, () -> get("/v1/user/self"), status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Entry point - 401 for a wrong password")
+    void testWrongPassword() throws Exception {
+        assertAllocatedAtMost(kilobytes(2064), mockMvc, () -> get("/v1/user/self").header("Authorization", auth(USER, "wrongP@ssw0rd")),
+                status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Entry point - 404 for an unknown user")
+    void testUnknownUser() throws Exception {
+        String unknown = username("alloc.unknown");
+        assertAllocatedAtMost(kilobytes(2032), mockMvc, () -> get("/v1/user/self").header("Authorization", auth(unknown)),
+                status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Entry point - 403 for an unverified user")
+    void testUnverifiedUser() throws Exception {
+        assertAllocatedAtMost(kilobytes(140), mockMvc, () -> get("/v1/user/self").header("Authorization", auth(UNVERIFIED)),
+                status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Access denied handler - 403 for a user on an admin endpoint")
+    void testAccessDenied() throws Exception {
+        assertAllocatedAtMost(kilobytes(2080), mockMvc, () -> get("/v1/admin/users").header("Authorization", auth(USER)),
+                status().isForbidden());
+    }
+
+    private static MockHttpServletRequestBuilder create(String username) {
+        return post("/v1/user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD
+                        + "\",\"first_name\":\"Alloc\",\"last_name\":\"Budget\"}");
+    }
+
+    private MockHttpServletRequestBuilder update(String body) {
+        return put("/v1/user/self")
+                .header("Authorization", auth(USER))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body);
+    }
+}
@@ -0,0 +1,186 @@
+package com.csye6225.webapp;
+
+import com.csye6225.webapp.deadline.RequestDeadlineFilter;
+import com.csye6225.webapp.dto.ErrorResponse;
+import com.csye6225.webapp.dto.UserCreateRequest;
+import com.csye6225.webapp.dto.UserResponse;
+import com.csye6225.webapp.exception.RequestDeadlineExceededException;
+import com.csye6225.webapp.json.BinaryJsonFormats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.csye6225.webapp.support.TestUsers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Smile and CBOR request and response bodies, including error bodies, next to the JSON default
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class BinaryFormatNegotiationTests {
+
+    private static final String USERNAME = username("binary");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BinaryJsonFormats binaryJsonFormats;
+
+    @Autowired
+    private RequestMappingHandlerAdapter handlerAdapter;
+
+    @Autowired
+    private RequestDeadlineFilter requestDeadlineFilter;
+
+    @Test
+    @Order(1)
+    @DisplayName("POST /v1/user - CBOR request and response")
+    void testCreateUserCbor() throws Exception {
+        UserCreateRequest request = new UserCreateRequest();
+        request.setUsername(USERNAME);
+        request.setPassword(PASSWORD);
+        request.setFirstName("Binary");
+        request.setLastName("Client");
+
+        byte[] body = mockMvc.perform(post("/v1/user")
+                .contentType(BinaryJsonFormats.CBOR)
+                .accept(BinaryJsonFormats.CBOR)
+                .content(binaryJsonFormats.cbor().writeValueAsBytes(request)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(BinaryJsonFormats.CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        UserResponse response = binaryJsonFormats.cbor().readValue(body, UserResponse.class);
+        assertEquals(USERNAME, response.getUsername());
+        assertNotNull(response.getId());
+        assertNotNull(response.getAccountCreated());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("PUT /v1/user/self - Smile body passes the Content-Type check")
+    void testUpdateUserSmile() throws Exception {
+        mockMvc.perform(put("/v1/user/self")
+                .header("Authorization", auth(USERNAME))
+                .contentType(BinaryJsonFormats.SMILE)
+                .content(binaryJsonFormats.smile().writeValueAsBytes(Map.of("first_name", "Smiley"))))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(put("/v1/user/self")
+                .header("Authorization", auth(USERNAME))
+                .contentType(MediaType.TEXT_PLAIN)
+                .content("{\"first_name\":\"Plain\"}"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("GET /v1/user/self - Smile when asked for, JSON by default")
+    void testGetUserNegotiation() throws Exception {
+        byte[] smile = mockMvc.perform(get("/v1/user/self")
+                .header("Authorization", auth(USERNAME))
+                .accept(BinaryJsonFormats.SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BinaryJsonFormats.SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        UserResponse fromSmile = binaryJsonFormats.smile().readValue(smile, UserResponse.class);
+        assertEquals("Smiley", fromSmile.getFirstName());
+
+        String json = mockMvc.perform(get("/v1/user/self")
+                .header("Authorization", auth(USERNAME)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+        UserResponse fromJson = objectMapper.readValue(json, UserResponse.class);
+        assertEquals(fromJson.getId(), fromSmile.getId());
+        assertEquals(fromJson.getAccountUpdated(), fromSmile.getAccountUpdated());
+        assertTrue(smile.length < json.length(), smile.length + " >= " + json.length());
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Error bodies follow Accept - security handler and exception handler")
+    void testErrorBodies() throws Exception {
+        byte[] unauthorized = mockMvc.perform(get("/v1/user/self")
+                .header("Authorization", auth(USERNAME, "wrong"))
+                .accept(BinaryJsonFormats.CBOR))
+                .andExpect(status().isUnauthorized())
+                .andExpect(content().contentType(BinaryJsonFormats.CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals("Unauthorized", binaryJsonFormats.cbor().readValue(unauthorized, ErrorResponse.class).getError());
+
+        byte[] invalid = mockMvc.perform(post("/v1/user")
+                .contentType(BinaryJsonFormats.SMILE)
+                .accept(BinaryJsonFormats.SMILE)
+                .content(binaryJsonFormats.smile().writeValueAsBytes(Map.of("username", "not-an-email"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(BinaryJsonFormats.SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals("Validation Error", binaryJsonFormats.smile().readValue(invalid, ErrorResponse.class).getError());
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("The Smile and CBOR converters Spring MVC writes with are the application's, in place of its defaults")
+    void testConverterInstances() {
+        List<HttpMessageConverter<?>> converters = handlerAdapter.getMessageConverters();
+        for (MediaType format : List.of(BinaryJsonFormats.SMILE, BinaryJsonFormats.CBOR)) {
+            ObjectMapper expected = BinaryJsonFormats.SMILE.equals(format) ? binaryJsonFormats.smile() : binaryJsonFormats.cbor();
+            // Spring MVC writes with the first converter that can
+            HttpMessageConverter<?> writer = converters.stream()
+                    .filter(converter -> converter.canWrite(UserResponse.class, format))
+                    .findFirst().orElseThrow();
+            AbstractJackson2HttpMessageConverter jackson = assertInstanceOf(AbstractJackson2HttpMessageConverter.class, writer);
+            assertSame(expected, jackson.getObjectMapper(), format.toString());
+            assertEquals(1, converters.stream().filter(converter -> converter.canWrite(UserResponse.class, format)).count());
+        }
+        // JSON still comes first for clients that accept anything
+        assertTrue(converters.stream().filter(converter -> converter.canWrite(UserResponse.class, MediaType.ALL))
+                .findFirst().orElseThrow().getSupportedMediaTypes().contains(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Error bodies follow Accept - 504 from the deadline filter")
+    void testDeadlineFilterErrorBody() throws Exception {
+        // As when the deadline runs out in BCrypt, inside the authentication provider
+        for (MediaType format : List.of(BinaryJsonFormats.SMILE, BinaryJsonFormats.CBOR, MediaType.APPLICATION_JSON)) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/user/self");
+            request.addHeader("Accept", format.toString());
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            requestDeadlineFilter.doFilter(request, response, (req, res) -> {
+                throw new RequestDeadlineExceededException("Request deadline exceeded before password verification");
+            });
+
+            assertEquals(504, response.getStatus());
+            assertTrue(MediaType.parseMediaType(response.getContentType()).isCompatibleWith(format), response.getContentType());
+            ObjectMapper mapper = BinaryJsonFormats.SMILE.equals(format) ? binaryJsonFormats.smile()
+                    : BinaryJsonFormats.CBOR.equals(format) ? binaryJsonFormats.cbor() : objectMapper;
+            ErrorResponse error = mapper.readValue(response.getContentAsByteArray(), ErrorResponse.class);
+            assertEquals("Gateway Timeout", error.getError());
+            assertEquals("/v1/user/self", error.getPath());
+        }
+    }
+}
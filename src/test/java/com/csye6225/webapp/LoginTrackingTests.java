@@ -0,0 +1,147 @@
+package com.csye6225.webapp;
+
+import com.csye6225.webapp.dto.UserCreateRequest;
+import com.csye6225.webapp.logins.LoginTracker;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static com.csye6225.webapp.support.TestUsers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * last_login and login_count are written behind: journaled per request, UPDATEd on flush
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class LoginTrackingTests {
+
+    private static final String ADMIN = username("logins.admin");
+    private static final String USER = username("logins.user");
+    private static final Path JOURNAL;
+
+    static {
+        try {
+            JOURNAL = Files.createTempDirectory("login-journal");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void loginSettings(DynamicPropertyRegistry registry) {
+        registry.add("webapp.logins.journal.directory", JOURNAL::toString);
+        // Flushed by the tests themselves
+        registry.add("webapp.logins.flush-interval", () -> "1h");
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LoginTracker loginTracker;
+
+    @Test
+    @Order(1)
+    @DisplayName("Successful authentications are journaled without writing the users row")
+    void testLoginsJournaled() throws Exception {
+        createUser(ADMIN);
+        jdbcTemplate.update("update users set admin = true where username = ?", ADMIN);
+        createUser(USER);
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/v1/user/self").header("Authorization", auth(USER)))
+                    .andExpect(status().isOk());
+        }
+        // A failed authentication is not a login
+        mockMvc.perform(get("/v1/user/self").header("Authorization", auth(USER, "wrongP@ssw0rd")))
+                .andExpect(status().isUnauthorized());
+
+        Map<String, Object> row = loginColumns(USER);
+        assertNull(row.get("last_login"));
+        assertEquals(0L, ((Number) row.get("login_count")).longValue());
+        assertTrue(loginTracker.pendingUsers() >= 1);
+        assertFalse(segments().isEmpty());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("A flush writes the aggregated logins and deletes the journal segments")
+    void testFlush() throws Exception {
+        loginTracker.flush();
+
+        Map<String, Object> row = loginColumns(USER);
+        assertNotNull(row.get("last_login"));
+        assertEquals(3L, ((Number) row.get("login_count")).longValue());
+        assertEquals(0, loginTracker.pendingUsers());
+        assertEquals(List.of(), segments());
+        // Committed with the logins, so a replay of the deleted segments would skip them
+        String journalId = Files.readString(JOURNAL.resolve("journal.id"));
+        assertNotNull(jdbcTemplate.queryForObject(
+                "select flushed_through from login_journal_watermarks where journal_id = ?", Long.class, journalId));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("POST /v1/admin/users/lookup - summaries include last_login and login_count")
+    void testAdminSummary() throws Exception {
+        String body = mockMvc.perform(post("/v1/admin/users/lookup")
+                        .header("Authorization", auth(ADMIN))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("keys", List.of(USER)))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode user = objectMapper.readTree(body).get("results").get(0).get("user");
+        assertEquals(3, user.get("login_count").asInt());
+        assertTrue(user.get("last_login").asText().endsWith("Z"), user.toString());
+    }
+
+    private Map<String, Object> loginColumns(String username) {
+        return jdbcTemplate.queryForMap("select last_login, login_count from users where username = ?", username);
+    }
+
+    private static List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(JOURNAL)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".journal")).toList();
+        }
+    }
+
+    private void createUser(String username) throws Exception {
+        UserCreateRequest request = new UserCreateRequest();
+        request.setUsername(username);
+        request.setPassword(PASSWORD);
+        request.setFirstName("Login");
+        request.setLastName("User");
+        mockMvc.perform(post("/v1/user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+    }
+}
@@ -0,0 +1,140 @@
+package com.csye6225.webapp;
+
+import com.csye6225.webapp.datasource.ReplicaHealthMonitor;
+import com.csye6225.webapp.datasource.ReplicaNode;
+import com.csye6225.webapp.datasource.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static com.csye6225.webapp.support.TestUsers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Read-only transactions against a second embedded H2 database standing in for the replica.
+ * Nothing replicates between the two, so a row that differs between them shows which one served a read.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReplicaRoutingTests {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:primary-" + RUN + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = "jdbc:h2:mem:replica-" + RUN + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @DynamicPropertySource
+    static void replica(DynamicPropertyRegistry registry) {
+        // H2 on both sides even when the suite runs against MySQL: the schema is copied with H2's SCRIPT
+        registry.add("spring.datasource.url", () -> PRIMARY_URL);
+        registry.add("webapp.datasource.routing.enabled", () -> "true");
+        registry.add("webapp.datasource.routing.replicas[0].url", () -> REPLICA_URL);
+        // H2 has no replication status; probe connectivity only, and only when the tests ask
+        registry.add("webapp.datasource.routing.lag-query", () -> "");
+        registry.add("webapp.datasource.routing.health-check-interval", () -> "1h");
+    }
+
+    private final JdbcTemplate replicaJdbc = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate primaryJdbc;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private ReplicaHealthMonitor replicaHealthMonitor;
+
+    @BeforeAll
+    void copySchema() {
+        // Hibernate only creates the schema on the primary
+        for (String statement : primaryJdbc.queryForList("SCRIPT NODATA", String.class)) {
+            replicaJdbc.execute(statement);
+        }
+        replicaHealthMonitor.checkReplicas();
+        assertTrue(replica().isAvailable());
+    }
+
+    @Test
+    @DisplayName("GET /v1/user/self - authentication and the read are served by the replica")
+    void testReadFromReplica() throws Exception {
+        String username = insertOnBoth("replica.read");
+
+        mockMvc.perform(get("/v1/user/self").header("Authorization", auth(username)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.first_name").value("Replica"));
+    }
+
+    @Test
+    @DisplayName("PUT /v1/user/self - the user's next read goes to the primary, past the stale replica")
+    void testReadYourWrites() throws Exception {
+        String username = insertOnBoth("replica.write");
+
+        mockMvc.perform(put("/v1/user/self")
+                        .header("Authorization", auth(username))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"first_name\":\"Updated\"}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/v1/user/self").header("Authorization", auth(username)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.first_name").value("Updated"));
+        assertEquals("Replica", replicaJdbc.queryForObject(
+                "select first_name from users where username = ?", String.class, username));
+    }
+
+    @Test
+    @DisplayName("GET /v1/user/self - reads fall back to the primary while the replica is out of rotation")
+    void testFallbackToPrimary() throws Exception {
+        String username = insertOnBoth("replica.down");
+
+        replica().markUnhealthy();
+        try {
+            mockMvc.perform(get("/v1/user/self").header("Authorization", auth(username)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.first_name").value("Primary"));
+        } finally {
+            replicaHealthMonitor.checkReplicas();
+        }
+    }
+
+    private ReplicaNode replica() {
+        return replicaRoutingDataSource.getReplicas().get(0);
+    }
+
+    // The same account on both databases, except for the first name
+    private String insertOnBoth(String prefix) {
+        String username = username(prefix);
+        UUID id = UUID.randomUUID();
+        String hash = passwordEncoder.encode(PASSWORD);
+        LocalDateTime now = LocalDateTime.now();
+        String insert = "insert into users (id, username, password, first_name, last_name, verified, account_created, account_updated) "
+                + "values (?, ?, ?, ?, 'Doe', true, ?, ?)";
+        primaryJdbc.update(insert, id, username, hash, "Primary", now, now);
+        replicaJdbc.update(insert, id, username, hash, "Replica", now, now);
+        return username;
+    }
+}
@@ -0,0 +1,185 @@
+package com.csye6225.webapp;
+
+import com.csye6225.webapp.dto.UserCreateRequest;
+import com.csye6225.webapp.tracing.InMemorySpanExporter;
+import com.csye6225.webapp.tracing.SpanData;
+import com.csye6225.webapp.tracing.SpanKind;
+import com.csye6225.webapp.tracing.Tracer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.csye6225.webapp.support.TestUsers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Request traces: span tree per layer, traceparent propagation, tail sampling and trace ids in error bodies
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+// Asserts exact counts of the shared tracer
+@Isolated
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class RequestTracingTests {
+
+    private static final String USERNAME = username("traced");
+    private static final String CALLER_SPAN = "00f067aa0ba902b7";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InMemorySpanExporter exporter;
+
+    @Autowired
+    private Tracer tracer;
+
+    @Test
+    @Order(1)
+    @DisplayName("GET /v1/user/self - a sampled caller's trace gets spans for security, controller, service, repository, SQL and BCrypt")
+    void testSpanTree() throws Exception {
+        createUser();
+        String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+        mockMvc.perform(get("/v1/user/self")
+                        .header("Authorization", auth(USERNAME))
+                        .header("traceparent", "00-" + traceId + "-" + CALLER_SPAN + "-01"))
+                .andExpect(status().isOk());
+
+        List<SpanData> spans = awaitTrace(traceId);
+        Map<String, SpanData> byName = spans.stream()
+                .collect(Collectors.toMap(SpanData::name, Function.identity(), (first, second) -> first));
+
+        SpanData server = byName.get("GET /v1/user/self");
+        assertNotNull(server, "server span in " + byName.keySet());
+        assertEquals(SpanKind.SERVER, server.kind());
+        assertEquals(CALLER_SPAN, server.parentSpanId());
+        assertEquals(200, server.attributes().get("http.response.status_code"));
+
+        SpanData security = byName.get("security filters");
+        assertEquals(server.spanId(), security.parentSpanId());
+        SpanData lookup = byName.get("CustomUserDetailsService.loadUserByUsername");
+        assertEquals(security.spanId(), lookup.parentSpanId());
+        assertEquals(security.spanId(), byName.get("bcrypt.matches").parentSpanId());
+
+        SpanData controller = byName.get("UserController.getCurrentUser");
+        assertEquals(server.spanId(), controller.parentSpanId());
+        assertTrue(spans.stream().anyMatch(span -> span.name().startsWith("UserService.")
+                && span.parentSpanId().equals(controller.spanId())));
+        assertTrue(spans.stream().anyMatch(span -> span.name().startsWith("UserRepository.")));
+
+        List<SpanData> statements = spans.stream().filter(span -> span.kind() == SpanKind.CLIENT).toList();
+        assertFalse(statements.isEmpty());
+        assertEquals("SELECT", statements.get(0).name());
+        assertTrue(statements.get(0).attributes().get("db.query.text").toString().toLowerCase().contains("users"));
+        for (SpanData span : spans) {
+            assertTrue(span.startEpochNanos() >= server.startEpochNanos() && span.endEpochNanos() <= server.endEpochNanos(),
+                    span.name() + " outside the server span");
+        }
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Fast successful requests outside the sampling ratio are discarded")
+    void testTailSamplingDiscards() throws Exception {
+        long discarded = tracer.getDiscardedTraces();
+        // Trace id in the top of the id space, never within a 1% ratio
+        String traceId = "0af7651916cd43dd" + "ffffffffffffffff";
+
+        mockMvc.perform(get("/v1/user/self")
+                        .header("Authorization", auth(USERNAME))
+                        .header("traceparent", "00-" + traceId + "-" + CALLER_SPAN + "-00"))
+                .andExpect(status().isOk());
+
+        assertEquals(discarded + 1, tracer.getDiscardedTraces());
+        Thread.sleep(200);
+        assertTrue(exporter.getTrace(traceId).isEmpty());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Error bodies carry the request's trace id, including ones written by Spring Security")
+    void testTraceIdInErrorResponse() throws Exception {
+        String traceId = "5bf92f3577b34da6a3ce929d0e0e4736";
+        mockMvc.perform(get("/v1/user/self")
+                        .header("Authorization", auth(USERNAME, "wrong-password"))
+                        .header("traceparent", "00-" + traceId + "-" + CALLER_SPAN + "-00"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.trace_id").value(traceId));
+
+        // Without a (valid) traceparent a new trace is started
+        mockMvc.perform(put("/v1/user/self")
+                        .header("Authorization", auth(USERNAME))
+                        .header("traceparent", "not-a-traceparent")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"other@example.com\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.trace_id").value(org.hamcrest.Matchers.matchesPattern("[0-9a-f]{32}")));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("The trace id in a 4xx body leads to an exported trace, even outside the sampling ratio")
+    void testClientErrorTraceKept() throws Exception {
+        // Trace id in the top of the id space, never within a 1% ratio
+        String traceId = "6bf92f3577b34da6" + "ffffffffffffffff";
+        String unauthorized = mockMvc.perform(get("/v1/user/self")
+                        .header("Authorization", auth(USERNAME, "wrong-password"))
+                        .header("traceparent", "00-" + traceId + "-" + CALLER_SPAN + "-00"))
+                .andExpect(status().isUnauthorized())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(traceId, objectMapper.readTree(unauthorized).get("trace_id").asText());
+        assertEquals(401, awaitTrace(traceId).stream()
+                .filter(span -> span.kind() == SpanKind.SERVER)
+                .findFirst().orElseThrow().attributes().get("http.response.status_code"));
+
+        // A trace started here, its id known to the client only from the body
+        String invalid = mockMvc.perform(put("/v1/user/self")
+                        .header("Authorization", auth(USERNAME))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"other@example.com\"}"))
+                .andExpect(status().isBadRequest())
+                .andReturn().getResponse().getContentAsString();
+        assertFalse(awaitTrace(objectMapper.readTree(invalid).get("trace_id").asText()).isEmpty());
+    }
+
+    private List<SpanData> awaitTrace(String traceId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            List<SpanData> spans = exporter.getTrace(traceId);
+            if (!spans.isEmpty()) {
+                return spans;
+            }
+            Thread.sleep(50);
+        }
+        return fail("trace " + traceId + " was not exported");
+    }
+
+    private void createUser() throws Exception {
+        UserCreateRequest request = new UserCreateRequest();
+        request.setUsername(USERNAME);
+        request.setPassword(PASSWORD);
+        request.setFirstName("Traced");
+        request.setLastName("User");
+        mockMvc.perform(post("/v1/user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+    }
+}
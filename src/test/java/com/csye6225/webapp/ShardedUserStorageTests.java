@@ -0,0 +1,279 @@
+package com.csye6225.webapp;
+
+import com.csye6225.webapp.datasource.ShardRoutingDataSource;
+import com.csye6225.webapp.datasource.UserShardKeys;
+import com.csye6225.webapp.dto.UserCreateRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.csye6225.webapp.support.TestUsers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Users spread over three embedded H2 databases.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ShardedUserStorageTests {
+
+    private static final int SHARDS = 3;
+    private static final int USERS_PER_SHARD = 3;
+    private static final String ADMIN = username("shard.admin");
+    private static final String START = LocalDateTime.now().minusSeconds(1).toString();
+
+    // Usernames picked so that every shard owns USERS_PER_SHARD of them
+    private static final List<String> USERS = new ArrayList<>();
+    private static final Map<String, String> IDS = new java.util.HashMap<>();
+
+    static {
+        int[] owned = new int[SHARDS];
+        for (int i = 0; USERS.size() < SHARDS * USERS_PER_SHARD; i++) {
+            String username = "shard.user" + i + username(".");
+            int shard = UserShardKeys.shardFor(username, SHARDS);
+            if (owned[shard] < USERS_PER_SHARD) {
+                owned[shard]++;
+                USERS.add(username);
+            }
+        }
+    }
+
+    @DynamicPropertySource
+    static void shards(DynamicPropertyRegistry registry) {
+        registry.add("webapp.datasource.sharding.enabled", () -> "true");
+        for (int i = 0; i < SHARDS; i++) {
+            String url = "jdbc:h2:mem:shard" + i + "-" + RUN + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+            registry.add("webapp.datasource.sharding.shards[" + i + "].url", () -> url);
+        }
+        registry.add("spring.datasource.driver-class-name", () -> "org.h2.Driver");
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.H2Dialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        // A batch per user with a pause after each: a run lasts long enough to be seen running
+        registry.add("webapp.datasource.sharding.rebalance-batch-size", () -> "1");
+        registry.add("webapp.datasource.sharding.rebalance-batch-pause", () -> "50ms");
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Test
+    @Order(1)
+    @DisplayName("POST /v1/user - each user is stored only on its owning shard, with an id naming that shard")
+    void testCreateOnOwningShard() throws Exception {
+        createUser(ADMIN);
+        jdbc(UserShardKeys.shardFor(ADMIN, SHARDS)).update("update users set admin = true where username = ?", ADMIN);
+        for (String username : USERS) {
+            String body = createUser(username);
+            IDS.put(username, objectMapper.readTree(body).get("id").asText());
+        }
+
+        for (String username : USERS) {
+            int owner = UserShardKeys.shardFor(username, SHARDS);
+            for (int shard = 0; shard < SHARDS; shard++) {
+                assertEquals(shard == owner ? 1 : 0, countOn(shard, username), username + " on shard " + shard);
+            }
+            assertEquals(owner, UserShardKeys.shardOf(UUID.fromString(IDS.get(username))));
+        }
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("GET /v1/user/self - authentication and reads find every user on its shard")
+    void testReadsRouted() throws Exception {
+        for (String username : USERS) {
+            mockMvc.perform(get("/v1/user/self").header("Authorization", auth(username)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.username").value(username));
+        }
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("GET /v1/admin/users - pages merged across shards cover every user once, newest first")
+    void testListingAcrossShards() throws Exception {
+        List<String> usernames = new ArrayList<>();
+        List<String> created = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get("/v1/admin/users")
+                    .header("Authorization", auth(ADMIN))
+                    .param("limit", "4")
+                    .param("created_after", START);
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            String body = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(body);
+            for (JsonNode user : page.get("users")) {
+                usernames.add(user.get("username").asText());
+                created.add(user.get("account_created").asText());
+            }
+            cursor = page.get("next_cursor").isNull() ? null : page.get("next_cursor").asText();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertEquals(USERS.size() + 1, usernames.size());
+        assertEquals(USERS.size() + 1, new HashSet<>(usernames).size());
+        for (int i = 1; i < created.size(); i++) {
+            assertTrue(created.get(i - 1).compareTo(created.get(i)) >= 0, "not newest first: " + created);
+        }
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("POST /v1/admin/shards/rebalance - users left on their old shard are moved to the new one")
+    void testRebalanceAfterAddingShard() throws Exception {
+        // Lay out the users of shard 2 as they were before it was added, when there were two shards
+        List<String> onNewShard = USERS.stream().filter(u -> UserShardKeys.shardFor(u, SHARDS) == 2).toList();
+        for (String username : onNewShard) {
+            int previous = UserShardKeys.shardFor(username, SHARDS - 1);
+            Map<String, Object> row = jdbc(2).queryForMap("select * from users where username = ?", username);
+            jdbc(previous).update("insert into users (" + String.join(", ", row.keySet()) + ") values ("
+                    + String.join(", ", row.keySet().stream().map(c -> "?").toList()) + ")", row.values().toArray());
+            jdbc(2).update("delete from users where username = ?", username);
+        }
+        mockMvc.perform(get("/v1/user/self").header("Authorization", auth(onNewShard.get(0))))
+                .andExpect(status().is4xxClientError());
+
+        // A dry run in the background, with a second run refused meanwhile
+        mockMvc.perform(post("/v1/admin/shards/rebalance")
+                        .param("dry_run", "true")
+                        .header("Authorization", auth(ADMIN)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/v1/admin/shards/rebalance"))
+                .andExpect(jsonPath("$.running").value(true));
+        mockMvc.perform(post("/v1/admin/shards/rebalance")
+                        .param("dry_run", "false")
+                        .header("Authorization", auth(ADMIN)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Conflict"));
+        assertEquals(onNewShard.size(), moved(awaitRebalance(), true));
+        assertEquals(0, countOn(2, onNewShard.get(0)));
+
+        assertEquals(onNewShard.size(), rebalance(false));
+
+        for (String username : onNewShard) {
+            assertEquals(1, countOn(2, username));
+            assertEquals(0, countOn(UserShardKeys.shardFor(username, SHARDS - 1), username));
+            mockMvc.perform(get("/v1/user/self").header("Authorization", auth(username)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(IDS.get(username)));
+        }
+
+        // Nothing left to move
+        assertEquals(0, rebalance(false));
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("POST /v1/admin/users/lookup - ids and usernames resolved on their shards")
+    void testBatchLookup() throws Exception {
+        List<String> keys = new ArrayList<>();
+        for (String username : USERS) {
+            keys.add(IDS.get(username));
+            keys.add(username.toUpperCase());
+        }
+        String body = mockMvc.perform(post("/v1/admin/users/lookup")
+                        .header("Authorization", auth(ADMIN))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("keys", keys))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode results = objectMapper.readTree(body).get("results");
+        for (int i = 0; i < USERS.size(); i++) {
+            assertEquals(USERS.get(i), results.get(2 * i).get("user").get("username").asText());
+            assertEquals(USERS.get(i), results.get(2 * i + 1).get("user").get("username").asText());
+        }
+    }
+
+    // Start a run and wait for it: users moved (or, for a dry run, to move) over all shards
+    private long rebalance(boolean dryRun) throws Exception {
+        mockMvc.perform(post("/v1/admin/shards/rebalance")
+                        .param("dry_run", String.valueOf(dryRun))
+                        .header("Authorization", auth(ADMIN)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.dry_run").value(dryRun));
+        return moved(awaitRebalance(), dryRun);
+    }
+
+    private JsonNode awaitRebalance() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (true) {
+            String body = mockMvc.perform(get("/v1/admin/shards/rebalance").header("Authorization", auth(ADMIN)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode status = objectMapper.readTree(body);
+            if (!status.get("running").asBoolean()) {
+                assertTrue(status.get("last_error").isNull(), status.toString());
+                return status;
+            }
+            assertTrue(System.nanoTime() < deadline, "rebalance still running");
+            Thread.sleep(50);
+        }
+    }
+
+    private static long moved(JsonNode status, boolean dryRun) {
+        assertEquals(dryRun, status.get("dry_run").asBoolean());
+        assertEquals(SHARDS, status.get("shards").size());
+        long moved = 0;
+        for (JsonNode shard : status.get("shards")) {
+            moved += shard.get("moved").asLong();
+        }
+        return moved;
+    }
+
+    private JdbcTemplate jdbc(int shard) {
+        return new JdbcTemplate(shardRoutingDataSource.getShard(shard));
+    }
+
+    private int countOn(int shard, String username) {
+        return jdbc(shard).queryForObject("select count(*) from users where username = ?", Integer.class, username);
+    }
+
+    private String createUser(String username) throws Exception {
+        UserCreateRequest request = new UserCreateRequest();
+        request.setUsername(username);
+        request.setPassword(PASSWORD);
+        request.setFirstName("Shard");
+        request.setLastName("User");
+        return mockMvc.perform(post("/v1/user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.csye6225.webapp;
+
+import com.csye6225.webapp.dto.UserCreateRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.csye6225.webapp.support.SqlStatementMatchers.*;
+import static com.csye6225.webapp.support.TestUsers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Pins the exact number of SQL statements each endpoint issues, authentication included.
+ * A change that adds a query to a hot path has to update these numbers deliberately.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class SqlStatementBudgetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final String testEmail = username("sql.budget");
+    private static final String testPassword = "secureP@ssw0rd";
+
+    @Test
+    @Order(1)
+    @DisplayName("GET /healthz - one insert")
+    void testHealthCheckStatements() throws Exception {
+        mockMvc.perform(get("/healthz"))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements(1));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("POST /v1/user - existence check, user insert, outbox insert")
+    void testCreateUserStatements() throws Exception {
+        UserCreateRequest request = new UserCreateRequest();
+        request.setUsername(testEmail);
+        request.setPassword(testPassword);
+        request.setFirstName("Sql");
+        request.setLastName("Budget");
+
+        mockMvc.perform(post("/v1/user")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(sqlStatements(3))
+                .andExpect(entityLoads(0));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("GET /v1/user/self - authentication and response projections, no entities")
+    void testGetUserStatements() throws Exception {
+        mockMvc.perform(get("/v1/user/self")
+                .header("Authorization", auth(testEmail, testPassword)))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements(2))
+                .andExpect(entityLoads(0))
+                .andExpect(flushes(0));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("GET /v1/user/self - unknown user is served from the negative cache on repeat")
+    void testUnknownUserStatements() throws Exception {
+        String unknown = username("unknown");
+        mockMvc.perform(get("/v1/user/self")
+                .header("Authorization", auth(unknown, testPassword)))
+                .andExpect(status().isNotFound())
+                .andExpect(sqlStatements(1));
+        mockMvc.perform(get("/v1/user/self")
+                .header("Authorization", auth(unknown, testPassword)))
+                .andExpect(status().isNotFound())
+                .andExpect(sqlStatements(0));
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("PUT /v1/user/self - authentication projection, load, update, outbox insert")
+    void testUpdateUserStatements() throws Exception {
+        mockMvc.perform(put("/v1/user/self")
+                .header("Authorization", auth(testEmail, testPassword))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"first_name\":\"Updated\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(sqlStatements(4))
+                .andExpect(entityLoads(1));
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("POST /v1/user with a repeated Idempotency-Key - replayed without any statements")
+    void testIdempotentReplayStatements() throws Exception {
+        UserCreateRequest request = new UserCreateRequest();
+        request.setUsername(username("idem"));
+        request.setPassword(testPassword);
+        request.setFirstName("Idem");
+        request.setLastName("Potent");
+        String body = objectMapper.writeValueAsString(request);
+        String key = java.util.UUID.randomUUID().toString();
+
+        String created = mockMvc.perform(post("/v1/user")
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andExpect(sqlStatements(3))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(post("/v1/user")
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(header().string("Location", "/v1/user/self"))
+                .andExpect(content().json(created, JsonCompareMode.STRICT))
+                .andExpect(sqlStatements(0));
+
+        request.setFirstName("Different");
+        mockMvc.perform(post("/v1/user")
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(sqlStatements(0));
+    }
+}
@@ -0,0 +1,243 @@
+package com.csye6225.webapp;
+
+import com.csye6225.webapp.dto.UserCreateRequest;
+import com.csye6225.webapp.outbox.UserEventType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.csye6225.webapp.support.TestUsers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Purge of stale unverified accounts in small chunks, with dry runs and a cluster-wide lease
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class UnverifiedAccountPurgeTests {
+
+    private static final String ADMIN = username("purge.admin");
+    private static final List<String> STALE = List.of(
+            username("purge.stale0."),
+            username("purge.stale1."),
+            username("purge.stale2."));
+    private static final String RECENT_UNVERIFIED = username("purge.recent.");
+    private static final String OLD_VERIFIED = username("purge.verified.");
+
+    @DynamicPropertySource
+    static void purgeSettings(DynamicPropertyRegistry registry) {
+        registry.add("webapp.purge.unverified.chunk-size", () -> "2");
+        // Short, but long enough that the bulk run below outlives its request's deadline many times over
+        registry.add("webapp.purge.unverified.chunk-pause", () -> "100ms");
+        // Keep the USER_DELETED events in the outbox table for inspection: a database of its own,
+        // as the relays of other cached test contexts would publish (and delete) them
+        registry.add("webapp.outbox.relay.enabled", () -> "false");
+        registry.add("spring.datasource.url",
+                () -> "jdbc:h2:mem:purge-" + RUN + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Order(1)
+    @DisplayName("Setup - three unverified accounts older than the max age, one recent, one old but verified")
+    void testSetup() throws Exception {
+        createUser(ADMIN);
+        jdbcTemplate.update("update users set admin = true where username = ?", ADMIN);
+        LocalDateTime old = LocalDateTime.now().minusDays(30);
+        for (String username : STALE) {
+            createUser(username);
+            age(username, old, false);
+        }
+        createUser(RECENT_UNVERIFIED);
+        age(RECENT_UNVERIFIED, LocalDateTime.now().minusDays(1), false);
+        createUser(OLD_VERIFIED);
+        age(OLD_VERIFIED, old, true);
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("POST /v1/admin/purge/unverified - a dry run (the default) counts candidates without deleting")
+    void testDryRun() throws Exception {
+        int candidates = staleUnverified();
+        assertTrue(candidates >= STALE.size());
+
+        JsonNode report = purge(null);
+        assertTrue(report.get("dry_run").asBoolean());
+        assertEquals(candidates, report.get("accounts").asInt());
+        // chunk-size 2
+        assertEquals((candidates + 1) / 2, report.get("chunks").asInt());
+        assertTrue(report.get("completed").asBoolean());
+        assertEquals(candidates, staleUnverified());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("POST /v1/admin/purge/unverified?dry_run=false - deletes only stale unverified accounts and publishes USER_DELETED")
+    void testPurge() throws Exception {
+        int candidates = staleUnverified();
+
+        JsonNode report = purge("false");
+        assertFalse(report.get("dry_run").asBoolean());
+        assertEquals(candidates, report.get("accounts").asInt());
+
+        assertEquals(0, staleUnverified());
+        for (String username : STALE) {
+            assertEquals(0, count(username), username);
+        }
+        assertEquals(1, count(RECENT_UNVERIFIED));
+        assertEquals(1, count(OLD_VERIFIED));
+        assertEquals(STALE.size(), (int) jdbcTemplate.queryForObject(
+                "select count(*) from outbox_events where event_type = ? and payload like ?", Integer.class,
+                UserEventType.USER_DELETED.name(), "%purge.stale%" + RUN + "%"));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("POST /v1/admin/purge/unverified - 409 while another node holds the lease, 400 for a bad dry_run")
+    void testLeaseHeldElsewhere() throws Exception {
+        jdbcTemplate.update("update job_leases set owner = ?, expires_at = ? where name = ?",
+                "other-node", Timestamp.valueOf(LocalDateTime.now().plusMinutes(5)), "purge-unverified-accounts");
+        try {
+            mockMvc.perform(post("/v1/admin/purge/unverified").header("Authorization", auth(ADMIN)))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.message").value("A purge is already running on another node"));
+        } finally {
+            jdbcTemplate.update("update job_leases set expires_at = ? where name = ?",
+                    Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), "purge-unverified-accounts");
+        }
+        purge("true");
+
+        mockMvc.perform(post("/v1/admin/purge/unverified").param("dry_run", "maybe").header("Authorization", auth(ADMIN)))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Start a run and wait for its report
+    private JsonNode purge(String dryRun) throws Exception {
+        var request = post("/v1/admin/purge/unverified").header("Authorization", auth(ADMIN));
+        if (dryRun != null) {
+            request.param("dry_run", dryRun);
+        }
+        mockMvc.perform(request)
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/v1/admin/purge/unverified"))
+                .andExpect(jsonPath("$.running").value(true));
+        return awaitFinished().get("last_run");
+    }
+
+    private JsonNode awaitFinished() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (true) {
+            JsonNode status = purgeStatus();
+            if (!status.get("running").asBoolean()) {
+                assertTrue(status.get("last_error").isNull(), status.toString());
+                return status;
+            }
+            assertTrue(System.nanoTime() < deadline, "purge still running");
+            Thread.sleep(50);
+        }
+    }
+
+    private JsonNode purgeStatus() throws Exception {
+        String body = mockMvc.perform(get("/v1/admin/purge/unverified").header("Authorization", auth(ADMIN)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("POST /v1/admin/purge/unverified?dry_run=false - a run of many chunks outlives the request that started it, then frees the lease")
+    void testLongRunOutlivesRequest() throws Exception {
+        // 120 stale accounts in chunks of 2 with 100 ms pauses: about 6 s, against a 2 s request deadline
+        int bulk = 120;
+        LocalDateTime old = LocalDateTime.now().minusDays(30);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < bulk; i++) {
+            rows.add(new Object[] {UUID.randomUUID(), "purge.bulk" + i + username("."), "hash",
+                    "Bulk", "Candidate", false, Timestamp.valueOf(old), Timestamp.valueOf(old)});
+        }
+        jdbcTemplate.batchUpdate("insert into users (id, username, password, first_name, last_name, verified, "
+                + "account_created, account_updated) values (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+
+        long started = System.nanoTime();
+        mockMvc.perform(post("/v1/admin/purge/unverified")
+                        .param("dry_run", "false")
+                        .header("X-Request-Timeout", "2000")
+                        .header("Authorization", auth(ADMIN)))
+                .andExpect(status().isAccepted());
+        // Answered within its deadline (BCrypt included, on a busy machine), long before the run ends
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 2000);
+
+        // Meanwhile a second run is refused, here and (by the lease) on every other node
+        mockMvc.perform(post("/v1/admin/purge/unverified").header("Authorization", auth(ADMIN)))
+                .andExpect(status().isConflict());
+        assertTrue(purgeStatus().get("running").asBoolean());
+
+        JsonNode report = awaitFinished().get("last_run");
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) > 2000);
+        assertEquals(bulk, report.get("accounts").asInt());
+        assertEquals(bulk / 2, report.get("chunks").asInt());
+        assertTrue(report.get("completed").asBoolean());
+        assertEquals(0, (int) jdbcTemplate.queryForObject("select count(*) from users where username like ?",
+                Integer.class, "purge.bulk%." + RUN + "@example.com"));
+
+        // The lease was released, not left to expire
+        assertFalse(jdbcTemplate.queryForObject("select expires_at from job_leases where name = ?",
+                Timestamp.class, "purge-unverified-accounts").toLocalDateTime().isAfter(LocalDateTime.now()));
+        assertEquals(0, purge("true").get("accounts").asInt());
+    }
+
+    private int staleUnverified() {
+        return jdbcTemplate.queryForObject("select count(*) from users where verified = false and account_created < ?",
+                Integer.class, Timestamp.valueOf(LocalDateTime.now().minusDays(7)));
+    }
+
+    private int count(String username) {
+        return jdbcTemplate.queryForObject("select count(*) from users where username = ?", Integer.class, username);
+    }
+
+    private void age(String username, LocalDateTime created, boolean verified) {
+        jdbcTemplate.update("update users set account_created = ?, verified = ? where username = ?",
+                Timestamp.valueOf(created), verified, username);
+    }
+
+    private void createUser(String username) throws Exception {
+        UserCreateRequest request = new UserCreateRequest();
+        request.setUsername(username);
+        request.setPassword(PASSWORD);
+        request.setFirstName("Purge");
+        request.setLastName("Candidate");
+        mockMvc.perform(post("/v1/user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+    }
+}
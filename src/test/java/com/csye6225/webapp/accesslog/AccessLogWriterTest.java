@@ -0,0 +1,139 @@
+package com.csye6225.webapp.accesslog;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private static AccessLogEntry entry(String route, int status, long latencyMillis) {
+        return new AccessLogEntry(0L, "GET", route, route, status, 42, TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+    }
+
+    @Test
+    @DisplayName("A full ring drops new entries instead of blocking")
+    void testRingDropsWhenFull() {
+        AccessLogRingBuffer<Integer> ring = new AccessLogRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(1, ring.dropped());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, ring.drain(drained::add, 10));
+        assertEquals(List.of(0, 1, 2, 3), drained);
+        assertTrue(ring.offer(5));
+    }
+
+    @Test
+    @DisplayName("Entries from concurrent producers are all delivered exactly once")
+    void testConcurrentProducers() throws Exception {
+        AccessLogRingBuffer<Integer> ring = new AccessLogRingBuffer<>(1 << 16);
+        int producers = 4;
+        int perProducer = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    ring.offer(base + i);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+
+        boolean[] seen = new boolean[producers * perProducer];
+        int[] count = {0};
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (count[0] < seen.length && System.nanoTime() < deadline) {
+            ring.drain(value -> {
+                assertFalse(seen[value], "duplicate " + value);
+                seen[value] = true;
+                count[0]++;
+            }, 1024);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(seen.length, count[0]);
+        assertEquals(0, ring.dropped());
+    }
+
+    @Test
+    @DisplayName("Entries are written to the file and summarised per route")
+    void testWritesLinesAndHistograms() throws Exception {
+        Path file = dir.resolve("access.log");
+        AccessLogWriter writer = new AccessLogWriter(file, 1 << 20, 2, 128, Duration.ofMillis(200), 16);
+        // Queue everything up front so all entries land in the first histogram interval
+        for (int i = 1; i <= 100; i++) {
+            assertTrue(writer.submit(entry("/v1/user/self", 200, i)));
+        }
+        writer.start();
+        try {
+            waitFor(() -> !writer.lastInterval().routes().isEmpty());
+        } finally {
+            writer.stop();
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(100, lines.size());
+        assertTrue(lines.get(0).endsWith(" GET /v1/user/self /v1/user/self 200 42 1000us"), lines.get(0));
+
+        Map<String, Object> stats = writer.lastInterval().summary().get("GET /v1/user/self");
+        assertEquals(100L, stats.get("count"));
+        assertEquals(50.0, (double) stats.get("p50_ms"), 1.0);
+        assertEquals(100.0, (double) stats.get("max_ms"), 1.0);
+    }
+
+    @Test
+    @DisplayName("The file is rotated at the size limit and only max-files copies are kept")
+    void testRotation() throws Exception {
+        Path file = dir.resolve("access.log");
+        AccessLogWriter writer = new AccessLogWriter(file, 200, 2, 64, Duration.ofMinutes(1), 16);
+        writer.start();
+        try {
+            for (int i = 0; i < 40; i++) {
+                assertTrue(writer.submit(entry("/healthz", 200, 1)));
+                Thread.sleep(1);
+            }
+        } finally {
+            writer.stop();
+        }
+
+        assertTrue(Files.size(file) <= 200);
+        assertTrue(Files.exists(dir.resolve("access.log.1")));
+        assertTrue(Files.exists(dir.resolve("access.log.2")));
+        assertFalse(Files.exists(dir.resolve("access.log.3")));
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+}
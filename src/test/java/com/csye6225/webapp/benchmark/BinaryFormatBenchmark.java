@@ -0,0 +1,95 @@
+package com.csye6225.webapp.benchmark;
+
+import com.csye6225.webapp.dto.UserResponse;
+import com.csye6225.webapp.json.BinaryJsonFormats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserResponse round trip (encode, then decode) as JSON, Smile and CBOR, with the mappers
+ * {@link BinaryJsonFormats} derives from the application's ObjectMapper. {@link #main} prints the
+ * payload size of each format before running the benchmarks.
+ *
+ * Run with:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.csye6225.webapp.benchmark.BinaryFormatBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    private UserResponse response;
+    private byte[] encoded;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+
+    @Setup
+    public void setUp() throws Exception {
+        response = sample();
+        ObjectMapper mapper = mapper(format);
+        writer = mapper.writerFor(UserResponse.class);
+        reader = mapper.readerFor(UserResponse.class);
+        encoded = writer.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return writer.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public UserResponse decode() throws Exception {
+        return reader.readValue(encoded);
+    }
+
+    static UserResponse sample() {
+        return new UserResponse(UUID.randomUUID(), "jane.doe@example.com", "Jane", "Doe",
+                LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_000_000), LocalDateTime.now());
+    }
+
+    static ObjectMapper mapper(String format) {
+        BinaryJsonFormats formats = new BinaryJsonFormats(Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new BlackbirdModule())
+                .build());
+        return switch (format) {
+            case "smile" -> formats.smile();
+            case "cbor" -> formats.cbor();
+            default -> formats.forContentType("application/json");
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        UserResponse response = sample();
+        for (String format : new String[] {"json", "smile", "cbor"}) {
+            System.out.printf("%-5s %d bytes%n", format, mapper(format).writeValueAsBytes(response).length);
+        }
+        try {
+            new Runner(new OptionsBuilder()
+                    .include(BinaryFormatBenchmark.class.getSimpleName())
+                    .build()).run();
+        } catch (RunnerException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
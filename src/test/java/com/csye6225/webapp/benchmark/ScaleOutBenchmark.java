@@ -0,0 +1,542 @@
+package com.csye6225.webapp.benchmark;
+
+import com.csye6225.webapp.WebappApplication;
+import org.HdrHistogram.Histogram;
+import org.h2.tools.Server;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Throughput of 1..N application instances sharing one database.
+ *
+ * For every node count it starts that many instances (separate JVMs on local ports, each in its
+ * own working directory under target/scale-out), spreads a closed-loop load round-robin over
+ * them like a load balancer, and reports aggregate throughput, latency per node and what the
+ * database saw meanwhile: open sessions and sessions waiting for a lock, sampled every 250 ms.
+ * The request mix covers GET /healthz (one INSERT each), GET /v1/user/self (BCrypt plus one
+ * SELECT) and POST /v1/user (BCrypt plus INSERTs). Where throughput stops growing with nodes
+ * while lock waits or sessions climb, the shared database is the bottleneck.
+ *
+ * By default the instances share an H2 server (MySQL mode) started by the harness; pass
+ * -Dscaleout.db.url (and .user/.password) to use a real MySQL instead.
+ *
+ * Run with:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -Dscaleout.nodes=1,2,4 -Dscaleout.duration=30s \
+ *     -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.csye6225.webapp.benchmark.ScaleOutBenchmark
+ * </pre>
+ */
+public class ScaleOutBenchmark {
+
+    private static final String PASSWORD = "secureP@ssw0rd";
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final int[] nodeCounts = Arrays.stream(System.getProperty("scaleout.nodes", "1,2,4").split(","))
+            .map(String::trim).mapToInt(Integer::parseInt).toArray();
+    private final int concurrency = Integer.getInteger("scaleout.concurrency", 64);
+    private final Duration warmup = DurationStyle.detectAndParse(System.getProperty("scaleout.warmup", "10s"));
+    private final Duration duration = DurationStyle.detectAndParse(System.getProperty("scaleout.duration", "30s"));
+    private final int users = Integer.getInteger("scaleout.users", 200);
+    private final String heap = System.getProperty("scaleout.heap", "512m");
+    private final Mix mix = Mix.parse(System.getProperty("scaleout.mix", "healthz:60,self:30,create:10"));
+    private final Path workDirectory = Paths.get(System.getProperty("scaleout.dir", "target/scale-out"));
+    // Extra application arguments for every instance, e.g. "--webapp.db.resilience.health.max-concurrent=8"
+    private final List<String> nodeArgs = Arrays.stream(System.getProperty("scaleout.node-args", "").trim().split("\\s+"))
+            .filter(arg -> !arg.isEmpty()).toList();
+
+    private final String run = Long.toString(System.currentTimeMillis(), 36);
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private String dbUrl;
+    private String dbUser;
+    private String dbPassword;
+    private boolean h2;
+
+    public static void main(String[] args) throws Exception {
+        new ScaleOutBenchmark().run();
+    }
+
+    private void run() throws Exception {
+        Files.createDirectories(workDirectory);
+
+        // 1. The shared database
+        Server h2Server = null;
+        dbUrl = System.getProperty("scaleout.db.url");
+        if (dbUrl == null) {
+            int port = freePort();
+            h2Server = Server.createTcpServer("-tcpPort", Integer.toString(port), "-ifNotExists").start();
+            dbUrl = "jdbc:h2:tcp://localhost:" + port + "/mem:scaleout;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+            dbUser = "sa";
+            dbPassword = "";
+        } else {
+            dbUser = System.getProperty("scaleout.db.user", "root");
+            dbPassword = System.getProperty("scaleout.db.password", "");
+        }
+        h2 = dbUrl.startsWith("jdbc:h2:");
+        System.out.printf("Database %s, %d clients, mix %s, %s warm-up + %s per node count%n",
+                dbUrl, concurrency, mix, warmup, duration);
+
+        // 2. One measurement per node count, each with freshly started instances
+        List<Result> results = new ArrayList<>();
+        try {
+            for (int nodes : nodeCounts) {
+                results.add(measure(nodes));
+            }
+        } finally {
+            if (h2Server != null) {
+                h2Server.stop();
+            }
+        }
+
+        // 3. Summary
+        double single = results.get(0).throughput() / results.get(0).nodes();
+        System.out.println();
+        System.out.println("nodes    req/s  scaling  errors  rejected   p50 ms   p99 ms  db sessions (max)  lock waits (avg)");
+        for (Result result : results) {
+            System.out.printf(Locale.ROOT, "%5d %8.0f %7.0f%% %7d %9d %8.1f %8.1f %18d %17.2f%n",
+                    result.nodes(), result.throughput(), 100 * result.throughput() / (single * result.nodes()),
+                    result.errors(), result.rejected(), millis(result.total().getValueAtPercentile(50)),
+                    millis(result.total().getValueAtPercentile(99)), result.maxSessions(), result.avgLockWaits());
+        }
+    }
+
+    private Result measure(int nodeCount) throws Exception {
+        System.out.printf("%n== %d node(s)%n", nodeCount);
+        List<Node> nodes = new ArrayList<>();
+        try {
+            // The first instance creates or updates the schema alone, the others start together
+            nodes.add(Node.start(1, this));
+            nodes.get(0).awaitReady();
+            for (int i = 2; i <= nodeCount; i++) {
+                nodes.add(Node.start(i, this));
+            }
+            for (Node node : nodes) {
+                node.awaitReady();
+            }
+
+            List<String> accounts = createUsers(nodes);
+            // Both only measure once the warm-up is over
+            long measureFrom = System.nanoTime() + warmup.toNanos();
+            DatabaseProbe probe = new DatabaseProbe();
+            probe.start(measureFrom);
+            Load load = new Load(nodes, accounts);
+            load.run(measureFrom);
+            probe.stop();
+
+            for (int i = 0; i < nodes.size(); i++) {
+                Histogram latency = load.latency[i];
+                System.out.printf(Locale.ROOT, "  node %d :%d  %8.0f req/s  p50 %6.1f ms  p99 %6.1f ms  max %7.1f ms%n",
+                        i + 1, nodes.get(i).port, latency.getTotalCount() / seconds(duration),
+                        millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(99)),
+                        millis(latency.getMaxValue()));
+            }
+            Histogram total = new Histogram(MAX_LATENCY_MICROS, 2);
+            Arrays.stream(load.latency).forEach(total::add);
+            if (probe.lockWaitEvents >= 0) {
+                System.out.printf("  InnoDB row lock waits during the run: %d%n", probe.lockWaitEvents);
+            }
+            return new Result(nodeCount, total.getTotalCount() / seconds(duration), total,
+                    load.errors.get(), load.rejected.get(), probe.maxSessions, probe.averageWaiting());
+        } finally {
+            nodes.forEach(Node::stop);
+        }
+    }
+
+    private List<String> createUsers(List<Node> nodes) throws Exception {
+        List<String> accounts = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            String username = "scale." + run + "." + accounts.size() + "@example.com";
+            HttpResponse<Void> response = client.send(createRequest(nodes.get(i % nodes.size()), username),
+                    HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() == 201 || response.statusCode() == 409) {
+                // 409: created while measuring an earlier node count
+                accounts.add(username);
+            }
+        }
+        if (accounts.isEmpty() && mix.self() > 0) {
+            throw new IllegalStateException("Could not create any user to authenticate as");
+        }
+        return accounts;
+    }
+
+    private HttpRequest createRequest(Node node, String username) {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD
+                + "\",\"first_name\":\"Scale\",\"last_name\":\"Out\"}";
+        return HttpRequest.newBuilder(node.uri("/v1/user"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
+
+    record Result(int nodes, double throughput, Histogram total, long errors, long rejected,
+                  int maxSessions, double avgLockWaits) {
+    }
+
+    /**
+     * Weighted request mix, e.g. healthz:60,self:30,create:10
+     */
+    record Mix(int healthz, int self, int create) {
+
+        static Mix parse(String spec) {
+            int healthz = 0;
+            int self = 0;
+            int create = 0;
+            for (String part : spec.split(",")) {
+                String[] weight = part.trim().split(":");
+                int value = Integer.parseInt(weight[1].trim());
+                switch (weight[0].trim()) {
+                    case "healthz" -> healthz = value;
+                    case "self" -> self = value;
+                    case "create" -> create = value;
+                    default -> throw new IllegalArgumentException("Unknown request type " + weight[0]);
+                }
+            }
+            if (healthz + self + create <= 0) {
+                throw new IllegalArgumentException("Empty request mix " + spec);
+            }
+            return new Mix(healthz, self, create);
+        }
+
+        String pick(ThreadLocalRandom random) {
+            int value = random.nextInt(healthz + self + create);
+            return value < healthz ? "healthz" : value < healthz + self ? "self" : "create";
+        }
+
+        @Override
+        public String toString() {
+            return "healthz:" + healthz + ",self:" + self + ",create:" + create;
+        }
+    }
+
+    /**
+     * One application instance in its own JVM and working directory
+     */
+    static final class Node {
+
+        final int port;
+        final Process process;
+        final Path log;
+
+        private Node(int port, Process process, Path log) {
+            this.port = port;
+            this.process = process;
+            this.log = log;
+        }
+
+        static Node start(int index, ScaleOutBenchmark benchmark) throws IOException {
+            int port = freePort();
+            // Own working directory, so access logs and the login journal are not shared
+            Path directory = benchmark.workDirectory.resolve("node-" + index).toAbsolutePath();
+            Files.createDirectories(directory);
+            Path log = directory.resolve("node.log");
+
+            List<String> command = new ArrayList<>(List.of(
+                    Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-Xms" + benchmark.heap, "-Xmx" + benchmark.heap,
+                    // DevTools is on the test class path; its restart class loader would skew the numbers
+                    "-Dspring.devtools.restart.enabled=false",
+                    "-cp", absoluteClassPath(),
+                    WebappApplication.class.getName(),
+                    "--server.port=" + port,
+                    "--spring.datasource.url=" + benchmark.dbUrl,
+                    "--spring.datasource.username=" + benchmark.dbUser,
+                    "--spring.datasource.password=" + benchmark.dbPassword,
+                    "--spring.jpa.hibernate.ddl-auto=update",
+                    "--spring.jpa.show-sql=false",
+                    "--logging.level.root=WARN"));
+            command.addAll(benchmark.nodeArgs);
+            if (benchmark.h2) {
+                command.add("--spring.datasource.driver-class-name=org.h2.Driver");
+                command.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+            }
+            Process process = new ProcessBuilder(command)
+                    .directory(directory.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start();
+            return new Node(port, process, log);
+        }
+
+        // The instance runs in another directory, so relative entries like target/classes are resolved here
+        private static String absoluteClassPath() {
+            return Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                    .map(entry -> Paths.get(entry).toAbsolutePath().toString())
+                    .collect(Collectors.joining(File.pathSeparator));
+        }
+
+        URI uri(String path) {
+            return URI.create("http://localhost:" + port + path);
+        }
+
+        void awaitReady() throws InterruptedException {
+            HttpClient client = HttpClient.newHttpClient();
+            long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Instance on port " + port + " exited, see " + log);
+                }
+                try {
+                    HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri("/healthz")).build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        return;
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(250);
+            }
+            throw new IllegalStateException("Instance on port " + port + " not ready after " + STARTUP_TIMEOUT + ", see " + log);
+        }
+
+        void stop() {
+            process.destroy();
+            try {
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Closed-loop clients; requests go to the instances in turn, like a round-robin load balancer
+     */
+    final class Load {
+
+        final List<Node> nodes;
+        final List<String> accounts;
+        final Histogram[] latency;
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong next = new AtomicLong();
+        private final AtomicLong created = new AtomicLong();
+
+        Load(List<Node> nodes, List<String> accounts) {
+            this.nodes = nodes;
+            this.accounts = accounts;
+            this.latency = new Histogram[nodes.size()];
+            for (int i = 0; i < latency.length; i++) {
+                latency[i] = new Histogram(MAX_LATENCY_MICROS, 2);
+            }
+        }
+
+        void run(long measureFrom) throws InterruptedException {
+            long end = measureFrom + duration.toNanos();
+            List<Thread> clients = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                Thread thread = new Thread(() -> client(measureFrom, end), "scale-out-client-" + i);
+                thread.start();
+                clients.add(thread);
+            }
+            for (Thread thread : clients) {
+                thread.join();
+            }
+        }
+
+        private void client(long measureFrom, long end) {
+            // Per client, merged at the end, so recording needs no synchronization
+            Histogram[] own = new Histogram[nodes.size()];
+            for (int i = 0; i < own.length; i++) {
+                own[i] = new Histogram(MAX_LATENCY_MICROS, 2);
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                int index = (int) (next.getAndIncrement() % nodes.size());
+                HttpRequest request = request(nodes.get(index), mix.pick(random), random);
+                int status;
+                try {
+                    status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                } catch (IOException e) {
+                    status = -1;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - now);
+                if (now < measureFrom) {
+                    continue;
+                }
+                if (status == 503) {
+                    // Shed by the concurrency limit or the database circuit breaker
+                    rejected.incrementAndGet();
+                } else if (status < 200 || status >= 300) {
+                    errors.incrementAndGet();
+                } else {
+                    own[index].recordValue(Math.min(Math.max(1, elapsedMicros), MAX_LATENCY_MICROS));
+                }
+            }
+            synchronized (latency) {
+                for (int i = 0; i < own.length; i++) {
+                    latency[i].add(own[i]);
+                }
+            }
+        }
+
+        private HttpRequest request(Node node, String type, ThreadLocalRandom random) {
+            return switch (type) {
+                case "self" -> {
+                    String username = accounts.get(random.nextInt(accounts.size()));
+                    String credentials = Base64.getEncoder().encodeToString(
+                            (username + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+                    yield HttpRequest.newBuilder(node.uri("/v1/user/self"))
+                            .header("Authorization", "Basic " + credentials)
+                            .timeout(Duration.ofSeconds(30))
+                            .build();
+                }
+                case "create" -> createRequest(node,
+                        "scale." + run + ".new" + created.incrementAndGet() + "@example.com");
+                default -> HttpRequest.newBuilder(node.uri("/healthz")).timeout(Duration.ofSeconds(30)).build();
+            };
+        }
+    }
+
+    /**
+     * Samples the database's own view of the load: sessions, sessions waiting for a row lock
+     * and, on MySQL, InnoDB's count of row lock waits
+     */
+    final class DatabaseProbe {
+
+        private final String sessionsQuery;
+        private final String waitingQuery;
+        private Connection connection;
+        private Thread thread;
+        private volatile boolean running;
+
+        volatile int maxSessions;
+        private long waitingSum;
+        private long samples;
+        long lockWaitEvents = -1;
+        private long lockWaitsBefore;
+
+        DatabaseProbe() {
+            if (h2) {
+                sessionsQuery = "select count(*) from information_schema.sessions";
+                waitingQuery = "select count(*) from information_schema.sessions where blocker_id is not null";
+            } else {
+                sessionsQuery = "select count(*) from information_schema.processlist";
+                waitingQuery = "select count(*) from information_schema.innodb_trx where trx_state = 'LOCK WAIT'";
+            }
+        }
+
+        void start(long measureFrom) throws SQLException {
+            connection = DriverManager.getConnection(dbUrl, dbUser, dbPassword);
+            running = true;
+            thread = new Thread(() -> sample(measureFrom), "scale-out-db-probe");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void stop() throws Exception {
+            running = false;
+            thread.join();
+            long lockWaitsAfter = innodbRowLockWaits();
+            if (lockWaitsAfter >= 0 && lockWaitsBefore >= 0) {
+                lockWaitEvents = lockWaitsAfter - lockWaitsBefore;
+            }
+            connection.close();
+        }
+
+        synchronized double averageWaiting() {
+            return samples == 0 ? 0 : (double) waitingSum / samples;
+        }
+
+        private void sample(long measureFrom) {
+            try {
+                Thread.sleep(Math.max(0, TimeUnit.NANOSECONDS.toMillis(measureFrom - System.nanoTime())));
+                lockWaitsBefore = innodbRowLockWaits();
+            } catch (SQLException e) {
+                System.err.println("Database probe failed: " + e.getMessage());
+                return;
+            } catch (InterruptedException e) {
+                return;
+            }
+            while (running) {
+                try {
+                    // Minus this probe's own session
+                    int sessions = count(sessionsQuery) - 1;
+                    int waiting = count(waitingQuery);
+                    synchronized (this) {
+                        maxSessions = Math.max(maxSessions, sessions);
+                        waitingSum += waiting;
+                        samples++;
+                    }
+                    Thread.sleep(250);
+                } catch (SQLException e) {
+                    System.err.println("Database probe failed: " + e.getMessage());
+                    return;
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private int count(String query) throws SQLException {
+            try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery(query)) {
+                rows.next();
+                return rows.getInt(1);
+            }
+        }
+
+        // -1 when the database does not count them
+        private long innodbRowLockWaits() throws SQLException {
+            if (h2) {
+                return -1;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("show global status like 'Innodb_row_lock_waits'")) {
+                return rows.next() ? rows.getLong(2) : -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,830 @@
+package com.csye6225.webapp.benchmark;
+
+import com.csye6225.webapp.WebappApplication;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+import org.h2.tools.Server;
+import org.springframework.boot.convert.DurationStyle;
+
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Long-running soak test that looks for slow heap growth.
+ *
+ * Starts one application instance in its own JVM (JMX on a local port, a JFR recording running)
+ * against an H2 server in this JVM, so the stand-in database's memory stays out of the
+ * instance's heap. A steady mix of every public and admin endpoint, failure paths included, runs
+ * for hours. After the warm-up and then every sample interval the harness takes a class
+ * histogram of the live heap (GC.class_histogram, which runs a full GC first) plus GC, class,
+ * class loader and thread counts. At the end every class whose live bytes grew in most intervals
+ * is flagged, next to the application frames that allocated it according to JFR's allocation
+ * samples, and the busiest allocation sites on request threads.
+ *
+ * Written to target/soak: report.txt, samples.csv, one histogram per sample and soak.jfr.
+ * Expected growth: users created by the mix stay in the in-memory search index, so a handful of
+ * search index classes grow with the users table by design.
+ *
+ * Run with:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -Dsoak.duration=4h -Dsoak.sample-interval=5m \
+ *     -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.csye6225.webapp.benchmark.SoakBenchmark
+ * </pre>
+ */
+public class SoakBenchmark {
+
+    private static final String PASSWORD = "secureP@ssw0rd";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+    // "   1:         45123        3287456  [B (java.base@17.0.9)"
+    private static final Pattern HISTOGRAM_ROW = Pattern.compile("^\\s*\\d+:\\s+(\\d+)\\s+(\\d+)\\s+(\\S+)");
+    private static final Pattern LOADER_TOTAL = Pattern.compile("^Total = (\\d+)");
+    private static final String APPLICATION_PACKAGE = "com.csye6225.webapp.";
+    // Where a site is named after the code that called through tracing, profiling and resilience wrappers
+    private static final List<String> CALLER_PACKAGES = List.of(
+            APPLICATION_PACKAGE + "controller.", APPLICATION_PACKAGE + "service.", APPLICATION_PACKAGE + "config.");
+
+    private final Duration warmup = DurationStyle.detectAndParse(System.getProperty("soak.warmup", "5m"));
+    private final Duration duration = DurationStyle.detectAndParse(System.getProperty("soak.duration", "2h"));
+    private final Duration sampleInterval = DurationStyle.detectAndParse(System.getProperty("soak.sample-interval", "5m"));
+    private final int concurrency = Integer.getInteger("soak.concurrency", 8);
+    private final Duration thinkTime = DurationStyle.detectAndParse(System.getProperty("soak.think-time", "20ms"));
+    private final int users = Integer.getInteger("soak.users", 100);
+    private final String heap = System.getProperty("soak.heap", "512m");
+    private final Mix mix = Mix.parse(System.getProperty("soak.mix",
+            "healthz:20,healthz-bad:2,create:3,create-duplicate:2,create-invalid:2,self:30,self-wrong-password:3,"
+                    + "self-unknown:2,update:10,update-read-only:3,update-wrong-type:2,admin-list:3,admin-search:3,admin-lookup:3"));
+    // A class is a suspect when its live bytes grew in this share of the intervals...
+    private final double risingShare = Double.parseDouble(System.getProperty("soak.rising-share", "0.8"));
+    // ...and by at least this much overall
+    private final long minGrowthBytes = Long.getLong("soak.min-growth-bytes", 256 * 1024);
+    private final Path workDirectory = Paths.get(System.getProperty("soak.dir", "target/soak")).toAbsolutePath();
+    private final List<String> nodeArgs = Arrays.stream(System.getProperty("soak.node-args", "").trim().split("\\s+"))
+            .filter(arg -> !arg.isEmpty()).toList();
+
+    private final String run = Long.toString(System.currentTimeMillis(), 36);
+    private final String admin = "soak.admin." + run + "@example.com";
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private String dbUrl;
+    private String dbUser;
+    private String dbPassword;
+
+    public static void main(String[] args) throws Exception {
+        new SoakBenchmark().run();
+    }
+
+    private void run() throws Exception {
+        Files.createDirectories(workDirectory);
+
+        // 1. The stand-in database, outside the instance's heap
+        Server h2Server = null;
+        dbUrl = System.getProperty("soak.db.url");
+        if (dbUrl == null) {
+            int port = freePort();
+            h2Server = Server.createTcpServer("-tcpPort", Integer.toString(port), "-ifNotExists").start();
+            dbUrl = "jdbc:h2:tcp://localhost:" + port + "/mem:soak;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+            dbUser = "sa";
+            dbPassword = "";
+        } else {
+            dbUser = System.getProperty("soak.db.user", "root");
+            dbPassword = System.getProperty("soak.db.password", "");
+        }
+        System.out.printf("Database %s, %d clients (%s think time), %s warm-up + %s, a sample every %s%n",
+                dbUrl, concurrency, thinkTime, warmup, duration, sampleInterval);
+
+        Node node = null;
+        try {
+            // 2. The instance, its JMX connection and the accounts the mix authenticates as
+            node = Node.start(this);
+            node.awaitReady();
+            List<String> accounts = createUsers(node);
+
+            // 3. Steady load; samples after the warm-up and every interval until the end
+            Load load = new Load(node, accounts);
+            load.start();
+            List<Sample> samples = new ArrayList<>();
+            long started = System.nanoTime();
+            long end = started + warmup.toNanos() + duration.toNanos();
+            long next = started + warmup.toNanos();
+            Instant measuredFrom = Instant.now().plus(warmup);
+            try (Probe probe = new Probe(node)) {
+                while (true) {
+                    TimeUnit.NANOSECONDS.sleep(Math.max(0, next - System.nanoTime()));
+                    Sample sample = probe.sample(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started), load.total());
+                    record(sample, samples.size());
+                    samples.add(sample);
+                    if (next >= end) {
+                        break;
+                    }
+                    next = Math.min(next + sampleInterval.toNanos(), end);
+                }
+                load.stop();
+                probe.dumpRecording(workDirectory.resolve("soak.jfr"));
+            }
+
+            // 4. Trends and allocation sites
+            String report = report(samples, load, allocationSites(workDirectory.resolve("soak.jfr"), measuredFrom));
+            Files.writeString(workDirectory.resolve("report.txt"), report);
+            System.out.println();
+            System.out.print(report);
+            System.out.println("Written to " + workDirectory);
+        } finally {
+            if (node != null) {
+                node.stop();
+            }
+            if (h2Server != null) {
+                h2Server.stop();
+            }
+        }
+    }
+
+    private List<String> createUsers(Node node) throws Exception {
+        List<String> accounts = new ArrayList<>(users);
+        for (int i = 0; i <= users; i++) {
+            String username = i == 0 ? admin : "soak." + run + "." + i + "@example.com";
+            HttpResponse<Void> response = client.send(createRequest(node, username, null), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Creating " + username + " answered " + response.statusCode());
+            }
+            if (i > 0) {
+                accounts.add(username);
+            }
+        }
+        promoteAdmin();
+        return accounts;
+    }
+
+    // The admin role is a column that sign-up never sets
+    private void promoteAdmin() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(dbUrl, dbUser, dbPassword);
+             PreparedStatement statement = connection.prepareStatement("update users set admin = true where username = ?")) {
+            statement.setString(1, admin);
+            statement.executeUpdate();
+        }
+    }
+
+    private HttpRequest createRequest(Node node, String username, String password) {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + (password == null ? PASSWORD : password)
+                + "\",\"first_name\":\"Soak\",\"last_name\":\"Test\"}";
+        return HttpRequest.newBuilder(node.uri("/v1/user"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    // Raw data next to the report, for diffing any two samples by hand
+    private void record(Sample sample, int index) throws IOException {
+        StringBuilder histogram = new StringBuilder("#instances #bytes class\n");
+        sample.histogram().entrySet().stream()
+                .sorted(Map.Entry.<String, long[]>comparingByValue(Comparator.comparingLong(counts -> counts[1])).reversed())
+                .forEach(entry -> histogram.append(entry.getValue()[0]).append(' ').append(entry.getValue()[1])
+                        .append(' ').append(entry.getKey()).append('\n'));
+        Files.writeString(workDirectory.resolve(String.format("histogram-%03d.txt", index)), histogram);
+
+        Path csv = workDirectory.resolve("samples.csv");
+        if (index == 0) {
+            Files.writeString(csv, "elapsed_s,requests,live_heap_bytes,gc_count,gc_time_ms,loaded_classes,"
+                    + "unloaded_classes,class_loaders,threads,daemon_threads,metaspace_bytes\n");
+        }
+        Files.writeString(csv, String.format(Locale.ROOT, "%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d%n",
+                sample.elapsedSeconds(), sample.requests(), sample.liveHeapBytes(), sample.gcCount(), sample.gcTimeMillis(),
+                sample.loadedClasses(), sample.unloadedClasses(), sample.classLoaders(), sample.threads(),
+                sample.daemonThreads(), sample.metaspaceBytes()), StandardOpenOption.APPEND);
+
+        System.out.printf(Locale.ROOT, "[%6s] %9d requests  live heap %7.1f MB  %5d GCs  %6d classes  %3d loaders  %3d threads%n",
+                formatDuration(sample.elapsedSeconds()),
+                sample.requests(), megabytes(sample.liveHeapBytes()), sample.gcCount(), sample.loadedClasses(),
+                sample.classLoaders(), sample.threads());
+    }
+
+    private String report(List<Sample> samples, Load load, AllocationSites sites) {
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        Sample first = samples.get(0);
+        Sample last = samples.get(samples.size() - 1);
+
+        // 1. The whole process
+        out.printf(Locale.ROOT, "Soak report: %d samples over %s after a %s warm-up%n%n", samples.size(),
+                formatDuration(last.elapsedSeconds() - first.elapsedSeconds()), formatDuration(warmup.toSeconds()));
+        out.println("                       first         last   growth/h  rising");
+        row(out, "live heap (MB)", samples, Sample::liveHeapBytes, 1024 * 1024);
+        row(out, "metaspace (MB)", samples, Sample::metaspaceBytes, 1024 * 1024);
+        row(out, "loaded classes", samples, Sample::loadedClasses, 1);
+        row(out, "class loaders", samples, Sample::classLoaders, 1);
+        row(out, "threads", samples, Sample::threads, 1);
+        long intervalSeconds = Math.max(1, last.elapsedSeconds() - first.elapsedSeconds());
+        out.printf(Locale.ROOT, "%nGC: %d collections, %.1f s in total (%.2f%% of the time), one full GC per sample included%n",
+                last.gcCount() - first.gcCount(), (last.gcTimeMillis() - first.gcTimeMillis()) / 1000.0,
+                (last.gcTimeMillis() - first.gcTimeMillis()) / 10.0 / intervalSeconds);
+
+        // 2. Requests
+        out.printf(Locale.ROOT, "%nRequests: %d (%.0f/s), %d with an unexpected status, %d rejected with 503%n",
+                load.total(), load.total() / (double) (last.elapsedSeconds()), load.unexpected(), load.rejected.sum());
+        load.unexpectedStatuses.forEach((type, statuses) -> out.printf("  %-20s %s%n", type, statuses));
+
+        // 3. Classes whose live bytes grew steadily
+        List<Trend> suspects = new ArrayList<>();
+        Set<String> classes = new TreeSet<>();
+        samples.forEach(sample -> classes.addAll(sample.histogram().keySet()));
+        for (String className : classes) {
+            long[] bytes = samples.stream().mapToLong(sample -> sample.histogram().getOrDefault(className, new long[2])[1]).toArray();
+            long[] instances = samples.stream().mapToLong(sample -> sample.histogram().getOrDefault(className, new long[2])[0]).toArray();
+            Trend trend = Trend.of(className, samples, bytes, instances);
+            if (trend.rising() >= risingShare && trend.growth() >= minGrowthBytes) {
+                suspects.add(trend);
+            }
+        }
+        suspects.sort(Comparator.comparingLong(Trend::growth).reversed());
+        out.printf("%nClasses whose live bytes grew in at least %.0f%% of the intervals, by %s or more: %d%n",
+                risingShare * 100, formatBytes(minGrowthBytes), suspects.size());
+        if (samples.size() < 3) {
+            out.println("  (fewer than 3 samples: run longer or sample more often for a trend)");
+        }
+        for (Trend trend : suspects.subList(0, Math.min(25, suspects.size()))) {
+            out.printf(Locale.ROOT, "  %-60s %10s -> %10s  %+9d instances  %10s/h  rising %3.0f%%%n",
+                    trend.name(), formatBytes(trend.first()), formatBytes(trend.last()),
+                    trend.instanceGrowth(), formatBytes((long) trend.slopePerHour()), trend.rising() * 100);
+            sites.topSites(trend.name(), 3).forEach(site -> out.printf(Locale.ROOT, "      allocated at %-60s %10s%n",
+                    site.getKey(), formatBytes(site.getValue())));
+        }
+
+        // 4. Allocation churn on request threads, leak or not
+        out.printf("%nBusiest allocation sites on request threads (JFR allocation samples, estimated bytes):%n");
+        if (sites.isEmpty()) {
+            out.println("  (no allocation samples in the recording)");
+        }
+        sites.topRequestSites(20).forEach(site -> out.printf(Locale.ROOT, "  %-90s %10s%n",
+                site.getKey(), formatBytes(site.getValue())));
+        out.flush();
+        return text.toString();
+    }
+
+    private static void row(PrintWriter out, String label, List<Sample> samples,
+                            ToLongFunction<Sample> metric, double unit) {
+        long[] values = samples.stream().mapToLong(metric).toArray();
+        Trend trend = Trend.of(label, samples, values, values);
+        out.printf(Locale.ROOT, "%-18s %10.1f %12.1f %10.1f  %5.0f%%%n", label, trend.first() / unit, trend.last() / unit,
+                trend.slopePerHour() / unit, trend.rising() * 100);
+    }
+
+    private AllocationSites allocationSites(Path recording, Instant measuredFrom) throws IOException {
+        AllocationSites sites = new AllocationSites();
+        if (!Files.exists(recording)) {
+            return sites;
+        }
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                // Startup and warm-up allocations are not what a soak test is after
+                if (event.getEventType().getName().equals("jdk.ObjectAllocationSample") && !event.getStartTime().isBefore(measuredFrom)) {
+                    sites.add(event);
+                }
+            }
+        }
+        return sites;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String formatDuration(long seconds) {
+        return Duration.ofSeconds(seconds).toString().substring(2).toLowerCase(Locale.ROOT);
+    }
+
+    private static double megabytes(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+
+    private static String formatBytes(long bytes) {
+        long magnitude = Math.abs(bytes);
+        if (magnitude >= 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f MB", megabytes(bytes));
+        }
+        if (magnitude >= 1024) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        }
+        return bytes + " B";
+    }
+
+    /**
+     * One look at the instance; the histogram maps class names to {instances, bytes}
+     */
+    record Sample(long elapsedSeconds, long requests, long liveHeapBytes, long gcCount, long gcTimeMillis,
+                  long loadedClasses, long unloadedClasses, long classLoaders, long threads, long daemonThreads,
+                  long metaspaceBytes, Map<String, long[]> histogram) {
+    }
+
+    /**
+     * How a value moved over the samples: the share of intervals in which it rose and the
+     * least-squares slope
+     */
+    record Trend(String name, long first, long last, long instanceGrowth, double rising, double slopePerHour) {
+
+        static Trend of(String name, List<Sample> samples, long[] values, long[] instances) {
+            int n = values.length;
+            int rises = 0;
+            for (int i = 1; i < n; i++) {
+                if (values[i] > values[i - 1]) {
+                    rises++;
+                }
+            }
+            double meanTime = samples.stream().mapToLong(Sample::elapsedSeconds).average().orElse(0);
+            double meanValue = Arrays.stream(values).average().orElse(0);
+            double covariance = 0;
+            double variance = 0;
+            for (int i = 0; i < n; i++) {
+                double time = samples.get(i).elapsedSeconds() - meanTime;
+                covariance += time * (values[i] - meanValue);
+                variance += time * time;
+            }
+            double slopePerSecond = variance == 0 ? 0 : covariance / variance;
+            return new Trend(name, values[0], values[n - 1], instances[n - 1] - instances[0],
+                    n < 2 ? 0 : (double) rises / (n - 1), slopePerSecond * 3600);
+        }
+
+        long growth() {
+            return last - first;
+        }
+    }
+
+    /**
+     * Weighted request mix, e.g. healthz:20,self:30,update:10
+     */
+    record Mix(Map<String, Integer> weights, int total) {
+
+        // Status each request type is meant to get
+        static final Map<String, Integer> EXPECTED = Map.ofEntries(
+                Map.entry("healthz", 200), Map.entry("healthz-bad", 400),
+                Map.entry("create", 201), Map.entry("create-duplicate", 409), Map.entry("create-invalid", 400),
+                Map.entry("self", 200), Map.entry("self-wrong-password", 401), Map.entry("self-unknown", 404),
+                Map.entry("update", 204), Map.entry("update-read-only", 400), Map.entry("update-wrong-type", 415),
+                Map.entry("admin-list", 200), Map.entry("admin-search", 200), Map.entry("admin-lookup", 200));
+
+        static Mix parse(String spec) {
+            Map<String, Integer> weights = new LinkedHashMap<>();
+            for (String part : spec.split(",")) {
+                String[] weight = part.trim().split(":");
+                if (!EXPECTED.containsKey(weight[0].trim())) {
+                    throw new IllegalArgumentException("Unknown request type " + weight[0] + ", expected one of " + EXPECTED.keySet());
+                }
+                weights.put(weight[0].trim(), Integer.parseInt(weight[1].trim()));
+            }
+            int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+            if (total <= 0) {
+                throw new IllegalArgumentException("Empty request mix " + spec);
+            }
+            return new Mix(weights, total);
+        }
+
+        String pick(ThreadLocalRandom random) {
+            int value = random.nextInt(total);
+            for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+                value -= weight.getValue();
+                if (value < 0) {
+                    return weight.getKey();
+                }
+            }
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public String toString() {
+            return weights.entrySet().stream().map(weight -> weight.getKey() + ":" + weight.getValue())
+                    .collect(Collectors.joining(","));
+        }
+    }
+
+    /**
+     * The application instance, with JMX on a loopback port and a JFR recording named "soak"
+     */
+    static final class Node {
+
+        final int port;
+        final int jmxPort;
+        final Process process;
+        final Path log;
+
+        private Node(int port, int jmxPort, Process process, Path log) {
+            this.port = port;
+            this.jmxPort = jmxPort;
+            this.process = process;
+            this.log = log;
+        }
+
+        static Node start(SoakBenchmark benchmark) throws IOException {
+            int port = freePort();
+            int jmxPort = freePort();
+            Path directory = benchmark.workDirectory.resolve("node");
+            Files.createDirectories(directory);
+            Path log = directory.resolve("node.log");
+
+            List<String> command = new ArrayList<>(List.of(
+                    Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-Xms" + benchmark.heap, "-Xmx" + benchmark.heap,
+                    "-Dspring.devtools.restart.enabled=false",
+                    "-Dcom.sun.management.jmxremote.port=" + jmxPort,
+                    "-Dcom.sun.management.jmxremote.rmi.port=" + jmxPort,
+                    "-Dcom.sun.management.jmxremote.host=127.0.0.1",
+                    "-Djava.rmi.server.hostname=127.0.0.1",
+                    "-Dcom.sun.management.jmxremote.authenticate=false",
+                    "-Dcom.sun.management.jmxremote.ssl=false",
+                    // Allocation samples (and everything else in the profile settings) for the whole run, capped on disk
+                    "-XX:StartFlightRecording=name=soak,settings=profile,maxsize=512m",
+                    "-XX:FlightRecorderOptions=stackdepth=128",
+                    "-cp", absoluteClassPath(),
+                    WebappApplication.class.getName(),
+                    "--server.port=" + port,
+                    "--spring.datasource.url=" + benchmark.dbUrl,
+                    "--spring.datasource.username=" + benchmark.dbUser,
+                    "--spring.datasource.password=" + benchmark.dbPassword,
+                    "--spring.jpa.hibernate.ddl-auto=update",
+                    "--spring.jpa.show-sql=false",
+                    "--logging.level.root=WARN"));
+            command.addAll(benchmark.nodeArgs);
+            if (benchmark.dbUrl.startsWith("jdbc:h2:")) {
+                command.add("--spring.datasource.driver-class-name=org.h2.Driver");
+                command.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+            }
+            Process process = new ProcessBuilder(command)
+                    .directory(directory.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start();
+            return new Node(port, jmxPort, process, log);
+        }
+
+        // The instance runs in another directory, so relative entries like target/classes are resolved here
+        private static String absoluteClassPath() {
+            return Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                    .map(entry -> Paths.get(entry).toAbsolutePath().toString())
+                    .collect(Collectors.joining(File.pathSeparator));
+        }
+
+        URI uri(String path) {
+            return URI.create("http://localhost:" + port + path);
+        }
+
+        void awaitReady() throws InterruptedException {
+            HttpClient client = HttpClient.newHttpClient();
+            long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Instance exited, see " + log);
+                }
+                try {
+                    HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri("/healthz")).build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        return;
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(250);
+            }
+            throw new IllegalStateException("Instance not ready after " + STARTUP_TIMEOUT + ", see " + log);
+        }
+
+        void stop() {
+            process.destroy();
+            try {
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * The instance's platform MXBeans and diagnostic commands over JMX
+     */
+    static final class Probe implements AutoCloseable {
+
+        private final JMXConnector connector;
+        private final MBeanServerConnection connection;
+        private final ObjectName diagnosticCommand;
+
+        Probe(Node node) throws Exception {
+            connector = JMXConnectorFactory.connect(
+                    new JMXServiceURL("service:jmx:rmi:///jndi/rmi://127.0.0.1:" + node.jmxPort + "/jmxrmi"));
+            connection = connector.getMBeanServerConnection();
+            diagnosticCommand = new ObjectName(DIAGNOSTIC_COMMAND);
+        }
+
+        Sample sample(long elapsedSeconds, long requests) throws Exception {
+            // 1. Histogram first: its full GC leaves only live objects for the heap figures below
+            Map<String, long[]> histogram = new HashMap<>();
+            long liveHeap = 0;
+            for (String line : diagnose("gcClassHistogram").split("\n")) {
+                Matcher row = HISTOGRAM_ROW.matcher(line);
+                if (row.find()) {
+                    long bytes = Long.parseLong(row.group(2));
+                    histogram.merge(row.group(3), new long[] {Long.parseLong(row.group(1)), bytes}, (a, b) -> {
+                        // The same name from two class loaders
+                        a[0] += b[0];
+                        a[1] += b[1];
+                        return a;
+                    });
+                    liveHeap += bytes;
+                }
+            }
+
+            // 2. GC, classes, class loaders, threads, metaspace
+            long gcCount = 0;
+            long gcTime = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getPlatformMXBeans(connection, GarbageCollectorMXBean.class)) {
+                gcCount += Math.max(0, collector.getCollectionCount());
+                gcTime += Math.max(0, collector.getCollectionTime());
+            }
+            ClassLoadingMXBean classLoading = ManagementFactory.getPlatformMXBean(connection, ClassLoadingMXBean.class);
+            ThreadMXBean threads = ManagementFactory.getPlatformMXBean(connection, ThreadMXBean.class);
+            long metaspace = ManagementFactory.getPlatformMXBeans(connection, MemoryPoolMXBean.class).stream()
+                    .filter(pool -> pool.getName().equals("Metaspace"))
+                    .mapToLong(pool -> pool.getUsage().getUsed()).sum();
+            long classLoaders = 0;
+            for (String line : diagnose("vmClassloaderStats").split("\n")) {
+                Matcher total = LOADER_TOTAL.matcher(line.trim());
+                if (total.find()) {
+                    classLoaders = Long.parseLong(total.group(1));
+                }
+            }
+            return new Sample(elapsedSeconds, requests, liveHeap, gcCount, gcTime,
+                    classLoading.getLoadedClassCount(), classLoading.getUnloadedClassCount(), classLoaders,
+                    threads.getThreadCount(), threads.getDaemonThreadCount(), metaspace, histogram);
+        }
+
+        void dumpRecording(Path file) throws Exception {
+            diagnose("jfrDump", "name=soak", "filename=" + file);
+        }
+
+        private String diagnose(String command, String... arguments) throws Exception {
+            return (String) connection.invoke(diagnosticCommand, command, new Object[] {arguments},
+                    new String[] {String[].class.getName()});
+        }
+
+        @Override
+        public void close() throws IOException {
+            connector.close();
+        }
+    }
+
+    /**
+     * Closed-loop clients with a think time, so the load stays steady for hours
+     */
+    final class Load {
+
+        final Node node;
+        final List<String> accounts;
+        final Map<String, LongAdder> requests = new LinkedHashMap<>();
+        final Map<String, Map<Integer, LongAdder>> unexpectedStatuses = new ConcurrentSkipListMap<>();
+        final LongAdder rejected = new LongAdder();
+        private final AtomicLong sequence = new AtomicLong();
+        private final List<Thread> clients = new ArrayList<>();
+        private volatile boolean running;
+
+        Load(Node node, List<String> accounts) {
+            this.node = node;
+            this.accounts = accounts;
+            mix.weights().keySet().forEach(type -> requests.put(type, new LongAdder()));
+        }
+
+        void start() {
+            running = true;
+            for (int i = 0; i < concurrency; i++) {
+                Thread thread = new Thread(this::client, "soak-client-" + i);
+                thread.start();
+                clients.add(thread);
+            }
+        }
+
+        void stop() throws InterruptedException {
+            running = false;
+            for (Thread thread : clients) {
+                thread.join();
+            }
+        }
+
+        long total() {
+            return requests.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+
+        long unexpected() {
+            return unexpectedStatuses.values().stream().flatMap(statuses -> statuses.values().stream())
+                    .mapToLong(LongAdder::sum).sum();
+        }
+
+        private void client() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running) {
+                String type = mix.pick(random);
+                int status;
+                try {
+                    status = client.send(request(type, random), HttpResponse.BodyHandlers.discarding()).statusCode();
+                } catch (IOException e) {
+                    status = -1;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                requests.get(type).increment();
+                if (status == 503) {
+                    rejected.increment();
+                } else if (status != Mix.EXPECTED.get(type)) {
+                    unexpectedStatuses.computeIfAbsent(type, key -> new ConcurrentSkipListMap<>())
+                            .computeIfAbsent(status, key -> new LongAdder()).increment();
+                }
+                try {
+                    Thread.sleep(thinkTime.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private HttpRequest request(String type, ThreadLocalRandom random) {
+            String account = accounts.get(random.nextInt(accounts.size()));
+            return switch (type) {
+                case "healthz-bad" -> get("/healthz?probe=" + random.nextInt(1000)).build();
+                case "create" -> createRequest(node, "soak." + run + ".new" + sequence.incrementAndGet() + "@example.com", null);
+                case "create-duplicate" -> createRequest(node, account, null);
+                case "create-invalid" -> createRequest(node, "soak." + run + ".weak" + sequence.incrementAndGet() + "@example.com", "weak");
+                case "self" -> get("/v1/user/self").header("Authorization", auth(account, PASSWORD)).build();
+                case "self-wrong-password" -> get("/v1/user/self").header("Authorization", auth(account, "wrongP@ssw0rd")).build();
+                // A new name each time: the unknown-username cache has to stay bounded
+                case "self-unknown" -> get("/v1/user/self")
+                        .header("Authorization", auth("soak." + run + ".unknown" + sequence.incrementAndGet() + "@example.com", PASSWORD))
+                        .build();
+                case "update" -> put(account, "application/json",
+                        "{\"first_name\":\"Soak" + random.nextInt(1000) + "\",\"last_name\":\"Test\"}");
+                case "update-read-only" -> put(account, "application/json", "{\"username\":\"other@example.com\"}");
+                case "update-wrong-type" -> put(account, "text/plain", "{\"first_name\":\"Soak\"}");
+                case "admin-list" -> get("/v1/admin/users?limit=20").header("Authorization", auth(admin, PASSWORD)).build();
+                case "admin-search" -> get("/v1/admin/users/search?q=" + URLEncoder.encode("soak." + run, StandardCharsets.UTF_8))
+                        .header("Authorization", auth(admin, PASSWORD)).build();
+                case "admin-lookup" -> HttpRequest.newBuilder(node.uri("/v1/admin/users/lookup"))
+                        .header("Authorization", auth(admin, PASSWORD))
+                        .header("Content-Type", "application/json")
+                        .timeout(Duration.ofSeconds(30))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"keys\":[\"" + account + "\",\"" + accounts.get(0) + "\"]}"))
+                        .build();
+                default -> get("/healthz").build();
+            };
+        }
+
+        private HttpRequest.Builder get(String path) {
+            return HttpRequest.newBuilder(node.uri(path)).timeout(Duration.ofSeconds(30));
+        }
+
+        private HttpRequest put(String account, String contentType, String body) {
+            return HttpRequest.newBuilder(node.uri("/v1/user/self"))
+                    .header("Authorization", auth(account, PASSWORD))
+                    .header("Content-Type", contentType)
+                    .timeout(Duration.ofSeconds(30))
+                    .PUT(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+
+        private String auth(String username, String password) {
+            return "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * JFR allocation samples summed per allocated class and the innermost application frame that
+     * allocated it, e.g. "java.util.HashSet at UserController.updateCurrentUser:127". When that frame
+     * is a wrapper, the nearest controller, service or config frame further out is added, e.g.
+     * "RepositoryCallInterceptor.invoke:34 < UserService.findResponseByUsername:88".
+     */
+    static final class AllocationSites {
+
+        private final Map<String, Map<String, Long>> byClass = new HashMap<>();
+        private final Map<String, Long> onRequestThreads = new HashMap<>();
+
+        void add(RecordedEvent event) {
+            String className = event.getClass("objectClass").getName();
+            String site = applicationFrame(event.getStackTrace());
+            if (site == null) {
+                return;
+            }
+            long weight = event.getLong("weight");
+            byClass.computeIfAbsent(className, key -> new HashMap<>()).merge(site, weight, Long::sum);
+            RecordedThread thread = event.getThread();
+            if (thread != null && thread.getJavaName() != null && thread.getJavaName().startsWith("http-nio-")) {
+                onRequestThreads.merge(className + " at " + site, weight, Long::sum);
+            }
+        }
+
+        boolean isEmpty() {
+            return byClass.isEmpty();
+        }
+
+        List<Map.Entry<String, Long>> topSites(String className, int limit) {
+            return top(byClass.getOrDefault(className, Map.of()), limit);
+        }
+
+        List<Map.Entry<String, Long>> topRequestSites(int limit) {
+            return top(onRequestThreads, limit);
+        }
+
+        private static List<Map.Entry<String, Long>> top(Map<String, Long> sites, int limit) {
+            return sites.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(limit)
+                    .toList();
+        }
+
+        // Innermost frame of our own code (skipping generated proxies) and the caller it served
+        private static String applicationFrame(RecordedStackTrace stackTrace) {
+            if (stackTrace == null) {
+                return null;
+            }
+            String innermost = null;
+            for (RecordedFrame frame : stackTrace.getFrames()) {
+                String type = frame.getMethod().getType().getName();
+                if (!type.startsWith(APPLICATION_PACKAGE) || type.contains("$$")) {
+                    continue;
+                }
+                boolean caller = CALLER_PACKAGES.stream().anyMatch(type::startsWith);
+                if (innermost == null) {
+                    innermost = describe(frame);
+                    if (caller) {
+                        return innermost;
+                    }
+                } else if (caller) {
+                    return innermost + " < " + describe(frame);
+                }
+            }
+            return innermost;
+        }
+
+        private static String describe(RecordedFrame frame) {
+            String type = frame.getMethod().getType().getName();
+            return type.substring(type.lastIndexOf('.') + 1) + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.csye6225.webapp.benchmark;
+
+import com.csye6225.webapp.config.JacksonConfig;
+import com.csye6225.webapp.dto.UserResponse;
+import com.csye6225.webapp.json.UtcTimestampFormat;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserResponse serialization, from the original setup to the fastest option:
+ * <ul>
+ *     <li>jsr310Pattern - reflection plus the JSR-310 {@code @JsonFormat} pattern serializer (before)</li>
+ *     <li>precomputedTimestamps - reflection plus {@code UtcTimestampSerializer} (current default without Blackbird)</li>
+ *     <li>blackbird - generated accessors plus {@code UtcTimestampSerializer} (current default)</li>
+ *     <li>tuned - the hand-written {@code UserResponseSerializer}</li>
+ * </ul>
+ *
+ * Run with:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.csye6225.webapp.benchmark.UserResponseSerializationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserResponseSerializationBenchmark {
+
+    private UserResponse response;
+    private ObjectWriter jsr310Pattern;
+    private ObjectWriter precomputedTimestamps;
+    private ObjectWriter blackbird;
+    private ObjectWriter tuned;
+
+    @Setup
+    public void setUp() {
+        response = new UserResponse(UUID.randomUUID(), "jane.doe@example.com", "Jane", "Doe",
+                LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_000_000), LocalDateTime.now());
+
+        jsr310Pattern = Jackson2ObjectMapperBuilder.json()
+                .mixIn(UserResponse.class, Jsr310PatternMixin.class)
+                .build().writerFor(UserResponse.class);
+        precomputedTimestamps = Jackson2ObjectMapperBuilder.json()
+                .build().writerFor(UserResponse.class);
+        blackbird = Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new BlackbirdModule())
+                .build().writerFor(UserResponse.class);
+        tuned = Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new BlackbirdModule(), JacksonConfig.userResponseModule())
+                .build().writerFor(UserResponse.class);
+    }
+
+    @Benchmark
+    public byte[] jsr310Pattern() throws Exception {
+        return jsr310Pattern.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] precomputedTimestamps() throws Exception {
+        return precomputedTimestamps.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] blackbird() throws Exception {
+        return blackbird.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] tuned() throws Exception {
+        return tuned.writeValueAsBytes(response);
+    }
+
+    /**
+     * Restores the serialization UserResponse had before UtcTimestampSerializer
+     */
+    abstract static class Jsr310PatternMixin {
+
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = UtcTimestampFormat.PATTERN, timezone = "UTC")
+        @JsonSerialize(using = JsonSerializer.None.class)
+        @JsonProperty("account_created")
+        private LocalDateTime accountCreated;
+
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = UtcTimestampFormat.PATTERN, timezone = "UTC")
+        @JsonSerialize(using = JsonSerializer.None.class)
+        @JsonProperty("account_updated")
+        private LocalDateTime accountUpdated;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserResponseSerializationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
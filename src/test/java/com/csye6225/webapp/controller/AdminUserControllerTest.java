@@ -0,0 +1,101 @@
+package com.csye6225.webapp.controller;
+
+import com.csye6225.webapp.config.CustomAccessDeniedHandler;
+import com.csye6225.webapp.config.CustomAuthenticationEntryPoint;
+import com.csye6225.webapp.config.SecurityConfig;
+import com.csye6225.webapp.dto.AdminUserPage;
+import com.csye6225.webapp.json.BinaryJsonFormats;
+import com.csye6225.webapp.search.UserSearchIndex;
+import com.csye6225.webapp.service.CustomUserDetailsService;
+import com.csye6225.webapp.service.UserBatchLookup;
+import com.csye6225.webapp.service.UserService;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static com.csye6225.webapp.support.TestUsers.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The admin listing's role check and parameter validation in a web slice
+ */
+@WebMvcTest(controllers = AdminUserController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = Filter.class))
+@Import({SecurityConfig.class, CustomAuthenticationEntryPoint.class, CustomAccessDeniedHandler.class, BinaryJsonFormats.class})
+class AdminUserControllerTest {
+
+    private static final String PASSWORD_HASH = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private UserSearchIndex userSearchIndex;
+
+    @MockitoBean
+    private UserBatchLookup userBatchLookup;
+
+    @MockitoBean
+    private CustomUserDetailsService userDetailsService;
+
+    @BeforeEach
+    void users() {
+        when(userDetailsService.loadUserByUsername(anyString())).thenAnswer(invocation -> {
+            String username = invocation.getArgument(0);
+            String role = username.startsWith("admin") ? "ADMIN" : "USER";
+            return User.withUsername(username).password(PASSWORD_HASH).roles(role).build();
+        });
+    }
+
+    @Test
+    @DisplayName("Access denied handler - 403 naming the administrator role for other users")
+    void testNonAdminForbidden() throws Exception {
+        mockMvc.perform(get("/v1/admin/users").header("Authorization", auth("member@example.com")))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message").value("Administrator access required"))
+                .andExpect(jsonPath("$.path").value("/v1/admin/users"));
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    @DisplayName("GET /v1/admin/users - invalid parameters are a 400 without touching the service")
+    void testInvalidParameters() throws Exception {
+        mockMvc.perform(get("/v1/admin/users?limit=0").header("Authorization", auth("admin@example.com")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("limit must be between 1 and 200"));
+        mockMvc.perform(get("/v1/admin/users?created_after=yesterday").header("Authorization", auth("admin@example.com")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v1/admin/users?cursor=not-a-cursor").header("Authorization", auth("admin@example.com")))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    @DisplayName("GET /v1/admin/users - the default page size is passed to the service")
+    void testListUsers() throws Exception {
+        when(userService.listUsers(isNull(), isNull(), isNull(), isNull(), eq(50)))
+                .thenReturn(new AdminUserPage(List.of(), null));
+
+        mockMvc.perform(get("/v1/admin/users").header("Authorization", auth("admin@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users").isEmpty());
+    }
+}
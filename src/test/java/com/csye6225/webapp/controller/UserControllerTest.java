@@ -0,0 +1,193 @@
+package com.csye6225.webapp.controller;
+
+import com.csye6225.webapp.config.CustomAccessDeniedHandler;
+import com.csye6225.webapp.config.CustomAuthenticationEntryPoint;
+import com.csye6225.webapp.config.SecurityConfig;
+import com.csye6225.webapp.dto.UserCreateRequest;
+import com.csye6225.webapp.dto.UserResponse;
+import com.csye6225.webapp.dto.UserUpdateRequest;
+import com.csye6225.webapp.exception.DatabaseUnavailableException;
+import com.csye6225.webapp.idempotency.IdempotencyStore;
+import com.csye6225.webapp.json.BinaryJsonFormats;
+import com.csye6225.webapp.service.CustomUserDetailsService;
+import com.csye6225.webapp.service.UserService;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.csye6225.webapp.support.TestUsers.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * UserController and the security error handlers in a web slice: no database, no servlet filters
+ * of our own, the service and the user lookup mocked.
+ */
+@WebMvcTest(controllers = UserController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = Filter.class))
+@Import({SecurityConfig.class, CustomAuthenticationEntryPoint.class, CustomAccessDeniedHandler.class, BinaryJsonFormats.class})
+class UserControllerTest {
+
+    private static final String USERNAME = "jane.doe@example.com";
+    // Minimum cost: hashing is not what is under test here
+    private static final String PASSWORD_HASH = new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private IdempotencyStore idempotencyStore;
+
+    @MockitoBean
+    private CustomUserDetailsService userDetailsService;
+
+    @BeforeEach
+    void users() {
+        // A fresh UserDetails per lookup: the provider manager erases the credentials of the one it authenticated
+        when(userDetailsService.loadUserByUsername(anyString())).thenAnswer(invocation -> switch (invocation.<String>getArgument(0)) {
+            case USERNAME -> User.withUsername(USERNAME).password(PASSWORD_HASH).roles("USER").build();
+            case "unverified@example.com" -> User.withUsername("unverified@example.com").password(PASSWORD_HASH)
+                    .roles("USER").disabled(true).build();
+            default -> throw new UsernameNotFoundException("User not found");
+        });
+    }
+
+    @Test
+    @DisplayName("POST /v1/user - 201 with the created user and a Location header")
+    void testCreateUser() throws Exception {
+        when(userService.createUser(any(UserCreateRequest.class))).thenReturn(response());
+
+        mockMvc.perform(post("/v1/user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + USERNAME + "\",\"password\":\"" + PASSWORD
+                                + "\",\"first_name\":\"Jane\",\"last_name\":\"Doe\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "/v1/user/self"))
+                .andExpect(jsonPath("$.username").value(USERNAME))
+                .andExpect(jsonPath("$.password").doesNotExist());
+        verifyNoInteractions(idempotencyStore);
+    }
+
+    @Test
+    @DisplayName("POST /v1/user - a duplicate username is a 409 with an error body")
+    void testCreateUserConflict() throws Exception {
+        when(userService.createUser(any(UserCreateRequest.class)))
+                .thenThrow(new IllegalArgumentException("User with this email already exists"));
+
+        mockMvc.perform(post("/v1/user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + USERNAME + "\",\"password\":\"" + PASSWORD
+                                + "\",\"first_name\":\"Jane\",\"last_name\":\"Doe\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Conflict"))
+                .andExpect(jsonPath("$.path").value("/v1/user"));
+    }
+
+    @Test
+    @DisplayName("POST /v1/user - a blank Idempotency-Key is rejected before the store is asked")
+    void testCreateUserBlankIdempotencyKey() throws Exception {
+        mockMvc.perform(post("/v1/user")
+                        .header("Idempotency-Key", " ")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + USERNAME + "\",\"password\":\"" + PASSWORD
+                                + "\",\"first_name\":\"Jane\",\"last_name\":\"Doe\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("Idempotency-Key")));
+        verifyNoInteractions(idempotencyStore, userService);
+    }
+
+    @Test
+    @DisplayName("GET /v1/user/self - 200 for the authenticated user")
+    void testGetUser() throws Exception {
+        when(userService.findResponseByUsername(USERNAME)).thenReturn(Optional.of(response()));
+
+        mockMvc.perform(get("/v1/user/self").header("Authorization", auth(USERNAME, PASSWORD)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value(USERNAME))
+                .andExpect(jsonPath("$.first_name").value("Jane"));
+    }
+
+    @Test
+    @DisplayName("GET /v1/user/self - 503 with Retry-After when the database is unavailable")
+    void testGetUserDatabaseUnavailable() throws Exception {
+        when(userService.findResponseByUsername(USERNAME)).thenThrow(new DatabaseUnavailableException("circuit open"));
+
+        mockMvc.perform(get("/v1/user/self").header("Authorization", auth(USERNAME, PASSWORD)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    @DisplayName("PUT /v1/user/self - 204, and only the allowed fields reach the service")
+    void testUpdateUser() throws Exception {
+        when(userService.updateUser(eq(USERNAME), any(UserUpdateRequest.class))).thenReturn(true);
+
+        mockMvc.perform(put("/v1/user/self")
+                        .header("Authorization", auth(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"first_name\":\"Janet\"}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(put("/v1/user/self")
+                        .header("Authorization", auth(USERNAME, PASSWORD))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"other@example.com\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Field 'username' cannot be updated"));
+        verify(userService, times(1)).updateUser(eq(USERNAME), any(UserUpdateRequest.class));
+    }
+
+    @Test
+    @DisplayName("Entry point - 401 with WWW-Authenticate for missing or wrong credentials")
+    void testUnauthorized() throws Exception {
+        mockMvc.perform(get("/v1/user/self"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().exists("WWW-Authenticate"))
+                .andExpect(jsonPath("$.error").value("Unauthorized"));
+
+        mockMvc.perform(get("/v1/user/self").header("Authorization", auth(USERNAME, "wrongP@ssw0rd")))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.path").value("/v1/user/self"));
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    @DisplayName("Entry point - 404 for an unknown user, 403 for an unverified one")
+    void testUnknownAndUnverifiedUsers() throws Exception {
+        mockMvc.perform(get("/v1/user/self").header("Authorization", auth("nobody@example.com", PASSWORD)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("User account not found"));
+
+        mockMvc.perform(get("/v1/user/self").header("Authorization", auth("unverified@example.com", PASSWORD)))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message").value(containsString("not been verified")));
+        verifyNoInteractions(userService);
+    }
+
+    private static UserResponse response() {
+        LocalDateTime now = LocalDateTime.now();
+        return new UserResponse(UUID.randomUUID(), USERNAME, "Jane", "Doe", now, now);
+    }
+}
@@ -0,0 +1,91 @@
+package com.csye6225.webapp.datasource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+
+    private ReplicaNode node() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        return new ReplicaNode("replica-0", replica, 5000);
+    }
+
+    @Test
+    @DisplayName("Healthy, caught-up replica serves read-only connections")
+    void testRoutesToHealthyReplica() throws SQLException {
+        ReplicaNode node = node();
+        node.markHealthy(0);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(node));
+
+        assertSame(replicaConnection, routing.getConnection());
+    }
+
+    @Test
+    @DisplayName("Unhealthy or lagging replica falls back to the primary")
+    void testFallsBackWhenReplicaUnavailable() throws SQLException {
+        ReplicaNode node = node();
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(node));
+        assertSame(primaryConnection, routing.getConnection());
+
+        node.markHealthy(10_000);
+        assertSame(primaryConnection, routing.getConnection());
+    }
+
+    @Test
+    @DisplayName("Replica that refuses a connection is taken out of rotation")
+    void testConnectionFailureMarksReplicaUnhealthy() throws SQLException {
+        ReplicaNode node = node();
+        node.markHealthy(0);
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(node));
+
+        assertSame(primaryConnection, routing.getConnection());
+        assertFalse(node.isAvailable());
+    }
+
+    @Test
+    @DisplayName("Read-your-writes override keeps reads on the primary")
+    void testForcedPrimary() throws SQLException {
+        ReplicaNode node = node();
+        node.markHealthy(0);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(node));
+
+        Connection connection = ReplicaRoutingContext.onPrimary(() -> {
+            try {
+                return routing.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertSame(primaryConnection, connection);
+        assertSame(replicaConnection, routing.getConnection());
+    }
+
+    @Test
+    @DisplayName("Explicit credentials are passed on to the chosen pool")
+    void testConnectionWithCredentials() throws SQLException {
+        ReplicaNode node = node();
+        node.markHealthy(0);
+        when(replica.getConnection("reader", "secret")).thenReturn(replicaConnection);
+        when(primary.getConnection("reader", "secret")).thenReturn(primaryConnection);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(node));
+
+        assertSame(replicaConnection, routing.getConnection("reader", "secret"));
+        node.markUnhealthy();
+        assertSame(primaryConnection, routing.getConnection("reader", "secret"));
+    }
+}
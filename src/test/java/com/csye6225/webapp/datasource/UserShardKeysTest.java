@@ -0,0 +1,55 @@
+package com.csye6225.webapp.datasource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserShardKeysTest {
+
+    @Test
+    @DisplayName("Usernames spread evenly and case does not change the shard")
+    void testDistribution() {
+        int[] counts = new int[4];
+        for (int i = 0; i < 40_000; i++) {
+            counts[UserShardKeys.shardFor("user" + i + "@example.com", 4)]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 9_000 && count < 11_000, "uneven shard: " + count);
+        }
+        assertEquals(UserShardKeys.shardFor("Jane.Doe@Example.com", 7), UserShardKeys.shardFor("jane.doe@example.com", 7));
+    }
+
+    @Test
+    @DisplayName("Adding a shard only moves users onto the new shard, about 1/N of them")
+    void testMinimalMovement() {
+        int moved = 0;
+        for (int i = 0; i < 30_000; i++) {
+            String username = "user" + i + "@example.com";
+            int before = UserShardKeys.shardFor(username, 2);
+            int after = UserShardKeys.shardFor(username, 3);
+            if (before != after) {
+                assertEquals(2, after);
+                moved++;
+            }
+        }
+        assertTrue(moved > 9_000 && moved < 11_000, "moved " + moved);
+    }
+
+    @Test
+    @DisplayName("Ids carry their shard and stay valid version 8 UUIDs; other ids have no shard")
+    void testShardTaggedIds() {
+        for (int shard : new int[] {0, 1, 42, UserShardKeys.MAX_SHARDS - 1}) {
+            UUID id = UserShardKeys.newId(shard);
+            assertEquals(8, id.version());
+            assertEquals(2, id.variant());
+            assertEquals(shard, UserShardKeys.shardOf(id));
+            assertEquals(id, UUID.fromString(id.toString()));
+        }
+        assertNotEquals(UserShardKeys.newId(3), UserShardKeys.newId(3));
+        assertEquals(-1, UserShardKeys.shardOf(UUID.randomUUID()));
+        assertThrows(IllegalArgumentException.class, () -> UserShardKeys.newId(UserShardKeys.MAX_SHARDS));
+    }
+}
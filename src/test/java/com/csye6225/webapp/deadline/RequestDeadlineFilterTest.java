@@ -0,0 +1,103 @@
+package com.csye6225.webapp.deadline;
+
+import com.csye6225.webapp.exception.RequestDeadlineExceededException;
+import com.csye6225.webapp.json.BinaryJsonFormats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RequestDeadlineFilterTest {
+
+    private final RequestDeadlineFilter filter = new RequestDeadlineFilter(
+            Duration.ofSeconds(5), Duration.ofSeconds(30), "X-Request-Timeout",
+            new BinaryJsonFormats(new ObjectMapper().findAndRegisterModules()));
+
+    @Test
+    @DisplayName("Budget comes from the header, bounded by the configured maximum")
+    void testBudgetFromHeader() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/user/self");
+        assertEquals(Duration.ofSeconds(5), filter.budget(request));
+
+        request.addHeader("X-Request-Timeout", "1500");
+        assertEquals(Duration.ofMillis(1500), filter.budget(request));
+
+        MockHttpServletRequest tooLong = new MockHttpServletRequest("GET", "/v1/user/self");
+        tooLong.addHeader("X-Request-Timeout", "600000");
+        assertEquals(Duration.ofSeconds(30), filter.budget(tooLong));
+
+        MockHttpServletRequest invalid = new MockHttpServletRequest("GET", "/v1/user/self");
+        invalid.addHeader("X-Request-Timeout", "soon");
+        assertEquals(Duration.ofSeconds(5), filter.budget(invalid));
+    }
+
+    @Test
+    @DisplayName("Deadline is bound during the chain and cleared afterwards")
+    void testDeadlineBoundForRequest() throws Exception {
+        AtomicReference<RequestDeadline> seen = new AtomicReference<>();
+        filter.doFilter(new MockHttpServletRequest("GET", "/healthz"), new MockHttpServletResponse(),
+                (req, res) -> seen.set(RequestDeadline.current()));
+
+        assertNotNull(seen.get());
+        assertNull(RequestDeadline.current());
+    }
+
+    @Test
+    @DisplayName("Deadline failure escaping the chain becomes a 504 ErrorResponse")
+    void testEscapingDeadlineFailure() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/v1/user/self"), response, (req, res) -> {
+            throw new RequestDeadlineExceededException("Request deadline exceeded before password verification");
+        });
+
+        assertEquals(504, response.getStatus());
+        assertTrue(response.getContentAsString().contains("\"error\":\"Gateway Timeout\""));
+        assertTrue(response.getContentAsString().contains("\"path\":\"/v1/user/self\""));
+    }
+
+    @Test
+    @DisplayName("Statements get the remaining budget as query timeout and are refused after expiry")
+    void testStatementTimeouts() throws Exception {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("select 1")).thenReturn(statement);
+        DeadlineEnforcingDataSource dataSource = new DeadlineEnforcingDataSource(target);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/user/self");
+        request.addHeader("X-Request-Timeout", "2500");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            try {
+                dataSource.getConnection().prepareStatement("select 1");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        verify(statement).setQueryTimeout(3);
+
+        MockHttpServletRequest expired = new MockHttpServletRequest("GET", "/v1/user/self");
+        expired.addHeader("X-Request-Timeout", "1");
+        filter.doFilter(expired, new MockHttpServletResponse(), (req, res) -> {
+            try {
+                Thread.sleep(5);
+                assertThrows(SQLTimeoutException.class, () -> dataSource.getConnection().prepareStatement("select 1"));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        verify(statement).close();
+    }
+}
@@ -0,0 +1,187 @@
+package com.csye6225.webapp.idempotency;
+
+import com.csye6225.webapp.exception.IdempotencyKeyInProgressException;
+import com.csye6225.webapp.exception.IdempotencyKeyReusedException;
+import com.csye6225.webapp.exception.IdempotencyStoreFullException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private IdempotencyStore store(int maxEntries, Duration waitTimeout) {
+        return new IdempotencyStore(maxEntries, Duration.ofHours(1), waitTimeout, now::get);
+    }
+
+    @Test
+    @DisplayName("A repeated key replays the stored response without running the action again")
+    void testReplay() {
+        IdempotencyStore store = store(10, Duration.ofSeconds(1));
+        byte[] fingerprint = store.fingerprint("a@example.com", "pw");
+        AtomicInteger runs = new AtomicInteger();
+
+        ResponseEntity<?> first = store.execute("k", fingerprint,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body("user-" + runs.incrementAndGet()));
+        ResponseEntity<?> second = store.execute("k", store.fingerprint("a@example.com", "pw"),
+                () -> ResponseEntity.status(HttpStatus.CREATED).body("user-" + runs.incrementAndGet()));
+
+        assertEquals(1, runs.get());
+        assertEquals(HttpStatus.CREATED, second.getStatusCode());
+        assertEquals("user-1", second.getBody());
+        assertNull(first.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    @DisplayName("Reusing a key with a different request is rejected")
+    void testFingerprintMismatch() {
+        IdempotencyStore store = store(10, Duration.ofSeconds(1));
+        store.execute("k", store.fingerprint("a@example.com", "pw"), () -> ResponseEntity.ok("done"));
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> store.execute("k", store.fingerprint("b@example.com", "pw"), () -> ResponseEntity.ok("other")));
+        assertFalse(java.util.Arrays.equals(store.fingerprint("ab", "c"), store.fingerprint("a", "bc")));
+        assertFalse(java.util.Arrays.equals(store.fingerprint((String) null), store.fingerprint("")));
+    }
+
+    @Test
+    @DisplayName("Server errors and exceptions are not stored, so a retry runs the action")
+    void testFailuresAreForgotten() {
+        IdempotencyStore store = store(10, Duration.ofSeconds(1));
+        byte[] fingerprint = store.fingerprint("a@example.com");
+
+        assertThrows(IllegalStateException.class, () -> store.execute("k", fingerprint, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, store.execute("k", fingerprint,
+                () -> ResponseEntity.internalServerError().build()).getStatusCode());
+        assertEquals(0, store.size());
+
+        ResponseEntity<?> response = store.execute("k", fingerprint, () -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    @DisplayName("A concurrent request with the same key waits for the original result")
+    void testConcurrentRequestWaits() throws Exception {
+        IdempotencyStore store = store(10, Duration.ofSeconds(5));
+        byte[] fingerprint = store.fingerprint("a@example.com");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        CompletableFuture<ResponseEntity<?>> original = CompletableFuture.supplyAsync(() -> store.execute("k", fingerprint, () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+            return ResponseEntity.status(HttpStatus.CREATED).body("user");
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<ResponseEntity<?>> retry = CompletableFuture.supplyAsync(() -> store.execute("k", fingerprint, () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.ok("should not run");
+        }));
+        Thread.sleep(50);
+        assertFalse(retry.isDone());
+
+        release.countDown();
+        assertEquals("user", original.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals("user", retry.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(HttpStatus.CREATED, retry.get().getStatusCode());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    @DisplayName("A waiting request gives up after the wait timeout")
+    void testWaitTimeout() throws Exception {
+        IdempotencyStore store = store(10, Duration.ofMillis(50));
+        byte[] fingerprint = store.fingerprint("a@example.com");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<ResponseEntity<?>> original = CompletableFuture.supplyAsync(() -> store.execute("k", fingerprint, () -> {
+            started.countDown();
+            await(release);
+            return ResponseEntity.ok("done");
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(IdempotencyKeyInProgressException.class,
+                () -> store.execute("k", fingerprint, () -> ResponseEntity.ok("should not run")));
+        release.countDown();
+        assertEquals("done", original.get(5, TimeUnit.SECONDS).getBody());
+    }
+
+    @Test
+    @DisplayName("Entries expire after the TTL and the eldest completed entry is evicted when full")
+    void testExpiryAndBound() {
+        IdempotencyStore store = store(2, Duration.ofSeconds(1));
+        AtomicInteger runs = new AtomicInteger();
+        for (String key : new String[] {"a", "b", "c"}) {
+            store.execute(key, store.fingerprint(key), () -> ResponseEntity.ok(runs.incrementAndGet()));
+        }
+        assertEquals(2, store.size());
+
+        // "a" was evicted, "c" is replayed
+        assertEquals(4, store.execute("a", store.fingerprint("a"), () -> ResponseEntity.ok(runs.incrementAndGet())).getBody());
+        assertEquals(3, store.execute("c", store.fingerprint("c"), () -> ResponseEntity.ok(runs.incrementAndGet())).getBody());
+
+        now.addAndGet(Duration.ofHours(1).plusSeconds(1).toNanos());
+        assertEquals(5, store.execute("c", store.fingerprint("c"), () -> ResponseEntity.ok(runs.incrementAndGet())).getBody());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    @DisplayName("A new key is rejected while every entry is still in flight, and accepted once one completes")
+    void testFullOfInFlightEntries() throws Exception {
+        IdempotencyStore store = store(2, Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<ResponseEntity<?>>> running = new ArrayList<>();
+        for (String key : new String[] {"a", "b"}) {
+            running.add(CompletableFuture.supplyAsync(() -> store.execute(key, store.fingerprint(key), () -> {
+                started.countDown();
+                await(release);
+                return ResponseEntity.ok(key);
+            })));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        AtomicInteger runs = new AtomicInteger();
+        assertThrows(IdempotencyStoreFullException.class,
+                () -> store.execute("c", store.fingerprint("c"), () -> ResponseEntity.ok(runs.incrementAndGet())));
+        assertEquals(0, runs.get());
+        assertEquals(2, store.size());
+
+        release.countDown();
+        for (CompletableFuture<ResponseEntity<?>> future : running) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(1, store.execute("c", store.fingerprint("c"), () -> ResponseEntity.ok(runs.incrementAndGet())).getBody());
+        assertEquals(2, store.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
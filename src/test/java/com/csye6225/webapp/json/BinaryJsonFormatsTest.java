@@ -0,0 +1,30 @@
+package com.csye6225.webapp.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryJsonFormatsTest {
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final BinaryJsonFormats formats = new BinaryJsonFormats(json);
+
+    @Test
+    @DisplayName("Request bodies are matched on the exact media type, ignoring parameters")
+    void testForContentType() {
+        assertSame(json, formats.forContentType("application/json"));
+        assertSame(json, formats.forContentType("Application/JSON; charset=UTF-8"));
+        assertSame(formats.smile(), formats.forContentType(BinaryJsonFormats.SMILE_VALUE));
+        assertSame(formats.cbor(), formats.forContentType("application/cbor"));
+
+        // Substrings of other types are not enough
+        assertNull(formats.forContentType("application/json-patch+json"));
+        assertNull(formats.forContentType("text/plain; note=application/json"));
+        assertNull(formats.forContentType("application/cbor-seq"));
+        assertNull(formats.forContentType("not a media type"));
+        assertNull(formats.forContentType(""));
+        assertNull(formats.forContentType(null));
+    }
+}
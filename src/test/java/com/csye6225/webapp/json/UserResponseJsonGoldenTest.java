@@ -0,0 +1,105 @@
+package com.csye6225.webapp.json;
+
+import com.csye6225.webapp.config.JacksonConfig;
+import com.csye6225.webapp.dto.ErrorResponse;
+import com.csye6225.webapp.dto.UserResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The golden files were produced by the plain annotated beans (reflection, JSR-310 and the
+ * {@code @JsonFormat} pattern) before any serialization speed-ups. Every mapper variant must
+ * reproduce them byte for byte, through both the byte and the character generators.
+ */
+class UserResponseJsonGoldenTest {
+
+    static ObjectMapper reflection() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    static ObjectMapper blackbird() {
+        return Jackson2ObjectMapperBuilder.json().modulesToInstall(new BlackbirdModule()).build();
+    }
+
+    static ObjectMapper tuned() {
+        return Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new BlackbirdModule(), JacksonConfig.userResponseModule())
+                .build();
+    }
+
+    static Stream<Arguments> cases() {
+        UserResponse full = new UserResponse(UUID.fromString("3f2b1c9e-8d4a-4e6f-9b7c-2a1d0e5f6c8b"),
+                "jane.doe@example.com", "Jane", "Doe",
+                LocalDateTime.of(2024, 1, 15, 10, 30, 0, 0),
+                LocalDateTime.of(2026, 12, 31, 23, 59, 59, 999_999_999));
+        UserResponse escaping = new UserResponse(UUID.fromString("00000000-0000-0001-0000-000000000001"),
+                "zoë+\"q\"@example.com", "Zoë \"Q\" <x>\u2028", "Ünïcødé\\\t",
+                LocalDateTime.of(999, 2, 3, 4, 5, 6, 7_000_000), null);
+        ErrorResponse error = new ErrorResponse("Bad Request", "Field 'username' cannot be updated", "/v1/user/self");
+        error.setTimestamp(LocalDateTime.of(2025, 7, 4, 8, 9, 10, 120_000_000));
+
+        List<Arguments> cases = new ArrayList<>();
+        for (String mapper : List.of("reflection", "blackbird", "tuned")) {
+            cases.add(Arguments.of(mapper, "user-response.json", full));
+            cases.add(Arguments.of(mapper, "user-response-escaping.json", escaping));
+            cases.add(Arguments.of(mapper, "user-response-nulls.json", new UserResponse()));
+            cases.add(Arguments.of(mapper, "error-response.json", error));
+        }
+        return cases.stream();
+    }
+
+    @ParameterizedTest(name = "{0}: {1}")
+    @MethodSource("cases")
+    @DisplayName("Serialized JSON is byte-identical to the golden file")
+    void testMatchesGoldenFile(String mapperName, String goldenFile, Object value) throws Exception {
+        ObjectMapper mapper = switch (mapperName) {
+            case "reflection" -> reflection();
+            case "blackbird" -> blackbird();
+            default -> tuned();
+        };
+        byte[] golden = golden(goldenFile);
+
+        assertArrayEquals(golden, mapper.writeValueAsBytes(value), new String(mapper.writeValueAsBytes(value), StandardCharsets.UTF_8));
+        assertEquals(new String(golden, StandardCharsets.UTF_8), mapper.writeValueAsString(value));
+    }
+
+    @ParameterizedTest
+    @MethodSource("timestamps")
+    @DisplayName("The timestamp formatter matches the @JsonFormat pattern")
+    void testTimestampFormat(LocalDateTime value) {
+        assertEquals(java.time.format.DateTimeFormatter.ofPattern(UtcTimestampFormat.PATTERN).format(value),
+                UtcTimestampFormat.format(value));
+    }
+
+    static Stream<LocalDateTime> timestamps() {
+        return Stream.of(
+                LocalDateTime.of(2024, 1, 1, 0, 0),
+                LocalDateTime.of(1, 1, 1, 1, 1, 1, 1),
+                LocalDateTime.of(9999, 12, 31, 23, 59, 59, 999_999_999),
+                LocalDateTime.of(10000, 1, 1, 0, 0),
+                LocalDateTime.of(2026, 6, 9, 9, 9, 9, 90_000_000));
+    }
+
+    private static byte[] golden(String name) throws IOException {
+        try (InputStream in = UserResponseJsonGoldenTest.class.getResourceAsStream("/golden/" + name)) {
+            assertNotNull(in, name);
+            return in.readAllBytes();
+        }
+    }
+}
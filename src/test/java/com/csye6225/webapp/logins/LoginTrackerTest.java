@@ -0,0 +1,298 @@
+package com.csye6225.webapp.logins;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginTrackerTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path directory;
+
+    private final List<Map<String, LoginStats>> written = new ArrayList<>();
+    private final Database database = new Database();
+
+    @Test
+    @DisplayName("Logins are aggregated per user and their segments deleted once written")
+    void testFlushAggregatesPerUser() throws IOException {
+        LoginTracker tracker = tracker(new LoginJournal(directory, SEGMENT_BYTES));
+        tracker.start();
+        tracker.record("a@example.com", 1_000);
+        tracker.record("a@example.com", 3_000);
+        tracker.record("a@example.com", 2_000);
+        tracker.record("b@example.com", 5_000);
+        assertEquals(1, segments().size());
+
+        tracker.flush();
+
+        assertEquals(1, written.size());
+        assertEquals(3, written.get(0).get("a@example.com").getCount());
+        assertEquals(3_000, written.get(0).get("a@example.com").getLastLoginMillis());
+        assertEquals(1, written.get(0).get("b@example.com").getCount());
+        assertEquals(0, tracker.pendingUsers());
+        assertEquals(List.of(), segments());
+
+        // Nothing new: no write
+        tracker.flush();
+        assertEquals(1, written.size());
+        tracker.stop();
+    }
+
+    @Test
+    @DisplayName("Logins not yet written when the process died are replayed at startup")
+    void testReplayAfterCrash() throws IOException {
+        LoginJournal crashed = new LoginJournal(directory, SEGMENT_BYTES);
+        LoginTracker before = tracker(crashed);
+        before.start();
+        before.record("a@example.com", 1_000);
+        before.record("a@example.com", 2_000);
+        before.record("b@example.com", 3_000);
+        // The process dies: no flush, only the mapping's bytes remain
+        crashed.close();
+
+        LoginTracker after = tracker(new LoginJournal(directory, SEGMENT_BYTES));
+        after.start();
+        assertEquals(2, after.pendingUsers());
+        after.flush();
+
+        assertEquals(2, written.get(0).get("a@example.com").getCount());
+        assertEquals(2_000, written.get(0).get("a@example.com").getLastLoginMillis());
+        assertEquals(1, written.get(0).get("b@example.com").getCount());
+        assertEquals(List.of(), segments());
+        after.stop();
+    }
+
+    @Test
+    @DisplayName("A torn last record ends the replay of its segment")
+    void testTornRecord() throws IOException {
+        LoginJournal crashed = new LoginJournal(directory, SEGMENT_BYTES);
+        LoginTracker before = tracker(crashed);
+        before.start();
+        before.record("a@example.com", 1_000);
+        before.record("b@example.com", 2_000);
+        crashed.close();
+
+        // Corrupt the last byte of the second record's username
+        Path segment = segments().get(0);
+        int firstRecord = 14 + "a@example.com".length();
+        int lastByte = firstRecord + 14 + "b@example.com".length() - 1;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), lastByte);
+        }
+
+        LoginTracker after = tracker(new LoginJournal(directory, SEGMENT_BYTES));
+        after.start();
+        after.flush();
+        assertEquals(Map.of("a@example.com", 1L), counts(written.get(0)));
+        after.stop();
+    }
+
+    @Test
+    @DisplayName("Full segments rotate and are all deleted by the next flush")
+    void testSegmentRotation() throws IOException {
+        LoginTracker tracker = tracker(new LoginJournal(directory, SEGMENT_BYTES));
+        tracker.start();
+        for (int i = 0; i < 500; i++) {
+            tracker.record("user" + (i % 50) + "@example.com", i);
+        }
+        assertTrue(segments().size() > 1, "expected rotation, got " + segments());
+
+        tracker.flush();
+        assertEquals(50, written.get(0).size());
+        assertEquals(500, written.get(0).values().stream().mapToLong(LoginStats::getCount).sum());
+        assertEquals(List.of(), segments());
+        tracker.stop();
+    }
+
+    @Test
+    @DisplayName("A failed write is retried with the next flush and keeps its segments")
+    void testFailedWriteRetried() throws IOException {
+        database.failure = new IllegalStateException("database down");
+        LoginTracker tracker = tracker(new LoginJournal(directory, SEGMENT_BYTES));
+        tracker.start();
+        tracker.record("a@example.com", 1_000);
+
+        tracker.flush();
+        assertEquals(1, tracker.pendingUsers());
+        assertEquals(1, segments().size());
+
+        tracker.record("a@example.com", 2_000);
+        database.failure = null;
+        tracker.flush();
+        assertEquals(2, written.get(0).get("a@example.com").getCount());
+        assertEquals(2_000, written.get(0).get("a@example.com").getLastLoginMillis());
+        assertEquals(List.of(), segments());
+        tracker.stop();
+    }
+
+    @Test
+    @DisplayName("A journal directory in use by another owner falls back to tracking in memory")
+    void testDirectoryInUse() throws IOException {
+        LoginJournal owner = new LoginJournal(directory, SEGMENT_BYTES);
+        owner.open();
+        assertThrows(IOException.class, () -> new LoginJournal(directory, SEGMENT_BYTES).open());
+
+        LoginTracker tracker = tracker(new LoginJournal(directory, SEGMENT_BYTES));
+        tracker.start();
+        tracker.record("a@example.com", 1_000);
+        tracker.flush();
+        assertEquals(Map.of("a@example.com", 1L), counts(written.get(0)));
+        tracker.stop();
+        owner.close();
+    }
+
+    @Test
+    @DisplayName("Segments a committed flush covers are skipped by the replay, so no login counts twice")
+    void testReplaySkipsWrittenSegments() throws IOException {
+        LoginJournal crashed = new LoginJournal(directory, SEGMENT_BYTES);
+        LoginTracker before = tracker(crashed);
+        before.start();
+        before.record("a@example.com", 1_000);
+        before.record("a@example.com", 2_000);
+        // The process dies after the write committed, before the segments are deleted
+        database.crashAfterCommit = true;
+        assertThrows(Crash.class, before::flush);
+        database.crashAfterCommit = false;
+        before.record("a@example.com", 3_000);
+        crashed.close();
+        assertEquals(2, segments().size());
+
+        LoginTracker after = tracker(new LoginJournal(directory, SEGMENT_BYTES));
+        after.start();
+        after.flush();
+
+        assertEquals(2, written.size());
+        assertEquals(1, written.get(1).get("a@example.com").getCount());
+        assertEquals(3_000, written.get(1).get("a@example.com").getLastLoginMillis());
+        assertEquals(List.of(), segments());
+        after.stop();
+    }
+
+    @Test
+    @DisplayName("A journal with nothing to replay starts over under a new id and drops the old watermark")
+    void testCleanRestartNewId() throws IOException {
+        LoginJournal first = new LoginJournal(directory, SEGMENT_BYTES);
+        LoginTracker before = tracker(first);
+        before.start();
+        before.record("a@example.com", 1_000);
+        before.stop();
+        assertEquals(Set.of(first.getId()), database.watermarks.keySet());
+
+        LoginJournal second = new LoginJournal(directory, SEGMENT_BYTES);
+        LoginTracker after = tracker(second);
+        after.start();
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals(Map.of(), database.watermarks);
+        after.stop();
+    }
+
+    @Test
+    @DisplayName("Concurrent logins across stripes are all journaled and replayed")
+    void testConcurrentRecords() throws Exception {
+        LoginJournal crashed = new LoginJournal(directory, SEGMENT_BYTES);
+        LoginTracker before = new LoginTracker(crashed, 4, database);
+        before.start();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        before.record("user" + (i % 20) + "@example.com", i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(20, before.pendingUsers());
+        crashed.close();
+
+        LoginTracker after = tracker(new LoginJournal(directory, SEGMENT_BYTES));
+        after.start();
+        after.flush();
+        assertEquals(20, written.get(0).size());
+        for (LoginStats stats : written.get(0).values()) {
+            assertEquals(400, stats.getCount());
+        }
+        assertEquals(List.of(), segments());
+        after.stop();
+    }
+
+    private LoginTracker tracker(LoginJournal journal) {
+        return new LoginTracker(journal, 2, database);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+
+    private static Map<String, Long> counts(Map<String, LoginStats> logins) {
+        Map<String, Long> counts = new HashMap<>();
+        logins.forEach((username, stats) -> counts.put(username, stats.getCount()));
+        return counts;
+    }
+
+    // Stands in for the database: one shard, the watermark committed together with the logins
+    private final class Database implements LoginTracker.Sink {
+
+        private final Map<String, Long> watermarks = new HashMap<>();
+        private RuntimeException failure;
+        private boolean crashAfterCommit;
+
+        @Override
+        public ToLongFunction<String> watermarks(String journalId) {
+            long watermark = watermarks.getOrDefault(journalId, -1L);
+            return username -> watermark;
+        }
+
+        @Override
+        public void write(String journalId, long flushedThrough, Map<String, LoginStats> logins) {
+            if (failure != null) {
+                throw failure;
+            }
+            written.add(new HashMap<>(logins));
+            if (journalId != null) {
+                watermarks.put(journalId, flushedThrough);
+            }
+            logins.clear();
+            if (crashAfterCommit) {
+                throw new Crash();
+            }
+        }
+
+        @Override
+        public void forget(String journalId) {
+            watermarks.remove(journalId);
+        }
+    }
+
+    private static final class Crash extends Error {
+    }
+}
@@ -0,0 +1,104 @@
+package com.csye6225.webapp.outbox;
+
+import com.csye6225.webapp.datasource.UserShards;
+import com.csye6225.webapp.entity.OutboxEvent;
+import com.csye6225.webapp.repository.OutboxEventRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+    private final InMemoryUserEventSink sink = new InMemoryUserEventSink();
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    private OutboxRelay relay(UserEventSink sink) {
+        return new OutboxRelay(repository, sink, new UserShards(null, TransactionOperations.withoutTransaction()),
+                transactionManager,
+                100, 10, Duration.ofSeconds(1), Duration.ofMinutes(5), Duration.ofMinutes(1));
+    }
+
+    private OutboxEvent event(long id) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setEventType(UserEventType.USER_CREATED.name());
+        event.setAggregateId(UUID.randomUUID());
+        event.setPayload("{}");
+        return event;
+    }
+
+    @Test
+    @DisplayName("Delivered events are handed to the sink in order and removed")
+    void testDeliversAndDeletes() {
+        OutboxEvent first = event(1);
+        OutboxEvent second = event(2);
+        when(repository.claimDue(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(first, second));
+
+        assertEquals(2, relay(sink).relayBatch());
+
+        assertEquals(List.of(first, second), sink.getEvents());
+        verify(repository).deleteAllByIdInBatch(List.of(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("Events are claimed in one transaction and delivered after it commits, then removed in another")
+    void testDeliversOutsideTheClaimTransaction() throws Exception {
+        OutboxEvent event = event(1);
+        when(repository.claimDue(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(event));
+        UserEventSink sink = mock(UserEventSink.class);
+
+        LocalDateTime before = LocalDateTime.now();
+        relay(sink).relayBatch();
+
+        // The claim keeps other relays off the row for the claim timeout
+        assertFalse(event.getNextAttemptAt().isBefore(before.plusMinutes(1)));
+        InOrder order = inOrder(transactionManager, repository, sink);
+        order.verify(repository).claimDue(any(LocalDateTime.class), any(Pageable.class));
+        order.verify(transactionManager).commit(any());
+        order.verify(sink).deliver(event);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(repository).deleteAllByIdInBatch(List.of(1L));
+        order.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Failed delivery keeps the event and schedules a retry with backoff")
+    void testFailureSchedulesRetry() {
+        OutboxEvent event = event(1);
+        event.setAttempts(2);
+        when(repository.claimDue(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of(event));
+
+        LocalDateTime before = LocalDateTime.now();
+        relay(e -> { throw new IllegalStateException("sink down"); }).relayBatch();
+
+        assertEquals(3, event.getAttempts());
+        assertFalse(event.getNextAttemptAt().isBefore(before.plusSeconds(4)));
+        assertTrue(event.getLastError().contains("sink down"));
+        verify(repository).reschedule(1L, 3, event.getNextAttemptAt(), event.getLastError());
+        verify(repository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    @DisplayName("Backoff doubles per attempt and is capped")
+    void testBackoff() {
+        OutboxRelay relay = relay(sink);
+
+        assertEquals(Duration.ofSeconds(1), relay.backoff(1));
+        assertEquals(Duration.ofSeconds(8), relay.backoff(4));
+        assertEquals(Duration.ofMinutes(5), relay.backoff(40));
+    }
+}
@@ -0,0 +1,59 @@
+package com.csye6225.webapp.profiling;
+
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("A recording returns a readable .jfr file containing the application's events")
+    void testRecord() throws Exception {
+        FlightRecordingService service = new FlightRecordingService(Duration.ofMinutes(1));
+        CompletableFuture<byte[]> recording = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.record(Duration.ofMillis(500), "default");
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(200);
+        new ProfiledPasswordEncoder(new BCryptPasswordEncoder(4)).encode("pw");
+
+        Path file = Files.write(dir.resolve("webapp.jfr"), recording.get(10, TimeUnit.SECONDS));
+        assertTrue(RecordingFile.readAllEvents(file).stream()
+                .anyMatch(event -> event.getEventType().getName().equals("com.csye6225.webapp.PasswordHash")));
+    }
+
+    @Test
+    @DisplayName("A second recording is refused while one is running")
+    void testOneAtATime() throws Exception {
+        FlightRecordingService service = new FlightRecordingService(Duration.ofMinutes(1));
+        CompletableFuture<byte[]> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.record(Duration.ofMillis(500), "default");
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(200);
+
+        assertThrows(IllegalStateException.class, () -> service.record(Duration.ofMillis(10), "default"));
+        assertTrue(first.get(10, TimeUnit.SECONDS).length > 0);
+        // Free again afterwards
+        assertTrue(service.record(Duration.ofMillis(10), "default").length > 0);
+    }
+}
@@ -0,0 +1,116 @@
+package com.csye6225.webapp.profiling;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.repository.Repository;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfilingEventsTest {
+
+    interface SampleRepository extends Repository<Object, Long> {
+        String find(String key);
+    }
+
+    @TempDir
+    Path dir;
+
+    private Recording recording;
+
+    @BeforeEach
+    void start() {
+        recording = new Recording();
+        recording.enable(PasswordHashEvent.class);
+        recording.enable(RepositoryCallEvent.class);
+        recording.enable(JsonSerializationEvent.class);
+        recording.enable(UserDetailsLookupEvent.class);
+        recording.start();
+    }
+
+    @AfterEach
+    void close() {
+        recording.close();
+    }
+
+    @Test
+    @DisplayName("Password hashing is recorded with the operation and whether the password matched")
+    void testPasswordHashEvents() throws IOException {
+        ProfiledPasswordEncoder encoder = new ProfiledPasswordEncoder(new BCryptPasswordEncoder(4));
+        String hash = encoder.encode("secret");
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+
+        List<RecordedEvent> events = events("com.csye6225.webapp.PasswordHash");
+        assertEquals(3, events.size());
+        assertEquals("encode", events.get(0).getString("operation"));
+        assertEquals("matches", events.get(1).getString("operation"));
+        assertTrue(events.get(1).getBoolean("matched"));
+        assertFalse(events.get(2).getBoolean("matched"));
+        assertNull(events.get(0).getStackTrace());
+    }
+
+    @Test
+    @DisplayName("Repository calls are recorded under the repository interface name, failures included")
+    void testRepositoryCallEvents() throws IOException {
+        ProxyFactory factory = new ProxyFactory();
+        factory.setInterfaces(SampleRepository.class);
+        factory.setTarget((SampleRepository) key -> {
+            if (key == null) {
+                throw new IllegalArgumentException("key");
+            }
+            return key;
+        });
+        factory.addAdvice(new RepositoryCallInterceptor());
+        SampleRepository repository = (SampleRepository) factory.getProxy();
+
+        assertEquals("a", repository.find("a"));
+        assertThrows(IllegalArgumentException.class, () -> repository.find(null));
+
+        List<RecordedEvent> events = events("com.csye6225.webapp.RepositoryCall");
+        assertEquals(2, events.size());
+        assertEquals("SampleRepository", events.get(0).getString("repository"));
+        assertEquals("find", events.get(0).getString("method"));
+        assertFalse(events.get(0).getBoolean("failed"));
+        assertTrue(events.get(1).getBoolean("failed"));
+    }
+
+    @Test
+    @DisplayName("Body serialization and user lookups are recorded with their format and outcome")
+    void testSerializationAndLookupEvents() throws IOException {
+        assertEquals("{}", JsonSerializationEvent.write("cbor", String.class, () -> "{}"));
+
+        UserDetailsLookupEvent lookup = new UserDetailsLookupEvent();
+        lookup.begin();
+        lookup.setOutcome(UserDetailsLookupEvent.CACHED_MISS);
+        lookup.commit();
+
+        RecordedEvent serialization = events("com.csye6225.webapp.JsonSerialization").get(0);
+        assertEquals("write", serialization.getString("direction"));
+        assertEquals("cbor", serialization.getString("format"));
+        assertEquals("String", serialization.getString("type"));
+        assertEquals("cached_miss", events("com.csye6225.webapp.UserDetailsLookup").get(0).getString("outcome"));
+    }
+
+    private List<RecordedEvent> events(String name) throws IOException {
+        Path file = dir.resolve(name + ".jfr");
+        recording.dump(file);
+        // Only this thread's: Spring contexts cached by other tests keep running background jobs
+        long thread = Thread.currentThread().getId();
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .filter(event -> event.getThread() != null && event.getThread().getJavaThreadId() == thread)
+                .toList();
+    }
+}
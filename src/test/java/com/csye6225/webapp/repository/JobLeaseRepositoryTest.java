@@ -0,0 +1,59 @@
+package com.csye6225.webapp.repository;
+
+import com.csye6225.webapp.entity.JobLease;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lease hand-over rules as the UPDATEs implement them; every test rolls back
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class JobLeaseRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Autowired
+    private JobLeaseRepository jobLeaseRepository;
+
+    @Test
+    @DisplayName("A live lease is only renewed by its owner; an expired one can be taken over")
+    void testClaim() {
+        assertEquals(1, jobLeaseRepository.create("purge", "node-a", NOW.plusMinutes(1)));
+
+        assertEquals(0, jobLeaseRepository.claim("purge", "node-b", NOW.plusMinutes(2), NOW));
+        assertEquals(1, jobLeaseRepository.claim("purge", "node-a", NOW.plusMinutes(2), NOW));
+        assertEquals(1, jobLeaseRepository.claim("purge", "node-b", NOW.plusMinutes(4), NOW.plusMinutes(3)));
+
+        JobLease lease = jobLeaseRepository.findById("purge").orElseThrow();
+        assertEquals("node-b", lease.getOwner());
+    }
+
+    @Test
+    @DisplayName("A second first claim fails on the primary key")
+    void testCreateTwice() {
+        jobLeaseRepository.create("purge", "node-a", NOW.plusMinutes(1));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jobLeaseRepository.create("purge", "node-b", NOW.plusMinutes(1)));
+    }
+
+    @Test
+    @DisplayName("Release only lets the owner's lease lapse")
+    void testRelease() {
+        jobLeaseRepository.create("purge", "node-a", NOW.plusMinutes(1));
+
+        assertEquals(0, jobLeaseRepository.release("purge", "node-b", NOW));
+        assertEquals(1, jobLeaseRepository.release("purge", "node-a", NOW));
+        assertEquals(1, jobLeaseRepository.claim("purge", "node-b", NOW.plusMinutes(1), NOW.plusSeconds(1)));
+    }
+}
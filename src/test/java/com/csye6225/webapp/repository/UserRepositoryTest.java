@@ -0,0 +1,135 @@
+package com.csye6225.webapp.repository;
+
+import com.csye6225.webapp.dto.AdminUserSummary;
+import com.csye6225.webapp.dto.UserCursor;
+import com.csye6225.webapp.dto.UserResponse;
+import com.csye6225.webapp.entity.User;
+import com.csye6225.webapp.search.UserSearchHit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Projections and keyset queries against the test profile's embedded database; every test rolls back
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class UserRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Credentials and response projections read only the requested user")
+    void testProjections() {
+        save("jane@example.com", true, NOW);
+        save("john@example.com", false, NOW);
+
+        UserCredentials credentials = userRepository.findCredentialsByUsername("john@example.com").orElseThrow();
+        assertEquals("hash", credentials.getPassword());
+        assertFalse(credentials.isVerified());
+
+        UserResponse response = userRepository.findResponseByUsername("jane@example.com").orElseThrow();
+        assertEquals("Jane", response.getFirstName());
+        assertEquals(NOW, response.getAccountCreated());
+        assertTrue(userRepository.findResponseByUsername("nobody@example.com").isEmpty());
+
+        AdminUserSummary summary = userRepository.findSummariesByUsernameIn(List.of("jane@example.com")).get(0);
+        assertNull(summary.getLastLogin());
+        assertEquals(0, summary.getLoginCount());
+    }
+
+    @Test
+    @DisplayName("The listing pages newest first by (account_created, id) and honours the filters")
+    void testKeysetPages() {
+        for (int i = 0; i < 5; i++) {
+            save("user" + i + "@example.com", i % 2 == 0, NOW.minusMinutes(i));
+        }
+        // Same account_created as user1: the id breaks the tie
+        save("twin@example.com", false, NOW.minusMinutes(1));
+
+        List<String> usernames = new ArrayList<>();
+        UserCursor after = null;
+        List<AdminUserSummary> page;
+        do {
+            page = userRepository.findPage(null, null, null, after, 2);
+            page.forEach(user -> usernames.add(user.getUsername()));
+            after = page.isEmpty() ? null : page.get(page.size() - 1).toCursor();
+        } while (page.size() == 2);
+        assertEquals(6, usernames.size());
+        assertEquals("user0@example.com", usernames.get(0));
+        assertEquals("user4@example.com", usernames.get(5));
+        assertTrue(usernames.subList(1, 3).containsAll(List.of("user1@example.com", "twin@example.com")));
+
+        List<AdminUserSummary> verified = userRepository.findPage(true, NOW.minusMinutes(3), null, null, 10);
+        assertEquals(List.of("user0@example.com", "user2@example.com"),
+                verified.stream().map(AdminUserSummary::getUsername).toList());
+    }
+
+    @Test
+    @DisplayName("The purge scan returns unverified keys older than the cutoff, oldest first, in keyset pages")
+    void testUnverifiedKeys() {
+        save("old1@example.com", false, NOW.minusDays(10));
+        save("old2@example.com", false, NOW.minusDays(9));
+        save("old3@example.com", false, NOW.minusDays(8));
+        save("verified@example.com", true, NOW.minusDays(10));
+        save("recent@example.com", false, NOW);
+
+        LocalDateTime cutoff = NOW.minusDays(1);
+        List<UserCursor> first = userRepository.findUnverifiedKeys(cutoff, PageRequest.ofSize(2));
+        assertEquals(List.of(NOW.minusDays(10), NOW.minusDays(9)), first.stream().map(UserCursor::accountCreated).toList());
+
+        UserCursor last = first.get(1);
+        List<UserCursor> next = userRepository.findUnverifiedKeysAfter(cutoff, last.accountCreated(), last.id(), PageRequest.ofSize(2));
+        assertEquals(List.of(NOW.minusDays(8)), next.stream().map(UserCursor::accountCreated).toList());
+    }
+
+    @Test
+    @DisplayName("The search index load reads every user once, in id order, in keyset pages")
+    void testSearchHitPages() {
+        for (int i = 0; i < 5; i++) {
+            save("search" + i + "@example.com", true, NOW);
+        }
+
+        List<UserSearchHit> hits = new ArrayList<>();
+        List<UserSearchHit> page = userRepository.findSearchHits(PageRequest.ofSize(2));
+        while (!page.isEmpty()) {
+            assertTrue(page.size() <= 2);
+            hits.addAll(page);
+            page = userRepository.findSearchHitsAfter(page.get(page.size() - 1).id(), PageRequest.ofSize(2));
+        }
+        assertEquals(5, hits.size());
+        assertEquals(5, hits.stream().map(UserSearchHit::id).distinct().count());
+        assertTrue(hits.stream().anyMatch(hit -> "Search3".equals(hit.firstName())));
+    }
+
+    private void save(String username, boolean verified, LocalDateTime created) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("hash");
+        user.setFirstName(Character.toUpperCase(username.charAt(0)) + username.substring(1, username.indexOf('@')));
+        user.setLastName("Doe");
+        userRepository.saveAndFlush(user);
+        // @PrePersist stamps the creation time and verifies everyone
+        jdbcTemplate.update("update users set verified = ?, account_created = ?, account_updated = ? where username = ?",
+                verified, created, created, username);
+    }
+}
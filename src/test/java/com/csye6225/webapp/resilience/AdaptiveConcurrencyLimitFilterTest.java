@@ -0,0 +1,101 @@
+package com.csye6225.webapp.resilience;
+
+import com.csye6225.webapp.json.BinaryJsonFormats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitFilterTest {
+
+    // A single slot, so a request stuck in a slow database call holds the whole limit
+    private final AdaptiveConcurrencyLimit limit =
+            new AdaptiveConcurrencyLimit(1, 1, 1, 1.5, 10, Duration.ofHours(1), System::nanoTime);
+    private final AdaptiveConcurrencyLimitFilter filter =
+            new AdaptiveConcurrencyLimitFilter(limit, new BinaryJsonFormats(new ObjectMapper().findAndRegisterModules()));
+
+    @Test
+    @DisplayName("Requests over the limit are rejected with 503 while a slow request holds the slot")
+    void testRejectsOverLimit() throws Exception {
+        CountDownLatch inDatabase = new CountDownLatch(1);
+        CountDownLatch databaseReturns = new CountDownLatch(1);
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/v1/user/self"), new MockHttpServletResponse(),
+                        (req, res) -> {
+                            inDatabase.countDown();
+                            try {
+                                databaseReturns.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(inDatabase.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/v1/user"), rejected,
+                (req, res) -> fail("must not reach the handler"));
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("Service Unavailable"));
+
+        // Other routes, the health check included, are not limited
+        for (String path : new String[] {"/healthz", "/actuator/health"}) {
+            MockHttpServletResponse other = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", path), other, (req, res) -> { });
+            assertEquals(200, other.getStatus());
+        }
+
+        databaseReturns.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        assertEquals(0, limit.getInFlight());
+
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/v1/user/self"), admitted, (req, res) -> { });
+        assertEquals(200, admitted.getStatus());
+    }
+
+    @Test
+    @DisplayName("Health checks add no samples, and only overload responses back the limit off")
+    void testOnlyOverloadDrops() throws Exception {
+        AdaptiveConcurrencyLimit adaptive = new AdaptiveConcurrencyLimit(20, 4, 200, 1.5, 10, Duration.ofHours(1), System::nanoTime);
+        AdaptiveConcurrencyLimitFilter limited =
+                new AdaptiveConcurrencyLimitFilter(adaptive, new BinaryJsonFormats(new ObjectMapper().findAndRegisterModules()));
+
+        // A warming-up node answers its load balancer's probes with 503
+        for (int i = 0; i < 10; i++) {
+            limited.doFilter(new MockHttpServletRequest("GET", "/healthz"), new MockHttpServletResponse(),
+                    (req, res) -> ((MockHttpServletResponse) res).setStatus(503));
+        }
+        assertEquals(0, adaptive.getNoLoadRttNanos());
+        assertEquals(20, adaptive.getLimit());
+
+        // A 503 that says nothing about the database, e.g. a full idempotency store
+        for (int i = 0; i < 10; i++) {
+            limited.doFilter(new MockHttpServletRequest("POST", "/v1/user"), new MockHttpServletResponse(),
+                    (req, res) -> ((MockHttpServletResponse) res).setStatus(503));
+        }
+        assertEquals(20, adaptive.getLimit());
+
+        // Turned away by the database guard
+        for (int i = 0; i < 10; i++) {
+            limited.doFilter(new MockHttpServletRequest("POST", "/v1/user"), new MockHttpServletResponse(), (req, res) -> {
+                AdaptiveConcurrencyLimitFilter.markOverloaded((MockHttpServletRequest) req);
+                ((MockHttpServletResponse) res).setStatus(503);
+            });
+        }
+        assertEquals(18, adaptive.getLimit());
+    }
+}
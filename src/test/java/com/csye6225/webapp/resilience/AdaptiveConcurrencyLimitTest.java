@@ -0,0 +1,163 @@
+package com.csye6225.webapp.resilience;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    /**
+     * Stand-in for MySQL: queries take baseMillis up to {@code capacity} concurrent queries,
+     * beyond that they queue and latency grows linearly with concurrency.
+     */
+    private static final class SlowDatabase {
+        long baseMillis;
+        int capacity;
+
+        SlowDatabase(long baseMillis, int capacity) {
+            this.baseMillis = baseMillis;
+            this.capacity = capacity;
+        }
+
+        long latencyNanos(int concurrency) {
+            return TimeUnit.MILLISECONDS.toNanos(baseMillis) * Math.max(capacity, concurrency) / capacity;
+        }
+    }
+
+    private AdaptiveConcurrencyLimit limiter(Duration probeInterval) {
+        return new AdaptiveConcurrencyLimit(20, 2, 500, 1.5, 10, probeInterval, now::get);
+    }
+
+    /**
+     * Offer {@code clients} concurrent requests per round; returns how many were rejected
+     */
+    private int run(AdaptiveConcurrencyLimit limiter, SlowDatabase database, int clients, int rounds) {
+        int rejected = 0;
+        for (int round = 0; round < rounds; round++) {
+            int[] admitted = new int[clients];
+            int count = 0;
+            for (int i = 0; i < clients; i++) {
+                int inFlight = limiter.tryAcquire();
+                if (inFlight < 0) {
+                    rejected++;
+                } else {
+                    admitted[count++] = inFlight;
+                }
+            }
+            long latency = database.latencyNanos(count);
+            now.addAndGet(latency);
+            for (int i = 0; i < count; i++) {
+                limiter.release(latency, admitted[i], false);
+            }
+        }
+        return rejected;
+    }
+
+    @Test
+    @DisplayName("Under overload the limit settles near the database's capacity and excess requests are rejected")
+    void testConvergesUnderOverload() {
+        // The initial limit is above capacity, so the first window's latency is already queued; probes correct it
+        AdaptiveConcurrencyLimit limiter = limiter(Duration.ofSeconds(1));
+        SlowDatabase database = new SlowDatabase(10, 8);
+
+        int rejected = run(limiter, database, 64, 300);
+
+        assertTrue(rejected > 0);
+        assertTrue(limiter.getLimit() >= 8 && limiter.getLimit() <= 2 * 8 + 4, "limit " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("The limit grows when the database gets more capacity")
+    void testGrowsWithCapacity() {
+        AdaptiveConcurrencyLimit limiter = limiter(Duration.ofHours(1));
+        SlowDatabase database = new SlowDatabase(10, 8);
+        run(limiter, database, 200, 300);
+        int constrained = limiter.getLimit();
+
+        database.capacity = 64;
+        run(limiter, database, 200, 500);
+
+        assertTrue(limiter.getLimit() >= 64, "limit " + limiter.getLimit() + " (was " + constrained + ")");
+    }
+
+    @Test
+    @DisplayName("Light traffic does not inflate the limit")
+    void testNoGrowthWhenAppLimited() {
+        AdaptiveConcurrencyLimit limiter = new AdaptiveConcurrencyLimit(4, 2, 500, 1.5, 10, Duration.ofHours(1), now::get);
+        run(limiter, new SlowDatabase(10, 8), 3, 500);
+
+        // Grows only until three clients use less than half of it
+        assertTrue(limiter.getLimit() <= 2 * 3 + 1, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Windows with overload failures back the limit off")
+    void testBacksOffOnDrops() {
+        AdaptiveConcurrencyLimit limiter = limiter(Duration.ofHours(1));
+        for (int i = 0; i < 300; i++) {
+            int inFlight = limiter.tryAcquire();
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), inFlight, true);
+        }
+
+        assertEquals(2, limiter.getLimit());
+        assertEquals(-1, acquireAll(limiter, 3));
+    }
+
+    @Test
+    @DisplayName("Periodic probing re-learns the no-load latency after the database got slower")
+    void testProbeTracksSlowerDatabase() {
+        AdaptiveConcurrencyLimit limiter = limiter(Duration.ofSeconds(30));
+        SlowDatabase database = new SlowDatabase(10, 8);
+        run(limiter, database, 64, 300);
+
+        // Every query is now three times slower, whatever the concurrency
+        database.baseMillis = 30;
+        run(limiter, database, 64, 3000);
+
+        assertTrue(limiter.getNoLoadRttNanos() >= TimeUnit.MILLISECONDS.toNanos(30), "no-load rtt " + limiter.getNoLoadRttNanos());
+        assertTrue(limiter.getLimit() >= 8, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("The first window measures the no-load latency without probing")
+    void testFirstWindowDoesNotProbe() {
+        AdaptiveConcurrencyLimit limiter = limiter(Duration.ofSeconds(30));
+        run(limiter, new SlowDatabase(10, 32), 20, 1);
+
+        assertTrue(limiter.getLimit() >= 20, "limit " + limiter.getLimit());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), limiter.getNoLoadRttNanos());
+    }
+
+    @Test
+    @DisplayName("After a window of cheap requests, the limit recovers under expensive ones")
+    void testRecoversFromCheapBaseline() {
+        AdaptiveConcurrencyLimit limiter = limiter(Duration.ofSeconds(30));
+        // One window of 1 ms requests, e.g. cached lookups, sets a baseline BCrypt requests never meet
+        run(limiter, new SlowDatabase(1, 64), 10, 1);
+        SlowDatabase bcrypt = new SlowDatabase(100, 64);
+        run(limiter, bcrypt, 64, 40);
+        int collapsed = limiter.getLimit();
+
+        // The next probe re-learns the baseline and the limit grows back to capacity
+        run(limiter, bcrypt, 64, 2000);
+
+        assertTrue(limiter.getNoLoadRttNanos() >= TimeUnit.MILLISECONDS.toNanos(100), "no-load rtt " + limiter.getNoLoadRttNanos());
+        assertTrue(limiter.getLimit() >= 32, "limit " + limiter.getLimit() + " (was " + collapsed + ")");
+    }
+
+    private static int acquireAll(AdaptiveConcurrencyLimit limiter, int count) {
+        int last = 0;
+        for (int i = 0; i < count; i++) {
+            last = limiter.tryAcquire();
+        }
+        return last;
+    }
+}
@@ -0,0 +1,85 @@
+package com.csye6225.webapp.resilience;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(5).toNanos();
+    private static final long SLOW = Duration.ofSeconds(3).toNanos();
+
+    private final AtomicLong now = new AtomicLong();
+
+    private CircuitBreaker breaker() {
+        return new CircuitBreaker("test", 10, 4, 50, 80, Duration.ofSeconds(2),
+                Duration.ofSeconds(10), 2, now::get);
+    }
+
+    private void call(CircuitBreaker breaker, long duration, boolean failure) {
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onResult(duration, failure);
+    }
+
+    @Test
+    @DisplayName("Breaker opens once the failure rate reaches the threshold")
+    void testOpensOnFailureRate() {
+        CircuitBreaker breaker = breaker();
+        call(breaker, FAST, true);
+        call(breaker, FAST, true);
+        call(breaker, FAST, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        call(breaker, FAST, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    @DisplayName("Breaker opens when most calls are slow even if none fail")
+    void testOpensOnSlowCalls() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, SLOW, false);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Half-open probes close the breaker when they succeed")
+    void testHalfOpenProbesClose() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, FAST, true);
+        }
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        breaker.onResult(FAST, false);
+        breaker.onResult(FAST, false);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getRecordedCalls());
+    }
+
+    @Test
+    @DisplayName("A failed half-open probe re-opens the breaker")
+    void testHalfOpenProbeFailureReopens() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, FAST, true);
+        }
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+
+        call(breaker, FAST, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+}
@@ -0,0 +1,83 @@
+package com.csye6225.webapp.resilience;
+
+import com.csye6225.webapp.exception.DatabaseUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseGuardTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private DatabaseGuard guard() {
+        DatabaseResilienceProperties properties = new DatabaseResilienceProperties();
+        properties.getCircuitBreaker().setMinimumCalls(2);
+        properties.getAuth().setMaxConcurrent(1);
+        properties.getAuth().setMaxWait(Duration.ZERO);
+        return new DatabaseGuard(properties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Connection failures trip the breaker and later calls fail fast")
+    void testConnectionFailuresOpenBreaker() {
+        DatabaseGuard guard = guard();
+        for (int i = 0; i < 2; i++) {
+            assertThrows(CannotCreateTransactionException.class, () -> guard.call(DatabaseCompartment.USER_READ, () -> {
+                throw new CannotCreateTransactionException("Connection is not available");
+            }));
+        }
+
+        assertThrows(DatabaseUnavailableException.class, () -> guard.call(DatabaseCompartment.HEALTH, () -> "ok"));
+        assertEquals(1.0, meterRegistry.get("webapp.db.calls.rejected")
+                .tag("compartment", "health").tag("reason", "circuit_open").counter().count());
+    }
+
+    @Test
+    @DisplayName("Business errors such as constraint violations do not count as failures")
+    void testBusinessErrorsIgnored() {
+        DatabaseGuard guard = guard();
+        for (int i = 0; i < 3; i++) {
+            assertThrows(DataIntegrityViolationException.class, () -> guard.call(DatabaseCompartment.USER_WRITE, () -> {
+                throw new DataIntegrityViolationException("Duplicate entry");
+            }));
+        }
+
+        assertEquals("ok", guard.call(DatabaseCompartment.USER_WRITE, () -> "ok"));
+    }
+
+    @Test
+    @DisplayName("A full bulkhead rejects only its own compartment")
+    void testBulkheadIsolation() throws Exception {
+        DatabaseGuard guard = guard();
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> guard.call(DatabaseCompartment.AUTH, () -> {
+                inside.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+            assertTrue(inside.await(5, TimeUnit.SECONDS));
+
+            assertThrows(DatabaseUnavailableException.class, () -> guard.call(DatabaseCompartment.AUTH, () -> "blocked"));
+            assertEquals("ok", guard.call(DatabaseCompartment.HEALTH, () -> "ok"));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
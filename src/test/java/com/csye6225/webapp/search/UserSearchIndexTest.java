@@ -0,0 +1,102 @@
+package com.csye6225.webapp.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSearchIndexTest {
+
+    private final List<UserSearchHit> table = new ArrayList<>();
+
+    private UserSearchIndex index(int compactThreshold) {
+        UserSearchIndex index = new UserSearchIndex(() -> List.copyOf(table), compactThreshold, 10_000);
+        index.rebuild();
+        return index;
+    }
+
+    private UUID row(String username, String firstName, String lastName) {
+        UUID id = UUID.randomUUID();
+        table.add(new UserSearchHit(id, username, firstName, lastName));
+        return id;
+    }
+
+    private static List<String> usernames(List<UserSearchHit> hits) {
+        return hits.stream().map(UserSearchHit::username).toList();
+    }
+
+    @Test
+    @DisplayName("Matches email and name prefixes case-insensitively, ordered by term")
+    void testPrefixSearch() {
+        row("jane.doe@example.com", "Jane", "Doe");
+        row("john.smith@example.com", "John", "Smith");
+        row("alice@example.com", "Alice", "Johnson");
+        UserSearchIndex index = index(1024);
+
+        assertEquals(List.of("jane.doe@example.com"), usernames(index.search("JANE.", 10)));
+        assertEquals(List.of("john.smith@example.com", "alice@example.com"), usernames(index.search("joh", 10)));
+        assertEquals(List.of("john.smith@example.com"), usernames(index.search("joh", 1)));
+        assertTrue(index.search("zed", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Further words must prefix another term of the same user")
+    void testMultiWordQuery() {
+        row("jane.doe@example.com", "Jane", "Doe");
+        row("jane.roe@example.com", "Jane", "Roe");
+        UserSearchIndex index = index(1024);
+
+        assertEquals(List.of("jane.roe@example.com"), usernames(index.search("jane r", 10)));
+    }
+
+    @Test
+    @DisplayName("Incremental updates replace old terms, before and after a merge")
+    void testIncrementalUpdates() {
+        UUID id = row("jane.doe@example.com", "Jane", "Doe");
+        UserSearchIndex index = index(4);
+
+        index.upsert(UUID.randomUUID(), "new.user@example.com", "New", "User");
+        index.upsert(id, "jane.doe@example.com", "Jane", "Smith");
+
+        assertEquals(List.of("new.user@example.com"), usernames(index.search("new", 10)));
+        assertEquals(List.of("jane.doe@example.com"), usernames(index.search("smi", 10)));
+        assertTrue(index.search("doe", 10).isEmpty());
+        // Every upsert adds 3 postings, so the threshold of 4 has triggered a merge that dropped the stale "doe"
+        assertEquals(2, index.size());
+        assertEquals(6, index.postings());
+        assertEquals(1, index.search("jane", 10).size());
+    }
+
+    @Test
+    @DisplayName("Removed users disappear and stay removed across a rebuild that started earlier")
+    void testRemove() {
+        UUID id = row("jane.doe@example.com", "Jane", "Doe");
+        UserSearchIndex index = index(1024);
+
+        index.remove(id);
+        assertTrue(index.search("jane", 10).isEmpty());
+
+        // The table still has the row: a rebuild that read it after the removal brings it back
+        index.rebuild();
+        assertEquals(1, index.search("jane", 10).size());
+    }
+
+    @Test
+    @DisplayName("Memory footprint is reported")
+    void testFootprint() {
+        for (int i = 0; i < 1000; i++) {
+            row("user" + i + "@example.com", "First" + (i % 50), "Last" + (i % 100));
+        }
+        UserSearchIndex index = index(1024);
+
+        assertEquals(1000, index.size());
+        assertEquals(3000, index.postings());
+        // Interned names: only 150 distinct name terms besides the 1000 emails
+        long bytes = index.estimatedBytes();
+        assertTrue(bytes > 100_000 && bytes < 1_000_000, "estimated " + bytes);
+    }
+}
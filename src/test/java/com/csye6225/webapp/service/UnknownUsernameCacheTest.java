@@ -0,0 +1,66 @@
+package com.csye6225.webapp.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnknownUsernameCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private UnknownUsernameCache cache(int maxEntries) {
+        return new UnknownUsernameCache(maxEntries, Duration.ofSeconds(30), now::get);
+    }
+
+    @Test
+    @DisplayName("Recorded misses are served until the TTL expires")
+    void testMissExpiresAfterTtl() {
+        UnknownUsernameCache cache = cache(10);
+        cache.recordMiss("ghost@example.com", cache.generation());
+
+        assertTrue(cache.isKnownMissing("ghost@example.com"));
+        assertTrue(cache.isKnownMissing("GHOST@example.com"));
+
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertFalse(cache.isKnownMissing("ghost@example.com"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Cache never grows past its bound and evicts the eldest entry")
+    void testBoundedSize() {
+        UnknownUsernameCache cache = cache(2);
+        cache.recordMiss("a@example.com", cache.generation());
+        cache.recordMiss("b@example.com", cache.generation());
+        cache.recordMiss("c@example.com", cache.generation());
+
+        assertEquals(2, cache.size());
+        assertFalse(cache.isKnownMissing("a@example.com"));
+        assertTrue(cache.isKnownMissing("c@example.com"));
+    }
+
+    @Test
+    @DisplayName("Invalidation removes the entry and rejects misses observed before it")
+    void testInvalidationWinsOverRacingLookup() {
+        UnknownUsernameCache cache = cache(10);
+        long observed = cache.generation();
+
+        cache.invalidate("new.user@example.com");
+        cache.recordMiss("new.user@example.com", observed);
+
+        assertFalse(cache.isKnownMissing("new.user@example.com"));
+    }
+
+    @Test
+    @DisplayName("A zero bound disables the cache")
+    void testDisabled() {
+        UnknownUsernameCache cache = cache(0);
+        cache.recordMiss("ghost@example.com", cache.generation());
+
+        assertFalse(cache.isKnownMissing("ghost@example.com"));
+    }
+}
@@ -0,0 +1,168 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.datasource.ShardRoutingContext;
+import com.csye6225.webapp.datasource.ShardRoutingDataSource;
+import com.csye6225.webapp.datasource.UserShardKeys;
+import com.csye6225.webapp.datasource.UserShards;
+import com.csye6225.webapp.dto.AdminUserSummary;
+import com.csye6225.webapp.dto.UserLookupResult;
+import com.csye6225.webapp.exception.DatabaseUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import javax.sql.DataSource;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class UserBatchLookupTest {
+
+    private final UserService userService = mock(UserService.class);
+
+    private UserBatchLookup lookup(int chunkSize) {
+        return new UserBatchLookup(userService, new UserShards(null, TransactionOperations.withoutTransaction()),
+                new SimpleMeterRegistry(), chunkSize);
+    }
+
+    private static AdminUserSummary user(UUID id, String username) {
+        return new AdminUserSummary(id, username, "First", "Last", true, LocalDateTime.now(), LocalDateTime.now(), null, 0);
+    }
+
+    @Test
+    @DisplayName("Keys are fetched in chunks and answered in request order")
+    @SuppressWarnings("unchecked")
+    void testChunksAndOrder() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        when(userService.findSummariesById(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> !id.equals(b)).map(id -> user(id, id + "@example.com")).toList();
+        });
+        when(userService.findSummariesByUsername(anyCollection()))
+                .thenReturn(List.of(user(UUID.randomUUID(), "Jane@example.com")));
+
+        List<UserLookupResult> results = lookup(2).lookup(
+                List.of(c.toString(), "jane@EXAMPLE.com", b.toString(), a.toString().toUpperCase(), c.toString()));
+
+        assertEquals(List.of(c.toString(), "jane@EXAMPLE.com", b.toString(), a.toString().toUpperCase(), c.toString()),
+                results.stream().map(UserLookupResult::getKey).toList());
+        assertEquals(c, results.get(0).getUser().getId());
+        assertEquals("Jane@example.com", results.get(1).getUser().getUsername());
+        assertFalse(results.get(2).isFound());
+        assertNull(results.get(2).getUser());
+        assertEquals(a, results.get(3).getUser().getId());
+        assertEquals(c, results.get(4).getUser().getId());
+
+        // Three distinct ids in chunks of two
+        verify(userService, times(2)).findSummariesById(anyCollection());
+        verify(userService, times(1)).findSummariesByUsername(anyCollection());
+    }
+
+    @Test
+    @DisplayName("A key already being fetched by another request is not queried again")
+    void testConcurrentLookupsShareKeys() throws Exception {
+        UUID shared = UUID.randomUUID();
+        CountDownLatch querying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userService.findSummariesById(anyCollection())).thenAnswer(invocation -> {
+            querying.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(user(shared, "shared@example.com"));
+        });
+        UserBatchLookup lookup = lookup(100);
+
+        CompletableFuture<List<UserLookupResult>> first = CompletableFuture.supplyAsync(() -> lookup.lookup(List.of(shared.toString())));
+        assertTrue(querying.await(5, TimeUnit.SECONDS));
+        CompletableFuture<List<UserLookupResult>> second = CompletableFuture.supplyAsync(() -> lookup.lookup(List.of(shared.toString())));
+        Thread.sleep(50);
+        assertFalse(second.isDone());
+
+        release.countDown();
+        assertEquals(shared, first.get(5, TimeUnit.SECONDS).get(0).getUser().getId());
+        assertEquals(shared, second.get(5, TimeUnit.SECONDS).get(0).getUser().getId());
+        verify(userService, times(1)).findSummariesById(anyCollection());
+    }
+
+    @Test
+    @DisplayName("A failed fetch fails the waiting requests too and is not remembered")
+    void testFailureIsShared() {
+        when(userService.findSummariesByUsername(anyCollection()))
+                .thenThrow(new DatabaseUnavailableException("circuit open"))
+                .thenReturn(List.of());
+        UserBatchLookup lookup = lookup(100);
+
+        assertThrows(DatabaseUnavailableException.class, () -> lookup.lookup(List.of("a@example.com")));
+        assertFalse(lookup.lookup(List.of("a@example.com")).get(0).isFound());
+    }
+
+    @Test
+    @DisplayName("An Error thrown by the fetch still completes the futures other requests are waiting on")
+    void testErrorCompletesWaiters() throws Exception {
+        UUID shared = UUID.randomUUID();
+        CountDownLatch querying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userService.findSummariesById(anyCollection())).thenAnswer(invocation -> {
+            querying.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            throw new OutOfMemoryError("simulated");
+        });
+        UserBatchLookup lookup = lookup(100);
+
+        CompletableFuture<List<UserLookupResult>> first = CompletableFuture.supplyAsync(() -> lookup.lookup(List.of(shared.toString())));
+        assertTrue(querying.await(5, TimeUnit.SECONDS));
+        CompletableFuture<List<UserLookupResult>> second = CompletableFuture.supplyAsync(() -> lookup.lookup(List.of(shared.toString())));
+        Thread.sleep(50);
+        assertFalse(second.isDone());
+
+        release.countDown();
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(OutOfMemoryError.class, failed.getCause());
+        ExecutionException waiter = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(OutOfMemoryError.class, waiter.getCause().getCause());
+    }
+
+    @Test
+    @DisplayName("Sharded: usernames go to their owning shard, ids to their issuing shard and then the others")
+    void testShardedRouting() {
+        ShardRoutingDataSource shards = new ShardRoutingDataSource(List.of(mock(DataSource.class), mock(DataSource.class)));
+        UserShards userShards = new UserShards(shards, TransactionOperations.withoutTransaction());
+        UserBatchLookup lookup = new UserBatchLookup(userService, userShards, new SimpleMeterRegistry(), 100);
+
+        // Issued on shard 1, since moved to shard 0 by a rebalance
+        UUID moved = UserShardKeys.newId(1);
+        Map<Object, Integer> queriedOn = new ConcurrentHashMap<>();
+        when(userService.findSummariesById(anyCollection())).thenAnswer(invocation -> {
+            int shard = ShardRoutingContext.current();
+            Collection<UUID> ids = invocation.getArgument(0);
+            ids.forEach(id -> queriedOn.merge(id, 1, Integer::sum));
+            return shard == 0 ? ids.stream().map(id -> user(id, "moved@example.com")).toList() : List.of();
+        });
+        String username = "jane@example.com";
+        when(userService.findSummariesByUsername(anyCollection())).thenAnswer(invocation -> {
+            assertEquals(userShards.shardFor(username), ShardRoutingContext.current());
+            return List.of(user(UUID.randomUUID(), username));
+        });
+
+        List<UserLookupResult> results = lookup.lookup(List.of(moved.toString(), username));
+
+        assertEquals(moved, results.get(0).getUser().getId());
+        assertEquals(2, queriedOn.get(moved));
+        assertTrue(results.get(1).isFound());
+        assertNull(ShardRoutingContext.current());
+    }
+}
@@ -0,0 +1,152 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.datasource.ReadYourWritesTracker;
+import com.csye6225.webapp.datasource.UserShards;
+import com.csye6225.webapp.dto.UserCreateRequest;
+import com.csye6225.webapp.dto.UserUpdateRequest;
+import com.csye6225.webapp.entity.User;
+import com.csye6225.webapp.outbox.UserEventOutbox;
+import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.resilience.DatabaseCompartment;
+import com.csye6225.webapp.resilience.DatabaseGuard;
+import com.csye6225.webapp.resilience.DatabaseResilienceProperties;
+import com.csye6225.webapp.search.UserSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Where BCrypt runs relative to the USER_WRITE guard; the database is mocked
+ */
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UnknownUsernameCache unknownUsernameCache;
+
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Mock
+    private UserEventOutbox userEventOutbox;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserSearchIndex userSearchIndex;
+
+    @Spy
+    private UserShards userShards = new UserShards(null, TransactionOperations.withoutTransaction());
+
+    @Spy
+    private DatabaseGuard databaseGuard = guard();
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private UserService userService;
+
+    // One write slot, no waiting: a hash inside the guard would show up as a taken slot
+    private static DatabaseGuard guard() {
+        DatabaseResilienceProperties properties = new DatabaseResilienceProperties();
+        properties.getUserWrite().setMaxConcurrent(1);
+        properties.getUserWrite().setMaxWait(Duration.ZERO);
+        return new DatabaseGuard(properties, new SimpleMeterRegistry());
+    }
+
+    private int freeWriteSlots() {
+        return databaseGuard.getBulkheads().get(DatabaseCompartment.USER_WRITE).getAvailable();
+    }
+
+    private static UserCreateRequest request() {
+        UserCreateRequest request = new UserCreateRequest();
+        request.setUsername("jane@example.com");
+        request.setPassword("secureP@ssw0rd");
+        request.setFirstName("Jane");
+        request.setLastName("Doe");
+        return request;
+    }
+
+    @Test
+    @DisplayName("Sign-up hashes the password while no USER_WRITE slot is held")
+    void testCreateHashesOutsideGuard() {
+        when(passwordEncoder.encode("secureP@ssw0rd")).thenAnswer(invocation -> {
+            assertEquals(1, freeWriteSlots());
+            return "hash";
+        });
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals("jane@example.com", userService.createUser(request()).getUsername());
+        verify(userRepository).save(argThat(user -> "hash".equals(user.getPassword())));
+        assertEquals(1, freeWriteSlots());
+    }
+
+    @Test
+    @DisplayName("An existing username is a conflict before any hashing")
+    void testCreateDuplicateSkipsHash() {
+        when(userRepository.existsByUsername("jane@example.com")).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> userService.createUser(request()));
+        verifyNoInteractions(passwordEncoder);
+    }
+
+    @Test
+    @DisplayName("A concurrent sign-up that loses on the unique constraint is a conflict too")
+    void testCreateRaceIsConflict() {
+        when(passwordEncoder.encode(any())).thenReturn("hash");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> userService.createUser(request()));
+        assertEquals("A user with this email address already exists", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("A password change is hashed while no USER_WRITE slot is held")
+    void testUpdateHashesOutsideGuard() {
+        User user = new User();
+        user.setUsername("jane@example.com");
+        user.setPassword("old");
+        when(passwordEncoder.encode("newP@ssw0rd")).thenAnswer(invocation -> {
+            assertEquals(1, freeWriteSlots());
+            return "new-hash";
+        });
+        when(userRepository.findByUsername("jane@example.com")).thenAnswer(invocation -> {
+            assertEquals(0, freeWriteSlots());
+            return Optional.of(user);
+        });
+
+        UserUpdateRequest request = new UserUpdateRequest();
+        request.setPassword("newP@ssw0rd");
+        // The mocked transaction manager does not start synchronization; the update registers an after-commit hook
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(userService.updateUser("jane@example.com", request));
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+        assertEquals("new-hash", user.getPassword());
+    }
+}
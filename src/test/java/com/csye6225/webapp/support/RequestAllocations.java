@@ -0,0 +1,73 @@
+package com.csye6225.webapp.support;
+
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Bytes a request allocates on the thread that handles it, from the JVM's per-thread allocation
+ * counter. MockMvc handles a request on the calling thread, so the count covers the filters,
+ * Spring Security, the controller and everything below it, plus MockMvc's own request and
+ * response objects and, with the embedded test database, the database's work:
+ * <pre>
+ * assertAllocatedAtMost(kilobytes(40), mockMvc, () -> get("/healthz"), status().isOk());
+ * </pre>
+ * Each request is sent a number of times first, so lazy initialization and JIT compilation are
+ * over, and the fewest bytes of the measured repetitions count: a stray allocation by a cache
+ * refill or a sampled trace does not fail the budget, an extra allocation on every request does.
+ */
+public final class RequestAllocations {
+
+    private static final int WARMUP = 20;
+    private static final int MEASURED = 10;
+
+    private RequestAllocations() {
+    }
+
+    public static long kilobytes(long kilobytes) {
+        return kilobytes * 1024;
+    }
+
+    public static void assertAllocatedAtMost(long budgetBytes, MockMvc mockMvc, Supplier<? extends RequestBuilder> request,
+                                              ResultMatcher... expected) throws Exception {
+        Measurement measurement = measure(mockMvc, request, expected);
+        assertTrue(measurement.bytes() <= budgetBytes, String.format(
+                "%s allocated %,d bytes per request on the handling thread, over its budget of %,d. "
+                        + "Find the new allocation, or raise the budget deliberately.",
+                measurement.endpoint(), measurement.bytes(), budgetBytes));
+    }
+
+    private static Measurement measure(MockMvc mockMvc, Supplier<? extends RequestBuilder> request,
+                                       ResultMatcher... expected) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Per-thread allocation counters are not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        long fewest = Long.MAX_VALUE;
+        MvcResult result = null;
+        for (int i = 0; i < WARMUP + MEASURED; i++) {
+            // Built outside the measurement: the request's own construction is the client's cost
+            RequestBuilder builder = request.get();
+            long before = threads.getCurrentThreadAllocatedBytes();
+            result = mockMvc.perform(builder).andReturn();
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            for (ResultMatcher matcher : expected) {
+                matcher.match(result);
+            }
+            if (i >= WARMUP) {
+                fewest = Math.min(fewest, allocated);
+            }
+        }
+        return new Measurement(result.getRequest().getMethod() + " " + result.getRequest().getRequestURI(), fewest);
+    }
+
+    private record Measurement(String endpoint, long bytes) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.csye6225.webapp.support;
+
+import com.csye6225.webapp.sqlstats.RequestSqlStats;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * MockMvc matchers over the per-request Hibernate statistics, so a redundant query on an
+ * endpoint fails the build:
+ * <pre>
+ * mockMvc.perform(get("/v1/user/self")...)
+ *         .andExpect(sqlStatements(2));
+ * </pre>
+ */
+public final class SqlStatementMatchers {
+
+    private SqlStatementMatchers() {
+    }
+
+    public static ResultMatcher sqlStatements(int expected) {
+        return result -> assertEquals(expected, stats(result).getStatements(),
+                "SQL statements for " + describe(result) + " (" + stats(result) + ")");
+    }
+
+    public static ResultMatcher entityLoads(int expected) {
+        return result -> assertEquals(expected, stats(result).getEntityLoads(),
+                "Entity loads for " + describe(result) + " (" + stats(result) + ")");
+    }
+
+    public static ResultMatcher flushes(int expected) {
+        return result -> assertEquals(expected, stats(result).getFlushes(),
+                "Flushes for " + describe(result) + " (" + stats(result) + ")");
+    }
+
+    public static RequestSqlStats stats(MvcResult result) {
+        RequestSqlStats stats = (RequestSqlStats) result.getRequest().getAttribute(RequestSqlStats.REQUEST_ATTRIBUTE);
+        assertNotNull(stats, "No SQL statistics recorded; is SqlStatementBudgetFilter registered?");
+        return stats;
+    }
+
+    private static String describe(MvcResult result) {
+        return result.getRequest().getMethod() + " " + result.getRequest().getRequestURI();
+    }
+}
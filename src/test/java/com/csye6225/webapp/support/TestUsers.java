@@ -0,0 +1,41 @@
+package com.csye6225.webapp.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Accounts for integration tests: usernames unique to this test run, so classes sharing a
+ * database (a cached context, or MySQL in CI) never collide, and Basic credentials for them:
+ * <pre>
+ * String username = username("purge.admin");
+ * mockMvc.perform(get("/v1/user/self").header("Authorization", auth(username)))...
+ * </pre>
+ */
+public final class TestUsers {
+
+    public static final String PASSWORD = "secureP@ssw0rd";
+    // Taken once per JVM; also names the embedded databases of classes that need their own
+    public static final String RUN = String.valueOf(System.currentTimeMillis());
+
+    private TestUsers() {
+    }
+
+    /**
+     * @return e.g. purge.admin1760885731109@example.com for the prefix purge.admin
+     */
+    public static String username(String prefix) {
+        return prefix + RUN + "@example.com";
+    }
+
+    /**
+     * Authorization header for the username with {@link #PASSWORD}
+     */
+    public static String auth(String username) {
+        return auth(username, PASSWORD);
+    }
+
+    public static String auth(String username, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString(
+                (username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+}
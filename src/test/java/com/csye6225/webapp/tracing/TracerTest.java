@@ -0,0 +1,136 @@
+package com.csye6225.webapp.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TracerTest {
+
+    private final List<List<SpanData>> exported = new ArrayList<>();
+
+    private Tracer tracer(double ratio, Duration latencyThreshold, int maxSpans) {
+        return new Tracer(new TailSampler(ratio, latencyThreshold, 100), exported::add, maxSpans);
+    }
+
+    @Test
+    @DisplayName("traceparent headers are parsed per W3C Trace Context; malformed ones are ignored")
+    void testTraceparent() {
+        TraceContext context = TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", context.traceId());
+        assertEquals("00f067aa0ba902b7", context.spanId());
+        assertTrue(context.sampled());
+        assertEquals("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01", context.toTraceparent());
+        assertFalse(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00").sampled());
+
+        assertNull(TraceContext.parse(null));
+        assertNull(TraceContext.parse("00-00000000000000000000000000000000-00f067aa0ba902b7-01"));
+        assertNull(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01"));
+        assertNull(TraceContext.parse("00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01"));
+        assertNull(TraceContext.parse("ff-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"));
+        assertNull(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01-extra"));
+        // Future versions may add fields
+        assertNotNull(TraceContext.parse("01-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01-extra"));
+    }
+
+    @Test
+    @DisplayName("Child spans nest under the current span and hand it back when they end")
+    void testNesting() {
+        Tracer tracer = tracer(1.0, Duration.ofMinutes(1), 100);
+        assertFalse(Tracer.startSpan("outside", SpanKind.INTERNAL).isRecording());
+
+        Span root = tracer.startTrace("GET /x", null);
+        try (Span service = Tracer.startSpan("service", SpanKind.INTERNAL)) {
+            try (Span sql = Tracer.startSpan("SELECT", SpanKind.CLIENT)) {
+                assertSame(sql, Tracer.current());
+            }
+            assertSame(service, Tracer.current());
+        }
+        assertSame(root, Tracer.current());
+        root.end();
+        assertNull(Tracer.current());
+
+        List<SpanData> trace = exported.get(0);
+        assertEquals(List.of("SELECT", "service", "GET /x"), trace.stream().map(SpanData::name).toList());
+        assertEquals(trace.get(1).spanId(), trace.get(0).parentSpanId());
+        assertEquals(trace.get(2).spanId(), trace.get(1).parentSpanId());
+        assertNull(trace.get(2).parentSpanId());
+    }
+
+    @Test
+    @DisplayName("Tail sampling keeps failed, slow and caller-sampled traces and a ratio of the rest")
+    void testTailSampling() {
+        Tracer tracer = tracer(0.0, Duration.ofMinutes(1), 100);
+        TraceContext unsampled = new TraceContext("4bf92f3577b34da6a3ce929d0e0e4736", "00f067aa0ba902b7", false);
+
+        tracer.startTrace("ok", unsampled).end();
+        tracer.startTrace("failed", unsampled).setError(null).end();
+        tracer.startTrace("sampled upstream", new TraceContext(unsampled.traceId(), unsampled.spanId(), true)).end();
+        assertEquals(List.of("failed", "sampled upstream"), exported.stream().map(trace -> trace.get(0).name()).toList());
+
+        Tracer slowOnly = tracer(0.0, Duration.ZERO, 100);
+        slowOnly.startTrace("slow", null).end();
+        assertEquals(3, exported.size());
+
+        TailSampler half = new TailSampler(0.5, Duration.ofMinutes(1), 100);
+        assertTrue(half.inRatio("00000000000000000000000000000001"));
+        assertFalse(half.inRatio("0000000000000000ffffffffffffffff"));
+    }
+
+    @Test
+    @DisplayName("Tail sampling keeps 4xx traces, whose ids go out in error bodies, up to a number per second")
+    void testClientErrorTraces() {
+        AtomicLong now = new AtomicLong();
+        Tracer tracer = new Tracer(new TailSampler(0.0, Duration.ofMinutes(1), 2, now::get), exported::add, 100);
+
+        for (int status : new int[] {404, 200, 401, 401}) {
+            tracer.startTrace(String.valueOf(status), null).setAttribute("http.response.status_code", status).end();
+        }
+        assertEquals(List.of("404", "401"), exported.stream().map(trace -> trace.get(0).name()).toList());
+
+        // The next second has room again
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        tracer.startTrace("400", null).setAttribute("http.response.status_code", 400).end();
+        assertEquals(3, exported.size());
+    }
+
+    @Test
+    @DisplayName("Spans beyond the per-trace limit are not recorded")
+    void testSpanLimit() {
+        Tracer tracer = tracer(1.0, Duration.ofMinutes(1), 3);
+        Span root = tracer.startTrace("root", null);
+        for (int i = 0; i < 5; i++) {
+            Tracer.startSpan("child" + i, SpanKind.INTERNAL).end();
+        }
+        root.end();
+        assertEquals(3, exported.get(0).size());
+    }
+
+    @Test
+    @DisplayName("The file exporter writes OTLP/JSON")
+    void testOtlpJson() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Tracer tracer = tracer(1.0, Duration.ofMinutes(1), 100);
+        Span root = tracer.startTrace("GET /v1/user/self", null);
+        root.setAttribute("http.response.status_code", 503).setError("down");
+        root.end();
+
+        JsonNode otlp = new FileSpanExporter("unused.jsonl", "webapp", objectMapper).toOtlp(exported.get(0));
+        JsonNode resourceSpans = otlp.get("resourceSpans").get(0);
+        assertEquals("service.name", resourceSpans.get("resource").get("attributes").get(0).get("key").asText());
+        JsonNode span = resourceSpans.get("scopeSpans").get(0).get("spans").get(0);
+        assertEquals(32, span.get("traceId").asText().length());
+        assertEquals(2, span.get("kind").asInt());
+        assertFalse(span.has("parentSpanId"));
+        assertTrue(span.get("startTimeUnixNano").isTextual());
+        assertEquals("503", span.get("attributes").get(0).get("value").get("intValue").asText());
+        assertEquals(2, span.get("status").get("code").asInt());
+    }
+}
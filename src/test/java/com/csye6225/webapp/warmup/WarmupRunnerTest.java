@@ -0,0 +1,71 @@
+package com.csye6225.webapp.warmup;
+
+import com.csye6225.webapp.exception.DatabaseUnavailableException;
+import com.csye6225.webapp.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class WarmupRunnerTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private WarmupRunner runner(int serialization, int queries, int bcrypt, Duration budget) {
+        when(userService.mapToResponse(any())).thenCallRealMethod();
+        return new WarmupRunner(userService, new ObjectMapper().findAndRegisterModules(),
+                new BCryptPasswordEncoder(4), eventPublisher, serialization, queries, bcrypt, budget);
+    }
+
+    @Test
+    @DisplayName("Every phase runs to its iteration target and readiness is refused meanwhile")
+    void testRunsAllPhases() throws Exception {
+        when(userService.findResponseByUsername(anyString())).thenReturn(Optional.empty());
+        WarmupRunner runner = runner(50, 10, 2, Duration.ofSeconds(30));
+
+        runner.run(new DefaultApplicationArguments());
+
+        verify(userService, times(10)).findResponseByUsername(anyString());
+        verify(userService, times(50)).mapToResponse(any());
+        ArgumentCaptor<ApplicationEvent> event = ArgumentCaptor.forClass(ApplicationEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(ReadinessState.REFUSING_TRAFFIC, ((AvailabilityChangeEvent<?>) event.getValue()).getState());
+    }
+
+    @Test
+    @DisplayName("A failing query stops its phase without failing startup")
+    void testStopsPhaseOnFailure() {
+        when(userService.findResponseByUsername(anyString())).thenThrow(new DatabaseUnavailableException("circuit open"));
+        WarmupRunner runner = runner(1, 100, 1, Duration.ofSeconds(30));
+
+        assertDoesNotThrow(() -> runner.run(new DefaultApplicationArguments()));
+        verify(userService, times(1)).findResponseByUsername(anyString());
+    }
+
+    @Test
+    @DisplayName("The time budget bounds a phase")
+    void testTimeBudget() {
+        WarmupRunner runner = runner(1, 1, 1, Duration.ofSeconds(30));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+
+        int completed = runner.repeat("sleep", Integer.MAX_VALUE, deadline, i -> Thread.sleep(10));
+
+        assertTrue(completed > 0 && completed < 10, "completed " + completed);
+    }
+}